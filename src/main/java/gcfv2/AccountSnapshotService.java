@@ -0,0 +1,193 @@
+package gcfv2;
+
+import gcfv2.dto.AccountSnapshot;
+import io.micronaut.context.annotation.Value;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monta a visão da conta (plano, créditos, logo) usada por /login, /status e
+ * /api/me.
+ *
+ * A visão é carregada com uma única query (usuário + manager + personal) e
+ * mantida num LRU limitado. Toda escrita em plano, créditos, avatar/logo ou
+ * vínculos deve chamar {@link #invalidate(Long)}; o TTL cobre apenas escritas
+ * feitas fora da aplicação.
+ */
+@Singleton
+public class AccountSnapshotService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AccountSnapshotService.class);
+
+    // generationsLimit: -1 significa custo em créditos (não ilimitado)
+    // generationCost: custo em créditos por geração
+    private static final Map<String, Map<String, Object>> PLANS = Map.of(
+            "FREE", Map.of("generationsLimit", -1, "generationCost", 5),
+            "STARTER", Map.of("generationsLimit", -1, "generationCost", 4),
+            "PRO", Map.of("generationsLimit", -1, "generationCost", 3),
+            "STUDIO", Map.of("generationsLimit", -1, "generationCost", 2));
+
+    private final UsuarioRepository usuarioRepository;
+    private final int maxEntries;
+    private final long ttlNanos;
+
+    // Incrementado a cada invalidação para descartar carregamentos concorrentes
+    // que leram o estado antigo do banco
+    private final AtomicLong generation = new AtomicLong();
+
+    private final Map<Long, CachedSnapshot> snapshots;
+
+    public AccountSnapshotService(
+            UsuarioRepository usuarioRepository,
+            @Value("${account.snapshot.cache.max-entries:5000}") int maxEntries,
+            @Value("${account.snapshot.cache.ttl-seconds:60}") long ttlSeconds) {
+        this.usuarioRepository = usuarioRepository;
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+        this.snapshots = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedSnapshot> eldest) {
+                return size() > AccountSnapshotService.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Retorna a visão da conta, consultando o banco apenas em caso de miss.
+     */
+    public Optional<AccountSnapshot> get(Long userId) {
+        if (userId == null) {
+            return Optional.empty();
+        }
+
+        long now = System.nanoTime();
+        synchronized (snapshots) {
+            CachedSnapshot cached = snapshots.get(userId);
+            if (cached != null) {
+                if (now - cached.loadedAt < ttlNanos) {
+                    return Optional.of(cached.snapshot);
+                }
+                snapshots.remove(userId);
+            }
+        }
+
+        long gen = generation.get();
+        Optional<AccountSnapshot> loaded = usuarioRepository.findAccountSnapshot(userId);
+        if (loaded.isPresent() && maxEntries > 0) {
+            synchronized (snapshots) {
+                if (generation.get() == gen) {
+                    snapshots.put(userId, new CachedSnapshot(loaded.get(), now));
+                }
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Remove a visão do usuário e de quem depende dele: professores cujo
+     * manager é o usuário (créditos/logo) e alunos cujo personal é o usuário
+     * (logo).
+     */
+    public void invalidate(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        generation.incrementAndGet();
+        synchronized (snapshots) {
+            snapshots.remove(userId);
+            snapshots.values().removeIf(c -> userId.equals(c.snapshot.getManagerId())
+                    || userId.equals(c.snapshot.getPersonalId()));
+        }
+        LOG.debug("AccountSnapshot: usuário {} invalidado", userId);
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        synchronized (snapshots) {
+            snapshots.clear();
+        }
+    }
+
+    /**
+     * Corpo padrão da resposta (dados do usuário + plan + usage).
+     */
+    public Map<String, Object> toResponse(AccountSnapshot snapshot) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("id", snapshot.getId());
+        response.put("name", snapshot.getNome() != null ? snapshot.getNome() : "");
+        response.put("email", snapshot.getEmail() != null ? snapshot.getEmail() : "");
+        response.put("role", snapshot.getRole() != null ? snapshot.getRole() : "USER");
+        response.put("avatar", snapshot.getAvatar() != null ? snapshot.getAvatar() : "");
+        response.put("brandLogo", effectiveBrandLogo(snapshot));
+        response.put("accessLevel", snapshot.getAccessLevel() != null ? snapshot.getAccessLevel() : "FULL");
+        response.put("methodology", snapshot.getMethodology());
+        response.put("communicationStyle", snapshot.getCommunicationStyle());
+
+        if ("PROFESSOR".equalsIgnoreCase(snapshot.getRole()) && snapshot.getManagerId() != null) {
+            response.put("managerId", snapshot.getManagerId());
+        }
+        if (snapshot.getPersonalId() != null) {
+            response.put("personalId", snapshot.getPersonalId());
+        }
+
+        String planType = snapshot.getPlanType() != null ? snapshot.getPlanType() : "FREE";
+        Map<String, Object> planInfo = PLANS.getOrDefault(planType, PLANS.get("FREE"));
+
+        response.put("plan", Map.of(
+                "type", planType,
+                "status", snapshot.getSubscriptionStatus() != null ? snapshot.getSubscriptionStatus() : "INACTIVE",
+                "renewsAt", snapshot.getSubscriptionEndDate() != null ? snapshot.getSubscriptionEndDate().toString()
+                        : ""));
+
+        int subCredits = snapshot.getSubscriptionCredits() != null ? snapshot.getSubscriptionCredits() : 0;
+        int purCredits = snapshot.getPurchasedCredits() != null ? snapshot.getPurchasedCredits() : 0;
+
+        // Legacy Fix: Se sub + pur != total, assumir que a diferença é crédito comprado
+        // (legado)
+        int totalCreditsColumn = snapshot.getCredits() != null ? snapshot.getCredits() : 0;
+        if (subCredits + purCredits != totalCreditsColumn) {
+            purCredits = Math.max(0, totalCreditsColumn - subCredits);
+        }
+
+        response.put("usage", Map.of(
+                "credits", subCredits + purCredits,
+                "subscriptionCredits", subCredits,
+                "purchasedCredits", purCredits,
+                "generations", snapshot.getGenerationsUsedCycle() != null ? snapshot.getGenerationsUsedCycle() : 0,
+                "generationsLimit", planInfo.get("generationsLimit"),
+                "generationCost", planInfo.get("generationCost")));
+
+        return response;
+    }
+
+    /**
+     * Logo própria; aluno herda a do personal e professor a do manager.
+     */
+    private static String effectiveBrandLogo(AccountSnapshot snapshot) {
+        String brandLogo = snapshot.getBrandLogo();
+        if (brandLogo == null && "USER".equalsIgnoreCase(snapshot.getRole())) {
+            brandLogo = snapshot.getPersonalBrandLogo();
+        }
+        if (brandLogo == null && "PROFESSOR".equalsIgnoreCase(snapshot.getRole())) {
+            brandLogo = snapshot.getManagerBrandLogo();
+        }
+        return brandLogo != null ? brandLogo : "";
+    }
+
+    private static final class CachedSnapshot {
+        private final AccountSnapshot snapshot;
+        private final long loadedAt;
+
+        private CachedSnapshot(AccountSnapshot snapshot, long loadedAt) {
+            this.snapshot = snapshot;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
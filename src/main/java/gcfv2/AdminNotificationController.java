@@ -11,9 +11,7 @@ import jakarta.inject.Inject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.CompletableFuture;
+import java.util.Map;
 
 /**
  * Controller para notificações administrativas.
@@ -35,10 +33,7 @@ public class AdminNotificationController {
     private static final Logger LOG = LoggerFactory.getLogger(AdminNotificationController.class);
 
     @Inject
-    private UsuarioRepository usuarioRepository;
-
-    @Inject
-    private EmailService emailService;
+    private BroadcastService broadcastService;
 
     /**
      * Endpoint para envio de e-mails em massa pelo administrador.
@@ -110,114 +105,108 @@ public class AdminNotificationController {
                     .body(AdminEmailResponse.error("O campo 'targetAudience' é obrigatório."));
         }
 
-        // 3. Resolver lista de destinatários com base no targetAudience
-        List<String> emails = new ArrayList<>();
+        // 3. Validar o público
         String targetAudience = request.getTargetAudience().toUpperCase().trim();
+        String specificEmail = null;
 
-        try {
-            switch (targetAudience) {
-                case "SPECIFIC":
-                    if (request.getSpecificEmail() == null || request.getSpecificEmail().trim().isEmpty()) {
-                        return HttpResponse.badRequest()
-                                .body(AdminEmailResponse.error(
-                                        "O campo 'specificEmail' é obrigatório quando targetAudience é 'SPECIFIC'."));
-                    }
-                    // Validação básica de e-mail
-                    if (!request.getSpecificEmail().contains("@")) {
-                        return HttpResponse.badRequest()
-                                .body(AdminEmailResponse.error("O e-mail especificado é inválido."));
-                    }
-                    emails.add(request.getSpecificEmail().trim());
-                    break;
-
-                case "ALL":
-                    usuarioRepository.findAll().forEach(u -> {
-                        if (u.getEmail() != null && !u.getEmail().isEmpty()) {
-                            emails.add(u.getEmail());
-                        }
-                    });
-                    break;
-
-                case "PERSONALS":
-                    usuarioRepository.findByRole("personal").forEach(u -> {
-                        if (u.getEmail() != null && !u.getEmail().isEmpty()) {
-                            emails.add(u.getEmail());
-                        }
-                    });
-                    break;
-
-                case "PERSONALS_AND_PROFESSORS":
-                    usuarioRepository.findByRole("personal").forEach(u -> {
-                        if (u.getEmail() != null && !u.getEmail().isEmpty()) {
-                            emails.add(u.getEmail());
-                        }
-                    });
-                    usuarioRepository.findByRole("professor").forEach(u -> {
-                        if (u.getEmail() != null && !u.getEmail().isEmpty()) {
-                            emails.add(u.getEmail());
-                        }
-                    });
-                    break;
-
-                case "STUDENTS":
-                    usuarioRepository.findByRole("user").forEach(u -> {
-                        if (u.getEmail() != null && !u.getEmail().isEmpty()) {
-                            emails.add(u.getEmail());
-                        }
-                    });
-                    break;
-
-                default:
+        switch (targetAudience) {
+            case "SPECIFIC":
+                if (request.getSpecificEmail() == null || request.getSpecificEmail().trim().isEmpty()) {
                     return HttpResponse.badRequest()
                             .body(AdminEmailResponse.error(
-                                    "Valor inválido para 'targetAudience'. Valores aceitos: ALL, PERSONALS, PERSONALS_AND_PROFESSORS, STUDENTS, SPECIFIC."));
-            }
+                                    "O campo 'specificEmail' é obrigatório quando targetAudience é 'SPECIFIC'."));
+                }
+                // Validação básica de e-mail
+                if (!request.getSpecificEmail().contains("@")) {
+                    return HttpResponse.badRequest()
+                            .body(AdminEmailResponse.error("O e-mail especificado é inválido."));
+                }
+                specificEmail = request.getSpecificEmail().trim();
+                break;
+
+            case "ALL":
+            case "PERSONALS":
+            case "PERSONALS_AND_PROFESSORS":
+            case "STUDENTS":
+                break;
+
+            default:
+                return HttpResponse.badRequest()
+                        .body(AdminEmailResponse.error(
+                                "Valor inválido para 'targetAudience'. Valores aceitos: ALL, PERSONALS, PERSONALS_AND_PROFESSORS, STUDENTS, SPECIFIC."));
+        }
+
+        // 4. Agendar o broadcast (renderizado uma vez, enviado em lotes em background)
+        final String subject = request.getSubject().trim();
+        final String body = request.getBody().trim();
+        final String imageUrl = request.getImageUrl() != null ? request.getImageUrl().trim() : null;
+
+        BroadcastJob job;
+        try {
+            job = broadcastService.enqueue(requesterId, targetAudience, specificEmail, subject, body, imageUrl,
+                    requestBaseUrl);
         } catch (Exception e) {
-            LOG.error("❌ Erro ao buscar destinatários: {}", e.getMessage());
+            LOG.error("❌ Erro ao agendar broadcast: {}", e.getMessage());
             return HttpResponse.serverError()
-                    .body(AdminEmailResponse.error("Erro ao resolver lista de destinatários."));
+                    .body(AdminEmailResponse.error("Erro ao agendar o envio dos e-mails."));
         }
 
-        if (emails.isEmpty()) {
+        int totalRecipients = job.getTotalRecipients() != null ? job.getTotalRecipients() : 0;
+        if (totalRecipients == 0) {
             return HttpResponse.ok()
-                    .body(AdminEmailResponse.success("Nenhum destinatário encontrado para o critério selecionado.", 0));
+                    .body(AdminEmailResponse.success("Nenhum destinatário encontrado para o critério selecionado.", 0)
+                            .withJobId(job.getId()));
         }
 
-        LOG.info("📬 Enviando e-mail para {} destinatário(s). Assunto: {}", emails.size(), request.getSubject());
-
-        // 4. Enviar e-mails (fire-and-forget para não bloquear a requisição)
-        final String subject = request.getSubject().trim();
-        final String body = request.getBody().trim();
-        final String imageUrl = request.getImageUrl() != null ? request.getImageUrl().trim() : null;
-        final int totalRecipients = emails.size();
-
-        // Fire-and-forget: Enviar em background
-        CompletableFuture.runAsync(() -> {
-            int successCount = 0;
-            int failCount = 0;
-
-            for (String email : emails) {
-                try {
-                    boolean sent = emailService.sendAdminBroadcastEmail(email, subject, body, imageUrl, requestBaseUrl);
-                    if (sent) {
-                        successCount++;
-                    } else {
-                        failCount++;
-                        LOG.warn("⚠️ Falha ao enviar e-mail para: {}", email);
-                    }
-                } catch (Exception e) {
-                    failCount++;
-                    LOG.error("❌ Exceção ao enviar e-mail para {}: {}", email, e.getMessage());
-                }
-            }
-
-            LOG.info("✅ Envio de e-mails concluído. Sucesso: {}, Falha: {}", successCount, failCount);
-        });
+        LOG.info("📬 Broadcast {} agendado para {} destinatário(s). Assunto: {}", job.getId(), totalRecipients,
+                subject);
 
-        // 5. Retornar resposta imediata (não espera o envio terminar)
+        // 5. Retornar resposta imediata (progresso em /admin/broadcasts/{jobId})
         return HttpResponse.ok()
                 .body(AdminEmailResponse.success(
                         String.format("E-mails sendo enviados para %d destinatário(s).", totalRecipients),
-                        totalRecipients));
+                        totalRecipients).withJobId(job.getId()));
+    }
+
+    /**
+     * Progresso de um broadcast: status, total estimado, enviados e falhas.
+     *
+     * GET /api/notifications/admin/broadcasts/{jobId}?requesterId=..&requesterRole=ADMIN
+     */
+    @Get("/admin/broadcasts/{jobId}")
+    public HttpResponse<?> getBroadcastStatus(
+            @PathVariable Long jobId,
+            @QueryValue Long requesterId,
+            @QueryValue String requesterRole) {
+        if (requesterRole == null || !"ADMIN".equalsIgnoreCase(requesterRole)) {
+            return HttpResponse.status(HttpStatus.FORBIDDEN)
+                    .body(AdminEmailResponse.error("Acesso negado."));
+        }
+        return broadcastService.findJob(jobId)
+                .<HttpResponse<?>>map(HttpResponse::ok)
+                .orElseGet(HttpResponse::notFound);
+    }
+
+    /**
+     * Reenvia os lotes que falharam de um broadcast finalizado.
+     *
+     * POST /api/notifications/admin/broadcasts/{jobId}/retry-failed?requesterId=..&requesterRole=ADMIN
+     */
+    @Post("/admin/broadcasts/{jobId}/retry-failed")
+    public HttpResponse<?> retryFailedBroadcastBatches(
+            @PathVariable Long jobId,
+            @QueryValue Long requesterId,
+            @QueryValue String requesterRole) {
+        if (requesterRole == null || !"ADMIN".equalsIgnoreCase(requesterRole)) {
+            return HttpResponse.status(HttpStatus.FORBIDDEN)
+                    .body(AdminEmailResponse.error("Acesso negado."));
+        }
+        if (broadcastService.findJob(jobId).isEmpty()) {
+            return HttpResponse.notFound();
+        }
+        int batches = broadcastService.retryFailed(jobId);
+        return HttpResponse.ok(Map.of(
+                "jobId", jobId,
+                "batchesScheduled", batches));
     }
 }
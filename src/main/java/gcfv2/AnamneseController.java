@@ -25,6 +25,9 @@ public class AnamneseController {
     @Inject
     private UsuarioRepository usuarioRepository;
 
+    @Inject
+    private PermissionService permissionService;
+
     /**
      * GET Anamnese by User ID
      */
@@ -34,7 +37,7 @@ public class AnamneseController {
             @QueryValue Long requesterId,
             @QueryValue String requesterRole) {
 
-        if (!usuarioRepository.hasPermission(requesterId, requesterRole, userId.toString())) {
+        if (!permissionService.hasPermission(requesterId, requesterRole, userId.toString())) {
             return HttpResponse.status(HttpStatus.FORBIDDEN).body(Map.of("message", "Acesso negado."));
         }
 
@@ -69,7 +72,7 @@ public class AnamneseController {
             @QueryValue Long requesterId,
             @QueryValue String requesterRole) {
 
-        if (!usuarioRepository.hasPermission(requesterId, requesterRole, userId.toString())) {
+        if (!permissionService.hasPermission(requesterId, requesterRole, userId.toString())) {
             return HttpResponse.status(HttpStatus.FORBIDDEN).body(Map.of("message", "Acesso negado."));
         }
 
@@ -0,0 +1,93 @@
+package gcfv2;
+
+import gcfv2.storage.ObjectInfo;
+import io.micronaut.context.annotation.Value;
+import jakarta.inject.Singleton;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache em memória dos assets pequenos e muito acessados (logos e avatares,
+ * exibidos a cada login), servidos pelo AssetController sem ir ao GCS.
+ *
+ * LRU limitado pelo total de bytes (assets.cache.max-bytes); só entram
+ * objetos até assets.cache.max-entry-bytes sob os prefixos configurados. Os
+ * assets têm nome com UUID e nunca são sobrescritos (trocar a logo gera outro
+ * objeto), então não há TTL.
+ */
+@Singleton
+public class AssetCache {
+
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    private final List<String> prefixes;
+
+    private final Map<String, CachedAsset> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalBytes;
+
+    public AssetCache(
+            @Value("${assets.cache.max-bytes:33554432}") long maxBytes,
+            @Value("${assets.cache.max-entry-bytes:524288}") long maxEntryBytes,
+            @Value("${assets.cache.prefixes:assets/}") List<String> prefixes) {
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = maxEntryBytes;
+        this.prefixes = prefixes;
+    }
+
+    /**
+     * true se o objeto deve ser mantido em memória (prefixo e tamanho).
+     */
+    public boolean isCacheable(String path, long size) {
+        if (size > maxEntryBytes || size > maxBytes) {
+            return false;
+        }
+        for (String prefix : prefixes) {
+            if (path.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public CachedAsset get(String path) {
+        synchronized (entries) {
+            return entries.get(path);
+        }
+    }
+
+    public void put(ObjectInfo info, byte[] content) {
+        if (content.length > maxEntryBytes || content.length > maxBytes) {
+            return;
+        }
+        synchronized (entries) {
+            CachedAsset previous = entries.put(info.getName(), new CachedAsset(info, content));
+            if (previous != null) {
+                totalBytes -= previous.content.length;
+            }
+            totalBytes += content.length;
+
+            Iterator<Map.Entry<String, CachedAsset>> it = entries.entrySet().iterator();
+            while (totalBytes > maxBytes && it.hasNext()) {
+                Map.Entry<String, CachedAsset> eldest = it.next();
+                totalBytes -= eldest.getValue().content.length;
+                it.remove();
+            }
+        }
+    }
+
+    public static final class CachedAsset {
+        private final ObjectInfo info;
+        private final byte[] content;
+
+        private CachedAsset(ObjectInfo info, byte[] content) {
+            this.info = info;
+            this.content = content;
+        }
+
+        public ObjectInfo getInfo() { return info; }
+        public byte[] getContent() { return content; }
+    }
+}
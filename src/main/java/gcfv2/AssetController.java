@@ -1,15 +1,46 @@
 package gcfv2;
 
+import gcfv2.storage.ObjectInfo;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.http.HttpHeaders;
 import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
 import io.micronaut.http.MediaType;
+import io.micronaut.http.MutableHttpResponse;
 import io.micronaut.http.annotation.Controller;
 import io.micronaut.http.annotation.Get;
+import io.micronaut.http.annotation.Header;
 import io.micronaut.http.annotation.PathVariable;
+import io.micronaut.http.annotation.QueryValue;
 import io.micronaut.http.server.cors.CrossOrigin;
+import io.micronaut.http.server.types.files.StreamedFile;
+import io.micronaut.http.server.types.files.SystemFile;
 import jakarta.inject.Inject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Proxy for stored objects (avatars, brand logos, evolution photos).
+ * {@code ?size=thumb|medium|full} or {@code ?w=<pixels>} selects a resized
+ * variant generated at upload (see {@link ImagePipeline}).
+ *
+ * Objects are streamed in chunks instead of being loaded whole into the heap
+ * (or sent straight from a local file when the storage backend has one);
+ * small hot objects (see {@link AssetCache}) are served from memory.
+ * Supports single byte ranges (Range/If-Range), conditional requests
+ * (ETag/Last-Modified) and long-lived Cache-Control for UUID-named objects,
+ * which are never overwritten.
+ */
 @Controller("/api/assets")
 @CrossOrigin({ "https://fitai-analyzer-732767853162.us-west1.run.app",
         "https://analisa-exercicio-732767853162.southamerica-east1.run.app",
@@ -21,26 +52,238 @@ public class AssetController {
 
     private static final Logger LOG = LoggerFactory.getLogger(AssetController.class);
 
+    private static final Pattern UUID_PATTERN = Pattern
+            .compile("[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+    private static final long IMMUTABLE_MAX_AGE_SECONDS = 31_536_000L;
+
+    // Marker for a Range header that cannot be satisfied (416)
+    static final long[] UNSATISFIABLE = new long[0];
+
     @Inject
     private UploadService uploadService;
 
+    @Inject
+    private AssetCache assetCache;
+
     @Get("/{+path}")
-    public HttpResponse<byte[]> getAsset(@PathVariable String path) {
+    public HttpResponse<?> getAsset(@PathVariable String path,
+            @Nullable @QueryValue Integer w,
+            @Nullable @QueryValue String size,
+            @Nullable @Header("Range") String range,
+            @Nullable @Header("If-Range") String ifRange,
+            @Nullable @Header("If-None-Match") String ifNoneMatch,
+            @Nullable @Header("If-Modified-Since") String ifModifiedSince) {
         try {
-            byte[] fileBytes = uploadService.downloadAsset(path);
+            AssetCache.CachedAsset cached = null;
+            ObjectInfo info = null;
+
+            // Direct uploads not finalized yet hold the client original (EXIF/GPS)
+            if (UploadService.isStagingObject(path)) {
+                return HttpResponse.notFound();
+            }
+
+            // Resized variant (?w= or ?size=); uploads older than the image
+            // pipeline only have the original
+            ImagePipeline.Variant variant = ImagePipeline.Variant.select(w, size);
+            if (variant != null && variant != ImagePipeline.Variant.FULL) {
+                String variantPath = ImagePipeline.variantPath(path, variant);
+                cached = assetCache.get(variantPath);
+                info = cached != null ? cached.getInfo() : uploadService.statObject(variantPath);
+                if (info != null) {
+                    path = variantPath;
+                }
+            }
+            if (info == null) {
+                cached = assetCache.get(path);
+                info = cached != null ? cached.getInfo() : uploadService.statObject(path);
+            }
+            if (info == null) {
+                return HttpResponse.notFound();
+            }
+
+            String etag = etagOf(info);
+            String lastModified = httpDate(info.getUpdatedMillis());
+            if (notModified(info, etag, ifNoneMatch, ifModifiedSince)) {
+                return withCacheHeaders(HttpResponse.status(HttpStatus.NOT_MODIFIED), path, etag, lastModified);
+            }
+
+            byte[] content = cached != null ? cached.getContent() : null;
+            if (content == null && assetCache.isCacheable(path, info.getSize())) {
+                content = uploadService.readObject(info);
+                assetCache.put(info, content);
+            }
 
-            // Determine content type based on extension
-            MediaType mediaType = MediaType.IMAGE_JPEG_TYPE;
-            if (path.toLowerCase().endsWith(".png")) {
-                mediaType = MediaType.IMAGE_PNG_TYPE;
-            } else if (path.toLowerCase().endsWith(".gif")) {
-                mediaType = MediaType.IMAGE_GIF_TYPE;
+            long objectSize = info.getSize();
+            long start = 0;
+            long end = objectSize - 1;
+            boolean partial = false;
+            // If-Range: only honour the range if the client's copy is still current
+            if (range != null && (ifRange == null || ifRange.equals(etag) || ifRange.equals(lastModified))) {
+                long[] bounds = parseRange(range, objectSize);
+                if (bounds == UNSATISFIABLE) {
+                    return HttpResponse.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                            .header(HttpHeaders.CONTENT_RANGE, "bytes */" + objectSize);
+                }
+                if (bounds != null) {
+                    start = bounds[0];
+                    end = bounds[1];
+                    partial = true;
+                }
             }
+            long length = end - start + 1;
 
-            return HttpResponse.ok(fileBytes).contentType(mediaType);
+            MediaType mediaType = mediaTypeOf(path, info);
+            MutableHttpResponse<Object> response = partial
+                    ? HttpResponse.status(HttpStatus.PARTIAL_CONTENT)
+                    : HttpResponse.ok();
+            if (partial) {
+                response.header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + objectSize);
+            }
+            Optional<Path> localFile = content == null && !partial ? uploadService.localFile(info) : Optional.empty();
+            if (content != null) {
+                response.body(partial ? Arrays.copyOfRange(content, (int) start, (int) end + 1) : content);
+            } else if (localFile.isPresent()) {
+                // Local copy (local/tiered backend): Netty sends the file
+                // without copying it through the heap
+                response.body(new SystemFile(localFile.get().toFile(), mediaType));
+            } else {
+                // Chunked read from storage, written to the response as it arrives
+                response.body(new StreamedFile(uploadService.openObject(info, start, length), mediaType,
+                        info.getUpdatedMillis(), length));
+            }
+            return withCacheHeaders(response, path, etag, lastModified)
+                    .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                    .header(HttpHeaders.CONTENT_LENGTH, String.valueOf(length))
+                    .contentType(mediaType);
         } catch (Exception e) {
             LOG.error("Error serving asset {}: {}", path, e.getMessage());
             return HttpResponse.notFound();
         }
     }
+
+    private static <T> MutableHttpResponse<T> withCacheHeaders(MutableHttpResponse<T> response, String path,
+            String etag, String lastModified) {
+        response.header(HttpHeaders.ETAG, etag)
+                .header(HttpHeaders.CACHE_CONTROL, cacheControl(path));
+        if (lastModified != null) {
+            response.header(HttpHeaders.LAST_MODIFIED, lastModified);
+        }
+        return response;
+    }
+
+    /**
+     * UUID-named objects are never overwritten: cache for a year. Anything
+     * else must be revalidated (cheap with the ETag). User uploads are kept
+     * out of shared caches.
+     */
+    private static String cacheControl(String path) {
+        String scope = path.startsWith("assets/") ? "public" : "private";
+        if (UUID_PATTERN.matcher(path).find()) {
+            return scope + ", max-age=" + IMMUTABLE_MAX_AGE_SECONDS + ", immutable";
+        }
+        return scope + ", no-cache";
+    }
+
+    private static String etagOf(ObjectInfo info) {
+        String value = info.getEtag() != null ? info.getEtag() : String.valueOf(info.getGeneration());
+        return "\"" + value + "\"";
+    }
+
+    static boolean notModified(ObjectInfo info, String etag, String ifNoneMatch,
+            String ifModifiedSince) {
+        if (ifNoneMatch != null && !ifNoneMatch.isBlank()) {
+            for (String candidate : ifNoneMatch.split(",")) {
+                String value = candidate.trim();
+                if (value.startsWith("W/")) {
+                    value = value.substring(2);
+                }
+                if (value.equals(etag) || value.equals("*")) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (ifModifiedSince != null && info.getUpdatedMillis() > 0) {
+            try {
+                long since = ZonedDateTime.parse(ifModifiedSince, DateTimeFormatter.RFC_1123_DATE_TIME)
+                        .toInstant().toEpochMilli();
+                // HTTP dates have second precision
+                return info.getUpdatedMillis() / 1000 <= since / 1000;
+            } catch (DateTimeParseException e) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parses a single range ("bytes=a-b", "bytes=a-", "bytes=-n"). Returns null
+     * to ignore the header (malformed or multiple ranges: the full object is
+     * sent) and {@link #UNSATISFIABLE} when the range is outside the object.
+     */
+    static long[] parseRange(String header, long size) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (first.isEmpty()) {
+                // Suffix: the last n bytes
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0) {
+                    return UNSATISFIABLE;
+                }
+                start = Math.max(0, size - suffix);
+                end = size - 1;
+            } else {
+                start = Long.parseLong(first);
+                if (!last.isEmpty() && Long.parseLong(last) < start) {
+                    return null;
+                }
+                end = last.isEmpty() ? size - 1 : Math.min(Long.parseLong(last), size - 1);
+            }
+            if (start >= size || end < start) {
+                return UNSATISFIABLE;
+            }
+            return new long[] { start, end };
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static MediaType mediaTypeOf(String path, ObjectInfo info) {
+        if (info.getContentType() != null && !info.getContentType().isBlank()) {
+            try {
+                return MediaType.of(info.getContentType());
+            } catch (IllegalArgumentException e) {
+                // Falls back to the extension
+            }
+        }
+        // Determine content type based on extension
+        String lower = path.toLowerCase();
+        if (lower.endsWith(".png")) {
+            return MediaType.IMAGE_PNG_TYPE;
+        } else if (lower.endsWith(".gif")) {
+            return MediaType.IMAGE_GIF_TYPE;
+        } else if (lower.endsWith(".webp")) {
+            return MediaType.of("image/webp");
+        }
+        return MediaType.IMAGE_JPEG_TYPE;
+    }
+
+    private static String httpDate(long epochMillis) {
+        if (epochMillis <= 0) {
+            return null;
+        }
+        return DateTimeFormatter.RFC_1123_DATE_TIME
+                .format(ZonedDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC));
+    }
 }
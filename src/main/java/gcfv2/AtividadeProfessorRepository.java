@@ -61,6 +61,14 @@ public interface AtividadeProfessorRepository extends CrudRepository<AtividadePr
                         "ORDER BY created_at DESC LIMIT 1")
         java.util.Optional<AtividadeProfessor> findLastActivityByProfessorId(Long professorId);
 
+        /**
+         * Data da última atividade de cada professor da lista, numa única query.
+         * Professores sem atividade não aparecem.
+         */
+        @Query("SELECT professor_id, MAX(created_at) AS last_activity FROM atividades_professor " +
+                        "WHERE professor_id IN (:professorIds) GROUP BY professor_id")
+        List<gcfv2.dto.ProfessorLastActivityDTO> findLastActivityByProfessorIds(List<Long> professorIds);
+
         /**
          * Contar total de ações por professor em um período
          */
@@ -0,0 +1,181 @@
+package gcfv2;
+
+import gcfv2.dto.RecipientRef;
+import gcfv2.utils.LongHashSet;
+import jakarta.inject.Singleton;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.LongFunction;
+
+/**
+ * Resolve o público de um broadcast em lotes incrementais.
+ *
+ * Cada lote é uma página keyset de (id, e-mail) — nenhuma entidade Usuario é
+ * carregada e o heap guarda no máximo uma página. E-mails repetidos (mesmo
+ * endereço em contas diferentes, variações de maiúsculas) são descartados via
+ * um conjunto compacto de hashes de 64 bits.
+ */
+@Singleton
+public class BroadcastAudience {
+
+    private final UsuarioRepository usuarioRepository;
+
+    public BroadcastAudience(UsuarioRepository usuarioRepository) {
+        this.usuarioRepository = usuarioRepository;
+    }
+
+    /**
+     * Papéis de cada público; null = todos os usuários.
+     */
+    static List<String> rolesFor(String targetAudience) {
+        switch (targetAudience) {
+            case "PERSONALS":
+                return List.of("personal");
+            case "PERSONALS_AND_PROFESSORS":
+                return List.of("personal", "professor");
+            case "STUDENTS":
+                return List.of("user");
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Total estimado de destinatários (antes da deduplicação).
+     */
+    public int count(String targetAudience) {
+        if ("SPECIFIC".equals(targetAudience)) {
+            return 1;
+        }
+        List<String> roles = rolesFor(targetAudience);
+        long count = roles == null ? usuarioRepository.countWithEmail() : usuarioRepository.countWithEmailByRoles(roles);
+        return (int) Math.min(count, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Abre um cursor a partir do destinatário {@code afterId} (checkpoint do
+     * job; 0 para começar do início).
+     */
+    public RecipientCursor open(String targetAudience, String specificEmail, long afterId, int batchSize) {
+        return new RecipientCursor(pageLoader(targetAudience, specificEmail, batchSize), afterId, batchSize,
+                Math.min(count(targetAudience), 1 << 20));
+    }
+
+    /**
+     * E-mails únicos com id entre {@code firstId} e {@code lastId} (um lote
+     * que falhou, para reenvio). O intervalo veio de uma página de até
+     * {@code batchSize} linhas, e ids novos são sempre maiores, então uma
+     * página basta.
+     */
+    public List<String> range(String targetAudience, String specificEmail, long firstId, long lastId,
+            int batchSize) {
+        List<RecipientRef> page = pageLoader(targetAudience, specificEmail, batchSize).apply(firstId - 1);
+        LongHashSet seen = new LongHashSet(page.size());
+        List<String> emails = new ArrayList<>(page.size());
+        for (RecipientRef ref : page) {
+            if (ref.getId() > lastId) {
+                break;
+            }
+            String email = ref.getEmail() != null ? ref.getEmail().trim() : "";
+            if (!email.isEmpty() && seen.add(LongHashSet.hash64(email.toLowerCase(Locale.ROOT)))) {
+                emails.add(email);
+            }
+        }
+        return emails;
+    }
+
+    private LongFunction<List<RecipientRef>> pageLoader(String targetAudience, String specificEmail,
+            int batchSize) {
+        LongFunction<List<RecipientRef>> pageLoader;
+        if ("SPECIFIC".equals(targetAudience)) {
+            pageLoader = after -> {
+                if (after > 0) {
+                    return List.of();
+                }
+                RecipientRef ref = new RecipientRef();
+                ref.setId(1L);
+                ref.setEmail(specificEmail);
+                return List.of(ref);
+            };
+        } else {
+            List<String> roles = rolesFor(targetAudience);
+            pageLoader = roles == null
+                    ? after -> usuarioRepository.findRecipientsAfter(after, batchSize)
+                    : after -> usuarioRepository.findRecipientsByRolesAfter(roles, after, batchSize);
+        }
+        return pageLoader;
+    }
+
+    public static final class RecipientCursor {
+        private final LongFunction<List<RecipientRef>> pageLoader;
+        private final int pageSize;
+        private final LongHashSet seen;
+        private long lastId;
+        private boolean exhausted;
+        private int duplicates;
+
+        private RecipientCursor(LongFunction<List<RecipientRef>> pageLoader, long afterId, int pageSize,
+                int expectedSize) {
+            this.pageLoader = pageLoader;
+            this.pageSize = pageSize;
+            this.lastId = afterId;
+            this.seen = new LongHashSet(expectedSize);
+        }
+
+        /**
+         * Próximo lote de e-mails únicos (uma página do banco), ou null no fim.
+         * O lote pode vir vazio se a página inteira for de repetidos; mesmo
+         * assim {@link Batch#getLastId()} avança. {@link Batch#getFirstId()} e
+         * getLastId() delimitam a página (ids dos usuários, não só dos e-mails
+         * únicos).
+         */
+        public Batch next() {
+            if (exhausted) {
+                return null;
+            }
+            List<RecipientRef> page = pageLoader.apply(lastId);
+            if (page.isEmpty()) {
+                exhausted = true;
+                return null;
+            }
+            exhausted = page.size() < pageSize;
+
+            List<String> emails = new ArrayList<>(page.size());
+            for (RecipientRef ref : page) {
+                String email = ref.getEmail() != null ? ref.getEmail().trim() : "";
+                if (email.isEmpty()) {
+                    continue;
+                }
+                if (seen.add(LongHashSet.hash64(email.toLowerCase(Locale.ROOT)))) {
+                    emails.add(email);
+                } else {
+                    duplicates++;
+                }
+            }
+            lastId = page.get(page.size() - 1).getId();
+            return new Batch(emails, page.get(0).getId(), lastId);
+        }
+
+        public int getDuplicates() {
+            return duplicates;
+        }
+    }
+
+    public static final class Batch {
+        private final List<String> emails;
+        private final long firstId;
+        private final long lastId;
+
+        private Batch(List<String> emails, long firstId, long lastId) {
+            this.emails = emails;
+            this.firstId = firstId;
+            this.lastId = lastId;
+        }
+
+        public List<String> getEmails() { return emails; }
+        public long getFirstId() { return firstId; }
+        public long getLastId() { return lastId; }
+    }
+}
@@ -0,0 +1,126 @@
+package gcfv2;
+
+import io.micronaut.data.annotation.GeneratedValue;
+import io.micronaut.data.annotation.Id;
+import io.micronaut.data.annotation.MappedEntity;
+import io.micronaut.data.annotation.MappedProperty;
+import io.micronaut.serde.annotation.Serdeable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lote de um broadcast que não foi entregue. Guarda o intervalo de ids de
+ * usuário da página (não os e-mails), suficiente para reconstruí-la no
+ * reenvio.
+ */
+@Serdeable
+@MappedEntity("broadcast_failed_batches")
+public class BroadcastFailedBatch {
+
+    public static final String STATUS_FAILED = "FAILED";
+    public static final String STATUS_RETRYING = "RETRYING";
+    public static final String STATUS_RESENT = "RESENT";
+
+    @Id
+    @GeneratedValue(GeneratedValue.Type.AUTO)
+    private Long id;
+
+    @MappedProperty("job_id")
+    private Long jobId;
+
+    @MappedProperty("first_recipient_id")
+    private Long firstRecipientId;
+
+    @MappedProperty("last_recipient_id")
+    private Long lastRecipientId;
+
+    @MappedProperty("recipient_count")
+    private Integer recipientCount;
+
+    private String status;
+
+    @MappedProperty("last_error")
+    private String lastError;
+
+    @MappedProperty("created_at")
+    private LocalDateTime createdAt;
+
+    @MappedProperty("updated_at")
+    private LocalDateTime updatedAt;
+
+    public BroadcastFailedBatch() {
+    }
+
+    // Getters e Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(Long jobId) {
+        this.jobId = jobId;
+    }
+
+    public Long getFirstRecipientId() {
+        return firstRecipientId;
+    }
+
+    public void setFirstRecipientId(Long firstRecipientId) {
+        this.firstRecipientId = firstRecipientId;
+    }
+
+    public Long getLastRecipientId() {
+        return lastRecipientId;
+    }
+
+    public void setLastRecipientId(Long lastRecipientId) {
+        this.lastRecipientId = lastRecipientId;
+    }
+
+    public Integer getRecipientCount() {
+        return recipientCount;
+    }
+
+    public void setRecipientCount(Integer recipientCount) {
+        this.recipientCount = recipientCount;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,32 @@
+package gcfv2;
+
+import io.micronaut.data.annotation.Query;
+import io.micronaut.data.jdbc.annotation.JdbcRepository;
+import io.micronaut.data.model.query.builder.sql.Dialect;
+import io.micronaut.data.repository.CrudRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@JdbcRepository(dialect = Dialect.MYSQL)
+public interface BroadcastFailedBatchRepository extends CrudRepository<BroadcastFailedBatch, Long> {
+
+    Optional<BroadcastFailedBatch> findByJobIdAndFirstRecipientIdAndLastRecipientId(Long jobId,
+            Long firstRecipientId, Long lastRecipientId);
+
+    List<BroadcastFailedBatch> findByJobIdAndStatusOrderByFirstRecipientId(Long jobId, String status);
+
+    long countByJobIdAndStatus(Long jobId, String status);
+
+    /**
+     * Marca os lotes falhos do job para reenvio (FAILED → RETRYING)
+     */
+    @Query("UPDATE broadcast_failed_batches SET status = 'RETRYING', updated_at = :now " +
+            "WHERE job_id = :jobId AND status = 'FAILED'")
+    int markForRetry(Long jobId, LocalDateTime now);
+
+    @Query("UPDATE broadcast_failed_batches SET status = :status, last_error = :error, updated_at = :now " +
+            "WHERE id = :id")
+    void updateStatus(Long id, String status, String error, LocalDateTime now);
+}
@@ -0,0 +1,193 @@
+package gcfv2;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.micronaut.data.annotation.GeneratedValue;
+import io.micronaut.data.annotation.Id;
+import io.micronaut.data.annotation.MappedEntity;
+import io.micronaut.data.annotation.MappedProperty;
+import io.micronaut.serde.annotation.Serdeable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Broadcast administrativo em andamento. O HTML é renderizado uma vez no
+ * agendamento; o BroadcastService envia em lotes e grava o último
+ * destinatário processado, de onde retoma após um restart.
+ */
+@Serdeable
+@MappedEntity("broadcast_jobs")
+public class BroadcastJob {
+
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_FAILED = "FAILED";
+
+    @Id
+    @GeneratedValue(GeneratedValue.Type.AUTO)
+    private Long id;
+
+    @MappedProperty("requested_by")
+    private Long requestedBy;
+
+    @MappedProperty("target_audience")
+    private String targetAudience;
+
+    @MappedProperty("specific_email")
+    private String specificEmail;
+
+    private String subject;
+
+    @JsonIgnore
+    private String html;
+
+    private String status;
+
+    @MappedProperty("total_recipients")
+    private Integer totalRecipients = 0;
+
+    @MappedProperty("sent_count")
+    private Integer sentCount = 0;
+
+    @MappedProperty("failed_count")
+    private Integer failedCount = 0;
+
+    @MappedProperty("last_recipient_id")
+    private Long lastRecipientId = 0L;
+
+    @MappedProperty("error_message")
+    private String errorMessage;
+
+    @MappedProperty("created_at")
+    private LocalDateTime createdAt;
+
+    @MappedProperty("updated_at")
+    private LocalDateTime updatedAt;
+
+    @MappedProperty("completed_at")
+    private LocalDateTime completedAt;
+
+    public BroadcastJob() {
+    }
+
+    // Getters e Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getRequestedBy() {
+        return requestedBy;
+    }
+
+    public void setRequestedBy(Long requestedBy) {
+        this.requestedBy = requestedBy;
+    }
+
+    public String getTargetAudience() {
+        return targetAudience;
+    }
+
+    public void setTargetAudience(String targetAudience) {
+        this.targetAudience = targetAudience;
+    }
+
+    public String getSpecificEmail() {
+        return specificEmail;
+    }
+
+    public void setSpecificEmail(String specificEmail) {
+        this.specificEmail = specificEmail;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public void setSubject(String subject) {
+        this.subject = subject;
+    }
+
+    public String getHtml() {
+        return html;
+    }
+
+    public void setHtml(String html) {
+        this.html = html;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Integer getTotalRecipients() {
+        return totalRecipients;
+    }
+
+    public void setTotalRecipients(Integer totalRecipients) {
+        this.totalRecipients = totalRecipients;
+    }
+
+    public Integer getSentCount() {
+        return sentCount;
+    }
+
+    public void setSentCount(Integer sentCount) {
+        this.sentCount = sentCount;
+    }
+
+    public Integer getFailedCount() {
+        return failedCount;
+    }
+
+    public void setFailedCount(Integer failedCount) {
+        this.failedCount = failedCount;
+    }
+
+    public Long getLastRecipientId() {
+        return lastRecipientId;
+    }
+
+    public void setLastRecipientId(Long lastRecipientId) {
+        this.lastRecipientId = lastRecipientId;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(LocalDateTime completedAt) {
+        this.completedAt = completedAt;
+    }
+}
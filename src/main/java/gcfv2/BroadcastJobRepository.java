@@ -0,0 +1,54 @@
+package gcfv2;
+
+import io.micronaut.data.annotation.Query;
+import io.micronaut.data.jdbc.annotation.JdbcRepository;
+import io.micronaut.data.model.query.builder.sql.Dialect;
+import io.micronaut.data.repository.CrudRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@JdbcRepository(dialect = Dialect.MYSQL)
+public interface BroadcastJobRepository extends CrudRepository<BroadcastJob, Long> {
+
+    @Query("SELECT * FROM broadcast_jobs WHERE status = 'PENDING' ORDER BY id LIMIT :limit")
+    List<BroadcastJob> findPending(int limit);
+
+    @Query("SELECT * FROM broadcast_jobs ORDER BY id DESC LIMIT :limit")
+    List<BroadcastJob> findRecent(int limit);
+
+    /**
+     * Reivindica o job (PENDING → RUNNING). Retorna 0 se outra instância já
+     * pegou.
+     */
+    @Query("UPDATE broadcast_jobs SET status = 'RUNNING', updated_at = :now " +
+            "WHERE id = :id AND status = 'PENDING'")
+    int claim(Long id, LocalDateTime now);
+
+    /**
+     * Jobs RUNNING sem checkpoint há muito tempo (instância reiniciada no meio)
+     * voltam para a fila e retomam do último destinatário gravado.
+     */
+    @Query("UPDATE broadcast_jobs SET status = 'PENDING' " +
+            "WHERE status = 'RUNNING' AND updated_at < :staleBefore")
+    int requeueStale(LocalDateTime staleBefore);
+
+    /**
+     * Checkpoint após cada lote enviado
+     */
+    @Query("UPDATE broadcast_jobs SET last_recipient_id = :lastRecipientId, sent_count = :sentCount, " +
+            "failed_count = :failedCount, updated_at = :now WHERE id = :id")
+    void checkpoint(Long id, long lastRecipientId, int sentCount, int failedCount, LocalDateTime now);
+
+    /**
+     * Reabre um job finalizado (reenvio dos lotes que falharam). Retoma do
+     * checkpoint, então só os lotes marcados para reenvio são processados.
+     */
+    @Query("UPDATE broadcast_jobs SET status = 'PENDING', error_message = NULL, completed_at = NULL, " +
+            "updated_at = :now WHERE id = :id AND status IN ('COMPLETED', 'FAILED')")
+    int reopen(Long id, LocalDateTime now);
+
+    @Query("UPDATE broadcast_jobs SET status = :status, error_message = :errorMessage, " +
+            "updated_at = :now, completed_at = :now WHERE id = :id")
+    void finish(Long id, String status, String errorMessage, LocalDateTime now);
+}
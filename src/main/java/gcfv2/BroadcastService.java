@@ -0,0 +1,381 @@
+package gcfv2;
+
+import gcfv2.utils.LongHashSet;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.scheduling.annotation.Scheduled;
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Broadcasts administrativos em background.
+ *
+ * O request apenas renderiza o HTML (uma vez) e registra um job
+ * (broadcast_jobs). Workers num pool dedicado percorrem o público por keyset
+ * ({@link BroadcastAudience}) e enviam cada página numa única chamada ao endpoint
+ * de lote do Resend, respeitando o limite de taxa compartilhado com a fila de
+ * e-mails. Após cada lote o job grava o último destinatário e os contadores;
+ * um job interrompido (ex.: restart) volta para a fila e retoma do checkpoint.
+ * A chave de idempotência de cada lote vem do conteúdo (intervalo de ids da
+ * página + hash dos destinatários): reenviar o lote em andamento no momento da
+ * queda não duplica e-mails, e uma página que mudou depois da retomada (a
+ * deduplicação recomeça vazia) recebe outra chave em vez de ser recusada.
+ *
+ * Lotes que falham após as tentativas ficam em broadcast_failed_batches
+ * (intervalo de ids); {@link #retryFailed} reabre o job para reenviá-los.
+ */
+@Singleton
+public class BroadcastService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BroadcastService.class);
+
+    private static final int STALE_MINUTES = 10;
+    private static final int MAX_BATCH_ATTEMPTS = 5;
+
+    private final BroadcastJobRepository jobRepository;
+    private final BroadcastFailedBatchRepository failedBatchRepository;
+    private final BroadcastAudience audience;
+    private final EmailService emailService;
+    private final EmailDispatcher emailDispatcher;
+    private final int threads;
+    private final int batchSize;
+    private final ThreadPoolExecutor executor;
+
+    private final AtomicInteger activeWorkers = new AtomicInteger();
+
+    public BroadcastService(
+            BroadcastJobRepository jobRepository,
+            BroadcastFailedBatchRepository failedBatchRepository,
+            BroadcastAudience audience,
+            EmailService emailService,
+            EmailDispatcher emailDispatcher,
+            @Value("${email.broadcast.threads:1}") int threads,
+            @Value("${email.broadcast.batch-size:100}") int batchSize) {
+        this.jobRepository = jobRepository;
+        this.failedBatchRepository = failedBatchRepository;
+        this.audience = audience;
+        this.emailService = emailService;
+        this.emailDispatcher = emailDispatcher;
+        this.threads = Math.max(1, threads);
+        this.batchSize = Math.max(1, Math.min(batchSize, EmailDispatcher.MAX_BATCH_SIZE));
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(this.threads, this.threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(this.threads),
+                r -> {
+                    Thread t = new Thread(r, "broadcast-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Renderiza o broadcast e agenda o envio. Retorna o job para consulta do
+     * progresso.
+     */
+    public BroadcastJob enqueue(Long requestedBy, String targetAudience, String specificEmail, String subject,
+            String body, String imageUrl, String baseUrl) {
+        LocalDateTime now = LocalDateTime.now();
+        BroadcastJob job = new BroadcastJob();
+        job.setRequestedBy(requestedBy);
+        job.setTargetAudience(targetAudience);
+        job.setSpecificEmail(specificEmail);
+        job.setSubject(emailService.broadcastSubject(subject));
+        job.setHtml(emailService.renderAdminBroadcast(subject, body, imageUrl, baseUrl));
+        job.setStatus(BroadcastJob.STATUS_PENDING);
+        job.setTotalRecipients(audience.count(targetAudience));
+        job.setCreatedAt(now);
+        job.setUpdatedAt(now);
+
+        job = jobRepository.save(job);
+        LOG.info("📬 Broadcast {} agendado: público {}, ~{} destinatário(s)", job.getId(), targetAudience,
+                job.getTotalRecipients());
+        kick();
+        return job;
+    }
+
+    public Optional<BroadcastJob> findJob(Long jobId) {
+        return jobRepository.findById(jobId);
+    }
+
+    /**
+     * Reenvia os lotes que falharam de um job finalizado. Retorna quantos
+     * lotes foram agendados (0 se não há falhas ou o job ainda está rodando).
+     */
+    public int retryFailed(Long jobId) {
+        Optional<BroadcastJob> job = jobRepository.findById(jobId);
+        if (job.isEmpty() || (!BroadcastJob.STATUS_COMPLETED.equals(job.get().getStatus())
+                && !BroadcastJob.STATUS_FAILED.equals(job.get().getStatus()))) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        int batches = failedBatchRepository.markForRetry(jobId, now);
+        if (batches > 0 && jobRepository.reopen(jobId, now) == 1) {
+            LOG.info("📬 Broadcast {}: {} lote(s) com falha agendados para reenvio", jobId, batches);
+            kick();
+        }
+        return batches;
+    }
+
+    /**
+     * Rede de segurança: reenfileira jobs parados e processa pendentes que não
+     * foram disparados pelo enqueue (ex.: criados por outra instância).
+     */
+    @Scheduled(fixedDelay = "1m", initialDelay = "30s")
+    public void processPendingJobs() {
+        try {
+            int requeued = jobRepository.requeueStale(LocalDateTime.now().minusMinutes(STALE_MINUTES));
+            if (requeued > 0) {
+                LOG.warn("{} broadcast(s) parados voltaram para a fila", requeued);
+            }
+        } catch (Exception e) {
+            LOG.error("Erro ao reenfileirar broadcasts", e);
+        }
+        kick();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void kick() {
+        int current;
+        while ((current = activeWorkers.get()) < threads) {
+            if (activeWorkers.compareAndSet(current, current + 1)) {
+                try {
+                    executor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    activeWorkers.decrementAndGet();
+                }
+                return;
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            List<BroadcastJob> pending;
+            while (!(pending = jobRepository.findPending(1)).isEmpty()) {
+                BroadcastJob job = pending.get(0);
+                if (jobRepository.claim(job.getId(), LocalDateTime.now()) == 1) {
+                    run(job);
+                }
+            }
+        } catch (Exception e) {
+            LOG.error("Erro ao processar fila de broadcasts", e);
+        } finally {
+            activeWorkers.decrementAndGet();
+        }
+    }
+
+    private void run(BroadcastJob job) {
+        Progress progress = new Progress(job);
+        try {
+            BroadcastAudience.RecipientCursor cursor = audience.open(job.getTargetAudience(),
+                    job.getSpecificEmail(), progress.lastRecipientId, batchSize);
+            BroadcastAudience.Batch batch;
+            while ((batch = cursor.next()) != null) {
+                sendPage(progress, batch);
+            }
+            if (cursor.getDuplicates() > 0) {
+                LOG.info("Broadcast {}: {} e-mail(s) repetido(s) ignorado(s)", job.getId(), cursor.getDuplicates());
+            }
+            resendFailedBatches(job, progress);
+
+            jobRepository.finish(job.getId(), BroadcastJob.STATUS_COMPLETED, null, LocalDateTime.now());
+            LOG.info("✅ Broadcast {} concluído. Sucesso: {}, Falha: {}", job.getId(), progress.sent, progress.failed);
+        } catch (InterruptedException e) {
+            // Desligando: o job fica RUNNING e é retomado do checkpoint pelo requeueStale
+            Thread.currentThread().interrupt();
+            LOG.warn("Broadcast {} interrompido no destinatário {}", job.getId(), progress.lastRecipientId);
+        } catch (Exception e) {
+            LOG.error("❌ Falha no broadcast {} (após destinatário {})", job.getId(), progress.lastRecipientId, e);
+            String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            jobRepository.finish(job.getId(), BroadcastJob.STATUS_FAILED,
+                    message.length() > 1000 ? message.substring(0, 1000) : message, LocalDateTime.now());
+        }
+    }
+
+    /**
+     * Envia uma página de destinatários num lote e grava o checkpoint. Se o
+     * lote falhar, o intervalo da página é registrado para reenvio.
+     */
+    private void sendPage(Progress progress, BroadcastAudience.Batch batch) throws InterruptedException {
+        List<String> recipients = recipientsOf(batch.getEmails());
+        // Mesmo comportamento do envio individual: @teste.com ignorado, contado como enviado
+        progress.sent += testAddresses(batch.getEmails());
+
+        if (!recipients.isEmpty()) {
+            String idempotencyKey = pageKey(progress.jobId, batch.getFirstId(), batch.getLastId(), recipients);
+            EmailDispatcher.DeliveryResult result = deliverWithRetry(progress.jobId, recipients, progress.subject,
+                    progress.html, idempotencyKey);
+            if (result.isSuccess()) {
+                progress.sent += recipients.size();
+            } else {
+                progress.failed += recipients.size();
+                recordFailedBatch(progress.jobId, batch.getFirstId(), batch.getLastId(), recipients.size(),
+                        result.getError());
+            }
+        }
+
+        progress.lastRecipientId = batch.getLastId();
+        progress.save();
+    }
+
+    /**
+     * Reenvia os lotes marcados por {@link #retryFailed}, reconstruindo cada
+     * página pelo intervalo de ids.
+     */
+    private void resendFailedBatches(BroadcastJob job, Progress progress) throws InterruptedException {
+        List<BroadcastFailedBatch> batches = failedBatchRepository
+                .findByJobIdAndStatusOrderByFirstRecipientId(job.getId(), BroadcastFailedBatch.STATUS_RETRYING);
+        for (BroadcastFailedBatch failedBatch : batches) {
+            List<String> recipients = recipientsOf(audience.range(job.getTargetAudience(),
+                    job.getSpecificEmail(), failedBatch.getFirstRecipientId(), failedBatch.getLastRecipientId(),
+                    batchSize));
+            int previouslyFailed = failedBatch.getRecipientCount() != null ? failedBatch.getRecipientCount() : 0;
+
+            EmailDispatcher.DeliveryResult result = EmailDispatcher.DeliveryResult.sent(null);
+            if (!recipients.isEmpty()) {
+                // Chave própria da rodada de reenvio: a tentativa original falhou
+                String idempotencyKey = pageKey(job.getId(), failedBatch.getFirstRecipientId(),
+                        failedBatch.getLastRecipientId(), recipients) + "-r"
+                        + failedBatch.getUpdatedAt().toEpochSecond(ZoneOffset.UTC);
+                result = deliverWithRetry(job.getId(), recipients, progress.subject, progress.html,
+                        idempotencyKey);
+            }
+
+            LocalDateTime now = LocalDateTime.now();
+            if (result.isSuccess()) {
+                failedBatchRepository.updateStatus(failedBatch.getId(), BroadcastFailedBatch.STATUS_RESENT, null,
+                        now);
+                progress.sent += recipients.size();
+                progress.failed = Math.max(0, progress.failed - previouslyFailed);
+            } else {
+                failedBatchRepository.updateStatus(failedBatch.getId(), BroadcastFailedBatch.STATUS_FAILED,
+                        truncate(result.getError()), now);
+            }
+            progress.save();
+        }
+    }
+
+    /**
+     * Destinatários válidos da página (sem vazios e sem endereços @teste.com).
+     */
+    private static List<String> recipientsOf(List<String> emails) {
+        List<String> recipients = new ArrayList<>(emails.size());
+        for (String email : emails) {
+            if (email == null || email.isBlank() || email.endsWith("@teste.com")) {
+                continue;
+            }
+            recipients.add(email.trim());
+        }
+        return recipients;
+    }
+
+    private static int testAddresses(List<String> emails) {
+        int count = 0;
+        for (String email : emails) {
+            if (email != null && email.endsWith("@teste.com")) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Chave de idempotência pelo conteúdo do lote: mesmo intervalo de ids e
+     * mesmos destinatários geram a mesma chave.
+     */
+    static String pageKey(Long jobId, long firstId, long lastId, List<String> recipients) {
+        return "broadcast-" + jobId + "-" + firstId + "-" + lastId + "-"
+                + Long.toHexString(LongHashSet.hash64(String.join(",", recipients)));
+    }
+
+    private void recordFailedBatch(Long jobId, long firstId, long lastId, int recipientCount, String error) {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            Optional<BroadcastFailedBatch> existing = failedBatchRepository
+                    .findByJobIdAndFirstRecipientIdAndLastRecipientId(jobId, firstId, lastId);
+            if (existing.isPresent()) {
+                failedBatchRepository.updateStatus(existing.get().getId(), BroadcastFailedBatch.STATUS_FAILED,
+                        truncate(error), now);
+                return;
+            }
+            BroadcastFailedBatch failedBatch = new BroadcastFailedBatch();
+            failedBatch.setJobId(jobId);
+            failedBatch.setFirstRecipientId(firstId);
+            failedBatch.setLastRecipientId(lastId);
+            failedBatch.setRecipientCount(recipientCount);
+            failedBatch.setStatus(BroadcastFailedBatch.STATUS_FAILED);
+            failedBatch.setLastError(truncate(error));
+            failedBatch.setCreatedAt(now);
+            failedBatch.setUpdatedAt(now);
+            failedBatchRepository.save(failedBatch);
+        } catch (Exception e) {
+            LOG.error("Broadcast {}: erro ao registrar lote com falha ({}-{})", jobId, firstId, lastId, e);
+        }
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+
+    private EmailDispatcher.DeliveryResult deliverWithRetry(Long jobId, List<String> recipients, String subject,
+            String html, String idempotencyKey) throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            EmailDispatcher.DeliveryResult result = emailDispatcher.deliverBatch(recipients, subject, html,
+                    idempotencyKey);
+            if (result.isSuccess()) {
+                return result;
+            }
+            if (!result.isRetryable() || attempt >= MAX_BATCH_ATTEMPTS) {
+                LOG.error("❌ Broadcast {}: lote de {} destinatário(s) falhou: {}", jobId, recipients.size(),
+                        result.getError());
+                return result;
+            }
+            long backoffSeconds = 1L << attempt;
+            LOG.warn("Broadcast {}: lote falhou (tentativa {}/{}), nova tentativa em {}s: {}", jobId, attempt,
+                    MAX_BATCH_ATTEMPTS, backoffSeconds, result.getError());
+            TimeUnit.SECONDS.sleep(backoffSeconds);
+        }
+    }
+
+    private final class Progress {
+        private final Long jobId;
+        private final String subject;
+        private final String html;
+        private long lastRecipientId;
+        private int sent;
+        private int failed;
+
+        private Progress(BroadcastJob job) {
+            this.jobId = job.getId();
+            this.subject = job.getSubject();
+            this.html = job.getHtml();
+            this.lastRecipientId = job.getLastRecipientId() != null ? job.getLastRecipientId() : 0L;
+            this.sent = job.getSentCount() != null ? job.getSentCount() : 0;
+            this.failed = job.getFailedCount() != null ? job.getFailedCount() : 0;
+        }
+
+        private void save() {
+            jobRepository.checkpoint(jobId, lastRecipientId, sent, failed, LocalDateTime.now());
+        }
+    }
+}
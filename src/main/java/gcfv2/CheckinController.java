@@ -28,6 +28,9 @@ public class CheckinController {
     @Inject
     private UsuarioRepository usuarioRepository;
 
+    @Inject
+    private PermissionService permissionService;
+
     @Inject
     private TreinoRepository treinoRepository;
 
@@ -40,7 +43,7 @@ public class CheckinController {
             @QueryValue String requesterRole) {
         try {
             // Regra 1: Validação de Permissões
-            if (!usuarioRepository.hasPermission(requesterId, requesterRole, checkin.getUserId())) {
+            if (!permissionService.hasPermission(requesterId, requesterRole, checkin.getUserId())) {
                 return HttpResponse.status(HttpStatus.FORBIDDEN)
                         .body(Map.of("message",
                                 "Acesso negado. Sem permissão para registrar check-in para este aluno."));
@@ -177,7 +180,7 @@ public class CheckinController {
             @QueryValue Long requesterId,
             @QueryValue String requesterRole) {
         try {
-            if (!usuarioRepository.hasPermission(requesterId, requesterRole, userId)) {
+            if (!permissionService.hasPermission(requesterId, requesterRole, userId)) {
                 return HttpResponse.status(HttpStatus.FORBIDDEN).body(Map.of("message", "Acesso negado."));
             }
 
@@ -233,7 +236,7 @@ public class CheckinController {
             @QueryValue Long requesterId,
             @QueryValue String requesterRole) {
         try {
-            if (!usuarioRepository.hasPermission(requesterId, requesterRole, userId)) {
+            if (!permissionService.hasPermission(requesterId, requesterRole, userId)) {
                 return HttpResponse.status(HttpStatus.FORBIDDEN).body(Map.of("message", "Acesso negado."));
             }
 
@@ -374,7 +377,7 @@ public class CheckinController {
             @QueryValue Long requesterId,
             @QueryValue String requesterRole) {
         try {
-            if (!usuarioRepository.hasPermission(requesterId, requesterRole, userId)) {
+            if (!permissionService.hasPermission(requesterId, requesterRole, userId)) {
                 return HttpResponse.status(HttpStatus.FORBIDDEN).body(Map.of("message", "Acesso negado."));
             }
 
@@ -4,6 +4,7 @@ import io.micronaut.data.annotation.Query;
 import io.micronaut.data.jdbc.annotation.JdbcRepository;
 import io.micronaut.data.model.query.builder.sql.Dialect;
 import io.micronaut.data.repository.CrudRepository;
+import gcfv2.dto.CreditUsageSummary;
 import java.util.List;
 
 @JdbcRepository(dialect = Dialect.MYSQL)
@@ -41,5 +42,40 @@ public interface CreditConsumptionHistoryRepository extends CrudRepository<Credi
                         "AND YEAR(created_at) = YEAR(CURRENT_DATE)")
         long sumCreditsConsumedThisMonth(Long userId);
 
+        /**
+         * Página (keyset) do histórico de um usuário, do mais recente para o mais
+         * antigo. beforeId = id do último item da página anterior (Long.MAX_VALUE
+         * na primeira página).
+         */
+        @Query("SELECT * FROM credit_consumption_history " +
+                        "WHERE user_id = :userId AND id < :beforeId " +
+                        "ORDER BY id DESC LIMIT :limit")
+        List<CreditConsumptionHistory> findPageByUserId(Long userId, Long beforeId, int limit);
+
+        /**
+         * Soma um consumo aos totais mensais (credit_usage_monthly).
+         * period no formato AAAAMM.
+         */
+        @Query("INSERT INTO credit_usage_monthly " +
+                        "(user_id, period, reason, credit_source, credits_consumed, generations, free_generations) " +
+                        "VALUES (:userId, :period, :reason, :creditSource, :credits, 1, :freeGenerations) " +
+                        "ON DUPLICATE KEY UPDATE " +
+                        "credits_consumed = credits_consumed + VALUES(credits_consumed), " +
+                        "generations = generations + 1, " +
+                        "free_generations = free_generations + VALUES(free_generations)")
+        void incrementMonthlyUsage(Long userId, int period, String reason, String creditSource, int credits,
+                        int freeGenerations);
+
+        /**
+         * Resumo de consumo a partir dos totais mensais: total geral, total do mês
+         * e gerações gratuitas (dieta/treino) do mês.
+         */
+        @Query("SELECT COALESCE(SUM(credits_consumed), 0) AS total_consumed, " +
+                        "COALESCE(SUM(CASE WHEN period = :period THEN credits_consumed ELSE 0 END), 0) AS consumed_this_month, " +
+                        "COALESCE(SUM(CASE WHEN period = :period AND reason IN ('DIETA', 'TREINO') " +
+                        "THEN free_generations ELSE 0 END), 0) AS free_generations_this_month " +
+                        "FROM credit_usage_monthly WHERE user_id = :userId")
+        CreditUsageSummary findUsageSummary(Long userId, int period);
+
         void deleteByUserId(Long userId);
 }
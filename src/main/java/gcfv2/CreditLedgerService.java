@@ -0,0 +1,162 @@
+package gcfv2;
+
+import io.micronaut.transaction.annotation.Transactional;
+import jakarta.inject.Singleton;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+/**
+ * Débito de créditos em uma única instrução UPDATE.
+ *
+ * O saldo é lido com SELECT ... FOR UPDATE (valor atual, não o snapshot da
+ * transação do chamador, e a linha fica travada até o commit) e o débito é um
+ * UPDATE condicional que faz a divisão entre subscription_credits (prioridade)
+ * e purchased_credits no próprio SQL. Sem laço de nova tentativa: débitos
+ * concorrentes do mesmo dono esperam o lock da linha.
+ */
+@Singleton
+public class CreditLedgerService {
+
+    private final UsuarioRepository usuarioRepository;
+    private final CreditConsumptionHistoryRepository creditHistoryRepository;
+    private final AccountSnapshotService accountSnapshotService;
+
+    public CreditLedgerService(UsuarioRepository usuarioRepository,
+            CreditConsumptionHistoryRepository creditHistoryRepository,
+            AccountSnapshotService accountSnapshotService) {
+        this.usuarioRepository = usuarioRepository;
+        this.creditHistoryRepository = creditHistoryRepository;
+        this.accountSnapshotService = accountSnapshotService;
+    }
+
+    /**
+     * Debita {@code amount} créditos de {@code owner} e registra o histórico de
+     * consumo em nome de {@code historyUserId}, na mesma transação.
+     *
+     * @param owner         dono dos créditos (o saldo é relido com lock)
+     * @param historyUserId usuário alvo registrado no histórico
+     */
+    @Transactional
+    public DebitResult debit(Usuario owner, int amount, Long historyUserId, String reason, String analysisType) {
+        DebitResult result = hold(owner, amount);
+        if (result.isSuccess()) {
+            recordConsumption(historyUserId, reason, analysisType, amount, result.getCreditSource());
+        }
+        return result;
+    }
+
+    /**
+     * Retira {@code amount} créditos do saldo de {@code owner} (leitura com lock
+     * + um único UPDATE condicional), sem registrar histórico. Usado
+     * diretamente pelas reservas de crédito.
+     */
+    @Transactional
+    public DebitResult hold(Usuario owner, int amount) {
+        Long ownerId = owner.getId();
+        Optional<Usuario> current = usuarioRepository.findByIdForUpdate(ownerId);
+        if (current.isEmpty()) {
+            return DebitResult.insufficient(0, 0);
+        }
+        int sub = current.get().getSubscriptionCredits() != null ? current.get().getSubscriptionCredits() : 0;
+        int pur = current.get().getPurchasedCredits() != null ? current.get().getPurchasedCredits() : 0;
+
+        if (sub + pur < amount) {
+            return DebitResult.insufficient(sub, pur);
+        }
+
+        // Mesma divisão feita pelo UPDATE; a linha está travada, então os
+        // valores lidos são os que o UPDATE vai encontrar
+        int fromSubscription = Math.min(Math.max(sub, 0), amount);
+        int fromPurchased = amount - fromSubscription;
+
+        if (amount > 0) {
+            if (usuarioRepository.debitCredits(ownerId, amount) == 0) {
+                return DebitResult.insufficient(sub, pur);
+            }
+            accountSnapshotService.invalidate(ownerId);
+        }
+        return DebitResult.success(fromSubscription, fromPurchased, sub - fromSubscription, pur - fromPurchased);
+    }
+
+    /**
+     * Devolve créditos retidos (reserva liberada ou expirada).
+     */
+    @Transactional
+    public void refund(Long ownerId, int fromSubscription, int fromPurchased) {
+        if (fromSubscription > 0 || fromPurchased > 0) {
+            usuarioRepository.refundCredits(ownerId, fromSubscription, fromPurchased);
+            accountSnapshotService.invalidate(ownerId);
+        }
+    }
+
+    /**
+     * Registra o consumo no histórico do usuário alvo e soma aos totais
+     * mensais (credit_usage_monthly) usados pelo resumo de /credit-history.
+     */
+    @Transactional
+    public void recordConsumption(Long userId, String reason, String analysisType, int amount, String creditSource) {
+        CreditConsumptionHistory entry = creditHistoryRepository.save(new CreditConsumptionHistory(
+                userId,
+                reason,
+                analysisType,
+                amount,
+                false,
+                creditSource));
+        creditHistoryRepository.incrementMonthlyUsage(userId, periodOf(entry.getCreatedAt().toLocalDate()), reason,
+                creditSource, amount, Boolean.TRUE.equals(entry.getWasFree()) ? 1 : 0);
+    }
+
+    /**
+     * Período AAAAMM usado em credit_usage_monthly.
+     */
+    public static int periodOf(LocalDate date) {
+        return date.getYear() * 100 + date.getMonthValue();
+    }
+
+    /**
+     * SUBSCRIPTION/PURCHASED conforme a origem da última unidade debitada
+     * (subscription tem prioridade, então qualquer parte comprada vem por último).
+     */
+    public static String creditSourceOf(int fromSubscription, int fromPurchased) {
+        if (fromPurchased > 0) {
+            return "PURCHASED";
+        }
+        return fromSubscription > 0 ? "SUBSCRIPTION" : "FREE";
+    }
+
+    public static class DebitResult {
+        private final boolean success;
+        private final int fromSubscription;
+        private final int fromPurchased;
+        private final int subscriptionCredits;
+        private final int purchasedCredits;
+
+        private DebitResult(boolean success, int fromSubscription, int fromPurchased, int subscriptionCredits,
+                int purchasedCredits) {
+            this.success = success;
+            this.fromSubscription = fromSubscription;
+            this.fromPurchased = fromPurchased;
+            this.subscriptionCredits = subscriptionCredits;
+            this.purchasedCredits = purchasedCredits;
+        }
+
+        static DebitResult success(int fromSubscription, int fromPurchased, int subscriptionCredits,
+                int purchasedCredits) {
+            return new DebitResult(true, fromSubscription, fromPurchased, subscriptionCredits, purchasedCredits);
+        }
+
+        static DebitResult insufficient(int subscriptionCredits, int purchasedCredits) {
+            return new DebitResult(false, 0, 0, subscriptionCredits, purchasedCredits);
+        }
+
+        public boolean isSuccess() { return success; }
+        public int getFromSubscription() { return fromSubscription; }
+        public int getFromPurchased() { return fromPurchased; }
+        public int getCreditsConsumed() { return fromSubscription + fromPurchased; }
+        public String getCreditSource() { return success ? creditSourceOf(fromSubscription, fromPurchased) : null; }
+        public int getSubscriptionCredits() { return subscriptionCredits; }
+        public int getPurchasedCredits() { return purchasedCredits; }
+        public int getBalance() { return subscriptionCredits + purchasedCredits; }
+    }
+}
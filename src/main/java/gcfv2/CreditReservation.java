@@ -0,0 +1,179 @@
+package gcfv2;
+
+import io.micronaut.data.annotation.Id;
+import io.micronaut.data.annotation.GeneratedValue;
+import io.micronaut.data.annotation.MappedEntity;
+import io.micronaut.data.annotation.MappedProperty;
+import io.micronaut.serde.annotation.Serdeable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Reserva de créditos identificada por uma chave de idempotência.
+ * Os créditos são retidos no reserve e só entram no histórico no commit;
+ * release (ou expiração) devolve o valor retido ao dono.
+ */
+@Serdeable
+@MappedEntity("credit_reservations")
+public class CreditReservation {
+
+    public static final String STATUS_RESERVED = "RESERVED";
+    public static final String STATUS_COMMITTED = "COMMITTED";
+    public static final String STATUS_RELEASED = "RELEASED";
+
+    @Id
+    @GeneratedValue(GeneratedValue.Type.AUTO)
+    private Long id;
+
+    @MappedProperty("idempotency_key")
+    private String idempotencyKey;
+
+    @MappedProperty("owner_id")
+    private Long ownerId; // Dono dos créditos
+
+    @MappedProperty("user_id")
+    private Long userId; // Usuário alvo (histórico)
+
+    private String reason;
+
+    @MappedProperty("analysis_type")
+    private String analysisType;
+
+    private Integer amount;
+
+    @MappedProperty("from_subscription")
+    private Integer fromSubscription;
+
+    @MappedProperty("from_purchased")
+    private Integer fromPurchased;
+
+    @MappedProperty("balance_after")
+    private Integer balanceAfter;
+
+    private String status; // RESERVED, COMMITTED, RELEASED
+
+    @MappedProperty("created_at")
+    private LocalDateTime createdAt;
+
+    @MappedProperty("expires_at")
+    private LocalDateTime expiresAt;
+
+    @MappedProperty("updated_at")
+    private LocalDateTime updatedAt;
+
+    public CreditReservation() {
+    }
+
+    // Getters e Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public Long getOwnerId() {
+        return ownerId;
+    }
+
+    public void setOwnerId(Long ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+
+    public String getAnalysisType() {
+        return analysisType;
+    }
+
+    public void setAnalysisType(String analysisType) {
+        this.analysisType = analysisType;
+    }
+
+    public Integer getAmount() {
+        return amount;
+    }
+
+    public void setAmount(Integer amount) {
+        this.amount = amount;
+    }
+
+    public Integer getFromSubscription() {
+        return fromSubscription;
+    }
+
+    public void setFromSubscription(Integer fromSubscription) {
+        this.fromSubscription = fromSubscription;
+    }
+
+    public Integer getFromPurchased() {
+        return fromPurchased;
+    }
+
+    public void setFromPurchased(Integer fromPurchased) {
+        this.fromPurchased = fromPurchased;
+    }
+
+    public Integer getBalanceAfter() {
+        return balanceAfter;
+    }
+
+    public void setBalanceAfter(Integer balanceAfter) {
+        this.balanceAfter = balanceAfter;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,33 @@
+package gcfv2;
+
+import io.micronaut.data.annotation.Query;
+import io.micronaut.data.jdbc.annotation.JdbcRepository;
+import io.micronaut.data.model.query.builder.sql.Dialect;
+import io.micronaut.data.repository.CrudRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@JdbcRepository(dialect = Dialect.MYSQL)
+public interface CreditReservationRepository extends CrudRepository<CreditReservation, Long> {
+
+    /**
+     * A chave é única por dono dos créditos (uk_cr_owner_idempotency_key)
+     */
+    Optional<CreditReservation> findByOwnerIdAndIdempotencyKey(Long ownerId, String idempotencyKey);
+
+    /**
+     * Transição de status condicional: só altera se a reserva ainda estiver no
+     * status esperado. Retorna linhas afetadas (0 = outra requisição já mudou).
+     */
+    @Query("UPDATE credit_reservations SET status = :newStatus, updated_at = :now " +
+            "WHERE id = :id AND status = :expectedStatus")
+    int transitionStatus(Long id, String expectedStatus, String newStatus, LocalDateTime now);
+
+    /**
+     * Reservas retidas cujo prazo expirou (para liberação automática)
+     */
+    @Query("SELECT * FROM credit_reservations WHERE status = 'RESERVED' AND expires_at < :now LIMIT :limit")
+    List<CreditReservation> findExpiredReservations(LocalDateTime now, int limit);
+}
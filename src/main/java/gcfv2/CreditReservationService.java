@@ -0,0 +1,314 @@
+package gcfv2;
+
+import io.micronaut.data.exceptions.DataAccessException;
+import io.micronaut.scheduling.annotation.Scheduled;
+import io.micronaut.transaction.annotation.Transactional;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Reservas de crédito (reserve → commit/release) com chave de idempotência.
+ *
+ * - reserve: retém os créditos do dono (UPDATE condicional via
+ * CreditLedgerService) e grava a reserva. Repetir a mesma chave com os mesmos
+ * parâmetros devolve a reserva existente, sem novo débito; com outros
+ * parâmetros (valor, usuário, motivo) é recusada.
+ * - commit: confirma a reserva e registra o histórico de consumo.
+ * - release: devolve os créditos retidos. Reservas não confirmadas no prazo
+ * são liberadas automaticamente.
+ *
+ * A chave é única por dono dos créditos: donos diferentes podem usar a mesma
+ * chave sem enxergar a reserva um do outro.
+ *
+ * Requisições para o mesmo dono são serializadas por um lock listrado em
+ * memória (professores do mesmo Personal não disputam a linha do banco entre
+ * si); donos diferentes não competem pelo mesmo lock. O lock é sempre obtido
+ * antes de abrir a transação (nunca segurando a conexão do pool), então os
+ * chamadores não podem estar em uma transação. Entre instâncias, a unicidade
+ * da chave e o lock da linha do saldo garantem a consistência.
+ */
+@Singleton
+public class CreditReservationService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CreditReservationService.class);
+
+    private static final int LOCK_STRIPES = 64;
+    private static final long DEFAULT_TTL_MINUTES = 10;
+    private static final int EXPIRED_BATCH_SIZE = 100;
+
+    private final CreditReservationRepository reservationRepository;
+    private final CreditLedgerService creditLedgerService;
+    private final ReentrantLock[] ownerLocks = new ReentrantLock[LOCK_STRIPES];
+
+    public CreditReservationService(CreditReservationRepository reservationRepository,
+            CreditLedgerService creditLedgerService) {
+        this.reservationRepository = reservationRepository;
+        this.creditLedgerService = creditLedgerService;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            ownerLocks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Retém {@code amount} créditos de {@code owner} sob a chave informada.
+     */
+    public ReservationResult reserve(String idempotencyKey, Usuario owner, int amount, Long userId, String reason,
+            String analysisType) {
+        ReentrantLock lock = lockFor(owner.getId());
+        lock.lock();
+        try {
+            return reserveOrReplay(idempotencyKey, owner, amount, userId, reason, analysisType);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reserva + commit em uma chamada. Uma repetição com a mesma chave devolve o
+     * resultado original (replayed = true) sem debitar novamente.
+     */
+    public ReservationResult consume(String idempotencyKey, Usuario owner, int amount, Long userId, String reason,
+            String analysisType) {
+        ReentrantLock lock = lockFor(owner.getId());
+        lock.lock();
+        try {
+            ReservationResult reserved = reserveOrReplay(idempotencyKey, owner, amount, userId, reason,
+                    analysisType);
+            if (!reserved.isSuccess()
+                    || !CreditReservation.STATUS_RESERVED.equals(reserved.getReservation().getStatus())) {
+                return reserved;
+            }
+            ReservationResult committed = commit(owner.getId(), idempotencyKey);
+            if (!committed.isSuccess()) {
+                return committed;
+            }
+            return new ReservationResult(true, reserved.isReplayed(), committed.getReservation(), null, null);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ReservationResult reserveOrReplay(String idempotencyKey, Usuario owner, int amount, Long userId,
+            String reason, String analysisType) {
+        try {
+            return doReserve(idempotencyKey, owner, amount, userId, reason, analysisType);
+        } catch (DataAccessException e) {
+            // Mesma chave gravada por outra instância entre a busca e o INSERT:
+            // a transação (e o débito) foi desfeita; responde como repetição
+            Optional<CreditReservation> existing = reservationRepository
+                    .findByOwnerIdAndIdempotencyKey(owner.getId(), idempotencyKey);
+            if (existing.isEmpty()) {
+                throw e;
+            }
+            return replayOf(existing.get(), amount, userId, reason);
+        }
+    }
+
+    @Transactional
+    protected ReservationResult doReserve(String idempotencyKey, Usuario owner, int amount, Long userId,
+            String reason, String analysisType) {
+        Optional<CreditReservation> existing = reservationRepository
+                .findByOwnerIdAndIdempotencyKey(owner.getId(), idempotencyKey);
+        if (existing.isPresent()) {
+            return replayOf(existing.get(), amount, userId, reason);
+        }
+
+        CreditLedgerService.DebitResult debit = creditLedgerService.hold(owner, amount);
+        if (!debit.isSuccess()) {
+            return ReservationResult.failure(Failure.INSUFFICIENT_CREDITS, "Saldo insuficiente. Você precisa de "
+                    + amount + " créditos, mas tem apenas " + debit.getBalance() + ".");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        CreditReservation reservation = new CreditReservation();
+        reservation.setIdempotencyKey(idempotencyKey);
+        reservation.setOwnerId(owner.getId());
+        reservation.setUserId(userId);
+        reservation.setReason(reason);
+        reservation.setAnalysisType(analysisType);
+        reservation.setAmount(amount);
+        reservation.setFromSubscription(debit.getFromSubscription());
+        reservation.setFromPurchased(debit.getFromPurchased());
+        reservation.setBalanceAfter(debit.getBalance());
+        reservation.setStatus(CreditReservation.STATUS_RESERVED);
+        reservation.setCreatedAt(now);
+        reservation.setExpiresAt(now.plusMinutes(DEFAULT_TTL_MINUTES));
+
+        // Chave duplicada vinda de outra instância viola o UNIQUE e desfaz o débito
+        return ReservationResult.ok(reservationRepository.save(reservation));
+    }
+
+    /**
+     * Resultado de uma repetição da chave. Só reservas ativas (RESERVED no
+     * prazo) ou confirmadas contam como sucesso; a requisição repetida precisa
+     * ter os mesmos parâmetros da original.
+     */
+    static ReservationResult replayOf(CreditReservation reservation, int amount, Long userId, String reason) {
+        if (!Objects.equals(reservation.getAmount(), amount) || !Objects.equals(reservation.getUserId(), userId)
+                || !Objects.equals(reservation.getReason(), reason)) {
+            return ReservationResult.failure(Failure.KEY_REUSED,
+                    "Chave de idempotência já usada em uma requisição com outros parâmetros.");
+        }
+        if (CreditReservation.STATUS_RELEASED.equals(reservation.getStatus()) || isExpired(reservation)) {
+            return ReservationResult.failure(Failure.NOT_ACTIVE,
+                    "Reserva já liberada ou expirada. Os créditos foram devolvidos; use uma nova chave.");
+        }
+        return ReservationResult.replay(reservation);
+    }
+
+    /**
+     * Confirma a reserva e registra o consumo no histórico. Idempotente.
+     */
+    @Transactional
+    public ReservationResult commit(Long ownerId, String idempotencyKey) {
+        Optional<CreditReservation> opt = reservationRepository.findByOwnerIdAndIdempotencyKey(ownerId,
+                idempotencyKey);
+        if (opt.isEmpty()) {
+            return ReservationResult.failure(Failure.NOT_FOUND, "Reserva não encontrada.");
+        }
+        CreditReservation reservation = opt.get();
+
+        if (CreditReservation.STATUS_COMMITTED.equals(reservation.getStatus())) {
+            return ReservationResult.replay(reservation);
+        }
+
+        // Expirada: o job de expiração devolve os créditos
+        LocalDateTime now = LocalDateTime.now();
+        if (isExpired(reservation) || reservationRepository.transitionStatus(reservation.getId(),
+                CreditReservation.STATUS_RESERVED, CreditReservation.STATUS_COMMITTED, now) == 0) {
+            return ReservationResult.failure(Failure.NOT_ACTIVE, "Reserva já liberada ou expirada.");
+        }
+
+        creditLedgerService.recordConsumption(reservation.getUserId(), reservation.getReason(),
+                reservation.getAnalysisType(), reservation.getAmount(),
+                CreditLedgerService.creditSourceOf(reservation.getFromSubscription(),
+                        reservation.getFromPurchased()));
+
+        reservation.setStatus(CreditReservation.STATUS_COMMITTED);
+        reservation.setUpdatedAt(now);
+        return ReservationResult.ok(reservation);
+    }
+
+    /**
+     * Libera a reserva devolvendo os créditos retidos. Idempotente.
+     */
+    @Transactional
+    public ReservationResult release(Long ownerId, String idempotencyKey) {
+        Optional<CreditReservation> opt = reservationRepository.findByOwnerIdAndIdempotencyKey(ownerId,
+                idempotencyKey);
+        if (opt.isEmpty()) {
+            return ReservationResult.failure(Failure.NOT_FOUND, "Reserva não encontrada.");
+        }
+        CreditReservation reservation = opt.get();
+
+        if (CreditReservation.STATUS_RELEASED.equals(reservation.getStatus())) {
+            return ReservationResult.replay(reservation);
+        }
+
+        if (!releaseReservation(reservation)) {
+            return ReservationResult.failure(Failure.NOT_ACTIVE, "Reserva já confirmada.");
+        }
+        return ReservationResult.ok(reservation);
+    }
+
+    /**
+     * Libera automaticamente reservas que não foram confirmadas no prazo.
+     */
+    @Scheduled(fixedDelay = "1m", initialDelay = "1m")
+    public void releaseExpiredReservations() {
+        try {
+            List<CreditReservation> expired = reservationRepository
+                    .findExpiredReservations(LocalDateTime.now(), EXPIRED_BATCH_SIZE);
+            for (CreditReservation reservation : expired) {
+                ReentrantLock lock = lockFor(reservation.getOwnerId());
+                lock.lock();
+                try {
+                    if (releaseReservation(reservation)) {
+                        LOG.info("Reserva de crédito expirada liberada: key={}, owner={}, amount={}",
+                                reservation.getIdempotencyKey(), reservation.getOwnerId(), reservation.getAmount());
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+        } catch (Exception e) {
+            LOG.error("Erro ao liberar reservas de crédito expiradas", e);
+        }
+    }
+
+    @Transactional
+    protected boolean releaseReservation(CreditReservation reservation) {
+        LocalDateTime now = LocalDateTime.now();
+        if (reservationRepository.transitionStatus(reservation.getId(), CreditReservation.STATUS_RESERVED,
+                CreditReservation.STATUS_RELEASED, now) == 0) {
+            return false;
+        }
+        creditLedgerService.refund(reservation.getOwnerId(), reservation.getFromSubscription(),
+                reservation.getFromPurchased());
+        reservation.setStatus(CreditReservation.STATUS_RELEASED);
+        reservation.setUpdatedAt(now);
+        return true;
+    }
+
+    private static boolean isExpired(CreditReservation reservation) {
+        return CreditReservation.STATUS_RESERVED.equals(reservation.getStatus())
+                && reservation.getExpiresAt() != null
+                && reservation.getExpiresAt().isBefore(LocalDateTime.now());
+    }
+
+    private ReentrantLock lockFor(Long ownerId) {
+        return ownerLocks[Math.floorMod(Long.hashCode(ownerId), LOCK_STRIPES)];
+    }
+
+    /**
+     * Motivo da falha, para o controller escolher o status HTTP.
+     */
+    public enum Failure {
+        INSUFFICIENT_CREDITS, // 402
+        KEY_REUSED, // 422: mesma chave, outros parâmetros
+        NOT_ACTIVE, // 409: já liberada, expirada ou já confirmada
+        NOT_FOUND // 404
+    }
+
+    public static class ReservationResult {
+        private final boolean success;
+        private final boolean replayed;
+        private final CreditReservation reservation;
+        private final Failure failure;
+        private final String message;
+
+        public ReservationResult(boolean success, boolean replayed, CreditReservation reservation, Failure failure,
+                String message) {
+            this.success = success;
+            this.replayed = replayed;
+            this.reservation = reservation;
+            this.failure = failure;
+            this.message = message;
+        }
+
+        static ReservationResult ok(CreditReservation reservation) {
+            return new ReservationResult(true, false, reservation, null, null);
+        }
+
+        static ReservationResult replay(CreditReservation reservation) {
+            return new ReservationResult(true, true, reservation, null, null);
+        }
+
+        static ReservationResult failure(Failure failure, String message) {
+            return new ReservationResult(false, false, null, failure, message);
+        }
+
+        public boolean isSuccess() { return success; }
+        public boolean isReplayed() { return replayed; }
+        public CreditReservation getReservation() { return reservation; }
+        public Failure getFailure() { return failure; }
+        public String getMessage() { return message; }
+    }
+}
@@ -30,6 +30,12 @@ public class DietaController {
     @Inject
     private UsuarioRepository usuarioRepository;
 
+    @Inject
+    private AccountSnapshotService accountSnapshotService;
+
+    @Inject
+    private PermissionService permissionService;
+
     @Inject
     private EmailService emailService;
 
@@ -45,7 +51,7 @@ public class DietaController {
             @QueryValue Long requesterId,
             @QueryValue String requesterRole) {
         try {
-            if (!usuarioRepository.hasPermission(requesterId, requesterRole, dieta.getUserId())) {
+            if (!permissionService.hasPermission(requesterId, requesterRole, dieta.getUserId())) {
                 return HttpResponse.status(HttpStatus.FORBIDDEN)
                         .body(Map.of("message", "Acesso negado. Você não tem vínculo com este aluno."));
             }
@@ -91,6 +97,7 @@ public class DietaController {
 
             // Incrementar contador de gerações
             usuarioRepository.incrementGenerationsUsedCycle(Long.parseLong(dieta.getUserId()));
+            accountSnapshotService.invalidate(Long.parseLong(dieta.getUserId()));
 
             // Log de atividade para professor
             activityLogService.logActivity(
@@ -141,7 +148,7 @@ public class DietaController {
     public HttpResponse<?> listar(@PathVariable String userId,
             @QueryValue Long requesterId,
             @QueryValue String requesterRole) {
-        if (!usuarioRepository.hasPermission(requesterId, requesterRole, userId)) {
+        if (!permissionService.hasPermission(requesterId, requesterRole, userId)) {
             return HttpResponse.status(HttpStatus.FORBIDDEN).body(Map.of("message", "Acesso negado."));
         }
         return HttpResponse.ok(dietaRepository.findByUserIdOrderByCreatedAtDesc(userId));
@@ -160,7 +167,7 @@ public class DietaController {
 
         return dietaRepository.findById(id).map(dieta -> {
             // Verifica se quem está tentando excluir tem permissão sobre o dono da dieta
-            if (!usuarioRepository.hasPermission(requesterId, requesterRole, dieta.getUserId())) {
+            if (!permissionService.hasPermission(requesterId, requesterRole, dieta.getUserId())) {
                 return HttpResponse.status(HttpStatus.FORBIDDEN)
                         .body(Map.of("message", "Acesso negado. Você não pode excluir esta dieta."));
             }
@@ -0,0 +1,384 @@
+package gcfv2;
+
+import gcfv2.utils.RateLimiter;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.scheduling.TaskExecutors;
+import io.micronaut.scheduling.annotation.Scheduled;
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Named;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Envia os e-mails da fila (email_outbox) via Resend em background.
+ *
+ * Um poll periódico reivindica os e-mails vencidos (PENDING → SENDING) até a
+ * capacidade livre do pool e os entrega em threads dedicadas, respeitando o
+ * limite de taxa do provedor. A chamada HTTP acontece fora do request e fora
+ * de qualquer transação.
+ *
+ * - 2xx: SENT (guarda o id do Resend)
+ * - 429, 5xx e erros de rede: nova tentativa com backoff exponencial
+ * - demais 4xx ou tentativas esgotadas: DEAD (fica na tabela para análise)
+ *
+ * Ao sair da fila (SENT/DEAD) o corpo do e-mail é apagado, e as linhas
+ * finalizadas são removidas após email.outbox.retention-days. Cada envio leva
+ * a chave de idempotência "outbox-{id}": se o envio foi aceito mas o SENT não
+ * foi gravado, o reenvio pelo requeueStale não duplica o e-mail.
+ *
+ * O limite de taxa (email.dispatch.rate-per-second) vale por instância: com N
+ * instâncias o total enviado ao Resend é até N vezes o configurado.
+ */
+@Singleton
+public class EmailDispatcher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EmailDispatcher.class);
+
+    private static final String RESEND_URL = "https://api.resend.com/emails";
+    private static final String RESEND_BATCH_URL = "https://api.resend.com/emails/batch";
+    static final int MAX_BATCH_SIZE = 100;
+    private static final int STALE_MINUTES = 10;
+    private static final int PURGE_BATCH_SIZE = 1000;
+    private static final long BASE_BACKOFF_SECONDS = 30;
+    private static final long MAX_BACKOFF_SECONDS = 3600;
+    private static final Pattern PROVIDER_ID = Pattern.compile("\"id\"\\s*:\\s*\"([^\"]+)\"");
+
+    private final EmailOutboxRepository outboxRepository;
+    private final ExecutorService ioExecutor;
+    private final String resendApiKey;
+    private final String fromEmail;
+    private final int maxAttempts;
+    private final int retentionDays;
+    private final RateLimiter rateLimiter;
+    private final ThreadPoolExecutor executor;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    private final AtomicBoolean polling = new AtomicBoolean();
+
+    public EmailDispatcher(
+            EmailOutboxRepository outboxRepository,
+            @Named(TaskExecutors.IO) ExecutorService ioExecutor,
+            @Value("${resend.api-key:}") String resendApiKey,
+            @Value("${resend.from-email:onboarding@fitanalizer.com.br}") String fromEmail,
+            @Value("${email.dispatch.threads:4}") int threads,
+            @Value("${email.dispatch.rate-per-second:2}") double ratePerSecond,
+            @Value("${email.dispatch.max-attempts:6}") int maxAttempts,
+            @Value("${email.outbox.retention-days:30}") int retentionDays) {
+        this.outboxRepository = outboxRepository;
+        this.ioExecutor = ioExecutor;
+        this.resendApiKey = resendApiKey;
+        this.fromEmail = fromEmail;
+        this.maxAttempts = maxAttempts;
+        this.retentionDays = retentionDays;
+        this.rateLimiter = new RateLimiter(ratePerSecond);
+        int poolSize = Math.max(1, threads);
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(poolSize * 4),
+                r -> {
+                    Thread t = new Thread(r, "email-dispatch-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        LOG.info("EmailDispatcher: {} threads, {} e-mails/s, {} tentativas", poolSize, ratePerSecond, maxAttempts);
+    }
+
+    /**
+     * Dispara um poll imediato (ex.: logo após enfileirar), sem esperar o
+     * próximo ciclo agendado.
+     */
+    public void wakeUp() {
+        if (polling.compareAndSet(false, true)) {
+            try {
+                ioExecutor.execute(this::pollGuarded);
+            } catch (RejectedExecutionException e) {
+                polling.set(false);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelay = "${email.dispatch.poll-interval:5s}", initialDelay = "15s")
+    public void processOutbox() {
+        if (polling.compareAndSet(false, true)) {
+            pollGuarded();
+        }
+    }
+
+    /**
+     * Rede de segurança: e-mails SENDING parados voltam para a fila.
+     */
+    @Scheduled(fixedDelay = "1m", initialDelay = "1m")
+    public void requeueStale() {
+        try {
+            int requeued = outboxRepository.requeueStale(LocalDateTime.now().minusMinutes(STALE_MINUTES));
+            if (requeued > 0) {
+                LOG.warn("{} e-mail(s) parados em SENDING voltaram para a fila", requeued);
+            }
+        } catch (Exception e) {
+            LOG.error("Erro ao reenfileirar e-mails parados", e);
+        }
+    }
+
+    /**
+     * Remove os e-mails finalizados (SENT/DEAD) fora do prazo de retenção, em
+     * lotes.
+     */
+    @Scheduled(fixedDelay = "1h", initialDelay = "5m")
+    public void purgeFinished() {
+        try {
+            LocalDateTime before = LocalDateTime.now().minusDays(retentionDays);
+            int purged = 0;
+            int batch;
+            do {
+                batch = outboxRepository.purgeFinished(before, PURGE_BATCH_SIZE);
+                purged += batch;
+            } while (batch == PURGE_BATCH_SIZE);
+            if (purged > 0) {
+                LOG.info("{} e-mail(s) finalizados removidos da fila (retenção de {} dias)", purged, retentionDays);
+            }
+        } catch (Exception e) {
+            LOG.error("Erro ao remover e-mails antigos da fila", e);
+        }
+    }
+
+    private void pollGuarded() {
+        try {
+            poll();
+        } catch (Exception e) {
+            LOG.error("Erro ao processar fila de e-mails", e);
+        } finally {
+            polling.set(false);
+        }
+    }
+
+    private void poll() {
+        int capacity = executor.getQueue().remainingCapacity();
+        while (capacity > 0) {
+            List<EmailOutbox> due = outboxRepository.findDue(LocalDateTime.now(), capacity);
+            if (due.isEmpty()) {
+                return;
+            }
+            for (EmailOutbox email : due) {
+                if (outboxRepository.claim(email.getId(), LocalDateTime.now()) == 0) {
+                    continue;
+                }
+                try {
+                    executor.execute(() -> dispatch(email));
+                } catch (RejectedExecutionException e) {
+                    // Pool cheio: devolve para a fila sem contar tentativa
+                    outboxRepository.reschedule(email.getId(), email.getAttempts(), LocalDateTime.now(),
+                            email.getLastError(), LocalDateTime.now());
+                    return;
+                }
+            }
+            if (due.size() < capacity) {
+                return;
+            }
+            capacity = executor.getQueue().remainingCapacity();
+        }
+    }
+
+    private void dispatch(EmailOutbox email) {
+        int attempts = (email.getAttempts() != null ? email.getAttempts() : 0) + 1;
+        DeliveryResult result;
+        try {
+            rateLimiter.acquire();
+            result = deliver(email.getToEmail(), email.getSubject(), email.getHtml(), "outbox-" + email.getId());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result = DeliveryResult.retryable("Envio interrompido");
+        }
+        complete(email, attempts, result);
+    }
+
+    /**
+     * Aplica o resultado da tentativa {@code attempts}: SENT, PENDING com
+     * backoff ou DEAD.
+     */
+    void complete(EmailOutbox email, int attempts, DeliveryResult result) {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            if (result.isSuccess()) {
+                outboxRepository.markSent(email.getId(), result.getProviderId(), now);
+                LOG.info("✅ E-mail '{}' enviado com sucesso para: {}", email.getSubject(), email.getToEmail());
+            } else if (result.isRetryable() && attempts < maxAttempts) {
+                long backoff = backoffSeconds(attempts);
+                outboxRepository.reschedule(email.getId(), attempts, now.plusSeconds(backoff),
+                        truncate(result.getError()), now);
+                LOG.warn("E-mail '{}' para {} falhou (tentativa {}/{}), nova tentativa em {}s: {}",
+                        email.getSubject(), email.getToEmail(), attempts, maxAttempts, backoff, result.getError());
+            } else {
+                outboxRepository.markDead(email.getId(), attempts, truncate(result.getError()), now);
+                LOG.error("❌ E-mail '{}' para {} descartado após {} tentativa(s): {}",
+                        email.getSubject(), email.getToEmail(), attempts, result.getError());
+            }
+        } catch (Exception e) {
+            // Fica em SENDING e volta para a fila pelo requeueStale
+            LOG.error("Erro ao atualizar e-mail {} na fila", email.getId(), e);
+        }
+    }
+
+    /**
+     * Chamada HTTP ao Resend. Não lança exceção: falhas viram um
+     * {@link DeliveryResult} com a indicação se vale tentar de novo.
+     *
+     * @param idempotencyKey chave estável do e-mail: o Resend não reenvia uma
+     *                       mensagem já aceita com a mesma chave
+     */
+    DeliveryResult deliver(String toEmail, String subject, String htmlContent, String idempotencyKey) {
+        String jsonBody = message(toEmail, subject, htmlContent);
+        return post(RESEND_URL, jsonBody, idempotencyKey);
+    }
+
+    /**
+     * Envia o mesmo conteúdo para vários destinatários numa única chamada ao
+     * endpoint de lote do Resend (uma mensagem individual por destinatário,
+     * até {@link #MAX_BATCH_SIZE}). Passa pelo mesmo limite de taxa da fila.
+     *
+     * @param idempotencyKey chave do lote: um reenvio com a mesma chave (ex.:
+     *                       broadcast retomado após restart) não duplica e-mails
+     */
+    DeliveryResult deliverBatch(List<String> recipients, String subject, String htmlContent, String idempotencyKey)
+            throws InterruptedException {
+        if (recipients.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Lote maior que " + MAX_BATCH_SIZE + " destinatários");
+        }
+        StringBuilder jsonBody = new StringBuilder(recipients.size() * (htmlContent.length() + 200));
+        jsonBody.append('[');
+        for (int i = 0; i < recipients.size(); i++) {
+            if (i > 0) {
+                jsonBody.append(',');
+            }
+            jsonBody.append(message(recipients.get(i), subject, htmlContent));
+        }
+        jsonBody.append(']');
+
+        rateLimiter.acquire();
+        return post(RESEND_BATCH_URL, jsonBody.toString(), idempotencyKey);
+    }
+
+    private String message(String toEmail, String subject, String htmlContent) {
+        // Formatar o remetente com nome amigável se ainda não estiver formatado
+        String sender = fromEmail;
+        if (!sender.contains("<") && !sender.contains("FitAI")) {
+            sender = "FitAI <" + fromEmail + ">";
+        }
+
+        return "{\"from\":" + EmailService.escapeJson(sender)
+                + ",\"to\":[" + EmailService.escapeJson(toEmail) + "]"
+                + ",\"subject\":" + EmailService.escapeJson(subject)
+                + ",\"html\":" + EmailService.escapeJson(htmlContent) + "}";
+    }
+
+    private DeliveryResult post(String url, String jsonBody, String idempotencyKey) {
+        if (resendApiKey == null || resendApiKey.isEmpty()) {
+            return DeliveryResult.permanent("Resend API key não configurada");
+        }
+
+        try {
+            HttpRequest.Builder builder = HttpRequest.newBuilder()
+                    .uri(URI.create(url))
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Authorization", "Bearer " + resendApiKey)
+                    .header("Content-Type", "application/json");
+            if (idempotencyKey != null) {
+                builder.header("Idempotency-Key", idempotencyKey);
+            }
+            HttpRequest request = builder.POST(HttpRequest.BodyPublishers.ofString(jsonBody)).build();
+
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            int status = response.statusCode();
+
+            if (status >= 200 && status < 300) {
+                Matcher matcher = PROVIDER_ID.matcher(response.body() != null ? response.body() : "");
+                return DeliveryResult.sent(matcher.find() ? matcher.group(1) : null);
+            }
+            String error = "Status " + status + ": " + response.body();
+            if (status == 429) {
+                long retryAfter = response.headers().firstValueAsLong("retry-after").orElse(1L);
+                rateLimiter.pause(retryAfter, TimeUnit.SECONDS);
+                return DeliveryResult.retryable(error);
+            }
+            return status >= 500 ? DeliveryResult.retryable(error) : DeliveryResult.permanent(error);
+        } catch (IOException e) {
+            return DeliveryResult.retryable(e.getClass().getSimpleName() + ": " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return DeliveryResult.retryable("Envio interrompido");
+        } catch (Exception e) {
+            return DeliveryResult.permanent(e.getClass().getSimpleName() + ": " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Espera antes da próxima tentativa: 30s dobrando a cada falha, até 1h.
+     */
+    static long backoffSeconds(int attempts) {
+        return Math.min(MAX_BACKOFF_SECONDS, BASE_BACKOFF_SECONDS << Math.min(Math.max(attempts - 1, 0), 16));
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+
+    static final class DeliveryResult {
+        private final boolean success;
+        private final boolean retryable;
+        private final String providerId;
+        private final String error;
+
+        private DeliveryResult(boolean success, boolean retryable, String providerId, String error) {
+            this.success = success;
+            this.retryable = retryable;
+            this.providerId = providerId;
+            this.error = error;
+        }
+
+        static DeliveryResult sent(String providerId) {
+            return new DeliveryResult(true, false, providerId, null);
+        }
+
+        static DeliveryResult retryable(String error) {
+            return new DeliveryResult(false, true, null, error);
+        }
+
+        static DeliveryResult permanent(String error) {
+            return new DeliveryResult(false, false, null, error);
+        }
+
+        boolean isSuccess() { return success; }
+        boolean isRetryable() { return retryable; }
+        String getProviderId() { return providerId; }
+        String getError() { return error; }
+    }
+}
@@ -0,0 +1,179 @@
+package gcfv2;
+
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.data.annotation.GeneratedValue;
+import io.micronaut.data.annotation.Id;
+import io.micronaut.data.annotation.MappedEntity;
+import io.micronaut.data.annotation.MappedProperty;
+import io.micronaut.serde.annotation.Serdeable;
+
+import java.time.LocalDateTime;
+
+/**
+ * E-mail aguardando envio (ou já enviado/descartado). Gravado pelo
+ * EmailService e processado pelo EmailDispatcher.
+ */
+@Serdeable
+@MappedEntity("email_outbox")
+public class EmailOutbox {
+
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_SENDING = "SENDING";
+    public static final String STATUS_SENT = "SENT";
+    public static final String STATUS_DEAD = "DEAD";
+
+    @Id
+    @GeneratedValue(GeneratedValue.Type.AUTO)
+    private Long id;
+
+    @MappedProperty("to_email")
+    private String toEmail;
+
+    private String subject;
+
+    @Nullable
+    private String html; // Apagado ao sair da fila (SENT/DEAD)
+
+    private String category;
+
+    private String status;
+
+    private Integer attempts = 0;
+
+    @MappedProperty("next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    @MappedProperty("last_error")
+    private String lastError;
+
+    @MappedProperty("provider_id")
+    private String providerId;
+
+    @MappedProperty("created_at")
+    private LocalDateTime createdAt;
+
+    @MappedProperty("updated_at")
+    private LocalDateTime updatedAt;
+
+    @MappedProperty("sent_at")
+    private LocalDateTime sentAt;
+
+    public EmailOutbox() {
+    }
+
+    public EmailOutbox(String toEmail, String subject, String html, String category) {
+        this.toEmail = toEmail;
+        this.subject = subject;
+        this.html = html;
+        this.category = category;
+        this.status = STATUS_PENDING;
+        this.createdAt = LocalDateTime.now();
+        this.nextAttemptAt = this.createdAt;
+        this.updatedAt = this.createdAt;
+    }
+
+    // Getters e Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getToEmail() {
+        return toEmail;
+    }
+
+    public void setToEmail(String toEmail) {
+        this.toEmail = toEmail;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public void setSubject(String subject) {
+        this.subject = subject;
+    }
+
+    public String getHtml() {
+        return html;
+    }
+
+    public void setHtml(String html) {
+        this.html = html;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Integer getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(Integer attempts) {
+        this.attempts = attempts;
+    }
+
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public String getProviderId() {
+        return providerId;
+    }
+
+    public void setProviderId(String providerId) {
+        this.providerId = providerId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public LocalDateTime getSentAt() {
+        return sentAt;
+    }
+
+    public void setSentAt(LocalDateTime sentAt) {
+        this.sentAt = sentAt;
+    }
+}
@@ -0,0 +1,68 @@
+package gcfv2;
+
+import io.micronaut.data.annotation.Query;
+import io.micronaut.data.jdbc.annotation.JdbcRepository;
+import io.micronaut.data.model.query.builder.sql.Dialect;
+import io.micronaut.data.repository.CrudRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@JdbcRepository(dialect = Dialect.MYSQL)
+public interface EmailOutboxRepository extends CrudRepository<EmailOutbox, Long> {
+
+    /**
+     * E-mails pendentes cujo próximo envio já venceu, mais antigos primeiro
+     */
+    @Query("SELECT * FROM email_outbox WHERE status = 'PENDING' AND next_attempt_at <= :now " +
+            "ORDER BY next_attempt_at, id LIMIT :limit")
+    List<EmailOutbox> findDue(LocalDateTime now, int limit);
+
+    /**
+     * Reivindica o e-mail (PENDING → SENDING). Retorna 0 se outra instância já
+     * pegou.
+     */
+    @Query("UPDATE email_outbox SET status = 'SENDING', updated_at = :now " +
+            "WHERE id = :id AND status = 'PENDING'")
+    int claim(Long id, LocalDateTime now);
+
+    /**
+     * Enviado. O corpo é apagado: pode conter senha provisória ou link de
+     * redefinição
+     */
+    @Query("UPDATE email_outbox SET status = 'SENT', attempts = attempts + 1, provider_id = :providerId, " +
+            "html = NULL, last_error = NULL, updated_at = :now, sent_at = :now WHERE id = :id")
+    void markSent(Long id, String providerId, LocalDateTime now);
+
+    /**
+     * Falha temporária: volta para a fila com a próxima tentativa agendada
+     */
+    @Query("UPDATE email_outbox SET status = 'PENDING', attempts = :attempts, next_attempt_at = :nextAttemptAt, " +
+            "last_error = :error, updated_at = :now WHERE id = :id")
+    void reschedule(Long id, int attempts, LocalDateTime nextAttemptAt, String error, LocalDateTime now);
+
+    /**
+     * Falha definitiva (erro permanente ou tentativas esgotadas). O corpo é
+     * apagado como no envio; destinatário, assunto e erro ficam para análise
+     */
+    @Query("UPDATE email_outbox SET status = 'DEAD', attempts = :attempts, html = NULL, last_error = :error, " +
+            "updated_at = :now WHERE id = :id")
+    void markDead(Long id, int attempts, String error, LocalDateTime now);
+
+    /**
+     * E-mails SENDING parados (instância reiniciada no meio do envio) voltam
+     * para a fila.
+     */
+    @Query("UPDATE email_outbox SET status = 'PENDING' WHERE status = 'SENDING' AND updated_at < :staleBefore")
+    int requeueStale(LocalDateTime staleBefore);
+
+    /**
+     * Remove um lote de e-mails finalizados (SENT/DEAD) mais antigos que o
+     * limite. Retorna linhas removidas (menor que o lote = acabou).
+     */
+    @Query("DELETE FROM email_outbox WHERE status IN ('SENT', 'DEAD') AND updated_at < :before LIMIT :limit")
+    int purgeFinished(LocalDateTime before, int limit);
+
+    @Query("SELECT COUNT(*) FROM email_outbox WHERE status = :status")
+    long countByStatus(String status);
+}
@@ -0,0 +1,79 @@
+package gcfv2;
+
+import gcfv2.utils.HtmlTemplate;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registro dos templates de e-mail (resources/email-templates/*.html).
+ *
+ * Todos são lidos e compilados uma única vez na criação do bean; um template
+ * ausente ou malformado impede a subida em vez de falhar no primeiro envio.
+ * Novos templates (ex.: versões com a marca de um personal) entram aqui.
+ */
+@Singleton
+public class EmailTemplates {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EmailTemplates.class);
+
+    private static final String BASE_PATH = "email-templates/";
+
+    public static final String PASSWORD_RESET = "password-reset";
+    public static final String PLAN_EXPIRED = "plan-expired";
+    public static final String WELCOME = "welcome";
+    public static final String WELCOME_FEATURES_PERSONAL = "welcome-features-personal";
+    public static final String WELCOME_FEATURES_STUDENT = "welcome-features-student";
+    public static final String WORKOUT_GENERATED = "workout-generated";
+    public static final String DIET_GENERATED = "diet-generated";
+    public static final String ANALYSIS_GENERATED = "analysis-generated";
+    public static final String PAYMENT_CONFIRMATION = "payment-confirmation";
+    public static final String ADMIN_BROADCAST = "admin-broadcast";
+    public static final String ADMIN_BROADCAST_IMAGE = "admin-broadcast-image";
+
+    private static final List<String> ALL = List.of(
+            PASSWORD_RESET, PLAN_EXPIRED, WELCOME, WELCOME_FEATURES_PERSONAL, WELCOME_FEATURES_STUDENT,
+            WORKOUT_GENERATED, DIET_GENERATED, ANALYSIS_GENERATED, PAYMENT_CONFIRMATION,
+            ADMIN_BROADCAST, ADMIN_BROADCAST_IMAGE);
+
+    private final Map<String, HtmlTemplate> templates = new HashMap<>();
+
+    public EmailTemplates() {
+        for (String name : ALL) {
+            templates.put(name, HtmlTemplate.compile(name, load(name)));
+        }
+        LOG.info("EmailTemplates: {} templates compilados", templates.size());
+    }
+
+    public HtmlTemplate get(String name) {
+        HtmlTemplate template = templates.get(name);
+        if (template == null) {
+            throw new IllegalArgumentException("Template de e-mail desconhecido: " + name);
+        }
+        return template;
+    }
+
+    public String render(String name, Map<String, ?> values) {
+        return get(name).render(values);
+    }
+
+    private static String load(String name) {
+        String path = BASE_PATH + name + ".html";
+        try (InputStream in = EmailTemplates.class.getClassLoader().getResourceAsStream(path)) {
+            if (in == null) {
+                throw new IllegalStateException("Template de e-mail não encontrado: " + path);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao ler template de e-mail " + path, e);
+        }
+    }
+}
@@ -23,6 +23,9 @@ public class ExerciseController {
     @Inject
     private UsuarioRepository usuarioRepository;
 
+    @Inject
+    private PermissionService permissionService;
+
     @Inject
     private UsuarioExercicioRepository usuarioExercicioRepository;
 
@@ -95,7 +98,7 @@ public class ExerciseController {
 
         // 3. Se for PERSONAL, verificar se o aluno pertence a ele
         if ("PERSONAL".equalsIgnoreCase(requesterRole)) {
-            if (!usuarioRepository.hasPermission(requesterId, requesterRole, userId.toString())) {
+            if (!permissionService.hasPermission(requesterId, requesterRole, userId.toString())) {
                 return HttpResponse.status(HttpStatus.FORBIDDEN)
                         .body(Map.of("message", "Você não tem permissão para gerenciar este aluno."));
             }
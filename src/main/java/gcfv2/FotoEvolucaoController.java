@@ -1,5 +1,6 @@
 package gcfv2;
 
+import gcfv2.storage.SignedUpload;
 import io.micronaut.http.HttpResponse;
 import io.micronaut.http.HttpStatus;
 import io.micronaut.http.MediaType;
@@ -7,21 +8,26 @@ import io.micronaut.http.annotation.*;
 import io.micronaut.http.multipart.CompletedFileUpload;
 import io.micronaut.http.server.cors.CrossOrigin;
 import io.micronaut.core.annotation.Nullable;
+import io.micronaut.data.exceptions.DataAccessException;
 import io.micronaut.transaction.annotation.Transactional;
 import jakarta.inject.Inject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * Controller para gerenciar fotos de evolução dos alunos.
  * 
  * Endpoints:
- * - POST /api/usuarios/{id}/fotos-evolucao - Upload de nova foto
+ * - POST /api/usuarios/{id}/fotos-evolucao/upload-url - Assina upload direto ao bucket
+ * - POST /api/usuarios/{id}/fotos-evolucao/finalizar - Registra a foto enviada direto
+ * - POST /api/usuarios/{id}/fotos-evolucao - Upload de nova foto (multipart, via servidor)
  * - GET /api/usuarios/{id}/fotos-evolucao - Listar fotos do usuário
  * - DELETE /api/fotos-evolucao/{fotoId} - Remover foto
  */
@@ -42,6 +48,9 @@ public class FotoEvolucaoController {
     @Inject
     private UsuarioRepository usuarioRepository;
 
+    @Inject
+    private PermissionService permissionService;
+
     @Inject
     private UploadService uploadService;
 
@@ -49,7 +58,154 @@ public class FotoEvolucaoController {
     private NotificationService notificationService;
 
     /**
-     * Upload de foto de evolução
+     * Fase 1 do upload direto: assina um POST para o bucket. O cliente envia a
+     * foto direto ao GCS (url + fields, arquivo no campo "file") e depois chama
+     * /finalizar com o objectName. O envio não passa pelo servidor; o objeto
+     * fica em staging (nunca servido) até ser finalizado.
+     *
+     * Body: { category, contentType } (image/jpeg ou image/png)
+     * Response: { objectName, url, fields, maxBytes, expiresAt }
+     *
+     * 501 quando o storage não aceita upload direto (disco local): usar o
+     * upload multipart.
+     */
+    @Post("/usuarios/{id}/fotos-evolucao/upload-url")
+    public HttpResponse<?> prepararUploadFotoEvolucao(
+            @PathVariable Long id,
+            @Body Map<String, String> body,
+            @QueryValue Long requesterId,
+            @QueryValue String requesterRole) {
+
+        try {
+            // 1. Validar Permissão
+            if (!permissionService.hasPermission(requesterId, requesterRole, id.toString())) {
+                return HttpResponse.status(HttpStatus.FORBIDDEN)
+                        .body(Map.of("message",
+                                "Acesso negado. Você não tem permissão para gerenciar fotos deste aluno."));
+            }
+
+            // 2. Validar categoria e tipo
+            String category = body.get("category");
+            if (category == null || !isValidCategory(category.toUpperCase())) {
+                return HttpResponse.badRequest(Map.of("message",
+                        "Categoria inválida. Use: FRONT, BACK, LEFT ou RIGHT."));
+            }
+            String contentType = body.getOrDefault("contentType", "").toLowerCase();
+            if (!contentType.equals("image/jpeg") && !contentType.equals("image/png")) {
+                return HttpResponse.badRequest(Map.of("message", "Apenas imagens JPG ou PNG são permitidas."));
+            }
+
+            // 3. Assinar (sem banco nem transação)
+            Optional<SignedUpload> signed = uploadService.prepareEvolutionPhotoUpload(id, category.toUpperCase(),
+                    contentType);
+            if (signed.isEmpty()) {
+                return HttpResponse.status(HttpStatus.NOT_IMPLEMENTED).body(Map.of("message",
+                        "Upload direto indisponível neste ambiente. Use o upload multipart."));
+            }
+
+            SignedUpload upload = signed.get();
+            return HttpResponse.ok(Map.of(
+                    "objectName", upload.getName(),
+                    "url", upload.getUrl(),
+                    "fields", upload.getFields(),
+                    "maxBytes", uploadService.getDirectUploadMaxBytes(),
+                    "expiresAt", upload.getExpiresAtMillis()));
+
+        } catch (Exception e) {
+            LOG.error("Erro ao assinar upload de foto de evolução: {}", e.getMessage());
+            return HttpResponse.serverError(Map.of("message", "Erro ao preparar upload: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Fase 2 do upload direto: o objeto de staging é gravado com o nome final
+     * já tratado como no multipart (re-encode sem EXIF e variantes, ver
+     * {@link UploadService#finalizeEvolutionPhotoUpload}) e só então a foto é
+     * registrada: a URL devolvida nunca serve o original do cliente.
+     *
+     * Body: { objectName, category, photoDate } (photoDate YYYY-MM-DD)
+     */
+    @Post("/usuarios/{id}/fotos-evolucao/finalizar")
+    public HttpResponse<?> finalizarUploadFotoEvolucao(
+            @PathVariable Long id,
+            @Body Map<String, String> body,
+            @QueryValue Long requesterId,
+            @QueryValue String requesterRole) {
+
+        try {
+            // 1. Validar Permissão
+            if (!permissionService.hasPermission(requesterId, requesterRole, id.toString())) {
+                return HttpResponse.status(HttpStatus.FORBIDDEN)
+                        .body(Map.of("message",
+                                "Acesso negado. Você não tem permissão para gerenciar fotos deste aluno."));
+            }
+
+            // 2. Validar categoria
+            String category = body.get("category");
+            if (category == null || !isValidCategory(category.toUpperCase())) {
+                return HttpResponse.badRequest(Map.of("message",
+                        "Categoria inválida. Use: FRONT, BACK, LEFT ou RIGHT."));
+            }
+            String normalizedCategory = category.toUpperCase();
+
+            // 3. Validar data
+            String photoDate = body.get("photoDate");
+            LocalDate parsedDate;
+            try {
+                parsedDate = LocalDate.parse(photoDate);
+            } catch (Exception e) {
+                return HttpResponse.badRequest(Map.of("message",
+                        "Data inválida. Use o formato YYYY-MM-DD."));
+            }
+
+            // 4. Tratar e gravar a foto enviada (fora de transação: acesso ao storage)
+            String objectName = body.get("objectName");
+            String imageUrl;
+            try {
+                imageUrl = uploadService.finalizeEvolutionPhotoUpload(id, normalizedCategory, objectName);
+            } catch (IllegalArgumentException e) {
+                return HttpResponse.badRequest(Map.of("message", e.getMessage()));
+            } catch (IllegalStateException e) {
+                return HttpResponse.status(HttpStatus.CONFLICT).body(Map.of("message", "Foto já registrada."));
+            }
+
+            // 5. Salvar no banco (uk_foto_evolucao_image_url barra a confirmação repetida)
+            FotoEvolucao foto = new FotoEvolucao(id, imageUrl, normalizedCategory, parsedDate, requesterId);
+            foto.setCreatedAt(LocalDateTime.now());
+            FotoEvolucao saved;
+            try {
+                saved = fotoEvolucaoRepository.save(foto);
+            } catch (DataAccessException e) {
+                if (!isDuplicateImageUrl(e)) {
+                    throw e;
+                }
+                return HttpResponse.status(HttpStatus.CONFLICT).body(Map.of("message", "Foto já registrada."));
+            }
+
+            LOG.info("Foto de evolução salva (upload direto): userId={}, category={}, photoDate={}", id,
+                    normalizedCategory, photoDate);
+
+            // --- NOTIFICAÇÃO ---
+            try {
+                notificationService.createNotification(id, "PHOTO", "Nova foto de evolução enviada.");
+            } catch (Exception e) {
+                LOG.error("Erro ao criar notificação de foto: {}", e.getMessage());
+            }
+
+            return HttpResponse.created(Map.of(
+                    "success", true,
+                    "foto", saved));
+
+        } catch (Exception e) {
+            LOG.error("Erro ao finalizar upload de foto de evolução: {}", e.getMessage());
+            return HttpResponse.serverError(Map.of("message", "Erro ao salvar foto: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Upload de foto de evolução (multipart, a foto passa pelo servidor). Sem
+     * transação: o envio ao storage não deve segurar a conexão do banco; o
+     * registro é um único save.
      * 
      * @param id            ID do usuário alvo
      * @param file          Arquivo da foto
@@ -59,7 +215,6 @@ public class FotoEvolucaoController {
      * @param requesterRole Role de quem está fazendo o upload
      */
     @Post(value = "/usuarios/{id}/fotos-evolucao", consumes = MediaType.MULTIPART_FORM_DATA)
-    @Transactional
     public HttpResponse<?> uploadFotoEvolucao(
             @PathVariable Long id,
             @Part("file") CompletedFileUpload file,
@@ -70,7 +225,7 @@ public class FotoEvolucaoController {
 
         try {
             // 1. Validar Permissão
-            if (!usuarioRepository.hasPermission(requesterId, requesterRole, id.toString())) {
+            if (!permissionService.hasPermission(requesterId, requesterRole, id.toString())) {
                 return HttpResponse.status(HttpStatus.FORBIDDEN)
                         .body(Map.of("message",
                                 "Acesso negado. Você não tem permissão para gerenciar fotos deste aluno."));
@@ -147,7 +302,7 @@ public class FotoEvolucaoController {
 
         try {
             // 1. Validar Permissão
-            if (!usuarioRepository.hasPermission(requesterId, requesterRole, id.toString())) {
+            if (!permissionService.hasPermission(requesterId, requesterRole, id.toString())) {
                 return HttpResponse.status(HttpStatus.FORBIDDEN)
                         .body(Map.of("message",
                                 "Acesso negado. Você não tem permissão para visualizar fotos deste aluno."));
@@ -195,7 +350,7 @@ public class FotoEvolucaoController {
             FotoEvolucao foto = fotoOpt.get();
 
             // 2. Validar permissão sobre o usuário dono da foto
-            if (!usuarioRepository.hasPermission(requesterId, requesterRole, foto.getUserId().toString())) {
+            if (!permissionService.hasPermission(requesterId, requesterRole, foto.getUserId().toString())) {
                 return HttpResponse.status(HttpStatus.FORBIDDEN)
                         .body(Map.of("message", "Acesso negado. Você não tem permissão para deletar esta foto."));
             }
@@ -215,6 +370,20 @@ public class FotoEvolucaoController {
         }
     }
 
+    /**
+     * Violação de uk_foto_evolucao_image_url (MySQL 1062); outras falhas do
+     * banco continuam sendo erro interno.
+     */
+    private static boolean isDuplicateImageUrl(DataAccessException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sql && sql.getErrorCode() == 1062
+                    && String.valueOf(sql.getMessage()).contains("uk_foto_evolucao_image_url")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private boolean isValidCategory(String category) {
         return "FRONT".equals(category) || "BACK".equals(category)
                 || "LEFT".equals(category) || "RIGHT".equals(category);
@@ -30,6 +30,9 @@ public class HistoricoController {
     @Inject
     private NotificationService notificationService;
 
+    @Inject
+    private PermissionService permissionService;
+
     @Inject
     public HistoricoController(HistoricoRepository historicoRepository, UsuarioRepository usuarioRepository,
             EmailService emailService) {
@@ -50,7 +53,7 @@ public class HistoricoController {
         try {
             // Validação de Segurança: O requester tem permissão sobre o aluno
             // (targetUserId)?
-            if (!usuarioRepository.hasPermission(requesterId, requesterRole, historico.getUserId())) {
+            if (!permissionService.hasPermission(requesterId, requesterRole, historico.getUserId())) {
                 return HttpResponse.status(HttpStatus.FORBIDDEN)
                         .body(Map.of("message",
                                 "Acesso negado. Você não tem permissão para registrar dados para este aluno."));
@@ -163,7 +166,7 @@ public class HistoricoController {
 
         try {
             // Validação de Segurança para Visualização
-            if (!usuarioRepository.hasPermission(requesterId, requesterRole, userId)) {
+            if (!permissionService.hasPermission(requesterId, requesterRole, userId)) {
                 return HttpResponse.status(HttpStatus.FORBIDDEN)
                         .body(Map.of("message", "Você não tem permissão para visualizar o histórico deste aluno."));
             }
@@ -198,7 +201,7 @@ public class HistoricoController {
         try {
             return historicoRepository.findById(id).map(h -> {
                 // Apenas Admin ou o próprio dono podem deletar (ou o Personal do aluno)
-                if (usuarioRepository.hasPermission(requesterId, requesterRole, h.getUserId())) {
+                if (permissionService.hasPermission(requesterId, requesterRole, h.getUserId())) {
                     historicoRepository.deleteById(id);
                     return HttpResponse.ok(Map.of("message", "Registro removido."));
                 }
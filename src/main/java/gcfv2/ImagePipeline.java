@@ -0,0 +1,523 @@
+package gcfv2;
+
+import io.micronaut.context.annotation.Value;
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Processamento de imagens no upload: gera as variantes thumb/medium/full
+ * (lado maior limitado, sem ampliar), aplica a orientação EXIF e re-encoda
+ * sem metadados (EXIF, GPS etc. são descartados).
+ *
+ * Fotos viram JPEG; imagens com transparência (logos) continuam PNG.
+ *
+ * Roda num pool dedicado e limitado; com a fila cheia ou estourado o prazo,
+ * {@link #process(byte[])} devolve null, sem acumular latência, e o upload
+ * segue com o original passado por {@link #stripMetadata(byte[])}, que remove
+ * EXIF/GPS sem decodificar pixels. Só JPEG e PNG passam por esse caminho: GIFs
+ * e outros formatos que o pipeline não processa são recusados pelo
+ * UploadService, não gravados.
+ */
+@Singleton
+public class ImagePipeline {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ImagePipeline.class);
+
+    // Proteção contra "bombas" de descompressão
+    private static final long MAX_PIXELS = 50_000_000L;
+
+    private static final byte[] PNG_SIGNATURE = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' };
+
+    public enum Variant {
+        THUMB("thumb", 256),
+        MEDIUM("medium", 768),
+        FULL("full", 1600);
+
+        private final String suffix;
+        private final int maxDimension;
+
+        Variant(String suffix, int maxDimension) {
+            this.suffix = suffix;
+            this.maxDimension = maxDimension;
+        }
+
+        public String getSuffix() { return suffix; }
+        public int getMaxDimension() { return maxDimension; }
+
+        /**
+         * Variante pedida por ?size= (nome) ou ?w= (menor variante com largura
+         * suficiente). null se nenhum dos dois foi informado ou é inválido.
+         */
+        public static Variant select(Integer width, String size) {
+            if (size != null) {
+                for (Variant v : values()) {
+                    if (v.suffix.equalsIgnoreCase(size)) {
+                        return v;
+                    }
+                }
+            }
+            if (width != null && width > 0) {
+                for (Variant v : values()) {
+                    if (width <= v.maxDimension) {
+                        return v;
+                    }
+                }
+                return FULL;
+            }
+            return null;
+        }
+    }
+
+    private final float jpegQuality;
+    private final long timeoutMillis;
+    private final ThreadPoolExecutor executor;
+
+    public ImagePipeline(
+            @Value("${image.pipeline.threads:2}") int threads,
+            @Value("${image.pipeline.queue-capacity:32}") int queueCapacity,
+            @Value("${image.pipeline.timeout-seconds:20}") int timeoutSeconds,
+            @Value("${image.pipeline.jpeg-quality:0.8}") float jpegQuality) {
+        this.jpegQuality = jpegQuality;
+        this.timeoutMillis = timeoutSeconds * 1000L;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "image-pipeline-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        // Sem arquivos temporários em disco
+        ImageIO.setUseCache(false);
+    }
+
+    /**
+     * Caminho da variante: "a/b/uuid.jpg" → "a/b/uuid.thumb.jpg". FULL é o
+     * próprio caminho.
+     */
+    public static String variantPath(String path, Variant variant) {
+        if (variant == Variant.FULL) {
+            return path;
+        }
+        int slash = path.lastIndexOf('/');
+        int dot = path.lastIndexOf('.');
+        if (dot <= slash) {
+            return path + "." + variant.suffix;
+        }
+        return path.substring(0, dot) + "." + variant.suffix + path.substring(dot);
+    }
+
+    /**
+     * Gera as variantes no pool. null se a imagem não pôde ser processada
+     * (formato não suportado, pool cheio, prazo estourado) - o chamador tenta
+     * {@link #stripMetadata(byte[])} e recusa o arquivo se não for JPEG/PNG.
+     */
+    public Result process(byte[] original) {
+        Future<Result> future;
+        try {
+            future = executor.submit(() -> transcode(original));
+        } catch (RejectedExecutionException e) {
+            LOG.warn("ImagePipeline: fila cheia ({} pendentes), imagem gravada sem variantes",
+                    executor.getQueue().size());
+            return null;
+        }
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            LOG.warn("ImagePipeline: processamento excedeu {} ms, imagem gravada sem variantes", timeoutMillis);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            LOG.warn("ImagePipeline: falha ao processar imagem: {}", e.getCause().getMessage());
+            return null;
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    private Result transcode(byte[] original) throws IOException {
+        BufferedImage image = decode(original);
+        if (image == null) {
+            return null;
+        }
+        image = orient(image, jpegOrientation(original));
+
+        boolean alpha = image.getColorModel().hasAlpha();
+        String format = alpha ? "png" : "jpeg";
+        Map<Variant, byte[]> variants = new EnumMap<>(Variant.class);
+        BufferedImage source = image;
+        // Da maior para a menor: cada variante é reduzida a partir da anterior
+        for (Variant variant : new Variant[] { Variant.FULL, Variant.MEDIUM, Variant.THUMB }) {
+            source = scaleToFit(source, variant.maxDimension, alpha);
+            variants.put(variant, alpha ? encodePng(source) : encodeJpeg(source));
+        }
+        return new Result(format, variants);
+    }
+
+    private static BufferedImage decode(byte[] data) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(data))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                if ("gif".equalsIgnoreCase(reader.getFormatName())) {
+                    // Pode ser animado: não re-encoda (e o upload é recusado)
+                    return null;
+                }
+                reader.setInput(in, true, true);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > MAX_PIXELS) {
+                    throw new IOException("Imagem grande demais: " + reader.getWidth(0) + "x" + reader.getHeight(0));
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Reduz até caber em maxDimension (sem ampliar), em passos de no máximo
+     * 50% para manter a qualidade com interpolação bilinear.
+     */
+    private static BufferedImage scaleToFit(BufferedImage src, int maxDimension, boolean alpha) {
+        int type = alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        int w = src.getWidth();
+        int h = src.getHeight();
+        double scale = Math.min(1.0, (double) maxDimension / Math.max(w, h));
+        int targetW = Math.max(1, (int) Math.round(w * scale));
+        int targetH = Math.max(1, (int) Math.round(h * scale));
+
+        BufferedImage current = src;
+        do {
+            w = Math.max(targetW, w / 2);
+            h = Math.max(targetH, h / 2);
+            BufferedImage next = new BufferedImage(w, h, type);
+            Graphics2D g = next.createGraphics();
+            try {
+                if (!alpha) {
+                    // JPEG não tem transparência: fundo branco
+                    g.setColor(Color.WHITE);
+                    g.fillRect(0, 0, w, h);
+                }
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, w, h, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (w != targetW || h != targetH);
+        return current;
+    }
+
+    private byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.setOutput(ios);
+            // Sem metadados: o arquivo sai só com o cabeçalho JFIF
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] encodePng(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Aplica a orientação EXIF (1-8) para que a imagem fique "em pé" depois
+     * que os metadados forem descartados.
+     */
+    private static BufferedImage orient(BufferedImage src, int orientation) {
+        if (orientation < 2 || orientation > 8) {
+            return src;
+        }
+        int w = src.getWidth();
+        int h = src.getHeight();
+        AffineTransform t = switch (orientation) {
+            case 2 -> new AffineTransform(-1, 0, 0, 1, w, 0);  // espelhada
+            case 3 -> new AffineTransform(-1, 0, 0, -1, w, h); // 180°
+            case 4 -> new AffineTransform(1, 0, 0, -1, 0, h);  // invertida
+            case 5 -> new AffineTransform(0, 1, 1, 0, 0, 0);   // transposta
+            case 6 -> new AffineTransform(0, 1, -1, 0, h, 0);  // 90° horário
+            case 7 -> new AffineTransform(0, -1, -1, 0, h, w); // transversa
+            default -> new AffineTransform(0, -1, 1, 0, 0, w); // 90° anti-horário
+        };
+        boolean swap = orientation >= 5;
+        int type = src.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage out = new BufferedImage(swap ? h : w, swap ? w : h, type);
+        Graphics2D g = out.createGraphics();
+        try {
+            g.drawImage(src, t, null);
+        } finally {
+            g.dispose();
+        }
+        return out;
+    }
+
+    /**
+     * Lê a tag Orientation (0x0112) do IFD0 do segmento APP1/Exif de um JPEG.
+     * 1 (normal) se não houver ou não for JPEG.
+     */
+    static int jpegOrientation(byte[] data) {
+        if (data.length < 4 || (data[0] & 0xFF) != 0xFF || (data[1] & 0xFF) != 0xD8) {
+            return 1;
+        }
+        int pos = 2;
+        while (pos + 4 <= data.length) {
+            if ((data[pos] & 0xFF) != 0xFF) {
+                return 1;
+            }
+            int marker = data[pos + 1] & 0xFF;
+            if (marker == 0xDA || marker == 0xD9) {
+                // Início dos dados da imagem: não há mais metadados
+                return 1;
+            }
+            int length = u16(data, pos + 2, false);
+            int segmentEnd = Math.min(data.length, pos + 2 + length);
+            if (marker == 0xE1 && pos + 10 <= segmentEnd
+                    && new String(data, pos + 4, 6, StandardCharsets.ISO_8859_1)
+                            .equals("Exif\0\0")) {
+                return tiffOrientation(data, pos + 10, segmentEnd);
+            }
+            pos += 2 + length;
+        }
+        return 1;
+    }
+
+    /**
+     * "jpeg" ou "png" pela assinatura dos bytes; null para qualquer outro
+     * formato.
+     */
+    static String detectFormat(byte[] data) {
+        if (data.length >= 3 && (data[0] & 0xFF) == 0xFF && (data[1] & 0xFF) == 0xD8 && (data[2] & 0xFF) == 0xFF) {
+            return "jpeg";
+        }
+        if (data.length >= PNG_SIGNATURE.length
+                && Arrays.equals(data, 0, PNG_SIGNATURE.length, PNG_SIGNATURE, 0, PNG_SIGNATURE.length)) {
+            return "png";
+        }
+        return null;
+    }
+
+    /**
+     * Remove os metadados de um JPEG ou PNG copiando só os segmentos/chunks
+     * necessários para exibir a imagem - usado quando o original é gravado
+     * sem passar pelo re-encode.
+     *
+     * JPEG: descarta APP1 (EXIF/XMP), APP3-APP13, APP15 e comentários; mantém
+     * JFIF (APP0), perfil ICC (APP2) e Adobe (APP14). Se havia orientação
+     * EXIF, grava um APP1 mínimo só com ela. PNG: descarta tEXt, zTXt, iTXt,
+     * eXIf e tIME.
+     *
+     * @return a imagem sem metadados, ou null se não for JPEG/PNG ou estiver
+     *         malformada
+     */
+    static byte[] stripMetadata(byte[] data) {
+        String format = detectFormat(data);
+        if ("jpeg".equals(format)) {
+            return stripJpeg(data);
+        }
+        if ("png".equals(format)) {
+            return stripPng(data);
+        }
+        return null;
+    }
+
+    private static byte[] stripJpeg(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length);
+        out.write(0xFF);
+        out.write(0xD8);
+        boolean orientationWritten = false;
+        int pos = 2;
+        while (pos + 4 <= data.length) {
+            if ((data[pos] & 0xFF) != 0xFF) {
+                return null;
+            }
+            int marker = data[pos + 1] & 0xFF;
+            if (marker == 0xFF) {
+                // Byte de preenchimento entre segmentos
+                pos++;
+                continue;
+            }
+            if (marker == 0xDA) {
+                // Início dos dados da imagem: o resto é copiado como está
+                if (!orientationWritten) {
+                    writeOrientationSegment(out, jpegOrientation(data));
+                }
+                out.write(data, pos, data.length - pos);
+                return out.toByteArray();
+            }
+            int length = u16(data, pos + 2, false);
+            if (length < 2 || pos + 2 + length > data.length) {
+                return null;
+            }
+            boolean metadata = marker == 0xFE || marker == 0xE1 || (marker >= 0xE3 && marker <= 0xED)
+                    || marker == 0xEF;
+            if (!metadata) {
+                // A orientação entra logo depois do APP0/JFIF, antes das tabelas
+                if (!orientationWritten && marker != 0xE0) {
+                    writeOrientationSegment(out, jpegOrientation(data));
+                    orientationWritten = true;
+                }
+                out.write(data, pos, 2 + length);
+            }
+            pos += 2 + length;
+        }
+        return null;
+    }
+
+    /**
+     * APP1/Exif com um único IFD contendo só a tag Orientation (big-endian).
+     */
+    private static void writeOrientationSegment(ByteArrayOutputStream out, int orientation) {
+        if (orientation < 2 || orientation > 8) {
+            return;
+        }
+        byte[] segment = {
+                (byte) 0xFF, (byte) 0xE1, 0, 34,
+                'E', 'x', 'i', 'f', 0, 0,
+                'M', 'M', 0, 42, 0, 0, 0, 8,
+                0, 1,
+                0x01, 0x12, 0, 3, 0, 0, 0, 1, 0, (byte) orientation, 0, 0,
+                0, 0, 0, 0 };
+        out.write(segment, 0, segment.length);
+    }
+
+    private static byte[] stripPng(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length);
+        out.write(data, 0, PNG_SIGNATURE.length);
+        int pos = PNG_SIGNATURE.length;
+        while (pos + 12 <= data.length) {
+            long length = u32(data, pos, false);
+            if (length > data.length - pos - 12) {
+                return null;
+            }
+            String type = new String(data, pos + 4, 4, StandardCharsets.ISO_8859_1);
+            int chunkEnd = pos + 12 + (int) length;
+            switch (type) {
+                case "tEXt", "zTXt", "iTXt", "eXIf", "tIME" -> {
+                    // metadado: não copia
+                }
+                default -> out.write(data, pos, chunkEnd - pos);
+            }
+            if (type.equals("IEND")) {
+                return out.toByteArray();
+            }
+            pos = chunkEnd;
+        }
+        return null;
+    }
+
+    private static int tiffOrientation(byte[] data, int tiff, int end) {
+        if (tiff + 8 > end) {
+            return 1;
+        }
+        boolean little = data[tiff] == 'I' && data[tiff + 1] == 'I';
+        long ifdOffset = u32(data, tiff + 4, little);
+        if (ifdOffset < 8 || tiff + ifdOffset + 2 > end) {
+            return 1;
+        }
+        int ifd = tiff + (int) ifdOffset;
+        int entries = u16(data, ifd, little);
+        for (int i = 0; i < entries; i++) {
+            int entry = ifd + 2 + i * 12;
+            if (entry + 12 > end) {
+                return 1;
+            }
+            if (u16(data, entry, little) == 0x0112) {
+                int value = u16(data, entry + 8, little);
+                return value >= 1 && value <= 8 ? value : 1;
+            }
+        }
+        return 1;
+    }
+
+    private static int u16(byte[] data, int pos, boolean little) {
+        int a = data[pos] & 0xFF;
+        int b = data[pos + 1] & 0xFF;
+        return little ? (b << 8) | a : (a << 8) | b;
+    }
+
+    private static long u32(byte[] data, int pos, boolean little) {
+        long hi = u16(data, little ? pos + 2 : pos, little);
+        long lo = u16(data, little ? pos : pos + 2, little);
+        return (hi << 16) | lo;
+    }
+
+    /**
+     * Variantes codificadas; {@link #getExtension()} é a extensão do formato
+     * de saída (".jpg" ou ".png").
+     */
+    public static final class Result {
+        private final String format;
+        private final Map<Variant, byte[]> variants;
+
+        private Result(String format, Map<Variant, byte[]> variants) {
+            this.format = format;
+            this.variants = variants;
+        }
+
+        public String getContentType() {
+            return "image/" + format;
+        }
+
+        public String getExtension() {
+            return "jpeg".equals(format) ? ".jpg" : "." + format.toLowerCase(Locale.ROOT);
+        }
+
+        public byte[] get(Variant variant) {
+            return variants.get(variant);
+        }
+    }
+}
@@ -32,11 +32,19 @@ public class InsightController {
             @QueryValue(defaultValue = "") String requesterId,
             @QueryValue(defaultValue = "") String requesterRole) {
 
-        // TODO: Implement manual permission check if needed using requesterId and
-        // requesterRole
-        // For now, we allow fetching insights if the frontend sends the request.
+        // Sem requester informado mantém o comportamento legado (sem filtragem).
+        // Com requester, os alunos são filtrados em lote pelo PermissionService.
+        Long parsedRequesterId = null;
+        if (!requesterId.isBlank()) {
+            try {
+                parsedRequesterId = Long.parseLong(requesterId);
+            } catch (NumberFormatException e) {
+                return HttpResponse.badRequest();
+            }
+        }
 
-        InsightResponse response = insightService.getInsightsForProfessor(professorId, period);
+        InsightResponse response = insightService.getInsightsForProfessor(professorId, period, parsedRequesterId,
+                requesterRole);
         return HttpResponse.ok(response);
     }
 }
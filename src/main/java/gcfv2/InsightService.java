@@ -21,18 +21,36 @@ public class InsightService {
     private final CheckinRepository checkinRepository;
     private final StructuredWorkoutPlanRepository structuredWorkoutPlanRepository;
     private final TreinoRepository treinoRepository;
+    private final PermissionService permissionService;
 
     public InsightService(UsuarioRepository usuarioRepository, CheckinRepository checkinRepository,
-            StructuredWorkoutPlanRepository structuredWorkoutPlanRepository, TreinoRepository treinoRepository) {
+            StructuredWorkoutPlanRepository structuredWorkoutPlanRepository, TreinoRepository treinoRepository,
+            PermissionService permissionService) {
         this.usuarioRepository = usuarioRepository;
         this.checkinRepository = checkinRepository;
         this.structuredWorkoutPlanRepository = structuredWorkoutPlanRepository;
         this.treinoRepository = treinoRepository;
+        this.permissionService = permissionService;
     }
 
     public InsightResponse getInsightsForProfessor(Long professorId, String period) {
+        return getInsightsForProfessor(professorId, period, null, null);
+    }
+
+    /**
+     * Insights restritos aos alunos que o requester pode acessar.
+     * Quando requesterId é null, não há filtragem (comportamento legado).
+     */
+    public InsightResponse getInsightsForProfessor(Long professorId, String period, Long requesterId,
+            String requesterRole) {
         // 1. Identify Students
         List<Usuario> students = usuarioRepository.findByPersonalId(professorId);
+        if (requesterId != null && !students.isEmpty()) {
+            // Batch permission check: one query for the whole student list
+            Set<Long> allowed = permissionService.filterAccessible(requesterId, requesterRole,
+                    students.stream().map(Usuario::getId).collect(Collectors.toList()));
+            students = students.stream().filter(u -> allowed.contains(u.getId())).collect(Collectors.toList());
+        }
         if (students.isEmpty()) {
             return new InsightResponse(new HashMap<>(), new HashMap<>(), new ArrayList<>(), new ArrayList<>(), null,
                     new ArrayList<>());
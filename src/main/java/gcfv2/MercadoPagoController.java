@@ -49,6 +49,9 @@ public class MercadoPagoController {
     @Inject
     private UsuarioRepository usuarioRepository;
 
+    @Inject
+    private AccountSnapshotService accountSnapshotService;
+
     @Inject
     private PaymentTransactionRepository paymentTransactionRepository;
 
@@ -367,6 +370,7 @@ public class MercadoPagoController {
                     // Atualizar assinatura
                     usuarioRepository.updateSubscription(userId, planId, "ACTIVE", endDate, endDate, newCredits);
                     usuarioRepository.resetSubscriptionCredits(userId, newCredits);
+                    accountSnapshotService.invalidate(userId);
 
                     // Registrar histórico
                     String reason;
@@ -388,6 +392,7 @@ public class MercadoPagoController {
                 Integer creditsAmount = transaction.getCreditsAmount();
                 if (creditsAmount != null && creditsAmount > 0) {
                     usuarioRepository.addPurchasedCredits(userId, creditsAmount);
+                    accountSnapshotService.invalidate(userId);
                     LOG.info("Créditos adicionados: userId={}, amount={}", userId, creditsAmount);
                     success = true;
                 }
@@ -0,0 +1,181 @@
+package gcfv2;
+
+import io.micronaut.context.annotation.Value;
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Singleton;
+import org.mindrot.jbcrypt.BCrypt;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Hash e verificação de senhas BCrypt num pool de threads dedicado e limitado.
+ *
+ * BCrypt é CPU-bound (~100 ms no custo 10): rodar fora das threads de request
+ * e fora de transações evita segurar a única conexão JDBC durante o hash.
+ * Com a fila cheia a operação é rejeitada (RejectedExecutionException), e o
+ * chamador responde 503 em vez de acumular latência.
+ *
+ * O custo é configurável (password.bcrypt.cost); hashes com custo diferente
+ * do configurado são refeitos no próximo login ({@link #needsRehash(String)}).
+ */
+@Singleton
+public class PasswordHasher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PasswordHasher.class);
+
+    private final int cost;
+    private final ThreadPoolExecutor executor;
+
+    // Métricas
+    private final LongAdder hashCount = new LongAdder();
+    private final LongAdder verifyCount = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final LongAdder rejected = new LongAdder();
+
+    public PasswordHasher(
+            @Value("${password.bcrypt.cost:10}") int cost,
+            @Value("${password.hashing.threads:0}") int threads,
+            @Value("${password.hashing.queue-capacity:256}") int queueCapacity) {
+        this.cost = cost;
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors());
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "bcrypt-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        LOG.info("PasswordHasher: custo BCrypt {}, {} threads, fila {}", cost, poolSize, queueCapacity);
+    }
+
+    /**
+     * Verifica a senha no pool. Suporta hash BCrypt e texto puro (legado).
+     */
+    public CompletableFuture<Boolean> verify(String rawPassword, String storedPassword) {
+        if (rawPassword == null || storedPassword == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        if (!isBcrypt(storedPassword)) {
+            // Texto puro (legado) - compara diretamente, sem custo de CPU
+            return CompletableFuture.completedFuture(rawPassword.equals(storedPassword));
+        }
+        return submit(() -> BCrypt.checkpw(rawPassword, storedPassword), verifyCount);
+    }
+
+    /**
+     * Gera o hash da senha no pool com o custo configurado.
+     */
+    public CompletableFuture<String> hash(String rawPassword) {
+        return submit(() -> BCrypt.hashpw(rawPassword, BCrypt.gensalt(cost)), hashCount);
+    }
+
+    /**
+     * Variante bloqueante de {@link #verify}, para fluxos síncronos.
+     */
+    public boolean verifyBlocking(String rawPassword, String storedPassword) {
+        return join(verify(rawPassword, storedPassword));
+    }
+
+    /**
+     * Variante bloqueante de {@link #hash}, para fluxos síncronos.
+     */
+    public String hashBlocking(String rawPassword) {
+        return join(hash(rawPassword));
+    }
+
+    /**
+     * true se a senha está em texto puro (legado) ou com custo diferente do
+     * configurado.
+     */
+    public boolean needsRehash(String storedPassword) {
+        if (storedPassword == null) {
+            return false;
+        }
+        if (!isBcrypt(storedPassword)) {
+            return true;
+        }
+        // Formato: $2a$10$...
+        try {
+            return Integer.parseInt(storedPassword.substring(4, 6)) != cost;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    public static boolean isBcrypt(String storedPassword) {
+        return storedPassword.startsWith("$2a$") || storedPassword.startsWith("$2b$")
+                || storedPassword.startsWith("$2y$");
+    }
+
+    /**
+     * Métricas de throughput: operações, latência média/máxima do hash (ms),
+     * profundidade da fila e rejeições.
+     */
+    public Map<String, Object> metrics() {
+        long ops = hashCount.sum() + verifyCount.sum();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("cost", cost);
+        metrics.put("poolSize", executor.getMaximumPoolSize());
+        metrics.put("activeThreads", executor.getActiveCount());
+        metrics.put("queueDepth", executor.getQueue().size());
+        metrics.put("queueRemainingCapacity", executor.getQueue().remainingCapacity());
+        metrics.put("hashes", hashCount.sum());
+        metrics.put("verifications", verifyCount.sum());
+        metrics.put("rejected", rejected.sum());
+        metrics.put("avgLatencyMs", ops > 0 ? totalNanos.sum() / ops / 1_000_000.0 : 0.0);
+        metrics.put("maxLatencyMs", maxNanos.get() / 1_000_000.0);
+        return metrics;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> task, LongAdder counter) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                long start = System.nanoTime();
+                try {
+                    return task.get();
+                } finally {
+                    long elapsed = System.nanoTime() - start;
+                    counter.increment();
+                    totalNanos.add(elapsed);
+                    maxNanos.accumulateAndGet(elapsed, Math::max);
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            LOG.warn("PasswordHasher: fila cheia ({} pendentes), operação rejeitada", executor.getQueue().size());
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw e;
+        }
+    }
+}
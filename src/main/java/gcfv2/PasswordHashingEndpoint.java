@@ -0,0 +1,28 @@
+package gcfv2;
+
+import io.micronaut.management.endpoint.annotation.Endpoint;
+import io.micronaut.management.endpoint.annotation.Read;
+
+import java.util.Map;
+
+/**
+ * Métricas do pool de BCrypt (GET /passwordhashing): latência do hash,
+ * profundidade da fila e rejeições.
+ *
+ * Sensível (padrão do Micronaut): para expor num ambiente interno, liberar via
+ * endpoints.passwordhashing.sensitive=false.
+ */
+@Endpoint(id = "passwordhashing")
+public class PasswordHashingEndpoint {
+
+    private final PasswordHasher passwordHasher;
+
+    public PasswordHashingEndpoint(PasswordHasher passwordHasher) {
+        this.passwordHasher = passwordHasher;
+    }
+
+    @Read
+    public Map<String, Object> metrics() {
+        return passwordHasher.metrics();
+    }
+}
@@ -0,0 +1,305 @@
+package gcfv2;
+
+import com.microsoft.playwright.Browser;
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.BrowserType;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.Playwright;
+import io.micronaut.context.annotation.Value;
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Pool de Chromium mantido aquecido para renderização de PDF.
+ *
+ * O Playwright não é thread-safe: cada worker é uma thread dona do seu próprio
+ * Playwright + Browser + BrowserContext/Page, reaproveitados entre
+ * renderizações. Os pedidos entram numa fila limitada; com a fila cheia o
+ * pedido é rejeitado (RejectedExecutionException) e o chamador responde 503,
+ * em vez de abrir navegadores até estourar a memória da instância.
+ *
+ * - Health check: com o worker ocioso, verifica se o navegador continua
+ * conectado e relança se necessário.
+ * - Reciclagem: o navegador é fechado e relançado a cada N renderizações
+ * (libera memória acumulada pelo Chromium); o contexto é recriado após erro.
+ */
+@Singleton
+public class PdfBrowserPool {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PdfBrowserPool.class);
+
+    private static final long IDLE_HEALTH_CHECK_SECONDS = 30;
+
+    private static final List<String> LAUNCH_ARGS = Arrays.asList(
+            "--no-sandbox",
+            "--disable-setuid-sandbox",
+            "--disable-dev-shm-usage",
+            "--font-render-hinting=none");
+
+    private final BlockingQueue<RenderTask<?>> queue;
+    private final List<Thread> workers = new ArrayList<>();
+    private final int maxRendersPerBrowser;
+    private final long renderTimeoutMillis;
+    private volatile boolean running = true;
+
+    // Métricas
+    private final LongAdder renders = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder browserLaunches = new LongAdder();
+    private final LongAdder totalQueueNanos = new LongAdder();
+    private final LongAdder totalRenderNanos = new LongAdder();
+    private final AtomicLong maxQueueNanos = new AtomicLong();
+    private final AtomicLong maxRenderNanos = new AtomicLong();
+
+    public PdfBrowserPool(
+            @Value("${pdf.pool.size:2}") int size,
+            @Value("${pdf.pool.queue-capacity:16}") int queueCapacity,
+            @Value("${pdf.pool.max-renders-per-browser:200}") int maxRendersPerBrowser,
+            @Value("${pdf.pool.render-timeout-seconds:60}") int renderTimeoutSeconds) {
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.maxRendersPerBrowser = Math.max(1, maxRendersPerBrowser);
+        this.renderTimeoutMillis = renderTimeoutSeconds * 1000L;
+        int poolSize = Math.max(1, size);
+        for (int i = 1; i <= poolSize; i++) {
+            Thread t = new Thread(new Worker(), "pdf-browser-" + i);
+            t.setDaemon(true);
+            workers.add(t);
+            t.start();
+        }
+        LOG.info("PdfBrowserPool: {} navegadores, fila {}, reciclagem a cada {} PDFs", poolSize, queueCapacity,
+                this.maxRendersPerBrowser);
+    }
+
+    /**
+     * Executa {@code job} numa página aquecida e espera o resultado.
+     *
+     * @throws RejectedExecutionException se a fila estiver cheia
+     * @throws IllegalStateException      se a renderização falhar ou exceder o
+     *                                    tempo limite
+     */
+    public <T> T execute(Function<Page, T> job) {
+        RenderTask<T> task = new RenderTask<>(job);
+        if (!running || !queue.offer(task)) {
+            rejected.increment();
+            LOG.warn("PdfBrowserPool: fila cheia ({} pendentes), PDF rejeitado", queue.size());
+            throw new RejectedExecutionException("Fila de geração de PDF cheia");
+        }
+        try {
+            return task.future.get(renderTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            task.future.cancel(false);
+            throw new IllegalStateException("Tempo limite excedido na geração do PDF", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            task.future.cancel(false);
+            throw new IllegalStateException("Geração do PDF interrompida", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Métricas: renderizações, falhas, rejeições, espera na fila e tempo de
+     * renderização (média/máxima em ms).
+     */
+    public Map<String, Object> metrics() {
+        long count = renders.sum() + failures.sum();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("poolSize", workers.size());
+        metrics.put("queueDepth", queue.size());
+        metrics.put("queueRemainingCapacity", queue.remainingCapacity());
+        metrics.put("renders", renders.sum());
+        metrics.put("failures", failures.sum());
+        metrics.put("rejected", rejected.sum());
+        metrics.put("timeouts", timeouts.sum());
+        metrics.put("browserLaunches", browserLaunches.sum());
+        metrics.put("avgQueueWaitMs", count > 0 ? totalQueueNanos.sum() / count / 1_000_000.0 : 0.0);
+        metrics.put("maxQueueWaitMs", maxQueueNanos.get() / 1_000_000.0);
+        metrics.put("avgRenderMs", count > 0 ? totalRenderNanos.sum() / count / 1_000_000.0 : 0.0);
+        metrics.put("maxRenderMs", maxRenderNanos.get() / 1_000_000.0);
+        return metrics;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        running = false;
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        RenderTask<?> pending;
+        while ((pending = queue.poll()) != null) {
+            pending.future.cancel(false);
+        }
+    }
+
+    private static final class RenderTask<T> {
+        private final Function<Page, T> job;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private final long enqueuedAt = System.nanoTime();
+
+        private RenderTask(Function<Page, T> job) {
+            this.job = job;
+        }
+    }
+
+    /**
+     * Dono exclusivo de um Playwright/Browser. Todos os objetos do Playwright
+     * são usados apenas nesta thread.
+     */
+    private final class Worker implements Runnable {
+        private Playwright playwright;
+        private Browser browser;
+        private BrowserContext context;
+        private Page page;
+        private int rendersSinceLaunch;
+
+        @Override
+        public void run() {
+            try {
+                ensureBrowser();
+            } catch (Exception e) {
+                LOG.error("PdfBrowserPool: falha ao lançar Chromium", e);
+            }
+            while (running) {
+                RenderTask<?> task;
+                try {
+                    task = queue.poll(IDLE_HEALTH_CHECK_SECONDS, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    break;
+                }
+                if (task == null) {
+                    healthCheck();
+                    continue;
+                }
+                process(task);
+            }
+            closeBrowser();
+        }
+
+        private <T> void process(RenderTask<T> task) {
+            if (task.future.isCancelled()) {
+                return;
+            }
+            long start = System.nanoTime();
+            record(totalQueueNanos, maxQueueNanos, start - task.enqueuedAt);
+            try {
+                ensurePage();
+                T result = task.job.apply(page);
+                renders.increment();
+                task.future.complete(result);
+            } catch (CancellationException e) {
+                // Chamador desistiu (timeout)
+            } catch (Exception e) {
+                failures.increment();
+                task.future.completeExceptionally(e);
+                // Descarta o contexto: pode ter ficado num estado inconsistente
+                closeContext();
+            } finally {
+                record(totalRenderNanos, maxRenderNanos, System.nanoTime() - start);
+                if (++rendersSinceLaunch >= maxRendersPerBrowser) {
+                    LOG.info("PdfBrowserPool: reciclando navegador após {} PDFs", rendersSinceLaunch);
+                    closeBrowser();
+                }
+            }
+        }
+
+        private void healthCheck() {
+            try {
+                if (browser == null || !browser.isConnected()) {
+                    LOG.warn("PdfBrowserPool: navegador desconectado, relançando");
+                    closeBrowser();
+                    ensureBrowser();
+                }
+            } catch (Exception e) {
+                LOG.error("PdfBrowserPool: health check falhou", e);
+                closeBrowser();
+            }
+        }
+
+        private void ensureBrowser() {
+            if (browser != null && browser.isConnected()) {
+                return;
+            }
+            closeBrowser();
+            playwright = Playwright.create();
+            browser = playwright.chromium().launch(new BrowserType.LaunchOptions()
+                    .setHeadless(true)
+                    .setArgs(LAUNCH_ARGS));
+            rendersSinceLaunch = 0;
+            browserLaunches.increment();
+            LOG.debug("PdfBrowserPool: Chromium lançado em {}", Thread.currentThread().getName());
+        }
+
+        private void ensurePage() {
+            ensureBrowser();
+            if (page == null || page.isClosed()) {
+                closeContext();
+                context = browser.newContext();
+                page = context.newPage();
+                page.setDefaultTimeout(renderTimeoutMillis);
+            }
+        }
+
+        private void closeContext() {
+            try {
+                if (context != null) {
+                    context.close();
+                }
+            } catch (Exception e) {
+                LOG.debug("PdfBrowserPool: erro ao fechar contexto: {}", e.getMessage());
+            }
+            context = null;
+            page = null;
+        }
+
+        private void closeBrowser() {
+            closeContext();
+            try {
+                if (browser != null) {
+                    browser.close();
+                }
+            } catch (Exception e) {
+                LOG.debug("PdfBrowserPool: erro ao fechar navegador: {}", e.getMessage());
+            }
+            try {
+                if (playwright != null) {
+                    playwright.close();
+                }
+            } catch (Exception e) {
+                LOG.debug("PdfBrowserPool: erro ao fechar Playwright: {}", e.getMessage());
+            }
+            browser = null;
+            playwright = null;
+        }
+    }
+
+    private static void record(LongAdder total, AtomicLong max, long nanos) {
+        total.add(nanos);
+        max.accumulateAndGet(nanos, Math::max);
+    }
+}
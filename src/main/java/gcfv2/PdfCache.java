@@ -0,0 +1,143 @@
+package gcfv2;
+
+import io.micronaut.context.annotation.Value;
+import io.micronaut.scheduling.TaskExecutors;
+import jakarta.inject.Named;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache de PDFs prontos, endereçado pelo conteúdo (chave = hash do HTML
+ * normalizado + versão do estilo, calculada pelo PdfService).
+ *
+ * - Memória: LRU limitado pelo total de bytes (pdf.cache.max-bytes).
+ * - GCS (opcional, pdf.cache.gcs.enabled): objetos em cache/pdf/{chave}.pdf,
+ * compartilhados entre instâncias e restarts. Gravados em background.
+ *
+ * Como a chave é o próprio conteúdo, nunca há entrada desatualizada: mudar o
+ * HTML ou o estilo gera outra chave. Os objetos no GCS devem ter expiração
+ * por regra de ciclo de vida do bucket.
+ */
+@Singleton
+public class PdfCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PdfCache.class);
+
+    private static final String GCS_PREFIX = "cache/pdf/";
+
+    private final UploadService uploadService;
+    private final ExecutorService ioExecutor;
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    private final boolean gcsEnabled;
+
+    private final Map<String, byte[]> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalBytes;
+
+    // Métricas
+    private final LongAdder memoryHits = new LongAdder();
+    private final LongAdder gcsHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public PdfCache(
+            UploadService uploadService,
+            @Named(TaskExecutors.IO) ExecutorService ioExecutor,
+            @Value("${pdf.cache.max-bytes:67108864}") long maxBytes,
+            @Value("${pdf.cache.max-entry-bytes:8388608}") long maxEntryBytes,
+            @Value("${pdf.cache.gcs.enabled:false}") boolean gcsEnabled) {
+        this.uploadService = uploadService;
+        this.ioExecutor = ioExecutor;
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = maxEntryBytes;
+        this.gcsEnabled = gcsEnabled;
+    }
+
+    /**
+     * PDF em cache para a chave, consultando memória e depois o GCS. null em
+     * caso de miss.
+     */
+    public byte[] get(String key) {
+        synchronized (entries) {
+            byte[] cached = entries.get(key);
+            if (cached != null) {
+                memoryHits.increment();
+                return cached;
+            }
+        }
+
+        if (gcsEnabled) {
+            try {
+                byte[] stored = uploadService.readObjectIfExists(GCS_PREFIX + key + ".pdf");
+                if (stored != null) {
+                    gcsHits.increment();
+                    putInMemory(key, stored);
+                    return stored;
+                }
+            } catch (Exception e) {
+                LOG.warn("PdfCache: erro ao ler {} do GCS: {}", key, e.getMessage());
+            }
+        }
+
+        misses.increment();
+        return null;
+    }
+
+    public void put(String key, byte[] pdf) {
+        putInMemory(key, pdf);
+        if (gcsEnabled) {
+            try {
+                ioExecutor.execute(() -> {
+                    try {
+                        uploadService.writeObject(GCS_PREFIX + key + ".pdf", pdf, "application/pdf");
+                    } catch (Exception e) {
+                        LOG.warn("PdfCache: erro ao gravar {} no GCS: {}", key, e.getMessage());
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                LOG.debug("PdfCache: gravação no GCS descartada (executor cheio)");
+            }
+        }
+    }
+
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        synchronized (entries) {
+            metrics.put("entries", entries.size());
+            metrics.put("bytes", totalBytes);
+        }
+        metrics.put("maxBytes", maxBytes);
+        metrics.put("memoryHits", memoryHits.sum());
+        metrics.put("gcsHits", gcsHits.sum());
+        metrics.put("misses", misses.sum());
+        metrics.put("gcsEnabled", gcsEnabled);
+        return metrics;
+    }
+
+    private void putInMemory(String key, byte[] pdf) {
+        if (pdf.length > maxEntryBytes || pdf.length > maxBytes) {
+            return;
+        }
+        synchronized (entries) {
+            byte[] previous = entries.put(key, pdf);
+            if (previous != null) {
+                totalBytes -= previous.length;
+            }
+            totalBytes += pdf.length;
+
+            Iterator<Map.Entry<String, byte[]>> it = entries.entrySet().iterator();
+            while (totalBytes > maxBytes && it.hasNext()) {
+                Map.Entry<String, byte[]> eldest = it.next();
+                totalBytes -= eldest.getValue().length;
+                it.remove();
+            }
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package gcfv2;
 
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.http.HttpHeaders;
 import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
 import io.micronaut.http.MediaType;
+import io.micronaut.http.MutableHttpResponse;
 import io.micronaut.http.annotation.*;
 import io.micronaut.http.server.cors.CrossOrigin;
 import io.micronaut.http.HttpMethod;
@@ -9,6 +13,8 @@ import jakarta.inject.Inject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.RejectedExecutionException;
+
 @Controller("/api/pdf")
 @CrossOrigin(allowedOrigins = { "https://fitai-analyzer-732767853162.us-west1.run.app",
         "https://analisa-exercicio-732767853162.southamerica-east1.run.app",
@@ -18,7 +24,7 @@ import org.slf4j.LoggerFactory;
         "https://app-back-ia-732767853162.southamerica-east1.run.app" }, allowedMethods = {
                 HttpMethod.POST,
                 HttpMethod.OPTIONS
-        })
+        }, exposedHeaders = { "ETag", "Content-Disposition" })
 public class PdfController {
 
     @Inject
@@ -28,10 +34,25 @@ public class PdfController {
 
     @Post("/generate")
     @Produces(MediaType.APPLICATION_PDF)
-    public HttpResponse<byte[]> generatePdf(@Body PdfRequest request) {
+    public HttpResponse<byte[]> generatePdf(@Body PdfRequest request,
+            @Nullable @Header("If-None-Match") String ifNoneMatch) {
         LOG.info("Recebida requisição para gerar PDF: {}", request.fileName());
         try {
-            byte[] pdf = pdfService.generatePdf(request.html());
+            String html = request.html();
+            String etag = null;
+            byte[] pdf;
+            if (html == null || html.isEmpty()) {
+                pdf = pdfService.generatePdf(html);
+            } else {
+                // ETag = hash do conteúdo: se o cliente já tem este PDF, nem renderiza
+                String cacheKey = pdfService.cacheKey(html);
+                etag = "\"" + cacheKey + "\"";
+                if (matchesEtag(ifNoneMatch, etag)) {
+                    return HttpResponse.<byte[]>status(HttpStatus.NOT_MODIFIED)
+                            .header(HttpHeaders.ETAG, etag);
+                }
+                pdf = pdfService.generatePdf(html, cacheKey);
+            }
 
             if (pdf == null || pdf.length == 0) {
                 LOG.error("PDF gerado está vazio (0 bytes).");
@@ -44,13 +65,38 @@ public class PdfController {
             }
 
             LOG.info("Retornando PDF: {} ({} bytes)", fileName, pdf.length);
-            return HttpResponse.ok(pdf)
+            MutableHttpResponse<byte[]> response = HttpResponse.ok(pdf)
                     .header("Content-Disposition", "attachment; filename=\"" + fileName + "\"")
                     .header("Content-Length", String.valueOf(pdf.length))
                     .contentType(MediaType.APPLICATION_PDF);
+            if (etag != null) {
+                response.header(HttpHeaders.ETAG, etag)
+                        .header(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+            }
+            return response;
+        } catch (RejectedExecutionException e) {
+            // Pool de navegadores saturado: o cliente tenta de novo em instantes
+            return HttpResponse.<byte[]>status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header("Retry-After", "5");
         } catch (Exception e) {
             LOG.error("Erro ao processar PDF: {}", e.getMessage(), e);
             return HttpResponse.serverError();
         }
     }
+
+    private static boolean matchesEtag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals(etag) || value.equals("*")) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
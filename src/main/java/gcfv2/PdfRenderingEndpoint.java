@@ -0,0 +1,34 @@
+package gcfv2;
+
+import io.micronaut.management.endpoint.annotation.Endpoint;
+import io.micronaut.management.endpoint.annotation.Read;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Métricas do pool de Chromium (GET /pdfrendering): espera na fila, tempo de
+ * renderização, rejeições e relançamentos do navegador, além dos acertos do
+ * cache de PDFs.
+ *
+ * Fica atrás da autenticação dos endpoints de gestão; num ambiente interno
+ * pode ser aberto com endpoints.pdfrendering.sensitive=false.
+ */
+@Endpoint(id = "pdfrendering")
+public class PdfRenderingEndpoint {
+
+    private final PdfBrowserPool browserPool;
+    private final PdfCache pdfCache;
+
+    public PdfRenderingEndpoint(PdfBrowserPool browserPool, PdfCache pdfCache) {
+        this.browserPool = browserPool;
+        this.pdfCache = pdfCache;
+    }
+
+    @Read
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>(browserPool.metrics());
+        metrics.put("cache", pdfCache.metrics());
+        return metrics;
+    }
+}
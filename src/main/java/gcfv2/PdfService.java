@@ -1,71 +1,239 @@
 package gcfv2;
 
-import com.microsoft.playwright.*;
+import com.microsoft.playwright.Page;
 import com.microsoft.playwright.options.Margin;
 import com.microsoft.playwright.options.WaitUntilState;
+import gcfv2.pdf.StructuredPlanPdf;
+import io.micronaut.json.JsonMapper;
 import jakarta.inject.Singleton;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import java.util.Arrays;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @Singleton
 public class PdfService {
 
     private static final Logger LOG = LoggerFactory.getLogger(PdfService.class);
 
+    private static final String STYLES_PATH = "pdf/fitai.css";
+    private static final String FONT_PATH = "pdf/fonts/";
+    private static final int[] FONT_WEIGHTS = { 400, 500, 600, 700 };
+    private static final String DOCUMENT_TAIL = "</div></body></html>";
+
+    // Incrementar ao mudar as opções de page.pdf(): invalida o cache
+    private static final String RENDER_VERSION = "1";
+
+    private static final ZoneId ZONE = ZoneId.of("America/Sao_Paulo");
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private final PdfBrowserPool browserPool;
+    private final PdfCache pdfCache;
+    private final JsonMapper jsonMapper;
+    private final String documentHead;
+    private final String styleVersion;
+
+    public PdfService(PdfBrowserPool browserPool, PdfCache pdfCache, JsonMapper jsonMapper) {
+        this.browserPool = browserPool;
+        this.pdfCache = pdfCache;
+        this.jsonMapper = jsonMapper;
+        this.documentHead = buildDocumentHead();
+        this.styleVersion = sha256Hex(RENDER_VERSION + documentHead).substring(0, 16);
+    }
+
+    /**
+     * PDF do treino estruturado montado direto do daysData, sem navegador:
+     * não ocupa o pool do Chromium e roda em paralelo nas threads de I/O.
+     */
+    public byte[] generateWorkoutPlanPdf(StructuredWorkoutPlan plan) throws IOException {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        if (plan.getCreatedAt() != null) {
+            summary.put("Criado em", DATE_FORMAT.format(plan.getCreatedAt().atZone(ZONE)));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 * 1024);
+        StructuredPlanPdf.writeWorkout(out, plan.getTitle(), summary, parseDays(plan.getDaysData()), null);
+        return out.toByteArray();
+    }
+
+    /**
+     * PDF da dieta estruturada montado direto do daysData, sem navegador.
+     */
+    public byte[] generateDietPdf(StructuredDieta dieta) throws IOException {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("Objetivo", dieta.getGoal());
+        summary.put("Calorias", dieta.getTotalCalories() != null ? dieta.getTotalCalories() + " kcal" : null);
+        summary.put("Macros", macros(dieta));
+        summary.put("Fibras", dieta.getFiber() != null ? dieta.getFiber() + " g" : null);
+        summary.put("Água", dieta.getWater());
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 * 1024);
+        StructuredPlanPdf.writeDiet(out, "Plano Alimentar", summary, parseDays(dieta.getDaysData()),
+                dieta.getObservations());
+        return out.toByteArray();
+    }
+
+    private static String macros(StructuredDieta dieta) {
+        List<String> parts = new ArrayList<>();
+        if (dieta.getProtein() != null) {
+            parts.add("Proteínas " + dieta.getProtein() + " g");
+        }
+        if (dieta.getCarbohydrates() != null) {
+            parts.add("Carboidratos " + dieta.getCarbohydrates() + " g");
+        }
+        if (dieta.getFats() != null) {
+            parts.add("Gorduras " + dieta.getFats() + " g");
+        }
+        return parts.isEmpty() ? null : String.join(" | ", parts);
+    }
+
+    /**
+     * daysData aceita {"days": [...]}, uma lista de dias ou um objeto com os
+     * dias como valores (ex.: {"monday": {...}}).
+     */
+    private List<?> parseDays(String daysData) throws IOException {
+        if (daysData == null || daysData.isBlank()) {
+            return List.of();
+        }
+        Object parsed = jsonMapper.readValue(daysData, Object.class);
+        if (parsed instanceof Map<?, ?> map) {
+            Object days = map.get("days");
+            if (days instanceof List<?> list) {
+                return list;
+            }
+            return new ArrayList<>(map.values());
+        }
+        return parsed instanceof List<?> list ? list : List.of();
+    }
+
+    /**
+     * Chave de cache (e ETag) do PDF: hash do HTML normalizado + versão do
+     * estilo (CSS, fontes e opções de renderização).
+     */
+    public String cacheKey(String htmlContent) {
+        String normalized = htmlContent.replace("\r\n", "\n").strip();
+        return sha256Hex(styleVersion + "\n" + normalized);
+    }
+
     public byte[] generatePdf(String htmlContent) {
         if (htmlContent == null || htmlContent.isEmpty()) {
             LOG.warn("Recebido conteúdo HTML vazio para geração de PDF.");
             return new byte[0];
         }
+        return generatePdf(htmlContent, cacheKey(htmlContent));
+    }
+
+    /**
+     * Gera o PDF, devolvendo o resultado em cache quando o mesmo conteúdo já
+     * foi renderizado.
+     *
+     * @param cacheKey chave calculada por {@link #cacheKey(String)}
+     */
+    public byte[] generatePdf(String htmlContent, String cacheKey) {
+        if (htmlContent == null || htmlContent.isEmpty()) {
+            LOG.warn("Recebido conteúdo HTML vazio para geração de PDF.");
+            return new byte[0];
+        }
+
+        byte[] cached = pdfCache.get(cacheKey);
+        if (cached != null) {
+            LOG.info("PDF servido do cache ({} bytes)", cached.length);
+            return cached;
+        }
 
         LOG.info("Iniciando geração de PDF para conteúdo de tamanho: {} caracteres", htmlContent.length());
 
-        try (Playwright playwright = Playwright.create()) {
-            LOG.debug("Lançando navegador Chromium...");
-            Browser browser = playwright.chromium().launch(new BrowserType.LaunchOptions()
-                    .setHeadless(true)
-                    .setArgs(Arrays.asList(
-                            "--no-sandbox",
-                            "--disable-setuid-sandbox",
-                            "--disable-dev-shm-usage",
-                            "--font-render-hinting=none")));
-
-            BrowserContext context = browser.newContext();
-            Page page = context.newPage();
-
-            String fullHtml = String.format(
-                    "<!DOCTYPE html><html><head><meta charset='UTF-8'>" +
-                            "<link href='https://fonts.googleapis.com/css2?family=Plus+Jakarta+Sans:wght@400;500;600;700&display=swap' rel='stylesheet'>"
-                            +
-                            "<style>%s</style></head><body>" +
-                            "<div id='pdf-container'>%s</div></body></html>",
-                    getFitAiStyles(), htmlContent);
-
-            LOG.debug("Definindo conteúdo HTML...");
-            page.setContent(fullHtml, new Page.SetContentOptions().setWaitUntil(WaitUntilState.NETWORKIDLE));
-
-            LOG.debug("Gerando PDF...");
-            byte[] pdfBytes = page.pdf(new Page.PdfOptions()
-                    .setFormat("A4")
-                    .setPrintBackground(true)
-                    .setMargin(new Margin().setTop("20px").setBottom("20px").setLeft("20px").setRight("20px")));
-
-            browser.close();
+        String fullHtml = documentHead + htmlContent + DOCUMENT_TAIL;
+
+        try {
+            // Página aquecida do pool: sem lançar Chromium por requisição
+            byte[] pdfBytes = browserPool.execute(page -> {
+                // Fontes e CSS já estão embutidos: basta o LOAD (imagens do conteúdo)
+                // e as fontes decodificadas, sem esperar a rede ficar ociosa
+                page.setContent(fullHtml, new Page.SetContentOptions().setWaitUntil(WaitUntilState.LOAD));
+                page.evaluate("() => document.fonts.ready.then(() => true)");
+                return page.pdf(new Page.PdfOptions()
+                        .setFormat("A4")
+                        .setPrintBackground(true)
+                        .setMargin(new Margin().setTop("20px").setBottom("20px").setLeft("20px").setRight("20px")));
+            });
+
             LOG.info("PDF gerado com sucesso. Tamanho: {} bytes", pdfBytes.length);
+            pdfCache.put(cacheKey, pdfBytes);
             return pdfBytes;
+        } catch (RejectedExecutionException e) {
+            throw e;
         } catch (Exception e) {
             LOG.error("Erro durante a geração do PDF: {}", e.getMessage(), e);
             throw e;
         }
     }
 
-    private String getFitAiStyles() {
-        return "body { font-family: 'Plus Jakarta Sans', sans-serif; color: #0f172a; margin: 0; padding: 0; }" +
-                "#pdf-container { padding: 20px; }" +
-                ".slate-900 { color: #0f172a; }" +
-                ".text-slate-900 { color: #0f172a; }" +
-                "table { width: 100%; border-collapse: collapse; }" +
-                "th, td { border: 1px solid #e2e8f0; padding: 8px; text-align: left; }";
+    /**
+     * Monta o início do documento uma única vez: CSS do FitAI e as fontes Plus
+     * Jakarta Sans embutidas como data URI (@font-face em base64), para que a
+     * renderização não dependa de fonts.googleapis.com.
+     *
+     * Pesos sem arquivo em resources/pdf/fonts caem para a pilha de fontes do
+     * sistema definida no CSS: a renderização nunca busca fontes na rede.
+     */
+    private static String buildDocumentHead() {
+        StringBuilder css = new StringBuilder();
+        List<Integer> missing = new ArrayList<>();
+        for (int weight : FONT_WEIGHTS) {
+            byte[] font = readResource(FONT_PATH + "PlusJakartaSans-" + weight + ".woff2");
+            if (font == null) {
+                missing.add(weight);
+                continue;
+            }
+            css.append("@font-face{font-family:'Plus Jakarta Sans';font-style:normal;font-weight:")
+                    .append(weight)
+                    .append(";font-display:block;src:url(data:font/woff2;base64,")
+                    .append(Base64.getEncoder().encodeToString(font))
+                    .append(") format('woff2');}");
+        }
+        if (!missing.isEmpty()) {
+            LOG.warn("PdfService: fontes Plus Jakarta Sans ausentes em {} (pesos {}), usando fontes do sistema",
+                    FONT_PATH, missing);
+        }
+
+        byte[] styles = readResource(STYLES_PATH);
+        if (styles == null) {
+            throw new IllegalStateException("CSS de PDF não encontrado: " + STYLES_PATH);
+        }
+        css.append(new String(styles, StandardCharsets.UTF_8));
+
+        return "<!DOCTYPE html><html><head><meta charset='UTF-8'><style>" + css
+                + "</style></head><body><div id='pdf-container'>";
+    }
+
+    private static String sha256Hex(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] readResource(String path) {
+        try (InputStream in = PdfService.class.getClassLoader().getResourceAsStream(path)) {
+            return in != null ? in.readAllBytes() : null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao ler " + path, e);
+        }
     }
 }
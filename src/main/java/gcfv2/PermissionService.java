@@ -1,29 +1,47 @@
 package gcfv2;
 
+import gcfv2.permission.OwnershipGraph;
+import gcfv2.permission.OwnershipNode;
 import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 
 /**
  * Service para validação de permissões de acesso
  *
  * Hierarquia de permissões:
  * - user: Pode acessar apenas seus próprios dados
- * - personal: Pode acessar seus dados e dados de seus alunos
- * - professor: Pode acessar seus dados, dados dos personals que gerencia e dos
- * alunos desses personals
+ * - personal: Pode acessar seus dados, dados de seus alunos, de seus
+ * professores e dos alunos de seus professores
+ * - professor: Pode acessar seus dados e TODOS os alunos do ecossistema do seu
+ * Personal (alunos do personal, alunos próprios, alunos de outros professores)
  * - admin: Pode acessar todos os dados
  *
- * NOTA: As tabelas de relacionamento personal→aluno e professor→personal JÁ
- * EXISTEM no sistema.
- * Para integrar completamente, injete os repositories dessas tabelas e
- * descomente os TODOs abaixo.
+ * As checagens são resolvidas sobre o {@link OwnershipGraph} (cache em memória
+ * da hierarquia), sem ida ao banco quando os nós envolvidos já estão
+ * carregados.
  */
 @Singleton
 public class PermissionService {
 
+    private static final Logger LOG = LoggerFactory.getLogger(PermissionService.class);
+
+    // Limite de ids por cláusula IN na checagem em lote
+    private static final int BATCH_CHUNK_SIZE = 1000;
+
+    private final OwnershipGraph ownershipGraph;
     private final UsuarioRepository usuarioRepository;
 
     @jakarta.inject.Inject
-    public PermissionService(UsuarioRepository usuarioRepository) {
+    public PermissionService(OwnershipGraph ownershipGraph, UsuarioRepository usuarioRepository) {
+        this.ownershipGraph = ownershipGraph;
         this.usuarioRepository = usuarioRepository;
     }
 
@@ -31,8 +49,160 @@ public class PermissionService {
      * Verifica se o requester tem permissão para acessar dados do targetUserId
      */
     public boolean canAccessUserData(Long requesterId, String requesterRole, Long targetUserId) {
-        // Delega para a lógica centralizada e robusta do UsuarioRepository
-        return usuarioRepository.hasPermission(requesterId, requesterRole, targetUserId.toString());
+        if (targetUserId == null) {
+            return false;
+        }
+        return hasPermission(requesterId, requesterRole, targetUserId.toString());
+    }
+
+    /**
+     * Verifica permissão de acesso a um usuário alvo (id em formato String, como
+     * armazenado em treinos, dietas, checkins etc.).
+     *
+     * Regras:
+     * - ADMIN: acesso total
+     * - PERSONAL: acesso a si mesmo, seus alunos (personalId), seus professores e
+     * alunos de seus professores
+     * - PROFESSOR: acesso a si mesmo e a TODOS os alunos do ecossistema do seu
+     * Personal
+     * - USER: apenas a si mesmo
+     */
+    public boolean hasPermission(Long requesterId, String requesterRole, String targetUserId) {
+        if (requesterId == null || targetUserId == null) {
+            return false;
+        }
+
+        // ADMIN tem acesso total
+        if ("ADMIN".equalsIgnoreCase(requesterRole)) {
+            return true;
+        }
+
+        // Acesso a si mesmo
+        if (requesterId.toString().equals(targetUserId)) {
+            return true;
+        }
+
+        Long targetId;
+        try {
+            targetId = Long.parseLong(targetUserId);
+        } catch (NumberFormatException e) {
+            LOG.debug("Permissão negada: id alvo inválido '{}'", targetUserId);
+            return false;
+        }
+
+        if ("PERSONAL".equalsIgnoreCase(requesterRole)) {
+            return personalCanAccess(requesterId, targetId);
+        }
+
+        if ("PROFESSOR".equalsIgnoreCase(requesterRole)) {
+            return professorCanAccess(requesterId, targetId);
+        }
+
+        return false;
+    }
+
+    /**
+     * Checagem de permissão em lote para endpoints que lidam com muitos alunos.
+     * Resolve todo o conjunto com uma única query (por bloco de
+     * {@value #BATCH_CHUNK_SIZE} ids), em vez de N checagens individuais.
+     *
+     * @return ids de targetIds que o requester pode acessar (ordem preservada)
+     */
+    public Set<Long> filterAccessible(Long requesterId, String requesterRole, Collection<Long> targetIds) {
+        if (requesterId == null || targetIds == null || targetIds.isEmpty()) {
+            return Collections.emptySet();
+        }
+
+        Set<Long> distinctIds = new LinkedHashSet<>(targetIds);
+        distinctIds.remove(null);
+
+        if ("ADMIN".equalsIgnoreCase(requesterRole)) {
+            return distinctIds;
+        }
+
+        boolean isPersonal = "PERSONAL".equalsIgnoreCase(requesterRole);
+        boolean isProfessor = "PROFESSOR".equalsIgnoreCase(requesterRole);
+        if (!isPersonal && !isProfessor) {
+            // USER só acessa a si mesmo
+            return distinctIds.contains(requesterId) ? Set.of(requesterId) : Collections.emptySet();
+        }
+
+        Set<Long> allowed = new LinkedHashSet<>();
+        List<Long> ids = new ArrayList<>(distinctIds);
+        for (int from = 0; from < ids.size(); from += BATCH_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + BATCH_CHUNK_SIZE, ids.size()));
+            allowed.addAll(isPersonal
+                    ? usuarioRepository.findAccessibleIdsForPersonal(requesterId, chunk)
+                    : usuarioRepository.findAccessibleIdsForProfessor(requesterId, chunk));
+        }
+
+        // Mantém a ordem de entrada
+        distinctIds.retainAll(allowed);
+        return distinctIds;
+    }
+
+    /**
+     * PERSONAL pode acessar:
+     * 1. Seus alunos diretos (target.personalId == requesterId)
+     * 2. Seus professores (target.managerId == requesterId && target.role ==
+     * 'professor')
+     * 3. Alunos de seus professores
+     */
+    private boolean personalCanAccess(Long personalId, Long targetId) {
+        OwnershipNode target = ownershipGraph.get(targetId);
+        if (target == null) {
+            return false;
+        }
+
+        if (personalId.equals(target.getPersonalId())) {
+            return true;
+        }
+
+        if (target.isProfessor() && personalId.equals(target.getManagerId())) {
+            return true;
+        }
+
+        OwnershipNode professor = ownershipGraph.get(target.getPersonalId());
+        return professor != null && professor.isProfessor() && personalId.equals(professor.getManagerId());
+    }
+
+    /**
+     * PROFESSOR pode acessar:
+     * 1. Seus próprios alunos (target.personalId == requesterId)
+     * 2. Alunos diretos do seu Manager (Personal)
+     * 3. Alunos de outros professores do mesmo Personal
+     */
+    private boolean professorCanAccess(Long professorId, Long targetId) {
+        OwnershipNode target = ownershipGraph.get(targetId);
+        if (target == null) {
+            return false;
+        }
+
+        if (professorId.equals(target.getPersonalId())) {
+            return true;
+        }
+
+        OwnershipNode requester = ownershipGraph.get(professorId);
+        Long managerId = requester != null ? requester.getManagerId() : null;
+        if (managerId == null) {
+            return false;
+        }
+
+        if (managerId.equals(target.getPersonalId())) {
+            return true;
+        }
+
+        OwnershipNode otherProfessor = ownershipGraph.get(target.getPersonalId());
+        return otherProfessor != null && otherProfessor.isProfessor()
+                && managerId.equals(otherProfessor.getManagerId());
+    }
+
+    /**
+     * Descarta o usuário do cache de hierarquia. Deve ser chamado sempre que
+     * personal_id, manager_id ou role mudarem, ou quando o usuário for excluído.
+     */
+    public void invalidateUser(Long userId) {
+        ownershipGraph.invalidate(userId);
     }
 
     /**
@@ -2,6 +2,7 @@ package gcfv2;
 
 import io.micronaut.http.HttpResponse;
 import io.micronaut.http.HttpStatus;
+import io.micronaut.http.MediaType;
 import io.micronaut.http.annotation.*;
 import io.micronaut.http.server.cors.CrossOrigin;
 import io.micronaut.http.HttpMethod;
@@ -40,12 +41,21 @@ public class StructuredDietaController {
     @Inject
     private UsuarioRepository usuarioRepository;
 
+    @Inject
+    private AccountSnapshotService accountSnapshotService;
+
+    @Inject
+    private PermissionService permissionService;
+
     @Inject
     private EmailService emailService;
 
     @Inject
     private NotificationService notificationService;
 
+    @Inject
+    private PdfService pdfService;
+
     /**
      * CREATE - Save a new structured diet plan
      * 
@@ -61,7 +71,7 @@ public class StructuredDietaController {
             @QueryValue String requesterRole) {
         try {
             // Permission check
-            if (!usuarioRepository.hasPermission(requesterId, requesterRole, dieta.getUserId())) {
+            if (!permissionService.hasPermission(requesterId, requesterRole, dieta.getUserId())) {
                 return HttpResponse.status(HttpStatus.FORBIDDEN)
                         .body(Map.of("message", "Acesso negado. Você não tem vínculo com este aluno."));
             }
@@ -104,6 +114,7 @@ public class StructuredDietaController {
 
             // Increment generation counter
             usuarioRepository.incrementGenerationsUsedCycle(Long.parseLong(dieta.getUserId()));
+            accountSnapshotService.invalidate(Long.parseLong(dieta.getUserId()));
 
             // Enviar e-mail e notificação in-app APENAS se não foi o próprio aluno que criou
             if (!requesterId.equals(Long.parseLong(dieta.getUserId()))) {
@@ -151,7 +162,7 @@ public class StructuredDietaController {
     public HttpResponse<?> listar(@PathVariable String userId,
             @QueryValue Long requesterId,
             @QueryValue String requesterRole) {
-        if (!usuarioRepository.hasPermission(requesterId, requesterRole, userId)) {
+        if (!permissionService.hasPermission(requesterId, requesterRole, userId)) {
             return HttpResponse.status(HttpStatus.FORBIDDEN).body(Map.of("message", "Acesso negado."));
         }
 
@@ -159,6 +170,49 @@ public class StructuredDietaController {
         return HttpResponse.ok(dietas);
     }
 
+    /**
+     * READ - Structured diet as PDF, laid out straight from the JSON (no
+     * browser)
+     * 
+     * GET /api/v2/dietas/{id}/pdf
+     * 
+     * Query Params: requesterId, requesterRole
+     *
+     * Errors are returned as JSON with a JSON content type.
+     */
+    @Get("/{id}/pdf")
+    @Produces({ MediaType.APPLICATION_PDF, MediaType.APPLICATION_JSON })
+    public HttpResponse<?> baixarPdf(
+            @PathVariable Long id,
+            @QueryValue Long requesterId,
+            @QueryValue String requesterRole) {
+
+        var dietaOpt = structuredDietaRepository.findById(id);
+        if (dietaOpt.isEmpty()) {
+            return pdfError(HttpStatus.NOT_FOUND, "Dieta estruturada não encontrada.");
+        }
+        StructuredDieta dieta = dietaOpt.get();
+        if (!permissionService.hasPermission(requesterId, requesterRole, dieta.getUserId())) {
+            return pdfError(HttpStatus.FORBIDDEN, "Acesso negado.");
+        }
+
+        try {
+            byte[] pdf = pdfService.generateDietPdf(dieta);
+            return HttpResponse.ok(pdf)
+                    .header("Content-Disposition", "attachment; filename=\"dieta-" + id + ".pdf\"")
+                    .header("Content-Length", String.valueOf(pdf.length))
+                    .contentType(MediaType.APPLICATION_PDF);
+        } catch (Exception e) {
+            return pdfError(HttpStatus.INTERNAL_SERVER_ERROR, "Erro ao gerar PDF da dieta: " + e.getMessage());
+        }
+    }
+
+    private static HttpResponse<?> pdfError(HttpStatus status, String message) {
+        return HttpResponse.status(status)
+                .contentType(MediaType.APPLICATION_JSON_TYPE)
+                .body(Map.of("message", message));
+    }
+
     /**
      * DELETE - Remove a structured diet
      * 
@@ -174,7 +228,7 @@ public class StructuredDietaController {
             @QueryValue String requesterRole) {
 
         return structuredDietaRepository.findById(id).map(dieta -> {
-            if (!usuarioRepository.hasPermission(requesterId, requesterRole, dieta.getUserId())) {
+            if (!permissionService.hasPermission(requesterId, requesterRole, dieta.getUserId())) {
                 return HttpResponse.status(HttpStatus.FORBIDDEN)
                         .body(Map.of("message", "Acesso negado. Você não pode excluir esta dieta."));
             }
@@ -2,6 +2,7 @@ package gcfv2;
 
 import io.micronaut.http.HttpResponse;
 import io.micronaut.http.HttpStatus;
+import io.micronaut.http.MediaType;
 import io.micronaut.http.annotation.*;
 import io.micronaut.http.server.cors.CrossOrigin;
 import io.micronaut.json.JsonMapper;
@@ -26,6 +27,7 @@ public class StructuredWorkoutController {
     private final PermissionService permissionService;
     private final NotificationService notificationService;
     private final ProfessorVideoService professorVideoService;
+    private final PdfService pdfService;
     private final JsonMapper jsonMapper;
 
     @Inject
@@ -35,12 +37,14 @@ public class StructuredWorkoutController {
             PermissionService permissionService,
             NotificationService notificationService,
             ProfessorVideoService professorVideoService,
+            PdfService pdfService,
             JsonMapper jsonMapper) {
         this.workoutPlanRepository = workoutPlanRepository;
         this.usuarioRepository = usuarioRepository;
         this.permissionService = permissionService;
         this.notificationService = notificationService;
         this.professorVideoService = professorVideoService;
+        this.pdfService = pdfService;
         this.jsonMapper = jsonMapper;
     }
 
@@ -311,6 +315,46 @@ public class StructuredWorkoutController {
         }
     }
 
+    /**
+     * GET /api/v2/treinos/detail/{workoutId}/pdf
+     * PDF do treino gerado direto do JSON (sem navegador). Erros saem como
+     * JSON, com o content type correspondente.
+     */
+    @Get("/detail/{workoutId}/pdf")
+    @Produces({ MediaType.APPLICATION_PDF, MediaType.APPLICATION_JSON })
+    public HttpResponse<?> downloadWorkoutPdf(
+            @PathVariable Long workoutId,
+            @QueryValue Long requesterId,
+            @QueryValue String requesterRole) {
+        try {
+            var workoutOpt = workoutPlanRepository.findByIdAndDeletedAtIsNull(workoutId);
+            if (workoutOpt.isEmpty()) {
+                return pdfError(HttpStatus.NOT_FOUND, "Treino não encontrado");
+            }
+
+            StructuredWorkoutPlan workout = workoutOpt.get();
+            if (!permissionService.canAccessUserData(requesterId, requesterRole, workout.getUserId())) {
+                return pdfError(HttpStatus.FORBIDDEN, "Você não tem permissão para acessar este treino");
+            }
+
+            byte[] pdf = pdfService.generateWorkoutPlanPdf(workout);
+            return HttpResponse.ok(pdf)
+                    .header("Content-Disposition", "attachment; filename=\"treino-" + workoutId + ".pdf\"")
+                    .header("Content-Length", String.valueOf(pdf.length))
+                    .contentType(MediaType.APPLICATION_PDF);
+
+        } catch (Exception e) {
+            e.printStackTrace();
+            return pdfError(HttpStatus.INTERNAL_SERVER_ERROR, "Erro ao gerar PDF do treino: " + e.getMessage());
+        }
+    }
+
+    private static HttpResponse<?> pdfError(HttpStatus status, String error) {
+        return HttpResponse.status(status)
+                .contentType(MediaType.APPLICATION_JSON_TYPE)
+                .body(Map.of("error", error));
+    }
+
     /**
      * PUT /api/v2/treinos/{workoutId}
      * Atualizar um treino existente
@@ -26,6 +26,9 @@ public class SubscriptionController {
         @Inject
         private SubscriptionHistoryRepository subscriptionHistoryRepository;
 
+        @Inject
+        private AccountSnapshotService accountSnapshotService;
+
         // Definição dos planos
         // generationCost: custo em créditos por geração de treino/dieta
         // generationsLimit: -1 = pago por geração
@@ -73,56 +76,14 @@ public class SubscriptionController {
 
         /**
          * Retorna dados do usuário logado com informações de plano e usage
+         * (mesma visão de /login e /status; PROFESSOR vê o plano do Personal)
          */
         @Get("/me")
         public HttpResponse<?> getMe(@QueryValue Long userId) {
-                return usuarioRepository.findById(userId).map(user -> {
-                        String userPlanType = user.getPlanType() != null ? user.getPlanType() : "FREE";
-                        Map<String, Object> planInfo = PLANS.getOrDefault(userPlanType, PLANS.get("FREE"));
-                        int generationsLimit = (int) planInfo.getOrDefault("generationsLimit", 0);
-
-                        int subCredits = user.getSubscriptionCredits() != null ? user.getSubscriptionCredits() : 0;
-                        int purCredits = user.getPurchasedCredits() != null ? user.getPurchasedCredits() : 0;
-                        int totalCredits = subCredits + purCredits;
-
-                        // Se for aluno, buscar a logo do personal
-                        String brandLogo = user.getBrandLogo();
-                        if ("USER".equalsIgnoreCase(user.getRole()) && user.getPersonalId() != null
-                                        && brandLogo == null) {
-                                brandLogo = usuarioRepository.findById(user.getPersonalId())
-                                                .map(Usuario::getBrandLogo)
-                                                .orElse(null);
-                        }
-
-                        return HttpResponse.ok(Map.of(
-                                        "id", user.getId(),
-                                        "name", user.getNome() != null ? user.getNome() : "",
-                                        "email", user.getEmail() != null ? user.getEmail() : "",
-                                        "role", user.getRole() != null ? user.getRole() : "USER",
-                                        "avatar", user.getAvatar() != null ? user.getAvatar() : "",
-                                        "brandLogo", brandLogo != null ? brandLogo : "",
-                                        "personalId", user.getPersonalId() != null ? user.getPersonalId() : "",
-                                        "plan", Map.of(
-                                                        "type",
-                                                        user.getPlanType() != null ? user.getPlanType() : "FREE",
-                                                        "status",
-                                                        user.getSubscriptionStatus() != null
-                                                                        ? user.getSubscriptionStatus()
-                                                                        : "INACTIVE",
-                                                        "renewsAt",
-                                                        user.getSubscriptionEndDate() != null
-                                                                        ? user.getSubscriptionEndDate().toString()
-                                                                        : ""),
-                                        "usage", Map.of(
-                                                        "credits", totalCredits,
-                                                        "subscriptionCredits", subCredits,
-                                                        "purchasedCredits", purCredits,
-                                                        "generations",
-                                                        user.getGenerationsUsedCycle() != null
-                                                                        ? user.getGenerationsUsedCycle()
-                                                                        : 0,
-                                                        "generationsLimit", generationsLimit)));
-                }).orElse(HttpResponse.notFound());
+                return accountSnapshotService.get(userId)
+                                .<HttpResponse<?>>map(snapshot -> HttpResponse
+                                                .ok(accountSnapshotService.toResponse(snapshot)))
+                                .orElse(HttpResponse.notFound());
         }
 
         /**
@@ -158,6 +119,7 @@ public class SubscriptionController {
                                         endDate,
                                         newCredits);
                         usuarioRepository.resetSubscriptionCredits(userId, newCredits);
+                        accountSnapshotService.invalidate(userId);
 
                         // Registrar histórico
                         String reason = oldPlan == null || "FREE".equals(oldPlan) ? "SUBSCRIPTION"
@@ -186,6 +148,7 @@ public class SubscriptionController {
                         String oldPlan = user.getPlanType();
 
                         usuarioRepository.updateSubscriptionStatus(userId, "CANCELED");
+                        accountSnapshotService.invalidate(userId);
 
                         subscriptionHistoryRepository
                                         .save(new SubscriptionHistory(userId, oldPlan, oldPlan, "CANCELLATION"));
@@ -216,6 +179,7 @@ public class SubscriptionController {
 
                 return usuarioRepository.findById(userId).map(user -> {
                         usuarioRepository.addPurchasedCredits(userId, amount);
+                        accountSnapshotService.invalidate(userId);
 
                         int newPurchased = (user.getPurchasedCredits() != null ? user.getPurchasedCredits() : 0)
                                         + amount;
@@ -250,6 +214,7 @@ public class SubscriptionController {
                         // Renovar: Resetar apenas subscription_credits (purchased_credits permanece!)
                         usuarioRepository.resetSubscriptionCredits(userId, newCredits);
                         usuarioRepository.updateSubscriptionStatus(userId, "ACTIVE");
+                        accountSnapshotService.invalidate(userId);
 
                         return HttpResponse.ok(Map.of("message", "Renovação processada com sucesso."));
                 }).orElse(HttpResponse.notFound());
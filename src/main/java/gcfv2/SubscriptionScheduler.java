@@ -16,6 +16,9 @@ public class SubscriptionScheduler {
     @Inject
     private UsuarioRepository usuarioRepository;
 
+    @Inject
+    private AccountSnapshotService accountSnapshotService;
+
     @Inject
     private SubscriptionHistoryRepository subscriptionHistoryRepository;
 
@@ -49,6 +52,7 @@ public class SubscriptionScheduler {
 
                     // Downgrade para FREE + Status INACTIVE + Reset de Créditos Assinatura
                     usuarioRepository.executeDowngradeToFree(user.getId());
+                    accountSnapshotService.invalidate(user.getId());
 
                     // Registrar no Histórico
                     SubscriptionHistory history = new SubscriptionHistory(
@@ -2,23 +2,36 @@ package gcfv2;
 
 import io.micronaut.http.HttpResponse;
 import io.micronaut.http.HttpStatus;
+import io.micronaut.http.MediaType;
+import io.micronaut.http.MutableHttpResponse;
 import io.micronaut.http.annotation.*;
 import io.micronaut.http.server.cors.CrossOrigin;
 import io.micronaut.transaction.annotation.Transactional;
 import io.micronaut.core.annotation.Nullable;
+import io.micronaut.scheduling.TaskExecutors;
 import jakarta.inject.Inject;
-import org.mindrot.jbcrypt.BCrypt;
+import jakarta.inject.Named;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
-import java.util.HashSet;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 
+import gcfv2.dto.CreditUsageSummary;
 import gcfv2.dto.ProfessorDTO;
+import gcfv2.dto.ProfessorLastActivityDTO;
+import gcfv2.dto.ProfessorStudentCountDTO;
+import gcfv2.dto.UsuarioSummary;
+import gcfv2.utils.KeysetPublisher;
 
 @Controller("/api/usuarios")
 @CrossOrigin({ "https://fitai-analyzer-732767853162.us-west1.run.app",
@@ -29,18 +42,17 @@ import gcfv2.dto.ProfessorDTO;
         "https://app-back-ia-732767853162.southamerica-east1.run.app" })
 public class TesteController {
 
+    private static final Logger LOG = LoggerFactory.getLogger(TesteController.class);
+
     @Inject
     private UsuarioRepository usuarioRepository;
 
     @Inject
-    private ExerciseRepository exerciseRepository;
+    private PermissionService permissionService;
 
     @Inject
     private UsuarioExercicioRepository usuarioExercicioRepository;
 
-    @Inject
-    private TreinoRepository treinoRepository;
-
     @Inject
     private PasswordResetTokenRepository passwordResetTokenRepository;
 
@@ -53,9 +65,36 @@ public class TesteController {
     @Inject
     private ActivityLogService activityLogService;
 
+    @Inject
+    private CreditLedgerService creditLedgerService;
+
+    @Inject
+    private AccountSnapshotService accountSnapshotService;
+
+    @Inject
+    private PasswordHasher passwordHasher;
+
+    @Inject
+    private UserDeletionService userDeletionService;
+
+    @Inject
+    private CreditReservationService creditReservationService;
+
+    @Inject
+    private CreditReservationRepository creditReservationRepository;
+
     @Inject
     private AtividadeProfessorRepository atividadeProfessorRepository;
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int STREAM_PAGE_SIZE = 500;
+    private static final int DEFAULT_HISTORY_PAGE_SIZE = 50;
+
+    @Inject
+    @Named(TaskExecutors.IO)
+    private ExecutorService ioExecutor;
+
     /**
      * CADASTRO DE USUÁRIO
      * Suporta criação de alunos (USER) e professores (PROFESSOR)
@@ -64,9 +103,11 @@ public class TesteController {
      * - requesterRole deve ser PERSONAL ou ADMIN
      * - body.role deve ser "professor"
      * - body.managerId deve ser o ID do personal (ou requesterId se PERSONAL)
+     *
+     * O hash BCrypt é feito antes de abrir a transação: só o insert e o
+     * provisionamento do catálogo seguram a conexão.
      */
     @Post("/")
-    @Transactional
     public HttpResponse<?> cadastrar(
             @Body Usuario usuario,
             @Nullable @QueryValue Long requesterId,
@@ -123,10 +164,14 @@ public class TesteController {
                 }
             }
 
-            // Hash da senha com BCrypt antes de salvar
+            // Hash da senha com BCrypt antes de salvar (fora de transação)
             String rawPassword = usuario.getSenha();
             if (rawPassword != null && !rawPassword.isEmpty()) {
-                usuario.setSenha(BCrypt.hashpw(rawPassword, BCrypt.gensalt()));
+                try {
+                    usuario.setSenha(passwordHasher.hashBlocking(rawPassword));
+                } catch (RejectedExecutionException e) {
+                    return hashingUnavailable();
+                }
             }
 
             usuario.setCredits(0);
@@ -146,22 +191,7 @@ public class TesteController {
                 usuario.setSubscriptionStatus("INACTIVE");
             }
 
-            Usuario novoUsuario = usuarioRepository.save(usuario);
-
-            // Não copia exercícios para professores
-            if (!"PROFESSOR".equalsIgnoreCase(novoUsuario.getRole())) {
-                List<Exercise> exerciciosCatalogo = exerciseRepository.findByActiveTrueOrderByNameAsc();
-                Set<String> processedExercises = new HashSet<>();
-                for (Exercise ex : exerciciosCatalogo) {
-                    if (ex.getName() != null && !processedExercises.contains(ex.getName())) {
-                        UsuarioExercicio ue = new UsuarioExercicio();
-                        ue.setExercicio(ex.getName());
-                        ue.setUsuario(novoUsuario);
-                        usuarioExercicioRepository.save(ue);
-                        processedExercises.add(ex.getName());
-                    }
-                }
-            }
+            Usuario novoUsuario = salvarNovoUsuario(usuario);
 
             // Registrar atividade se professor criou aluno
             if ("PROFESSOR".equalsIgnoreCase(requesterRole) && "USER".equalsIgnoreCase(novoUsuario.getRole())) {
@@ -188,6 +218,21 @@ public class TesteController {
         }
     }
 
+    /**
+     * Insert do usuário e cópia do catálogo de exercícios numa transação curta.
+     */
+    @Transactional
+    protected Usuario salvarNovoUsuario(Usuario usuario) {
+        Usuario novoUsuario = usuarioRepository.save(usuario);
+
+        // Não copia exercícios para professores
+        if (!"PROFESSOR".equalsIgnoreCase(novoUsuario.getRole())) {
+            // Catálogo inteiro em uma instrução (custo constante no request)
+            usuarioExercicioRepository.provisionActiveCatalog(novoUsuario.getId());
+        }
+        return novoUsuario;
+    }
+
     /**
      * ATUALIZAR USUÁRIO
      */
@@ -205,7 +250,7 @@ public class TesteController {
                         .body(Map.of("message", "requesterId e requesterRole são obrigatórios."));
             }
 
-            if (!usuarioRepository.hasPermission(requesterId, requesterRole, id.toString())) {
+            if (!permissionService.hasPermission(requesterId, requesterRole, id.toString())) {
                 return HttpResponse.status(HttpStatus.FORBIDDEN).body(Map.of("message", "Acesso negado."));
             }
 
@@ -241,6 +286,9 @@ public class TesteController {
                     user.setSurfaceColor(atualizacao.getSurfaceColor());
 
                 Usuario salvo = usuarioRepository.update(user);
+                // Role pode ter mudado: descarta o nó do cache de permissões
+                permissionService.invalidateUser(id);
+                accountSnapshotService.invalidate(id);
                 return HttpResponse.ok(salvo);
             }).orElse(HttpResponse.notFound());
 
@@ -262,15 +310,18 @@ public class TesteController {
      * Prioridade de débito: subscription_credits primeiro, depois purchased_credits
      * 
      * Para PROFESSOR: consome créditos do Personal (manager)
+     *
+     * Sem @Transactional: o débito abre a própria transação (depois do lock por
+     * dono, no caso das reservas), sem segurar a conexão durante a espera.
      */
     @Post("/consume-credit/{userId}")
-    @Transactional
     public HttpResponse<?> consumirCredito(
             @PathVariable Long userId,
             @QueryValue Long requesterId,
             @QueryValue String requesterRole,
             @QueryValue String reason,
-            @Nullable @QueryValue String analysisType) {
+            @Nullable @QueryValue String analysisType,
+            @Nullable @Header("Idempotency-Key") String idempotencyKey) {
 
         // Validar reason
         if (reason == null || (!reason.equals("DIETA") && !reason.equals("TREINO") && !reason.equals("ANALISE"))) {
@@ -284,7 +335,7 @@ public class TesteController {
                     .badRequest(Map.of("message", "Parâmetro 'analysisType' é obrigatório quando reason=ANALISE"));
         }
 
-        if (!usuarioRepository.hasPermission(requesterId, requesterRole, userId.toString())) {
+        if (!permissionService.hasPermission(requesterId, requesterRole, userId.toString())) {
             return HttpResponse.status(HttpStatus.FORBIDDEN).body(Map.of("message", "Acesso negado."));
         }
 
@@ -296,131 +347,47 @@ public class TesteController {
                                 "Seu nível de acesso não permite esta ação. Solicite ao seu Personal."));
             }
 
-            // Determinar quem é o dono dos créditos
-            // PROFESSOR usa créditos do Personal (manager)
-            Long creditOwnerId = requesterId;
-            Usuario creditOwner = null;
-
-            if ("PROFESSOR".equalsIgnoreCase(requesterRole)) {
-                Optional<Usuario> professorOpt = usuarioRepository.findById(requesterId);
-                if (professorOpt.isPresent() && professorOpt.get().getManagerId() != null) {
-                    creditOwnerId = professorOpt.get().getManagerId();
-                }
-            }
-
-            Optional<Usuario> creditOwnerOpt = usuarioRepository.findById(creditOwnerId);
-            if (creditOwnerOpt.isEmpty()) {
+            CreditCharge charge = resolveCreditCharge(userId, requesterId, requesterRole, reason);
+            if (charge == null) {
                 return HttpResponse.serverError(Map.of("message", "Erro ao identificar proprietário dos créditos."));
             }
-            creditOwner = creditOwnerOpt.get();
-
-            // Determinar o plano a considerar:
-            // Para PROFESSOR, sempre usar plano do manager
-            String planTypeToCheck = creditOwner.getPlanType() != null ? creditOwner.getPlanType() : "FREE";
-            boolean isPrivileged = "PERSONAL".equalsIgnoreCase(requesterRole)
-                    || "ADMIN".equalsIgnoreCase(requesterRole)
-                    || "PROFESSOR".equalsIgnoreCase(requesterRole);
-
-            // Para PERSONAL/ADMIN gerando para outro (não professor)
-            if (("PERSONAL".equalsIgnoreCase(requesterRole) || "ADMIN".equalsIgnoreCase(requesterRole))
-                    && !requesterId.equals(userId)) {
-                Optional<Usuario> requesterOpt = usuarioRepository.findById(requesterId);
-                if (requesterOpt.isPresent()) {
-                    planTypeToCheck = requesterOpt.get().getPlanType() != null ? requesterOpt.get().getPlanType()
-                            : "FREE";
-                    creditOwner = requesterOpt.get();
-                    creditOwnerId = requesterId;
+            Usuario creditOwner = charge.owner;
+            Long creditOwnerId = creditOwner.getId();
+            int creditsToCharge = charge.amount;
+
+            // Com Idempotency-Key: reserva + commit idempotentes (retries não debitam de novo)
+            if (idempotencyKey != null && !idempotencyKey.isBlank()) {
+                CreditReservationService.ReservationResult result = creditReservationService.consume(
+                        idempotencyKey, creditOwner, creditsToCharge, userId, reason, analysisType);
+                if (!result.isSuccess()) {
+                    return reservationFailure(result);
                 }
+                CreditReservation reservation = result.getReservation();
+                return HttpResponse.ok(Map.of(
+                        "message", reservation.getAmount() + " crédito(s) debitado(s) com sucesso",
+                        "novoSaldo", reservation.getBalanceAfter(),
+                        "creditsConsumed", reservation.getAmount(),
+                        "reason", reason,
+                        "creditSource", CreditLedgerService.creditSourceOf(reservation.getFromSubscription(),
+                                reservation.getFromPurchased()),
+                        "creditOwnerId", reservation.getOwnerId(),
+                        "replayed", result.isReplayed()));
             }
 
-            int creditsToCharge = 1; // Default: 1 crédito
-            boolean wasFree = false;
-            String creditSourceType = "FREE";
+            // Débito atômico (uma instrução UPDATE) + histórico na mesma transação.
+            // Histórico é sempre registrado no usuário alvo para tracking.
+            CreditLedgerService.DebitResult debit = creditLedgerService.debit(
+                    creditOwner, creditsToCharge, userId, reason, analysisType);
 
-            // Lógica por motivo e plano
-            if ("DIETA".equals(reason) || "TREINO".equals(reason)) {
-                // STUDIO: 2 créditos por geração
-                if ("STUDIO".equalsIgnoreCase(planTypeToCheck)) {
-                    creditsToCharge = 2;
-                }
-                // PRO: 3 créditos por geração
-                else if ("PRO".equalsIgnoreCase(planTypeToCheck)) {
-                    creditsToCharge = 3;
-                }
-                // STARTER: 4 créditos por geração
-                else if ("STARTER".equalsIgnoreCase(planTypeToCheck)) {
-                    creditsToCharge = 4;
-                }
-                // FREE: 5 créditos por geração
-                else {
-                    creditsToCharge = 5;
-                }
+            if (!debit.isSuccess()) {
+                return HttpResponse.status(HttpStatus.PAYMENT_REQUIRED)
+                        .body(Map.of("message", "Saldo insuficiente. Você precisa de " + creditsToCharge
+                                + " créditos, mas tem apenas " + debit.getBalance() + "."));
             }
-            // ANALISE: sempre 1 crédito (já é o default)
-
-            int creditsConsumed = 0;
-
-            if (creditsToCharge > 0) {
-                int subCredits = creditOwner.getSubscriptionCredits() != null ? creditOwner.getSubscriptionCredits()
-                        : 0;
-                int purCredits = creditOwner.getPurchasedCredits() != null ? creditOwner.getPurchasedCredits() : 0;
-                int totalCredits = subCredits + purCredits;
 
-                if (totalCredits < creditsToCharge) {
-                    return HttpResponse.status(HttpStatus.PAYMENT_REQUIRED)
-                            .body(Map.of("message", "Saldo insuficiente. Você precisa de " + creditsToCharge
-                                    + " créditos, mas tem apenas " + totalCredits + "."));
-                }
-
-                // Debitar créditos (prioriza subscription, depois purchased)
-                int remaining = creditsToCharge;
-                while (remaining > 0) {
-                    // Recalcular saldos atuais
-                    Optional<Usuario> currentOwner = usuarioRepository.findById(creditOwnerId);
-                    if (currentOwner.isEmpty())
-                        break;
-
-                    int currentSub = currentOwner.get().getSubscriptionCredits() != null
-                            ? currentOwner.get().getSubscriptionCredits()
-                            : 0;
-                    int currentPur = currentOwner.get().getPurchasedCredits() != null
-                            ? currentOwner.get().getPurchasedCredits()
-                            : 0;
-
-                    if (currentSub > 0) {
-                        usuarioRepository.consumeSubscriptionCredit(creditOwnerId);
-                        creditSourceType = "SUBSCRIPTION";
-                    } else if (currentPur > 0) {
-                        usuarioRepository.consumePurchasedCredit(creditOwnerId);
-                        creditSourceType = "PURCHASED";
-                    }
-                    remaining--;
-                }
-                creditsConsumed = creditsToCharge;
-            }
-
-            // Registrar histórico de consumo (sempre no usuário alvo para tracking)
-            CreditConsumptionHistory history = new CreditConsumptionHistory(
-                    userId,
-                    reason,
-                    analysisType,
-                    creditsConsumed,
-                    wasFree,
-                    creditSourceType);
-            creditHistoryRepository.save(history);
-
-            // Calcular novo saldo do creditOwner para resposta
-            Optional<Usuario> updatedOwner = usuarioRepository.findById(creditOwnerId);
-            int novoSaldo = 0;
-            if (updatedOwner.isPresent()) {
-                int subCredits = updatedOwner.get().getSubscriptionCredits() != null
-                        ? updatedOwner.get().getSubscriptionCredits()
-                        : 0;
-                int purCredits = updatedOwner.get().getPurchasedCredits() != null
-                        ? updatedOwner.get().getPurchasedCredits()
-                        : 0;
-                novoSaldo = subCredits + purCredits;
-            }
+            int creditsConsumed = debit.getCreditsConsumed();
+            String creditSourceType = debit.getCreditSource();
+            int novoSaldo = debit.getBalance();
 
             return HttpResponse.ok(Map.of(
                     "message", creditsConsumed + " crédito(s) debitado(s) com sucesso",
@@ -432,38 +399,227 @@ public class TesteController {
         }).orElse(HttpResponse.notFound());
     }
 
+    /**
+     * RESERVA DE CRÉDITOS (reserve → commit/release)
+     * Retém os créditos sob a chave de idempotência informada; o débito só entra
+     * no histórico no commit. Reservas não confirmadas expiram e são devolvidas.
+     */
+    @Post("/credits/reserve/{userId}")
+    public HttpResponse<?> reservarCredito(
+            @PathVariable Long userId,
+            @QueryValue Long requesterId,
+            @QueryValue String requesterRole,
+            @QueryValue String reason,
+            @Nullable @QueryValue String analysisType,
+            @Header("Idempotency-Key") String idempotencyKey) {
+
+        if (reason == null || (!reason.equals("DIETA") && !reason.equals("TREINO") && !reason.equals("ANALISE"))) {
+            return HttpResponse
+                    .badRequest(Map.of("message", "Parâmetro 'reason' inválido. Use: DIETA, TREINO ou ANALISE"));
+        }
+
+        if (!permissionService.hasPermission(requesterId, requesterRole, userId.toString())) {
+            return HttpResponse.status(HttpStatus.FORBIDDEN).body(Map.of("message", "Acesso negado."));
+        }
+
+        return usuarioRepository.findById(userId).map(user -> {
+            if ("USER".equalsIgnoreCase(requesterRole) && "READONLY".equalsIgnoreCase(user.getAccessLevel())) {
+                return HttpResponse.status(HttpStatus.FORBIDDEN)
+                        .body(Map.of("message",
+                                "Seu nível de acesso não permite esta ação. Solicite ao seu Personal."));
+            }
+
+            CreditCharge charge = resolveCreditCharge(userId, requesterId, requesterRole, reason);
+            if (charge == null) {
+                return HttpResponse.serverError(Map.of("message", "Erro ao identificar proprietário dos créditos."));
+            }
+
+            CreditReservationService.ReservationResult result = creditReservationService.reserve(
+                    idempotencyKey, charge.owner, charge.amount, userId, reason, analysisType);
+            if (!result.isSuccess()) {
+                return reservationFailure(result);
+            }
+            return HttpResponse.ok(reservationBody(result));
+        }).orElse(HttpResponse.notFound());
+    }
+
+    /**
+     * A chave é procurada entre as reservas do dono dos créditos do solicitante
+     * (o próprio usuário, ou o Personal para PROFESSOR).
+     */
+    @Post("/credits/reservations/{idempotencyKey}/commit")
+    public HttpResponse<?> confirmarReserva(
+            @PathVariable String idempotencyKey,
+            @QueryValue Long requesterId,
+            @QueryValue String requesterRole) {
+        Long ownerId = resolveCreditOwnerId(requesterId, requesterRole);
+        if (!canAccessReservation(ownerId, idempotencyKey, requesterId, requesterRole)) {
+            return HttpResponse.status(HttpStatus.FORBIDDEN).body(Map.of("message", "Acesso negado."));
+        }
+        CreditReservationService.ReservationResult result = creditReservationService.commit(ownerId,
+                idempotencyKey);
+        if (!result.isSuccess()) {
+            return reservationFailure(result);
+        }
+        return HttpResponse.ok(reservationBody(result));
+    }
+
+    @Post("/credits/reservations/{idempotencyKey}/release")
+    public HttpResponse<?> liberarReserva(
+            @PathVariable String idempotencyKey,
+            @QueryValue Long requesterId,
+            @QueryValue String requesterRole) {
+        Long ownerId = resolveCreditOwnerId(requesterId, requesterRole);
+        if (!canAccessReservation(ownerId, idempotencyKey, requesterId, requesterRole)) {
+            return HttpResponse.status(HttpStatus.FORBIDDEN).body(Map.of("message", "Acesso negado."));
+        }
+        CreditReservationService.ReservationResult result = creditReservationService.release(ownerId,
+                idempotencyKey);
+        if (!result.isSuccess()) {
+            return reservationFailure(result);
+        }
+        return HttpResponse.ok(reservationBody(result));
+    }
+
+    private boolean canAccessReservation(Long ownerId, String idempotencyKey, Long requesterId,
+            String requesterRole) {
+        return creditReservationRepository.findByOwnerIdAndIdempotencyKey(ownerId, idempotencyKey)
+                .map(r -> permissionService.hasPermission(requesterId, requesterRole, r.getUserId().toString()))
+                .orElse(true); // inexistente: o serviço responde "Reserva não encontrada."
+    }
+
+    /**
+     * 402 saldo insuficiente, 422 chave reutilizada com outros parâmetros, 409
+     * reserva liberada/expirada/já confirmada, 404 inexistente.
+     */
+    private HttpResponse<?> reservationFailure(CreditReservationService.ReservationResult result) {
+        HttpStatus status;
+        switch (result.getFailure()) {
+            case KEY_REUSED:
+                status = HttpStatus.UNPROCESSABLE_ENTITY;
+                break;
+            case NOT_ACTIVE:
+                status = HttpStatus.CONFLICT;
+                break;
+            case NOT_FOUND:
+                status = HttpStatus.NOT_FOUND;
+                break;
+            default:
+                status = HttpStatus.PAYMENT_REQUIRED;
+        }
+        return HttpResponse.status(status).body(Map.of("message", result.getMessage()));
+    }
+
+    private Map<String, Object> reservationBody(CreditReservationService.ReservationResult result) {
+        CreditReservation reservation = result.getReservation();
+        return Map.of(
+                "idempotencyKey", reservation.getIdempotencyKey(),
+                "status", reservation.getStatus(),
+                "amount", reservation.getAmount(),
+                "novoSaldo", reservation.getBalanceAfter(),
+                "creditOwnerId", reservation.getOwnerId(),
+                "expiresAt", reservation.getExpiresAt().toString(),
+                "replayed", result.isReplayed());
+    }
+
+    /**
+     * Dono dos créditos e custo de uma geração.
+     * PROFESSOR usa créditos e plano do Personal (manager); PERSONAL/ADMIN
+     * gerando para outro usuário usam os próprios.
+     */
+    private CreditCharge resolveCreditCharge(Long userId, Long requesterId, String requesterRole, String reason) {
+        Optional<Usuario> creditOwnerOpt = usuarioRepository.findById(resolveCreditOwnerId(requesterId,
+                requesterRole));
+        if (creditOwnerOpt.isEmpty()) {
+            return null;
+        }
+        Usuario creditOwner = creditOwnerOpt.get();
+        String planTypeToCheck = creditOwner.getPlanType() != null ? creditOwner.getPlanType() : "FREE";
+
+        int creditsToCharge = 1; // ANALISE: sempre 1 crédito
+
+        if ("DIETA".equals(reason) || "TREINO".equals(reason)) {
+            if ("STUDIO".equalsIgnoreCase(planTypeToCheck)) {
+                creditsToCharge = 2;
+            } else if ("PRO".equalsIgnoreCase(planTypeToCheck)) {
+                creditsToCharge = 3;
+            } else if ("STARTER".equalsIgnoreCase(planTypeToCheck)) {
+                creditsToCharge = 4;
+            } else {
+                creditsToCharge = 5;
+            }
+        }
+
+        return new CreditCharge(creditOwner, creditsToCharge);
+    }
+
+    /**
+     * PROFESSOR usa os créditos do Personal (manager); os demais, os próprios.
+     */
+    private Long resolveCreditOwnerId(Long requesterId, String requesterRole) {
+        if ("PROFESSOR".equalsIgnoreCase(requesterRole)) {
+            Optional<Usuario> professorOpt = usuarioRepository.findById(requesterId);
+            if (professorOpt.isPresent() && professorOpt.get().getManagerId() != null) {
+                return professorOpt.get().getManagerId();
+            }
+        }
+        return requesterId;
+    }
+
+    private static class CreditCharge {
+        final Usuario owner;
+        final int amount;
+
+        CreditCharge(Usuario owner, int amount) {
+            this.owner = owner;
+            this.amount = amount;
+        }
+    }
+
     /**
      * HISTÓRICO DE CONSUMO DE CRÉDITOS
-     * Retorna histórico completo e resumo de uso
+     * Retorna uma página do histórico (mais recente primeiro) e o resumo de uso.
+     * Paginação por keyset: ?limit=50&beforeId={último id}. Quando há próxima
+     * página, o cursor vem no header X-Next-Cursor. O resumo vem dos totais
+     * mensais (credit_usage_monthly), sem varrer o histórico.
      */
     @Get("/credit-history/{userId}")
     public HttpResponse<?> getCreditHistory(
             @PathVariable Long userId,
             @QueryValue Long requesterId,
-            @QueryValue String requesterRole) {
+            @QueryValue String requesterRole,
+            @Nullable @QueryValue Long beforeId,
+            @Nullable @QueryValue Integer limit) {
 
-        if (!usuarioRepository.hasPermission(requesterId, requesterRole, userId.toString())) {
+        if (!permissionService.hasPermission(requesterId, requesterRole, userId.toString())) {
             return HttpResponse.status(HttpStatus.FORBIDDEN).body(Map.of("message", "Acesso negado."));
         }
 
         return usuarioRepository.findById(userId).map(user -> {
-            List<CreditConsumptionHistory> history = creditHistoryRepository.findByUserIdOrderByCreatedAtDesc(userId);
+            int pageSize = limit != null && limit > 0 ? Math.min(limit, MAX_PAGE_SIZE) : DEFAULT_HISTORY_PAGE_SIZE;
+            List<CreditConsumptionHistory> history = creditHistoryRepository.findPageByUserId(
+                    userId, beforeId != null ? beforeId : Long.MAX_VALUE, pageSize);
 
-            long totalConsumed = creditHistoryRepository.sumCreditsConsumedByUserId(userId);
-            long freeGenerationsUsed = creditHistoryRepository.countFreeGenerationsThisMonth(userId);
+            CreditUsageSummary usage = creditHistoryRepository.findUsageSummary(
+                    userId, CreditLedgerService.periodOf(LocalDate.now()));
+            long freeGenerationsUsed = usage.getFreeGenerationsThisMonth();
 
             String planType = user.getPlanType() != null ? user.getPlanType() : "FREE";
             int freeGenerationsRemaining = "STARTER".equalsIgnoreCase(planType)
                     ? Math.max(0, 10 - (int) freeGenerationsUsed)
                     : ("PRO".equalsIgnoreCase(planType) || "STUDIO".equalsIgnoreCase(planType) ? -1 : 0);
 
-            return HttpResponse.ok(Map.of(
+            MutableHttpResponse<?> response = HttpResponse.ok(Map.of(
                     "history", history,
                     "summary", Map.of(
-                            "totalConsumed", totalConsumed,
+                            "totalConsumed", usage.getTotalConsumed(),
                             "freeGenerationsUsed", freeGenerationsUsed,
                             "freeGenerationsRemaining", freeGenerationsRemaining,
-                            "consumedThisMonth", creditHistoryRepository.sumCreditsConsumedThisMonth(userId))));
+                            "consumedThisMonth", usage.getConsumedThisMonth())));
+            if (history.size() == pageSize) {
+                response.header(NEXT_CURSOR_HEADER, String.valueOf(history.get(history.size() - 1).getId()));
+            }
+            return response;
         }).orElse(HttpResponse.notFound());
     }
 
@@ -492,6 +648,7 @@ public class TesteController {
             // CORREÇÃO: Usando a query de créditos avulsos que atualiza tanto
             // purchased_credits quanto credits (legado)
             usuarioRepository.addPurchasedCredits(userId, amount);
+            accountSnapshotService.invalidate(userId);
 
             // Recalcular saldo para resposta
             int novoSaldo = (user.getCredits() != null ? user.getCredits() : 0) + amount;
@@ -505,126 +662,74 @@ public class TesteController {
     /**
      * LOGIN
      * Suporta senhas em texto puro (legado) e BCrypt.
-     * Quando login com texto puro, migra automaticamente para BCrypt.
+     * Quando login com texto puro (ou hash com custo antigo), refaz o hash com o
+     * custo configurado.
+     * 
+     * A busca do usuário é uma query curta fora de transação; o BCrypt roda no
+     * pool do PasswordHasher, sem segurar conexão JDBC.
      * 
      * Para PROFESSOR: retorna créditos e plano do seu Personal (manager)
      */
     @Post("/login")
-    @Transactional
-    public HttpResponse<?> login(@Body Map<String, String> credentials) {
+    public CompletableFuture<HttpResponse<?>> login(@Body Map<String, String> credentials) {
         String email = credentials.get("email");
         String senha = credentials.get("senha");
 
         Optional<Usuario> usuarioOpt = usuarioRepository.findByEmail(email);
+        if (usuarioOpt.isEmpty()) {
+            return CompletableFuture.completedFuture(invalidCredentials());
+        }
 
-        if (usuarioOpt.isPresent()) {
-            Usuario usuario = usuarioOpt.get();
-            String storedPassword = usuario.getSenha();
-
-            boolean senhaValida = checkPassword(senha, storedPassword);
-
-            if (senhaValida) {
-                // Auto-migração: se senha ainda está em texto puro, converte para BCrypt
-                if (storedPassword != null && !storedPassword.startsWith("$2")) {
-                    String hashedPassword = BCrypt.hashpw(senha, BCrypt.gensalt());
-                    usuarioRepository.updatePassword(usuario.getId(), hashedPassword);
-                }
+        Usuario usuario = usuarioOpt.get();
+        String storedPassword = usuario.getSenha();
 
-                // Definir latestWorkout (mantido da lógica anterior)
-                List<Treino> treinos = treinoRepository.findByUserIdOrderByCreatedAtDesc(usuario.getId().toString());
-                if (!treinos.isEmpty()) {
-                    usuario.setLatestWorkout(treinos.get(0));
-                }
+        return passwordHasher.verify(senha, storedPassword)
+                .<HttpResponse<?>>thenApplyAsync(senhaValida -> {
+                    if (!senhaValida) {
+                        return invalidCredentials();
+                    }
 
-                // Preparar resposta com Plano e Usage (padronizado com /api/me)
-                // generationsLimit: -1 significa custo em créditos (não ilimitado)
-                // generationCost: custo em créditos por geração
-                Map<String, Map<String, Object>> PLANS = Map.of(
-                        "FREE", Map.of("generationsLimit", -1, "generationCost", 5),
-                        "STARTER", Map.of("generationsLimit", -1, "generationCost", 4),
-                        "PRO", Map.of("generationsLimit", -1, "generationCost", 3),
-                        "STUDIO", Map.of("generationsLimit", -1, "generationCost", 2));
-
-                // PROFESSOR usa créditos do Personal (manager)
-                Usuario creditSource = usuario;
-                Long managerId = null;
-                if ("PROFESSOR".equalsIgnoreCase(usuario.getRole()) && usuario.getManagerId() != null) {
-                    managerId = usuario.getManagerId();
-                    Optional<Usuario> managerOpt = usuarioRepository.findById(usuario.getManagerId());
-                    if (managerOpt.isPresent()) {
-                        creditSource = managerOpt.get();
+                    if (passwordHasher.needsRehash(storedPassword)) {
+                        rehashInBackground(usuario.getId(), senha);
                     }
-                }
 
-                String userPlanType = creditSource.getPlanType() != null ? creditSource.getPlanType() : "FREE";
-                Map<String, Object> planInfo = PLANS.getOrDefault(userPlanType, PLANS.get("FREE"));
-                int generationsLimit = (int) planInfo.get("generationsLimit");
-
-                int subCredits = creditSource.getSubscriptionCredits() != null ? creditSource.getSubscriptionCredits()
-                        : 0;
-                int purCredits = creditSource.getPurchasedCredits() != null ? creditSource.getPurchasedCredits() : 0;
-                int totalCredits = subCredits + purCredits;
-
-                // Se for aluno, buscar a logo do personal para o login
-                String brandLogo = usuario.getBrandLogo();
-                if ("USER".equalsIgnoreCase(usuario.getRole()) && usuario.getPersonalId() != null
-                        && brandLogo == null) {
-                    brandLogo = usuarioRepository.findById(usuario.getPersonalId())
-                            .map(Usuario::getBrandLogo)
-                            .orElse(null);
-                }
-                // Professor também herda brandLogo do manager
-                if ("PROFESSOR".equalsIgnoreCase(usuario.getRole()) && usuario.getManagerId() != null
-                        && brandLogo == null) {
-                    brandLogo = usuarioRepository.findById(usuario.getManagerId())
-                            .map(Usuario::getBrandLogo)
-                            .orElse(null);
-                }
+                    // Plano, usage e logo vêm da visão da conta (query única, cacheada)
+                    return accountSnapshotService.get(usuario.getId())
+                            .<HttpResponse<?>>map(snapshot -> HttpResponse.ok(accountSnapshotService.toResponse(snapshot)))
+                            .orElse(invalidCredentials());
+                }, ioExecutor)
+                .exceptionally(e -> {
+                    if (e instanceof RejectedExecutionException
+                            || e.getCause() instanceof RejectedExecutionException) {
+                        return HttpResponse.status(HttpStatus.SERVICE_UNAVAILABLE)
+                                .body(Map.of("message", "Muitas tentativas de login simultâneas. Tente novamente."));
+                    }
+                    LOG.error("Erro no login de {}", email, e);
+                    return HttpResponse.serverError(Map.of("message", "Erro ao processar login."));
+                });
+    }
 
-                // Construir resposta - incluir managerId para professor
-                Map<String, Object> response = new java.util.HashMap<>();
-                response.put("id", usuario.getId());
-                response.put("name", usuario.getNome() != null ? usuario.getNome() : "");
-                response.put("email", usuario.getEmail() != null ? usuario.getEmail() : "");
-                response.put("role", usuario.getRole() != null ? usuario.getRole() : "USER");
-                response.put("avatar", usuario.getAvatar() != null ? usuario.getAvatar() : "");
-                response.put("brandLogo", brandLogo != null ? brandLogo : "");
-                response.put("accessLevel", usuario.getAccessLevel() != null ? usuario.getAccessLevel() : "FULL");
-                response.put("methodology", usuario.getMethodology());
-                response.put("communicationStyle", usuario.getCommunicationStyle());
-
-                if (managerId != null) {
-                    response.put("managerId", managerId);
-                }
+    private static HttpResponse<?> invalidCredentials() {
+        return HttpResponse.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", "Credenciais inválidas."));
+    }
 
-                if (usuario.getPersonalId() != null) {
-                    response.put("personalId", usuario.getPersonalId());
-                }
+    private static HttpResponse<?> hashingUnavailable() {
+        return HttpResponse.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(Map.of("message", "Servidor ocupado processando senhas. Tente novamente."));
+    }
 
-                response.put("plan", Map.of(
-                        "type", creditSource.getPlanType() != null ? creditSource.getPlanType() : "FREE",
-                        "status",
-                        creditSource.getSubscriptionStatus() != null ? creditSource.getSubscriptionStatus()
-                                : "INACTIVE",
-                        "renewsAt",
-                        creditSource.getSubscriptionEndDate() != null ? creditSource.getSubscriptionEndDate().toString()
-                                : ""));
-
-                int generationCost = (int) planInfo.get("generationCost");
-
-                response.put("usage", Map.of(
-                        "credits", totalCredits,
-                        "subscriptionCredits", subCredits,
-                        "purchasedCredits", purCredits,
-                        "generations",
-                        creditSource.getGenerationsUsedCycle() != null ? creditSource.getGenerationsUsedCycle() : 0,
-                        "generationsLimit", generationsLimit,
-                        "generationCost", generationCost));
-
-                return HttpResponse.ok(response);
-            }
-        }
-        return HttpResponse.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", "Credenciais inválidas."));
+    /**
+     * Auto-migração: texto puro (legado) ou custo antigo → BCrypt com o custo
+     * configurado. Não atrasa a resposta do login; em caso de falha, tenta de
+     * novo no próximo login.
+     */
+    private void rehashInBackground(Long userId, String senha) {
+        passwordHasher.hash(senha)
+                .thenAcceptAsync(hashed -> usuarioRepository.updatePassword(userId, hashed), ioExecutor)
+                .exceptionally(e -> {
+                    LOG.warn("Não foi possível refazer o hash da senha do usuário {}", userId, e);
+                    return null;
+                });
     }
 
     /**
@@ -634,78 +739,9 @@ public class TesteController {
      */
     @Get("/status")
     public HttpResponse<?> getStatus(@QueryValue Long requesterId) {
-        return usuarioRepository.findById(requesterId).map(usuario -> {
-
-            // 1. Definição dos Planos (Mesma lógica do Login)
-            // generationsLimit: -1 significa custo em créditos (não ilimitado)
-            // generationCost: custo em créditos por geração
-            Map<String, Map<String, Object>> PLANS = Map.of(
-                    "FREE", Map.of("generationsLimit", -1, "generationCost", 5),
-                    "STARTER", Map.of("generationsLimit", -1, "generationCost", 4),
-                    "PRO", Map.of("generationsLimit", -1, "generationCost", 3),
-                    "STUDIO", Map.of("generationsLimit", -1, "generationCost", 2));
-
-            // 2. Determinar Fonte de Créditos (Professor -> Personal)
-            Usuario creditSource = usuario;
-            if ("PROFESSOR".equalsIgnoreCase(usuario.getRole()) && usuario.getManagerId() != null) {
-                Optional<Usuario> managerOpt = usuarioRepository.findById(usuario.getManagerId());
-                if (managerOpt.isPresent()) {
-                    creditSource = managerOpt.get();
-                }
-            }
-
-            // 3. Calcular Dados
-            String currentPlan = creditSource.getPlanType() != null ? creditSource.getPlanType() : "FREE";
-            Map<String, Object> planInfo = PLANS.getOrDefault(currentPlan, PLANS.get("FREE"));
-            int generationsLimit = (int) planInfo.get("generationsLimit");
-
-            int subCredits = creditSource.getSubscriptionCredits() != null ? creditSource.getSubscriptionCredits() : 0;
-            int purCredits = creditSource.getPurchasedCredits() != null ? creditSource.getPurchasedCredits() : 0;
-
-            // Legacy Fix: Se sub + pur != total, assumir que a diferença é crédito comprado
-            // (legado)
-            int totalCreditsColumn = creditSource.getCredits() != null ? creditSource.getCredits() : 0;
-            if (subCredits + purCredits != totalCreditsColumn) {
-                purCredits = Math.max(0, totalCreditsColumn - subCredits);
-            }
-
-            int totalCredits = subCredits + purCredits;
-
-            // 4. Montar Resposta
-            Map<String, Object> response = new java.util.HashMap<>();
-
-            response.put("id", usuario.getId());
-            response.put("role", usuario.getRole());
-            response.put("accessLevel", usuario.getAccessLevel() != null ? usuario.getAccessLevel() : "FULL");
-            response.put("methodology", usuario.getMethodology());
-            response.put("communicationStyle", usuario.getCommunicationStyle());
-
-            if (usuario.getPersonalId() != null) {
-                response.put("personalId", usuario.getPersonalId());
-            }
-
-            response.put("plan", Map.of(
-                    "type", currentPlan,
-                    "status",
-                    creditSource.getSubscriptionStatus() != null ? creditSource.getSubscriptionStatus() : "INACTIVE",
-                    "renewsAt",
-                    creditSource.getSubscriptionEndDate() != null ? creditSource.getSubscriptionEndDate().toString()
-                            : ""));
-
-            int generationCost = (int) planInfo.get("generationCost");
-
-            response.put("usage", Map.of(
-                    "credits", totalCredits,
-                    "subscriptionCredits", subCredits,
-                    "purchasedCredits", purCredits,
-                    "generations",
-                    creditSource.getGenerationsUsedCycle() != null ? creditSource.getGenerationsUsedCycle() : 0,
-                    "generationsLimit", generationsLimit,
-                    "generationCost", generationCost));
-
-            return HttpResponse.ok(response);
-
-        }).orElse(HttpResponse.notFound());
+        return accountSnapshotService.get(requesterId)
+                .<HttpResponse<?>>map(snapshot -> HttpResponse.ok(accountSnapshotService.toResponse(snapshot)))
+                .orElse(HttpResponse.notFound());
     }
 
     /**
@@ -713,13 +749,23 @@ public class TesteController {
      * 
      * Para PROFESSOR: retorna todos os alunos do ecossistema do seu Personal
      * (alunos diretos do personal + alunos de todos os professores do personal)
+     * Suporta paginação por keyset: ?limit=50&afterId={último id}. Quando há
+     * próxima página, o cursor vem no header X-Next-Cursor.
      */
     @Get("/")
     public HttpResponse<?> listar(
             @QueryValue Long requesterId,
-            @QueryValue String requesterRole) {
-        if ("ADMIN".equalsIgnoreCase(requesterRole))
-            return HttpResponse.ok(usuarioRepository.findAll());
+            @QueryValue String requesterRole,
+            @Nullable @QueryValue Long afterId,
+            @Nullable @QueryValue Integer limit) {
+        if ("ADMIN".equalsIgnoreCase(requesterRole)) {
+            // Streaming: array JSON em chunks, página a página (memória constante)
+            return HttpResponse.ok(new KeysetPublisher<UsuarioSummary>(
+                    usuarioRepository::findSummariesAfter,
+                    UsuarioSummary::getId,
+                    STREAM_PAGE_SIZE,
+                    ioExecutor)).contentType(MediaType.APPLICATION_JSON_TYPE);
+        }
 
         if ("PERSONAL".equalsIgnoreCase(requesterRole)) {
             List<Usuario> usuarios = new ArrayList<>();
@@ -731,28 +777,17 @@ public class TesteController {
         }
 
         if ("PROFESSOR".equalsIgnoreCase(requesterRole)) {
-            // Professor vê todos os alunos do ecossistema do seu Personal
-            var professorOpt = usuarioRepository.findById(requesterId);
-            if (professorOpt.isEmpty() || professorOpt.get().getManagerId() == null) {
-                return HttpResponse.ok(usuarioRepository.findByPersonalId(requesterId));
+            // Professor vê todos os alunos do ecossistema do seu Personal (query única,
+            // projeção sem senha/anamnese/branding)
+            int pageSize = limit != null && limit > 0 ? Math.min(limit, MAX_PAGE_SIZE) : Integer.MAX_VALUE;
+            List<UsuarioSummary> alunos = usuarioRepository.findEcosystemStudents(
+                    requesterId, afterId != null ? afterId : 0L, pageSize);
+
+            MutableHttpResponse<List<UsuarioSummary>> response = HttpResponse.ok(alunos);
+            if (limit != null && alunos.size() == pageSize) {
+                response.header(NEXT_CURSOR_HEADER, String.valueOf(alunos.get(alunos.size() - 1).getId()));
             }
-
-            Long managerId = professorOpt.get().getManagerId();
-
-            // Buscar todos os alunos: do personal + de todos os professores do personal
-            List<Usuario> todosAlunos = new ArrayList<>();
-
-            // Alunos diretos do personal
-            todosAlunos.addAll(usuarioRepository.findByPersonalId(managerId));
-
-            // Alunos de todos os professores do mesmo personal
-            List<Usuario> professores = usuarioRepository.findProfessorsByManagerId(managerId);
-            for (Usuario prof : professores) {
-                List<Usuario> alunosProf = usuarioRepository.findByPersonalId(prof.getId());
-                todosAlunos.addAll(alunosProf);
-            }
-
-            return HttpResponse.ok(todosAlunos);
+            return response;
         }
 
         return HttpResponse.status(HttpStatus.FORBIDDEN).body(Map.of("message", "Sem permissão."));
@@ -766,6 +801,9 @@ public class TesteController {
      * Retorna lista de professores com estatísticas:
      * - studentsCount: número de alunos
      * - lastActivity: última atividade registrada
+     *
+     * Contagem de alunos e última atividade vêm em lote (uma query de cada
+     * para a lista inteira), não por professor.
      */
     @Get("/professors")
     public HttpResponse<?> listarProfessores(
@@ -783,16 +821,29 @@ public class TesteController {
 
         try {
             List<Usuario> professors = usuarioRepository.findProfessorsByManagerId(managerId);
+            List<Long> professorIds = new ArrayList<>(professors.size());
+            for (Usuario prof : professors) {
+                professorIds.add(prof.getId());
+            }
+
+            Map<Long, Long> studentCounts = new HashMap<>();
+            Map<Long, LocalDateTime> lastActivities = new HashMap<>();
+            if (!professorIds.isEmpty()) {
+                for (ProfessorStudentCountDTO row : usuarioRepository.countStudentsByProfessorIds(professorIds)) {
+                    studentCounts.put(row.getProfessorId(), row.getCount());
+                }
+                for (ProfessorLastActivityDTO row : atividadeProfessorRepository
+                        .findLastActivityByProfessorIds(professorIds)) {
+                    lastActivities.put(row.getProfessorId(), row.getLastActivity());
+                }
+            }
 
             List<ProfessorDTO> result = new ArrayList<>();
             for (Usuario prof : professors) {
-                long studentsCount = usuarioRepository.countStudentsByProfessorId(prof.getId());
+                long studentsCount = studentCounts.getOrDefault(prof.getId(), 0L);
 
-                String lastActivity = null;
-                var lastAct = atividadeProfessorRepository.findLastActivityByProfessorId(prof.getId());
-                if (lastAct.isPresent() && lastAct.get().getCreatedAt() != null) {
-                    lastActivity = lastAct.get().getCreatedAt().toString();
-                }
+                LocalDateTime lastAct = lastActivities.get(prof.getId());
+                String lastActivity = lastAct != null ? lastAct.toString() : null;
 
                 ProfessorDTO dto = new ProfessorDTO(
                         prof.getId(),
@@ -827,7 +878,7 @@ public class TesteController {
             @Nullable @QueryValue String requesterRole) {
 
         if (requesterId != null && requesterRole != null) {
-            if (!usuarioRepository.hasPermission(requesterId, requesterRole, id.toString())) {
+            if (!permissionService.hasPermission(requesterId, requesterRole, id.toString())) {
                 return HttpResponse.status(HttpStatus.FORBIDDEN).body(Map.of("message", "Acesso negado."));
             }
         }
@@ -849,7 +900,7 @@ public class TesteController {
             @QueryValue Long requesterId,
             @QueryValue String requesterRole) {
 
-        if (!usuarioRepository.hasPermission(requesterId, requesterRole, userId.toString())) {
+        if (!permissionService.hasPermission(requesterId, requesterRole, userId.toString())) {
             return HttpResponse.status(HttpStatus.FORBIDDEN).body(Map.of("message", "Acesso negado."));
         }
 
@@ -872,9 +923,11 @@ public class TesteController {
     /**
      * MUDANÇA DE SENHA - Usuário logado muda sua própria senha
      * Body: { "userId": 1, "senhaAtual": "...", "novaSenha": "..." }
+     *
+     * Sem transação: a leitura e o update são instruções únicas, e o BCrypt
+     * (verificação + novo hash) não segura conexão.
      */
     @Post("/change-password")
-    @Transactional
     public HttpResponse<?> changePassword(@Body Map<String, Object> body) {
         Long userId = ((Number) body.get("userId")).longValue();
         String senhaAtual = (String) body.get("senhaAtual");
@@ -888,20 +941,28 @@ public class TesteController {
             return HttpResponse.badRequest(Map.of("message", "A nova senha deve ter no mínimo 6 caracteres."));
         }
 
-        return usuarioRepository.findById(userId).map(user -> {
+        Optional<Usuario> userOpt = usuarioRepository.findById(userId);
+        if (userOpt.isEmpty()) {
+            return HttpResponse.notFound();
+        }
+
+        String hashedPassword;
+        try {
             // Verificar senha atual (suporta texto puro legado ou BCrypt)
-            boolean senhaValida = checkPassword(senhaAtual, user.getSenha());
+            boolean senhaValida = passwordHasher.verifyBlocking(senhaAtual, userOpt.get().getSenha());
             if (!senhaValida) {
                 return HttpResponse.status(HttpStatus.UNAUTHORIZED)
                         .body(Map.of("message", "Senha atual incorreta."));
             }
+            hashedPassword = passwordHasher.hashBlocking(novaSenha);
+        } catch (RejectedExecutionException e) {
+            return hashingUnavailable();
+        }
 
-            // Atualizar para nova senha com hash
-            String hashedPassword = BCrypt.hashpw(novaSenha, BCrypt.gensalt());
-            usuarioRepository.updatePassword(userId, hashedPassword);
+        // Atualizar para nova senha com hash
+        usuarioRepository.updatePassword(userId, hashedPassword);
 
-            return HttpResponse.ok(Map.of("message", "Senha alterada com sucesso."));
-        }).orElse(HttpResponse.notFound());
+        return HttpResponse.ok(Map.of("message", "Senha alterada com sucesso."));
     }
 
     /**
@@ -944,9 +1005,11 @@ public class TesteController {
     /**
      * RESET DE SENHA VIA TOKEN - Valida token e define nova senha
      * Body: { "token": "uuid-token", "novaSenha": "..." }
+     *
+     * O hash é calculado antes da transação; ela só cobre a troca da senha e
+     * a marcação do token como usado.
      */
     @Post("/reset-password")
-    @Transactional
     public HttpResponse<?> resetPassword(@Body Map<String, String> body) {
         String token = body.get("token");
         String novaSenha = body.get("novaSenha");
@@ -973,14 +1036,25 @@ public class TesteController {
                     .body(Map.of("message", "Token inválido ou expirado."));
         }
 
+        String hashedPassword;
+        try {
+            hashedPassword = passwordHasher.hashBlocking(novaSenha);
+        } catch (RejectedExecutionException e) {
+            return hashingUnavailable();
+        }
+
+        aplicarResetDeSenha(resetToken, hashedPassword);
+
+        return HttpResponse.ok(Map.of("message", "Senha redefinida com sucesso."));
+    }
+
+    @Transactional
+    protected void aplicarResetDeSenha(PasswordResetToken resetToken, String hashedPassword) {
         // Atualizar senha
-        String hashedPassword = BCrypt.hashpw(novaSenha, BCrypt.gensalt());
         usuarioRepository.updatePassword(resetToken.getUserId(), hashedPassword);
 
         // Marcar token como usado
         passwordResetTokenRepository.markAsUsed(resetToken.getId());
-
-        return HttpResponse.ok(Map.of("message", "Senha redefinida com sucesso."));
     }
 
     /**
@@ -989,7 +1063,6 @@ public class TesteController {
      * Body: { "novaSenha": "..." }
      */
     @Post("/admin/reset-password/{userId}")
-    @Transactional
     public HttpResponse<?> adminResetPassword(
             @PathVariable Long userId,
             @Body Map<String, String> body,
@@ -1002,7 +1075,6 @@ public class TesteController {
      * Alias para a rota administrativa (suporta formato com hífen)
      */
     @Post("/admin-reset-password/{userId}")
-    @Transactional
     public HttpResponse<?> adminResetPasswordAlias(
             @PathVariable Long userId,
             @Body Map<String, String> body,
@@ -1030,7 +1102,7 @@ public class TesteController {
         // Verificar permissão: ADMIN pode tudo, PERSONAL só seus alunos
         if (!"ADMIN".equalsIgnoreCase(requesterRole)) {
             if ("PERSONAL".equalsIgnoreCase(requesterRole)) {
-                if (!usuarioRepository.hasPermission(requesterId, requesterRole, userId.toString())) {
+                if (!permissionService.hasPermission(requesterId, requesterRole, userId.toString())) {
                     return HttpResponse.status(HttpStatus.FORBIDDEN)
                             .body(Map.of("message", "Você não tem permissão para resetar a senha deste usuário."));
                 }
@@ -1040,30 +1112,23 @@ public class TesteController {
             }
         }
 
-        return usuarioRepository.findById(userId).map(user -> {
-            String hashedPassword = BCrypt.hashpw(novaSenha, BCrypt.gensalt());
-            usuarioRepository.updatePassword(userId, hashedPassword);
+        Optional<Usuario> userOpt = usuarioRepository.findById(userId);
+        if (userOpt.isEmpty()) {
+            return HttpResponse.notFound();
+        }
 
-            return HttpResponse.ok(Map.of(
-                    "message", "Senha do usuário " + user.getNome() + " redefinida com sucesso."));
-        }).orElse(HttpResponse.notFound());
-    }
+        // Sem transação em volta: o hash não segura conexão e o update é único
+        String hashedPassword;
+        try {
+            hashedPassword = passwordHasher.hashBlocking(novaSenha);
+        } catch (RejectedExecutionException e) {
+            return hashingUnavailable();
+        }
+        usuarioRepository.updatePassword(userId, hashedPassword);
 
-    // Injecting missing repositories for deletion
-    @Inject
-    private DietaRepository dietaRepository;
-    @Inject
-    private StructuredTreinoRepository structuredTreinoRepository;
-    @Inject
-    private StructuredDietaRepository structuredDietaRepository;
-    @Inject
-    private CheckinRepository checkinRepository;
-    @Inject
-    private HistoricoRepository historicoRepository;
-    @Inject
-    private SubscriptionHistoryRepository subscriptionHistoryRepository;
-    @Inject
-    private PaymentTransactionRepository paymentTransactionRepository;
+        return HttpResponse.ok(Map.of(
+                "message", "Senha do usuário " + userOpt.get().getNome() + " redefinida com sucesso."));
+    }
 
     /**
      * EXCLUSÃO DE CONTA (LGPD)
@@ -1073,9 +1138,11 @@ public class TesteController {
      * - O próprio usuário pode excluir sua conta
      * - O Personal Trainer atrelado ao usuário pode excluí-lo
      * - Administradores podem excluir qualquer usuário
+     * 
+     * A exclusão roda em background (UserDeletionService): retorna 202 com o id
+     * do job; o progresso é consultado em GET /deletion-jobs/{jobId}.
      */
     @Delete("/{id}")
-    @Transactional
     public HttpResponse<?> deleteUser(
             @PathVariable Long id,
             @QueryValue Long requesterId,
@@ -1106,78 +1173,30 @@ public class TesteController {
                     .body(Map.of("message", "Você não tem permissão para excluir este usuário."));
         }
 
-        // Continua com a exclusão usando o usuário já carregado
-        Usuario user = targetUser;
-        {
-            try {
-                String userIdStr = String.valueOf(id);
-
-                // 2. Remover Associações (Ordem importa para evitar FK constraints se houver,
-                // mas JPA/JDBC deve lidar com deletes simples)
-
-                // Treinos V1
-                treinoRepository.deleteByUserId(userIdStr);
-
-                // Dietas V1
-                dietaRepository.deleteByUserId(userIdStr);
-
-                // Treinos V2
-                structuredTreinoRepository.deleteByUserId(userIdStr);
-
-                // Dietas V2
-                structuredDietaRepository.deleteByUserId(userIdStr);
-
-                // Checkins
-                checkinRepository.deleteByUserId(userIdStr);
-
-                // Histórico de Evolução
-                historicoRepository.deleteByUserId(userIdStr);
-
-                // Histórico de Consumo de Créditos
-                creditHistoryRepository.deleteByUserId(id);
-
-                // Exercícios do Usuário
-                usuarioExercicioRepository.deleteByUsuario(user);
-
-                // Transações de Pagamento (Opicional: Manter para auditoria? Spec diz "Remover
-                // dados sensíveis")
-                // Vamos deletar para cumprir "Exclusão total" pedido pelo usuário
-                paymentTransactionRepository.deleteByUserId(id);
-
-                // Tokens de Reset de Senha
-                passwordResetTokenRepository.deleteByUserId(id);
-
-                // Histórico de Assinaturas
-                subscriptionHistoryRepository.deleteByUserId(id);
-
-                // 3. Deletar Usuário
-                usuarioRepository.delete(user);
-
-                return HttpResponse.ok(Map.of("message", "Conta excluída com sucesso."));
-
-            } catch (Exception e) {
-                return HttpResponse.serverError(Map.of("message", "Erro ao excluir conta: " + e.getMessage()));
-            }
-        }
+        UserDeletionJob job = userDeletionService.enqueue(id, requesterId);
+        return HttpResponse.accepted().body(Map.of(
+                "message", "Exclusão da conta agendada.",
+                "jobId", job.getId(),
+                "status", job.getStatus()));
     }
 
     /**
-     * Verifica se a senha informada corresponde à senha armazenada.
-     * Suporta tanto senhas em texto puro (legado) quanto senhas com hash BCrypt.
+     * STATUS DA EXCLUSÃO DE CONTA
+     * Rota: GET /api/usuarios/deletion-jobs/{jobId}
+     * Visível para quem solicitou, para o próprio usuário e para ADMIN.
      */
-    private boolean checkPassword(String rawPassword, String storedPassword) {
-        if (storedPassword == null) {
-            return false;
-        }
-
-        // Se a senha armazenada começa com $2a$, $2b$ ou $2y$ é BCrypt
-        if (storedPassword.startsWith("$2a$") || storedPassword.startsWith("$2b$")
-                || storedPassword.startsWith("$2y$")) {
-            return BCrypt.checkpw(rawPassword, storedPassword);
-        }
-
-        // Caso contrário, é texto puro (legado) - compara diretamente
-        return rawPassword.equals(storedPassword);
+    @Get("/deletion-jobs/{jobId}")
+    public HttpResponse<?> getDeletionJob(
+            @PathVariable Long jobId,
+            @QueryValue Long requesterId,
+            @QueryValue String requesterRole) {
+        return userDeletionService.findJob(jobId).<HttpResponse<?>>map(job -> {
+            if (!"ADMIN".equalsIgnoreCase(requesterRole) && !requesterId.equals(job.getRequestedBy())
+                    && !requesterId.equals(job.getUserId())) {
+                return HttpResponse.status(HttpStatus.FORBIDDEN).body(Map.of("message", "Acesso negado."));
+            }
+            return HttpResponse.ok(job);
+        }).orElse(HttpResponse.notFound());
     }
 
     /**
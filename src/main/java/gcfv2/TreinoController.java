@@ -18,6 +18,12 @@ public class TreinoController {
     @Inject
     private UsuarioRepository usuarioRepository;
 
+    @Inject
+    private AccountSnapshotService accountSnapshotService;
+
+    @Inject
+    private PermissionService permissionService;
+
     @Inject
     private EmailService emailService;
 
@@ -33,7 +39,7 @@ public class TreinoController {
             @QueryValue Long requesterId,
             @QueryValue String requesterRole) {
         try {
-            if (!usuarioRepository.hasPermission(requesterId, requesterRole, treino.getUserId())) {
+            if (!permissionService.hasPermission(requesterId, requesterRole, treino.getUserId())) {
                 return HttpResponse.status(HttpStatus.FORBIDDEN)
                         .body(Map.of("message", "Acesso negado. Sem permissão para este aluno."));
             }
@@ -79,6 +85,7 @@ public class TreinoController {
 
             // Incrementar contador de gerações
             usuarioRepository.incrementGenerationsUsedCycle(Long.parseLong(treino.getUserId()));
+            accountSnapshotService.invalidate(Long.parseLong(treino.getUserId()));
 
             // Log de atividade para professor
             activityLogService.logActivity(
@@ -130,7 +137,7 @@ public class TreinoController {
     public HttpResponse<?> listar(@PathVariable String userId,
             @QueryValue Long requesterId,
             @QueryValue String requesterRole) {
-        if (!usuarioRepository.hasPermission(requesterId, requesterRole, userId)) {
+        if (!permissionService.hasPermission(requesterId, requesterRole, userId)) {
             return HttpResponse.status(HttpStatus.FORBIDDEN).body(Map.of("message", "Acesso negado."));
         }
         return HttpResponse.ok(treinoRepository.findByUserIdOrderByCreatedAtDesc(userId));
@@ -144,7 +151,7 @@ public class TreinoController {
             @QueryValue String requesterRole) {
 
         return treinoRepository.findById(id).map(treino -> {
-            if (!usuarioRepository.hasPermission(requesterId, requesterRole, treino.getUserId())) {
+            if (!permissionService.hasPermission(requesterId, requesterRole, treino.getUserId())) {
                 return HttpResponse.status(HttpStatus.FORBIDDEN)
                         .body(Map.of("message", "Acesso negado. Você não pode excluir este treino."));
             }
@@ -164,7 +171,7 @@ public class TreinoController {
             @QueryValue String requesterRole) {
 
         return treinoRepository.findById(id).map(treino -> {
-            if (!usuarioRepository.hasPermission(requesterId, requesterRole, treino.getUserId())) {
+            if (!permissionService.hasPermission(requesterId, requesterRole, treino.getUserId())) {
                 return HttpResponse.status(HttpStatus.FORBIDDEN)
                         .body(Map.of("message", "Acesso negado."));
             }
@@ -6,12 +6,12 @@ import io.micronaut.http.MediaType;
 import io.micronaut.http.annotation.*;
 import io.micronaut.http.multipart.CompletedFileUpload;
 import io.micronaut.http.server.cors.CrossOrigin;
-import io.micronaut.transaction.annotation.Transactional;
 import jakarta.inject.Inject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -32,8 +32,13 @@ public class UploadController {
     @Inject
     private UsuarioRepository usuarioRepository;
 
+    @Inject
+    private AccountSnapshotService accountSnapshotService;
+
+    @Inject
+    private PermissionService permissionService;
+
     @Post(value = "/{id}/upload-asset", consumes = MediaType.MULTIPART_FORM_DATA)
-    @Transactional
     public HttpResponse<?> uploadAsset(
             @PathVariable Long id,
             @Part("file") CompletedFileUpload file,
@@ -43,7 +48,7 @@ public class UploadController {
 
         try {
             // 1. Validar Permissão
-            if (!usuarioRepository.hasPermission(requesterId, requesterRole, id.toString())) {
+            if (!permissionService.hasPermission(requesterId, requesterRole, id.toString())) {
                 return HttpResponse.status(HttpStatus.FORBIDDEN).body(Map.of("message", "Acesso negado."));
             }
 
@@ -88,8 +93,10 @@ public class UploadController {
             // 5. Atualizar Banco de Dados (Apenas para Avatar e Logo)
             if ("avatar".equalsIgnoreCase(type)) {
                 usuarioRepository.updateAvatar(id, imageUrl);
+                accountSnapshotService.invalidate(id);
             } else if ("logo".equalsIgnoreCase(type)) {
                 usuarioRepository.updateBrandLogo(id, imageUrl);
+                accountSnapshotService.invalidate(id);
             }
             // analysis_evidence não atualiza coluna no usuário
 
@@ -112,10 +119,14 @@ public class UploadController {
      * Content-Type: multipart/form-data
      * Body: files[] (array de arquivos)
      * 
-     * Response: { success: true, imageUrls: ["url1", "url2", ...] }
+     * Response: { success: true, imageUrls: ["url1", "url2", ...],
+     * results: [{ fileName, success, imageUrl | error }, ...] }
+     *
+     * Os arquivos válidos são enviados em paralelo (limite em
+     * upload.batch.parallelism); results traz o resultado de cada arquivo, na
+     * ordem enviada. Sem transação: nada aqui grava no banco.
      */
     @Post(value = "/{id}/upload-assets-batch", consumes = MediaType.MULTIPART_FORM_DATA)
-    @Transactional
     public HttpResponse<?> uploadAssetsBatch(
             @PathVariable Long id,
             @Part("files") List<CompletedFileUpload> files,
@@ -124,7 +135,7 @@ public class UploadController {
 
         try {
             // 1. Validar Permissão
-            if (!usuarioRepository.hasPermission(requesterId, requesterRole, id.toString())) {
+            if (!permissionService.hasPermission(requesterId, requesterRole, id.toString())) {
                 return HttpResponse.status(HttpStatus.FORBIDDEN).body(Map.of("message", "Acesso negado."));
             }
 
@@ -138,29 +149,53 @@ public class UploadController {
                 return HttpResponse.badRequest(Map.of("message", "Máximo de 10 imagens por análise."));
             }
 
-            List<String> uploadedUrls = new ArrayList<>();
-
+            // 4. Validar cada arquivo; os inválidos já entram no resultado
+            List<Map<String, Object>> results = new ArrayList<>();
+            List<CompletedFileUpload> validFiles = new ArrayList<>();
+            List<Integer> validPositions = new ArrayList<>();
             for (CompletedFileUpload file : files) {
+                String error = null;
                 // Validar tamanho (2MB por arquivo)
                 if (file.getSize() > 2 * 1024 * 1024) {
                     LOG.warn("Arquivo {} excede limite de 2MB, ignorando.", file.getFilename());
-                    continue;
+                    error = "O arquivo excede o limite de 2MB.";
+                } else {
+                    // Validar tipo
+                    String contentType = file.getContentType().map(MediaType::toString).orElse("").toLowerCase();
+                    if (!contentType.equals("image/jpeg") && !contentType.equals("image/png")) {
+                        LOG.warn("Arquivo {} não é JPG/PNG, ignorando.", file.getFilename());
+                        error = "Apenas imagens JPG ou PNG são permitidas.";
+                    }
                 }
 
-                // Validar tipo
-                String contentType = file.getContentType().map(MediaType::toString).orElse("").toLowerCase();
-                if (!contentType.equals("image/jpeg") && !contentType.equals("image/png")) {
-                    LOG.warn("Arquivo {} não é JPG/PNG, ignorando.", file.getFilename());
-                    continue;
+                if (error != null) {
+                    results.add(batchResult(file.getFilename(), null, error));
+                } else {
+                    validPositions.add(results.size());
+                    validFiles.add(file);
+                    results.add(null);
                 }
+            }
 
-                // Upload
-                String imageUrl = uploadService.uploadUserAnalysisEvidence(file, id);
-                uploadedUrls.add(imageUrl);
+            // 5. Upload em paralelo
+            List<String> uploadedUrls = new ArrayList<>();
+            if (!validFiles.isEmpty()) {
+                List<UploadService.BatchUploadResult> uploads = uploadService
+                        .uploadUserAnalysisEvidenceBatch(validFiles, id);
+                for (int i = 0; i < uploads.size(); i++) {
+                    UploadService.BatchUploadResult upload = uploads.get(i);
+                    results.set(validPositions.get(i),
+                            batchResult(upload.getFileName(), upload.getImageUrl(), upload.getError()));
+                    if (upload.isSuccess()) {
+                        uploadedUrls.add(upload.getImageUrl());
+                    }
+                }
             }
 
             if (uploadedUrls.isEmpty()) {
-                return HttpResponse.badRequest(Map.of("message", "Nenhum arquivo válido foi enviado."));
+                return HttpResponse.badRequest(Map.of(
+                        "message", "Nenhum arquivo válido foi enviado.",
+                        "results", results));
             }
 
             LOG.info("Upload batch concluído para usuário {}: {} imagens", id, uploadedUrls.size());
@@ -168,12 +203,24 @@ public class UploadController {
             return HttpResponse.ok(Map.of(
                     "success", true,
                     "imageUrls", uploadedUrls,
-                    "imageUrl", uploadedUrls.get(0) // Backward compatibility: primeira imagem
-            ));
+                    "imageUrl", uploadedUrls.get(0), // Backward compatibility: primeira imagem
+                    "results", results));
 
         } catch (Exception e) {
             LOG.error("Erro no upload batch de assets: {}", e.getMessage());
             return HttpResponse.serverError(Map.of("message", "Erro ao realizar upload: " + e.getMessage()));
         }
     }
+
+    private static Map<String, Object> batchResult(String fileName, String imageUrl, String error) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("fileName", fileName);
+        result.put("success", imageUrl != null);
+        if (imageUrl != null) {
+            result.put("imageUrl", imageUrl);
+        } else {
+            result.put("error", error);
+        }
+        return result;
+    }
 }
@@ -1,36 +1,77 @@
 package gcfv2;
 
-import com.google.cloud.storage.BlobId;
-import com.google.cloud.storage.BlobInfo;
-import com.google.cloud.storage.Storage;
-import com.google.cloud.storage.StorageOptions;
+import gcfv2.storage.AssetStorage;
+import gcfv2.storage.ObjectInfo;
+import gcfv2.storage.SignedUpload;
 import io.micronaut.context.annotation.Value;
 import io.micronaut.http.multipart.CompletedFileUpload;
+import jakarta.annotation.PreDestroy;
 import jakarta.inject.Singleton;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
 
 @Singleton
 public class UploadService {
 
     private static final Logger LOG = LoggerFactory.getLogger(UploadService.class);
 
-    @Value("${gcp.storage.bucket:imagem-ai}")
-    private String bucketName;
+    // Folder of direct uploads not finalized yet (client originals)
+    private static final String STAGING_DIR = "staging/";
 
-    private final Storage storage;
+    private final AssetStorage storage;
+    private final ImagePipeline imagePipeline;
+    private final ThreadPoolExecutor batchExecutor;
+    private final long directMaxBytes;
+    private final long directTtlSeconds;
 
-    public UploadService() {
-        // Initializes storage. If running on GCP, it uses Google Credentials
-        // automatically.
-        this.storage = StorageOptions.getDefaultInstance().getService();
+    public UploadService(
+            AssetStorage storage,
+            ImagePipeline imagePipeline,
+            @Value("${upload.batch.parallelism:4}") int batchParallelism,
+            @Value("${upload.batch.queue-capacity:64}") int batchQueueCapacity,
+            @Value("${upload.direct.max-bytes:2097152}") long directMaxBytes,
+            @Value("${upload.direct.ttl-seconds:600}") long directTtlSeconds) {
+        // GCS, local disk or tiered, selected by storage.backend
+        this.storage = storage;
+        this.imagePipeline = imagePipeline;
+        this.directMaxBytes = directMaxBytes;
+        this.directTtlSeconds = directTtlSeconds;
+        AtomicInteger counter = new AtomicInteger();
+        // When the queue is full the request thread uploads the file itself:
+        // the batch degrades to sequential instead of failing
+        this.batchExecutor = new ThreadPoolExecutor(batchParallelism, batchParallelism, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(batchQueueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "upload-batch-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        batchExecutor.shutdown();
     }
 
     /**
-     * Uploads an image to Google Cloud Storage.
+     * Uploads an image to storage.
      * 
      * @param file The file to upload
      * @param type 'avatar' or 'logo'
@@ -38,23 +79,9 @@ public class UploadService {
      * @throws IOException If upload fails
      */
     public String uploadAsset(CompletedFileUpload file, String type) throws IOException {
-        String originalFilename = file.getFilename();
-        String extension = "";
-
-        if (originalFilename != null && originalFilename.contains(".")) {
-            extension = originalFilename.substring(originalFilename.lastIndexOf("."));
-        }
-
-        String fileName = "assets/" + type + "/" + UUID.randomUUID().toString() + extension;
-
-        BlobId blobId = BlobId.of(bucketName, fileName);
-        BlobInfo blobInfo = BlobInfo.newBuilder(blobId)
-                .setContentType(file.getContentType().map(io.micronaut.http.MediaType::toString).orElse("image/jpeg"))
-                .build();
-
-        storage.create(blobInfo, file.getBytes());
+        String fileName = storeImage("assets/" + type + "/" + UUID.randomUUID().toString(), file);
 
-        LOG.info("File uploaded to GCS: {}/{}", bucketName, fileName);
+        LOG.info("File uploaded: {}", fileName);
 
         // Return the API Proxy URL instead of GCS direct URL
         // The frontend will request /api/assets/{fileName}
@@ -63,7 +90,7 @@ public class UploadService {
     }
 
     /**
-     * Uploads an analysis evidence image to Google Cloud Storage.
+     * Uploads an analysis evidence image to storage.
      * Path: uploads/users/{userId}/analysis/{timestamp}_{filename}
      *
      * @param file   The file to upload
@@ -72,34 +99,54 @@ public class UploadService {
      * @throws IOException If upload fails
      */
     public String uploadUserAnalysisEvidence(CompletedFileUpload file, Long userId) throws IOException {
-        String originalFilename = file.getFilename();
-        String extension = "";
-
-        if (originalFilename != null && originalFilename.contains(".")) {
-            extension = originalFilename.substring(originalFilename.lastIndexOf("."));
-        } else {
-            // Default extension if missing
-            extension = ".jpg";
-        }
-
-        String fileName = "uploads/users/" + userId + "/analysis/" + System.currentTimeMillis() + "_"
-                + UUID.randomUUID().toString() + extension;
+        String fileName = storeImage("uploads/users/" + userId + "/analysis/" + System.currentTimeMillis() + "_"
+                + UUID.randomUUID().toString(), file);
 
-        BlobId blobId = BlobId.of(bucketName, fileName);
-        BlobInfo blobInfo = BlobInfo.newBuilder(blobId)
-                .setContentType(file.getContentType().map(io.micronaut.http.MediaType::toString).orElse("image/jpeg"))
-                .build();
-
-        storage.create(blobInfo, file.getBytes());
-
-        LOG.info("Analysis evidence uploaded to GCS: {}/{}", bucketName, fileName);
+        LOG.info("Analysis evidence uploaded: {}", fileName);
 
         // Return the Proxy URL to avoid 403 on Frontend (same as Avatar/Logo)
         return "/api/assets/" + fileName;
     }
 
     /**
-     * Uploads an evolution photo to Google Cloud Storage.
+     * Uploads several analysis evidence images concurrently, at most
+     * upload.batch.parallelism at a time across all requests. Batch latency is
+     * close to the slowest single upload instead of the sum of all of them. A
+     * failed file does not affect the others.
+     *
+     * @param files  The files to upload (already validated)
+     * @param userId The ID of the user owning the analysis
+     * @return One result per file, in the same order as {@code files}
+     */
+    public List<BatchUploadResult> uploadUserAnalysisEvidenceBatch(List<CompletedFileUpload> files, Long userId) {
+        List<CompletableFuture<String>> uploads = new ArrayList<>(files.size());
+        for (CompletedFileUpload file : files) {
+            uploads.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return uploadUserAnalysisEvidence(file, userId);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, batchExecutor));
+        }
+
+        List<BatchUploadResult> results = new ArrayList<>(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            String fileName = files.get(i).getFilename();
+            try {
+                results.add(new BatchUploadResult(fileName, uploads.get(i).join(), null));
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                LOG.warn("Batch upload of {} failed: {}", fileName, cause.getMessage());
+                results.add(new BatchUploadResult(fileName, null,
+                        cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName()));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Uploads an evolution photo to storage.
      * Path: uploads/users/{userId}/evolution/{category}/{timestamp}_{filename}
      *
      * @param file     The file to upload
@@ -109,38 +156,268 @@ public class UploadService {
      * @throws IOException If upload fails
      */
     public String uploadEvolutionPhoto(CompletedFileUpload file, Long userId, String category) throws IOException {
-        String originalFilename = file.getFilename();
-        String extension = "";
+        String fileName = storeImage(evolutionPhotoPrefix(userId, category) + System.currentTimeMillis() + "_"
+                + UUID.randomUUID().toString(), file);
+
+        LOG.info("Evolution photo uploaded: {}", fileName);
+
+        return "/api/assets/" + fileName;
+    }
 
-        if (originalFilename != null && originalFilename.contains(".")) {
-            extension = originalFilename.substring(originalFilename.lastIndexOf("."));
-        } else {
-            extension = ".jpg";
+    /**
+     * Signs a direct-to-bucket upload of an evolution photo, so the client
+     * sends the photo bytes straight to the bucket. The object name is chosen
+     * here, under the category's {@value #STAGING_DIR} folder: staging objects
+     * are never served (see {@link #isStagingObject}) and only become a photo
+     * through {@link #finalizeEvolutionPhotoUpload}. The signed policy pins
+     * the name, the content type and upload.direct.max-bytes.
+     *
+     * @param userId      The ID of the user
+     * @param category    The category (FRONT, BACK, LEFT, RIGHT)
+     * @param contentType image/jpeg or image/png
+     * @return The signed upload, or empty if the storage backend does not
+     *         support direct uploads (local disk)
+     */
+    public Optional<SignedUpload> prepareEvolutionPhotoUpload(Long userId, String category, String contentType) {
+        String extension = "image/png".equals(contentType) ? ".png" : ".jpg";
+        String fileName = evolutionPhotoPrefix(userId, category) + STAGING_DIR + System.currentTimeMillis() + "_"
+                + UUID.randomUUID().toString() + extension;
+        return storage.signUpload(fileName, contentType, directMaxBytes, directTtlSeconds);
+    }
+
+    /**
+     * Turns a direct upload signed by {@link #prepareEvolutionPhotoUpload}
+     * into an evolution photo. The staging object must be under the user's
+     * folder for the category and within the size and type limits. It is
+     * read once and stored like a multipart upload (re-encoded without
+     * EXIF/GPS, with variants) under its final name: the staging name without
+     * the {@value #STAGING_DIR} folder. The staging object is then deleted,
+     * so the returned URL only ever serves the cleaned image.
+     *
+     * @param userId     The ID of the user
+     * @param category   The category (FRONT, BACK, LEFT, RIGHT)
+     * @param objectName The object name returned when the upload was signed
+     * @return The proxy URL of the stored image
+     * @throws IllegalArgumentException If the object is missing, invalid or
+     *                                  not a JPG/PNG image
+     * @throws IllegalStateException    If the upload was already finalized
+     */
+    public String finalizeEvolutionPhotoUpload(Long userId, String category, String objectName) {
+        String prefix = evolutionPhotoPrefix(userId, category) + STAGING_DIR;
+        if (objectName == null || !objectName.startsWith(prefix) || objectName.contains("..")
+                || objectName.indexOf('/', prefix.length()) >= 0) {
+            throw new IllegalArgumentException("Invalid object name for this user and category.");
+        }
+        String stem = stemOf(evolutionPhotoPrefix(userId, category) + objectName.substring(prefix.length()));
+        if (storage.stat(stem + ".jpg") != null || storage.stat(stem + ".png") != null) {
+            throw new IllegalStateException("Upload already finalized.");
         }
 
-        String fileName = "uploads/users/" + userId + "/evolution/" + category.toLowerCase() + "/"
-                + System.currentTimeMillis() + "_" + UUID.randomUUID().toString() + extension;
+        ObjectInfo info = storage.stat(objectName);
+        if (info == null) {
+            throw new IllegalArgumentException("Upload not found. Send the file before confirming.");
+        }
+        try {
+            String contentType = info.getContentType() != null ? info.getContentType().toLowerCase() : "";
+            if (info.getSize() > directMaxBytes
+                    || (!contentType.equals("image/jpeg") && !contentType.equals("image/png"))) {
+                throw new IllegalArgumentException("Uploaded file exceeds the size limit or is not a JPG/PNG image.");
+            }
+            String fileName;
+            try {
+                fileName = storeImage(stem, storage.read(info));
+            } catch (IOException e) {
+                throw new IllegalArgumentException(e.getMessage(), e);
+            }
+            LOG.info("Evolution photo uploaded directly: {} -> {}", objectName, fileName);
+            return "/api/assets/" + fileName;
+        } finally {
+            // Valid or not, the client original (with its metadata) is not kept
+            storage.deletePrefix(objectName, 1);
+        }
+    }
 
-        BlobId blobId = BlobId.of(bucketName, fileName);
-        BlobInfo blobInfo = BlobInfo.newBuilder(blobId)
-                .setContentType(file.getContentType().map(io.micronaut.http.MediaType::toString).orElse("image/jpeg"))
-                .build();
+    /**
+     * Whether the object is a direct upload that was not finalized yet.
+     * These objects still hold the client original and are never served.
+     */
+    public static boolean isStagingObject(String objectName) {
+        return objectName.startsWith("uploads/users/") && objectName.contains("/evolution/")
+                && objectName.contains("/" + STAGING_DIR);
+    }
 
-        storage.create(blobInfo, file.getBytes());
+    private static String stemOf(String objectName) {
+        int slash = objectName.lastIndexOf('/');
+        int dot = objectName.lastIndexOf('.');
+        return dot > slash ? objectName.substring(0, dot) : objectName;
+    }
 
-        LOG.info("Evolution photo uploaded to GCS: {}/{}", bucketName, fileName);
+    /**
+     * Maximum size of a direct upload (upload.direct.max-bytes).
+     */
+    public long getDirectUploadMaxBytes() {
+        return directMaxBytes;
+    }
 
-        return "/api/assets/" + fileName;
+    private static String evolutionPhotoPrefix(Long userId, String category) {
+        return "uploads/users/" + userId + "/evolution/" + category.toLowerCase() + "/";
     }
 
     /**
-     * Downloads an asset from Google Cloud Storage.
-     * 
-     * @param fileName The path/name of the file in the bucket
-     * @return The file bytes
+     * Stores an uploaded image. The image is re-encoded without metadata and
+     * stored as three variants: {@code {stem}.jpg} (full, also the returned
+     * name), {@code {stem}.medium.jpg} and {@code {stem}.thumb.jpg} (see
+     * {@link ImagePipeline#variantPath}). Images the pipeline cannot process
+     * (pipeline saturated or timed out, undecodable) are stored as a single
+     * object with their metadata segments removed; anything that is not a
+     * JPEG or PNG at that point is rejected.
+     *
+     * @param stem Object name without extension (the extension follows the
+     *             stored format)
+     * @param file The uploaded file
+     * @return The object name of the full-size image
+     * @throws IOException If the upload cannot be read or is not a valid image
      */
-    public byte[] downloadAsset(String fileName) {
-        BlobId blobId = BlobId.of(bucketName, fileName);
-        return storage.readAllBytes(blobId);
+    private String storeImage(String stem, CompletedFileUpload file) throws IOException {
+        return storeImage(stem, file.getBytes());
+    }
+
+    private String storeImage(String stem, byte[] original) throws IOException {
+        ImagePipeline.Result processed = imagePipeline.process(original);
+
+        if (processed == null) {
+            // Never store EXIF/GPS, even without the re-encode
+            byte[] stripped = ImagePipeline.stripMetadata(original);
+            if (stripped == null) {
+                throw new IOException("The file is not a valid JPG/PNG image.");
+            }
+            String format = ImagePipeline.detectFormat(stripped);
+            String fileName = stem + ("png".equals(format) ? ".png" : ".jpg");
+            storage.write(fileName, stripped, "image/" + format);
+            LOG.info("Image stored without variants: {} (metadata stripped, {} -> {} bytes)", fileName,
+                    original.length, stripped.length);
+            return fileName;
+        }
+
+        String fileName = stem + processed.getExtension();
+        // Smaller variants first: once the full-size object exists, its
+        // variants exist too
+        for (ImagePipeline.Variant variant : new ImagePipeline.Variant[] {
+                ImagePipeline.Variant.THUMB, ImagePipeline.Variant.MEDIUM, ImagePipeline.Variant.FULL }) {
+            storage.write(ImagePipeline.variantPath(fileName, variant), processed.get(variant),
+                    processed.getContentType());
+        }
+        LOG.info("Image stored as variants: {} ({} -> {} bytes)", fileName, original.length,
+                processed.get(ImagePipeline.Variant.FULL).length);
+        return fileName;
+    }
+
+    /**
+     * Reads an object's metadata (size, content type, ETag, update time,
+     * generation) without downloading its content.
+     *
+     * @param objectName The path/name of the object in the bucket
+     * @return The metadata, or null if the object does not exist
+     */
+    public ObjectInfo statObject(String objectName) {
+        return storage.stat(objectName);
+    }
+
+    /**
+     * Opens a stream over a byte range of an object. The read is pinned to the
+     * generation in {@code info}, so the bytes always match the metadata even
+     * if the object is overwritten meanwhile.
+     *
+     * @param info   Metadata returned by {@link #statObject(String)}
+     * @param offset First byte to read
+     * @param length Number of bytes to read
+     * @return A stream that fetches the range in chunks as it is read
+     */
+    public InputStream openObject(ObjectInfo info, long offset, long length) throws IOException {
+        return storage.open(info, offset, length);
+    }
+
+    /**
+     * Local file holding the object's content, when the storage backend has
+     * one (local or tiered). Lets the response be sent straight from the file
+     * (zero-copy) instead of through the heap.
+     *
+     * @param info Metadata returned by {@link #statObject(String)}
+     * @return The file, or empty if the object is only available remotely
+     */
+    public Optional<Path> localFile(ObjectInfo info) {
+        return storage.localPath(info);
+    }
+
+    /**
+     * Downloads the whole object at the generation described by {@code info}.
+     *
+     * @param info Metadata returned by {@link #statObject(String)}
+     * @return The object bytes
+     */
+    public byte[] readObject(ObjectInfo info) {
+        return storage.read(info);
+    }
+
+    /**
+     * Reads a whole object, returning null when it does not exist.
+     *
+     * @param objectName The path/name of the object in the bucket
+     * @return The object bytes, or null if absent
+     */
+    public byte[] readObjectIfExists(String objectName) {
+        ObjectInfo info = storage.stat(objectName);
+        return info != null ? storage.read(info) : null;
+    }
+
+    /**
+     * Writes (or overwrites) an object at a fixed path.
+     *
+     * @param objectName  The path/name of the object in the bucket
+     * @param content     The object bytes
+     * @param contentType The MIME type stored with the object
+     */
+    public void writeObject(String objectName, byte[] content, String contentType) {
+        storage.write(objectName, content, contentType);
+    }
+
+    /**
+     * Deletes every object stored under uploads/users/{userId}/ (analysis
+     * evidence, evolution photos). On GCS, objects are listed and deleted one
+     * page at a time, using batch deletes.
+     *
+     * @param userId   The ID of the user being deleted
+     * @param pageSize Number of objects listed/deleted per batch
+     * @param onPage   Called with the number of objects deleted after each
+     *                 page (progress heartbeat for long purges)
+     * @return The number of deleted objects
+     */
+    public int deleteUserObjects(Long userId, int pageSize, IntConsumer onPage) {
+        String prefix = "uploads/users/" + userId + "/";
+        int deleted = storage.deletePrefix(prefix, pageSize, onPage);
+
+        LOG.info("Deleted {} objects under {}", deleted, prefix);
+        return deleted;
+    }
+
+    /**
+     * Outcome of one file in a batch upload: the proxy URL on success, the
+     * error message otherwise.
+     */
+    public static final class BatchUploadResult {
+        private final String fileName;
+        private final String imageUrl;
+        private final String error;
+
+        public BatchUploadResult(String fileName, String imageUrl, String error) {
+            this.fileName = fileName;
+            this.imageUrl = imageUrl;
+            this.error = error;
+        }
+
+        public boolean isSuccess() { return imageUrl != null; }
+        public String getFileName() { return fileName; }
+        public String getImageUrl() { return imageUrl; }
+        public String getError() { return error; }
     }
 }
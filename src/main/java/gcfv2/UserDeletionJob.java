@@ -0,0 +1,156 @@
+package gcfv2;
+
+import io.micronaut.data.annotation.Id;
+import io.micronaut.data.annotation.GeneratedValue;
+import io.micronaut.data.annotation.MappedEntity;
+import io.micronaut.data.annotation.MappedProperty;
+import io.micronaut.serde.annotation.Serdeable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Exclusão de conta em andamento. Processada em lotes pelo
+ * UserDeletionService; o progresso é consultado pelo id do job.
+ */
+@Serdeable
+@MappedEntity("user_deletion_jobs")
+public class UserDeletionJob {
+
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_FAILED = "FAILED";
+
+    @Id
+    @GeneratedValue(GeneratedValue.Type.AUTO)
+    private Long id;
+
+    @MappedProperty("user_id")
+    private Long userId;
+
+    @MappedProperty("requested_by")
+    private Long requestedBy;
+
+    private String status;
+
+    @MappedProperty("current_step")
+    private String currentStep;
+
+    @MappedProperty("rows_deleted")
+    private Long rowsDeleted = 0L;
+
+    @MappedProperty("objects_deleted")
+    private Integer objectsDeleted = 0;
+
+    @MappedProperty("error_message")
+    private String errorMessage;
+
+    @MappedProperty("created_at")
+    private LocalDateTime createdAt;
+
+    @MappedProperty("updated_at")
+    private LocalDateTime updatedAt;
+
+    @MappedProperty("completed_at")
+    private LocalDateTime completedAt;
+
+    public UserDeletionJob() {
+    }
+
+    public UserDeletionJob(Long userId, Long requestedBy) {
+        this.userId = userId;
+        this.requestedBy = requestedBy;
+        this.status = STATUS_PENDING;
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = this.createdAt;
+    }
+
+    // Getters e Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getRequestedBy() {
+        return requestedBy;
+    }
+
+    public void setRequestedBy(Long requestedBy) {
+        this.requestedBy = requestedBy;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getCurrentStep() {
+        return currentStep;
+    }
+
+    public void setCurrentStep(String currentStep) {
+        this.currentStep = currentStep;
+    }
+
+    public Long getRowsDeleted() {
+        return rowsDeleted;
+    }
+
+    public void setRowsDeleted(Long rowsDeleted) {
+        this.rowsDeleted = rowsDeleted;
+    }
+
+    public Integer getObjectsDeleted() {
+        return objectsDeleted;
+    }
+
+    public void setObjectsDeleted(Integer objectsDeleted) {
+        this.objectsDeleted = objectsDeleted;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(LocalDateTime completedAt) {
+        this.completedAt = completedAt;
+    }
+}
@@ -0,0 +1,140 @@
+package gcfv2;
+
+import io.micronaut.data.annotation.Query;
+import io.micronaut.data.jdbc.annotation.JdbcRepository;
+import io.micronaut.data.model.query.builder.sql.Dialect;
+import io.micronaut.data.repository.CrudRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@JdbcRepository(dialect = Dialect.MYSQL)
+public interface UserDeletionJobRepository extends CrudRepository<UserDeletionJob, Long> {
+
+    /**
+     * Job ainda em aberto (PENDING/RUNNING) para o usuário, se houver
+     */
+    @Query("SELECT * FROM user_deletion_jobs WHERE user_id = :userId " +
+            "AND status IN ('PENDING', 'RUNNING') ORDER BY id LIMIT 1")
+    Optional<UserDeletionJob> findOpenJobByUserId(Long userId);
+
+    @Query("SELECT * FROM user_deletion_jobs WHERE status = 'PENDING' ORDER BY id LIMIT :limit")
+    List<UserDeletionJob> findPending(int limit);
+
+    /**
+     * Reivindica o job (PENDING → RUNNING). Retorna 0 se outra instância já
+     * pegou.
+     */
+    @Query("UPDATE user_deletion_jobs SET status = 'RUNNING', updated_at = :now " +
+            "WHERE id = :id AND status = 'PENDING'")
+    int claim(Long id, LocalDateTime now);
+
+    /**
+     * Jobs RUNNING sem progresso há muito tempo (instância reiniciada no meio)
+     * voltam para a fila. As etapas são idempotentes.
+     */
+    @Query("UPDATE user_deletion_jobs SET status = 'PENDING' " +
+            "WHERE status = 'RUNNING' AND updated_at < :staleBefore")
+    int requeueStale(LocalDateTime staleBefore);
+
+    @Query("UPDATE user_deletion_jobs SET current_step = :step, rows_deleted = :rowsDeleted, " +
+            "objects_deleted = :objectsDeleted, updated_at = :now WHERE id = :id")
+    void updateProgress(Long id, String step, long rowsDeleted, int objectsDeleted, LocalDateTime now);
+
+    @Query("UPDATE user_deletion_jobs SET status = :status, error_message = :errorMessage, " +
+            "updated_at = :now, completed_at = :now WHERE id = :id")
+    void finish(Long id, String status, String errorMessage, LocalDateTime now);
+
+    // === Exclusão em lotes (DELETE ... LIMIT): cada lote é uma instrução curta,
+    // sem segurar locks de linha durante a exclusão inteira ===
+
+    // Exercícios executados (filhos de workout_executions)
+    @Query("DELETE FROM exercise_executions WHERE workout_execution_id IN " +
+            "(SELECT id FROM workout_executions WHERE user_id = :userId) LIMIT :limit")
+    int purgeExerciseExecutions(Long userId, int limit);
+
+    // Execuções de treino
+    @Query("DELETE FROM workout_executions WHERE user_id = :userId LIMIT :limit")
+    int purgeWorkoutExecutions(Long userId, int limit);
+
+    // Planos de treino estruturados
+    @Query("DELETE FROM structured_workout_plans WHERE user_id = :userId LIMIT :limit")
+    int purgeStructuredWorkoutPlans(Long userId, int limit);
+
+    // Treinos V1
+    @Query("DELETE FROM treinos WHERE user_id = :userId LIMIT :limit")
+    int purgeTreinos(String userId, int limit);
+
+    // Dietas V1
+    @Query("DELETE FROM dietas WHERE user_id = :userId LIMIT :limit")
+    int purgeDietas(String userId, int limit);
+
+    // Treinos V2
+    @Query("DELETE FROM structured_trainings WHERE user_id = :userId LIMIT :limit")
+    int purgeStructuredTrainings(String userId, int limit);
+
+    // Dietas V2
+    @Query("DELETE FROM structured_diets WHERE user_id = :userId LIMIT :limit")
+    int purgeStructuredDiets(String userId, int limit);
+
+    // Checkins
+    @Query("DELETE FROM checkins WHERE user_id = :userId LIMIT :limit")
+    int purgeCheckins(String userId, int limit);
+
+    // Histórico de evolução
+    @Query("DELETE FROM historico WHERE user_id = :userId LIMIT :limit")
+    int purgeHistorico(String userId, int limit);
+
+    // Fotos de evolução (registros; arquivos saem do GCS)
+    @Query("DELETE FROM foto_evolucao WHERE user_id = :userId LIMIT :limit")
+    int purgeFotosEvolucao(Long userId, int limit);
+
+    // Notificações geradas pelo aluno
+    @Query("DELETE FROM notifications WHERE student_id = :userId LIMIT :limit")
+    int purgeNotificationsAsStudent(Long userId, int limit);
+
+    // Notificações recebidas
+    @Query("DELETE FROM notifications WHERE recipient_id = :userId LIMIT :limit")
+    int purgeNotificationsAsRecipient(Long userId, int limit);
+
+    // Conquistas
+    @Query("DELETE FROM user_achievement WHERE user_id = :userId LIMIT :limit")
+    int purgeUserAchievements(Long userId, int limit);
+
+    // Reservas em aulas em grupo
+    @Query("DELETE FROM class_bookings WHERE student_id = :userId LIMIT :limit")
+    int purgeClassBookings(Long userId, int limit);
+
+    // Histórico de consumo de créditos
+    @Query("DELETE FROM credit_consumption_history WHERE user_id = :userId LIMIT :limit")
+    int purgeCreditHistory(Long userId, int limit);
+
+    // Totais mensais de consumo
+    @Query("DELETE FROM credit_usage_monthly WHERE user_id = :userId LIMIT :limit")
+    int purgeCreditUsageMonthly(Long userId, int limit);
+
+    // Reservas de crédito (alvo)
+    @Query("DELETE FROM credit_reservations WHERE user_id = :userId LIMIT :limit")
+    int purgeCreditReservationsAsUser(Long userId, int limit);
+
+    // Reservas de crédito (dono)
+    @Query("DELETE FROM credit_reservations WHERE owner_id = :userId LIMIT :limit")
+    int purgeCreditReservationsAsOwner(Long userId, int limit);
+
+    // Exercícios do usuário
+    @Query("DELETE FROM usuario_exercicios WHERE usuario_id = :userId LIMIT :limit")
+    int purgeUsuarioExercicios(Long userId, int limit);
+
+    // Transações de pagamento
+    @Query("DELETE FROM payment_transactions WHERE user_id = :userId LIMIT :limit")
+    int purgePaymentTransactions(Long userId, int limit);
+
+    // Tokens de reset de senha
+    @Query("DELETE FROM password_reset_token WHERE user_id = :userId LIMIT :limit")
+    int purgePasswordResetTokens(Long userId, int limit);
+
+    // Histórico de assinaturas
+    @Query("DELETE FROM subscription_history WHERE user_id = :userId LIMIT :limit")
+    int purgeSubscriptionHistory(Long userId, int limit);
+}
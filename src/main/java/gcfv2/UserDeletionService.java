@@ -0,0 +1,216 @@
+package gcfv2;
+
+import io.micronaut.context.annotation.Value;
+import io.micronaut.scheduling.TaskExecutors;
+import io.micronaut.scheduling.annotation.Scheduled;
+import jakarta.inject.Named;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+
+/**
+ * Exclusão de conta (LGPD) em background.
+ *
+ * O request apenas registra um job (user_deletion_jobs). Um worker processa os
+ * jobs em sequência: cada tabela filha é limpa em lotes (DELETE ... LIMIT),
+ * cada lote em sua própria instrução, sem uma transação longa segurando locks.
+ * Em seguida remove os arquivos do usuário no GCS e, por fim, a linha do
+ * usuário. O progresso fica no próprio job.
+ *
+ * Todas as etapas são idempotentes: um job interrompido (ex.: restart) volta
+ * para a fila e recomeça do início sem efeito colateral. O progresso é gravado
+ * a cada lote (inclusive na remoção dos arquivos), e é essa gravação que
+ * mantém o job fora do requeueStale enquanto ele avança.
+ */
+@Singleton
+public class UserDeletionService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UserDeletionService.class);
+
+    private static final int STALE_MINUTES = 10;
+
+    private final UserDeletionJobRepository jobRepository;
+    private final UsuarioRepository usuarioRepository;
+    private final UploadService uploadService;
+    private final PermissionService permissionService;
+    private final AccountSnapshotService accountSnapshotService;
+    private final ExecutorService ioExecutor;
+    private final int batchSize;
+
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    public UserDeletionService(
+            UserDeletionJobRepository jobRepository,
+            UsuarioRepository usuarioRepository,
+            UploadService uploadService,
+            PermissionService permissionService,
+            AccountSnapshotService accountSnapshotService,
+            @Named(TaskExecutors.IO) ExecutorService ioExecutor,
+            @Value("${user-deletion.batch-size:500}") int batchSize) {
+        this.jobRepository = jobRepository;
+        this.usuarioRepository = usuarioRepository;
+        this.uploadService = uploadService;
+        this.permissionService = permissionService;
+        this.accountSnapshotService = accountSnapshotService;
+        this.ioExecutor = ioExecutor;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Agenda a exclusão do usuário. Se já houver um job em aberto para ele,
+     * retorna o existente.
+     */
+    public UserDeletionJob enqueue(Long userId, Long requestedBy) {
+        Optional<UserDeletionJob> open = jobRepository.findOpenJobByUserId(userId);
+        if (open.isPresent()) {
+            return open.get();
+        }
+        UserDeletionJob job = jobRepository.save(new UserDeletionJob(userId, requestedBy));
+        LOG.info("Exclusão do usuário {} agendada (job {}, solicitada por {})", userId, job.getId(), requestedBy);
+        kick();
+        return job;
+    }
+
+    public Optional<UserDeletionJob> findJob(Long jobId) {
+        return jobRepository.findById(jobId);
+    }
+
+    /**
+     * Rede de segurança: reenfileira jobs parados e processa pendentes que não
+     * foram disparados pelo enqueue (ex.: criados por outra instância).
+     */
+    @Scheduled(fixedDelay = "1m", initialDelay = "30s")
+    public void processPendingJobs() {
+        try {
+            int requeued = jobRepository.requeueStale(LocalDateTime.now().minusMinutes(STALE_MINUTES));
+            if (requeued > 0) {
+                LOG.warn("{} job(s) de exclusão parados voltaram para a fila", requeued);
+            }
+        } catch (Exception e) {
+            LOG.error("Erro ao reenfileirar jobs de exclusão", e);
+        }
+        kick();
+    }
+
+    private void kick() {
+        if (draining.compareAndSet(false, true)) {
+            ioExecutor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        try {
+            List<UserDeletionJob> pending;
+            while (!(pending = jobRepository.findPending(1)).isEmpty()) {
+                UserDeletionJob job = pending.get(0);
+                if (jobRepository.claim(job.getId(), LocalDateTime.now()) == 1) {
+                    run(job);
+                }
+            }
+        } catch (Exception e) {
+            LOG.error("Erro ao processar fila de exclusão de usuários", e);
+        } finally {
+            draining.set(false);
+        }
+    }
+
+    private void run(UserDeletionJob job) {
+        Long userId = job.getUserId();
+        String userIdStr = String.valueOf(userId);
+        Progress progress = new Progress(job.getId());
+
+        try {
+            // Ordem: filhos antes dos pais (exercise_executions → workout_executions
+            // → structured_workout_plans)
+            purge(progress, "exercise_executions", userId, jobRepository::purgeExerciseExecutions);
+            purge(progress, "workout_executions", userId, jobRepository::purgeWorkoutExecutions);
+            purge(progress, "structured_workout_plans", userId, jobRepository::purgeStructuredWorkoutPlans);
+            purge(progress, "treinos", userIdStr, jobRepository::purgeTreinos);
+            purge(progress, "dietas", userIdStr, jobRepository::purgeDietas);
+            purge(progress, "structured_trainings", userIdStr, jobRepository::purgeStructuredTrainings);
+            purge(progress, "structured_diets", userIdStr, jobRepository::purgeStructuredDiets);
+            purge(progress, "checkins", userIdStr, jobRepository::purgeCheckins);
+            purge(progress, "historico", userIdStr, jobRepository::purgeHistorico);
+            purge(progress, "foto_evolucao", userId, jobRepository::purgeFotosEvolucao);
+            purge(progress, "notifications", userId, jobRepository::purgeNotificationsAsStudent);
+            purge(progress, "notifications", userId, jobRepository::purgeNotificationsAsRecipient);
+            purge(progress, "user_achievement", userId, jobRepository::purgeUserAchievements);
+            purge(progress, "class_bookings", userId, jobRepository::purgeClassBookings);
+            purge(progress, "credit_consumption_history", userId, jobRepository::purgeCreditHistory);
+            purge(progress, "credit_usage_monthly", userId, jobRepository::purgeCreditUsageMonthly);
+            purge(progress, "credit_reservations", userId, jobRepository::purgeCreditReservationsAsUser);
+            purge(progress, "credit_reservations", userId, jobRepository::purgeCreditReservationsAsOwner);
+            purge(progress, "usuario_exercicios", userId, jobRepository::purgeUsuarioExercicios);
+            purge(progress, "payment_transactions", userId, jobRepository::purgePaymentTransactions);
+            purge(progress, "password_reset_token", userId, jobRepository::purgePasswordResetTokens);
+            purge(progress, "subscription_history", userId, jobRepository::purgeSubscriptionHistory);
+
+            // Arquivos no GCS (uploads/users/{id}/). O progresso é gravado a cada
+            // página: além do contador, renova updated_at, para que uma remoção
+            // longa não seja tomada como parada pelo requeueStale
+            progress.step("gcs_objects");
+            progress.save();
+            uploadService.deleteUserObjects(userId, batchSize, deleted -> {
+                progress.objectsDeleted += deleted;
+                progress.save();
+            });
+
+            // Por fim, o próprio usuário
+            progress.step("usuario");
+            usuarioRepository.deleteById(userId);
+            progress.rowsDeleted++;
+            progress.save();
+
+            permissionService.invalidateUser(userId);
+            accountSnapshotService.invalidate(userId);
+
+            jobRepository.finish(job.getId(), UserDeletionJob.STATUS_COMPLETED, null, LocalDateTime.now());
+            LOG.info("Usuário {} excluído (job {}): {} linhas, {} arquivos", userId, job.getId(),
+                    progress.rowsDeleted, progress.objectsDeleted);
+        } catch (Exception e) {
+            LOG.error("Falha na exclusão do usuário {} (job {}, etapa {})", userId, job.getId(), progress.step, e);
+            String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            jobRepository.finish(job.getId(), UserDeletionJob.STATUS_FAILED,
+                    message.length() > 1000 ? message.substring(0, 1000) : message, LocalDateTime.now());
+        }
+    }
+
+    /**
+     * Apaga em lotes até que um lote venha incompleto.
+     */
+    private <K> void purge(Progress progress, String step, K userId, BiFunction<K, Integer, Integer> deleteBatch) {
+        progress.step(step);
+        int deleted;
+        do {
+            deleted = deleteBatch.apply(userId, batchSize);
+            progress.rowsDeleted += deleted;
+            progress.save();
+        } while (deleted >= batchSize);
+    }
+
+    private final class Progress {
+        private final Long jobId;
+        private String step;
+        private long rowsDeleted;
+        private int objectsDeleted;
+
+        private Progress(Long jobId) {
+            this.jobId = jobId;
+        }
+
+        private void step(String step) {
+            this.step = step;
+        }
+
+        private void save() {
+            jobRepository.updateProgress(jobId, step, rowsDeleted, objectsDeleted, LocalDateTime.now());
+        }
+    }
+}
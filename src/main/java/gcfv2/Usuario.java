@@ -6,6 +6,7 @@ import io.micronaut.data.annotation.MappedEntity;
 import io.micronaut.data.annotation.MappedProperty;
 import io.micronaut.data.annotation.Transient;
 import io.micronaut.serde.annotation.Serdeable; // IMPORTANTE: Adicione este import
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 @Serdeable
 @MappedEntity("usuario")
@@ -57,8 +58,10 @@ public class Usuario {
     @Transient
     private Object latestWorkout;
 
-    @MappedProperty(converter = gcfv2.converter.AnamnesisConverter.class)
-    private gcfv2.dto.anamnese.AnamnesisDTO anamnesis;
+    // Coluna JSON "anamnesis", decodificada apenas no primeiro getAnamnesis()
+    @JsonIgnore
+    @MappedProperty(value = "anamnesis", converter = gcfv2.converter.AnamnesisConverter.class)
+    private gcfv2.converter.LazyAnamnesis anamnesisData;
 
     @MappedProperty("primary_color")
     private String primaryColor;
@@ -320,12 +323,21 @@ public class Usuario {
         return sub + pur;
     }
 
+    public gcfv2.converter.LazyAnamnesis getAnamnesisData() {
+        return anamnesisData;
+    }
+
+    public void setAnamnesisData(gcfv2.converter.LazyAnamnesis anamnesisData) {
+        this.anamnesisData = anamnesisData;
+    }
+
+    @Transient
     public gcfv2.dto.anamnese.AnamnesisDTO getAnamnesis() {
-        return anamnesis;
+        return anamnesisData != null ? anamnesisData.get() : null;
     }
 
     public void setAnamnesis(gcfv2.dto.anamnese.AnamnesisDTO anamnesis) {
-        this.anamnesis = anamnesis;
+        this.anamnesisData = anamnesis != null ? gcfv2.converter.LazyAnamnesis.of(anamnesis) : null;
     }
 
     @MappedProperty("methodology")
@@ -1,5 +1,6 @@
 package gcfv2;
 
+import io.micronaut.data.annotation.Query;
 import io.micronaut.data.jdbc.annotation.JdbcRepository;
 import io.micronaut.data.model.query.builder.sql.Dialect;
 import io.micronaut.data.repository.CrudRepository;
@@ -11,4 +12,14 @@ public interface UsuarioExercicioRepository extends CrudRepository<UsuarioExerci
     List<UsuarioExercicio> findByUsuario(Usuario usuario);
 
     void deleteByUsuario(Usuario usuario);
+
+    /**
+     * Vincula todo o catálogo ativo ao usuário numa única instrução
+     * (INSERT ... SELECT), sem carregar o catálogo na aplicação.
+     * Nomes repetidos no catálogo são vinculados uma única vez.
+     */
+    @Query("INSERT INTO usuario_exercicios (usuario_id, exercicio) " +
+            "SELECT DISTINCT :usuarioId, e.name FROM exercises e " +
+            "WHERE e.active = true AND e.name IS NOT NULL")
+    int provisionActiveCatalog(Long usuarioId);
 }
\ No newline at end of file
@@ -1,9 +1,15 @@
 package gcfv2;
 
+import gcfv2.dto.AccountSnapshot;
+import gcfv2.dto.ProfessorStudentCountDTO;
+import gcfv2.dto.RecipientRef;
+import gcfv2.dto.UsuarioSummary;
+import gcfv2.permission.OwnershipNode;
 import io.micronaut.data.annotation.Query;
 import io.micronaut.data.jdbc.annotation.JdbcRepository;
 import io.micronaut.data.model.query.builder.sql.Dialect;
 import io.micronaut.data.repository.CrudRepository;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -56,12 +62,89 @@ public interface UsuarioRepository extends CrudRepository<Usuario, Long> {
     @Query("SELECT COUNT(*) FROM usuario WHERE personal_id = :professorId AND role = 'user'")
     long countStudentsByProfessorId(Long professorId);
 
+    /**
+     * Quantidade de alunos de cada professor da lista, numa única query.
+     * Professores sem alunos não aparecem.
+     */
+    @Query("SELECT personal_id AS professor_id, COUNT(*) AS count FROM usuario " +
+            "WHERE personal_id IN (:professorIds) AND role = 'user' GROUP BY personal_id")
+    List<ProfessorStudentCountDTO> countStudentsByProfessorIds(List<Long> professorIds);
+
     /**
      * Buscar todos os professores com role = 'professor' de um manager
      */
     @Query("SELECT * FROM usuario WHERE manager_id = :managerId AND role = 'professor'")
     List<Usuario> findProfessorsByManagerId(Long managerId);
 
+    /**
+     * Lista numa única query todos os alunos visíveis para um professor:
+     * alunos diretos do seu manager + alunos de todos os professores do manager.
+     * Professor sem manager enxerga apenas os próprios alunos.
+     *
+     * Paginação por keyset: passe o último id recebido em afterId (0 na primeira
+     * página).
+     */
+    @Query("SELECT u.id, u.nome, u.email, u.avatar, u.role, u.telefone, u.personal_id, u.manager_id, " +
+            "u.access_level, u.credits, u.plan_type, u.subscription_status, u.weekly_goal, u.evo_member_id " +
+            "FROM usuario u " +
+            "JOIN usuario r ON r.id = :professorId " +
+            "WHERE ((r.manager_id IS NULL AND u.personal_id = r.id) " +
+            "OR (r.manager_id IS NOT NULL AND (u.personal_id = r.manager_id " +
+            "OR u.personal_id IN (SELECT p.id FROM usuario p WHERE p.manager_id = r.manager_id AND p.role = 'professor')))) " +
+            "AND u.id > :afterId " +
+            "ORDER BY u.id LIMIT :limit")
+    List<UsuarioSummary> findEcosystemStudents(Long professorId, Long afterId, int limit);
+
+    /**
+     * Página (keyset) da projeção leve de todos os usuários, ordenada por id.
+     * Usada para listagens/streaming administrativos sem carregar entidades
+     * completas.
+     */
+    @Query("SELECT id, nome, email, avatar, role, telefone, personal_id, manager_id, " +
+            "access_level, credits, plan_type, subscription_status, weekly_goal, evo_member_id " +
+            "FROM usuario WHERE id > :afterId ORDER BY id LIMIT :limit")
+    List<UsuarioSummary> findSummariesAfter(Long afterId, int limit);
+
+    /**
+     * Página (keyset) de destinatários de broadcast: só id e e-mail, sem
+     * carregar entidades nem a projeção de listagem.
+     */
+    @Query("SELECT id, email FROM usuario WHERE id > :afterId AND email IS NOT NULL AND email <> '' " +
+            "ORDER BY id LIMIT :limit")
+    List<RecipientRef> findRecipientsAfter(Long afterId, int limit);
+
+    @Query("SELECT id, email FROM usuario WHERE role IN (:roles) AND id > :afterId " +
+            "AND email IS NOT NULL AND email <> '' ORDER BY id LIMIT :limit")
+    List<RecipientRef> findRecipientsByRolesAfter(List<String> roles, Long afterId, int limit);
+
+    @Query("SELECT COUNT(*) FROM usuario WHERE email IS NOT NULL AND email <> ''")
+    long countWithEmail();
+
+    @Query("SELECT COUNT(*) FROM usuario WHERE role IN (:roles) AND email IS NOT NULL AND email <> ''")
+    long countWithEmailByRoles(List<String> roles);
+
+    /**
+     * Visão da conta (/login, /status, /api/me) em uma única query.
+     * PROFESSOR usa plano/créditos e logo do manager; USER herda a logo do
+     * personal.
+     */
+    @Query("SELECT u.id, u.nome, u.email, u.role, u.avatar, u.access_level, u.methodology, " +
+            "u.communication_style, u.personal_id, u.manager_id, u.brand_logo, " +
+            "p.brand_logo AS personal_brand_logo, m.brand_logo AS manager_brand_logo, " +
+            "COALESCE(m.id, u.id) AS credit_owner_id, " +
+            "CASE WHEN m.id IS NULL THEN u.plan_type ELSE m.plan_type END AS plan_type, " +
+            "CASE WHEN m.id IS NULL THEN u.subscription_status ELSE m.subscription_status END AS subscription_status, " +
+            "CASE WHEN m.id IS NULL THEN u.subscription_end_date ELSE m.subscription_end_date END AS subscription_end_date, " +
+            "CASE WHEN m.id IS NULL THEN u.credits ELSE m.credits END AS credits, " +
+            "CASE WHEN m.id IS NULL THEN u.subscription_credits ELSE m.subscription_credits END AS subscription_credits, " +
+            "CASE WHEN m.id IS NULL THEN u.purchased_credits ELSE m.purchased_credits END AS purchased_credits, " +
+            "CASE WHEN m.id IS NULL THEN u.generations_used_cycle ELSE m.generations_used_cycle END AS generations_used_cycle " +
+            "FROM usuario u " +
+            "LEFT JOIN usuario m ON m.id = u.manager_id AND u.role = 'PROFESSOR' " +
+            "LEFT JOIN usuario p ON p.id = u.personal_id AND u.role = 'USER' " +
+            "WHERE u.id = :id")
+    Optional<AccountSnapshot> findAccountSnapshot(Long id);
+
     // === QUERIES EXISTENTES ===
 
     @Query("UPDATE usuario SET credits = credits - 1 WHERE id = :id AND credits > 0")
@@ -92,6 +175,41 @@ public interface UsuarioRepository extends CrudRepository<Usuario, Long> {
     @Query("UPDATE usuario SET purchased_credits = COALESCE(purchased_credits, 0) - 1, credits = COALESCE(credits, 0) - 1 WHERE id = :id AND COALESCE(purchased_credits, 0) > 0")
     void consumePurchasedCredit(Long id);
 
+    /**
+     * Débito atômico de N créditos: subscription_credits primeiro, o restante
+     * de purchased_credits. Só aplica se o saldo total cobrir o valor.
+     * O MySQL avalia as atribuições da esquerda para a direita, então
+     * purchased_credits é calculado antes de alterar subscription_credits.
+     * Retorna o número de linhas afetadas (0 = saldo insuficiente).
+     */
+    @Query("UPDATE usuario SET " +
+            "purchased_credits = COALESCE(purchased_credits, 0) " +
+            "- GREATEST(:amount - GREATEST(COALESCE(subscription_credits, 0), 0), 0), " +
+            "subscription_credits = COALESCE(subscription_credits, 0) " +
+            "- LEAST(GREATEST(COALESCE(subscription_credits, 0), 0), :amount), " +
+            "credits = COALESCE(credits, 0) - :amount " +
+            "WHERE id = :id " +
+            "AND COALESCE(subscription_credits, 0) + COALESCE(purchased_credits, 0) >= :amount")
+    int debitCredits(Long id, int amount);
+
+    /**
+     * Leitura com lock (SELECT ... FOR UPDATE): devolve o saldo mais recente,
+     * não o snapshot da transação, e trava a linha até o commit.
+     */
+    @Query("SELECT * FROM usuario WHERE id = :id FOR UPDATE")
+    Optional<Usuario> findByIdForUpdate(Long id);
+
+    /**
+     * Devolve créditos retidos por uma reserva liberada, na mesma divisão em que
+     * foram debitados.
+     */
+    @Query("UPDATE usuario SET " +
+            "subscription_credits = COALESCE(subscription_credits, 0) + :fromSubscription, " +
+            "purchased_credits = COALESCE(purchased_credits, 0) + :fromPurchased, " +
+            "credits = COALESCE(credits, 0) + (:fromSubscription + :fromPurchased) " +
+            "WHERE id = :id")
+    void refundCredits(Long id, int fromSubscription, int fromPurchased);
+
     @Query("UPDATE usuario SET purchased_credits = COALESCE(purchased_credits, 0) + :amount, credits = COALESCE(credits, 0) + :amount WHERE id = :id")
     void addPurchasedCredits(Long id, Integer amount);
 
@@ -115,143 +233,39 @@ public interface UsuarioRepository extends CrudRepository<Usuario, Long> {
     void updateWeeklyGoal(Long id, Integer weeklyGoal);
 
     /**
-     * Verifica permissão de acesso a um usuário alvo.
-     * 
-     * Regras:
-     * - ADMIN: acesso total
-     * - PERSONAL: acesso a si mesmo, seus alunos (personalId), seus professores e
-     * alunos de seus professores
-     * - PROFESSOR: acesso a si mesmo e a TODOS os alunos do ecossistema do seu
-     * Personal
-     * (alunos do personal, alunos próprios, alunos de outros professores do mesmo
-     * personal)
-     * - USER: apenas a si mesmo
+     * Projeção leve (id, role, personal_id, manager_id) usada pelo grafo de
+     * permissões. Evita carregar senha, anamnese e branding a cada checagem.
+     */
+    @Query("SELECT id, role, personal_id, manager_id FROM usuario WHERE id = :id")
+    Optional<OwnershipNode> findOwnershipNodeById(Long id);
+
+    // === CHECAGEM DE PERMISSÃO EM LOTE ===
+
+    /**
+     * Dentre os targetIds, retorna os que um PERSONAL pode acessar: ele mesmo,
+     * seus alunos diretos, seus professores e os alunos de seus professores.
+     */
+    @Query("SELECT u.id FROM usuario u " +
+            "LEFT JOIN usuario p ON p.id = u.personal_id " +
+            "WHERE u.id IN (:targetIds) " +
+            "AND (u.id = :personalId " +
+            "OR u.personal_id = :personalId " +
+            "OR (u.role = 'PROFESSOR' AND u.manager_id = :personalId) " +
+            "OR (p.role = 'PROFESSOR' AND p.manager_id = :personalId))")
+    List<Long> findAccessibleIdsForPersonal(Long personalId, Collection<Long> targetIds);
+
+    /**
+     * Dentre os targetIds, retorna os que um PROFESSOR pode acessar: ele mesmo,
+     * seus alunos e todos os alunos do ecossistema do seu manager (alunos diretos
+     * do manager e alunos dos demais professores do manager).
      */
-    default boolean hasPermission(Long requesterId, String requesterRole, String targetUserId) {
-        System.out.println(
-                "HasPermission CHECK: requester=" + requesterId + " (" + requesterRole + ") target=" + targetUserId);
-
-        // ADMIN tem acesso total
-        if ("ADMIN".equalsIgnoreCase(requesterRole)) {
-            System.out.println("  -> ACCESS GRANTED (ADMIN)");
-            return true;
-        }
-
-        // Acesso a si mesmo
-        if (requesterId.toString().equals(targetUserId)) {
-            System.out.println("  -> ACCESS GRANTED (SELF)");
-            return true;
-        }
-
-        try {
-            Long targetId = Long.parseLong(targetUserId);
-            Optional<Usuario> targetOpt = findById(targetId);
-
-            if (targetOpt.isEmpty()) {
-                System.out.println("  -> ACCESS DENIED (Target user not found: " + targetId + ")");
-                return false;
-            }
-
-            Usuario target = targetOpt.get();
-            System.out.println("  -> Target User: id=" + target.getId() + " role=" + target.getRole() + " personalId="
-                    + target.getPersonalId() + " managerId=" + target.getManagerId());
-
-            // PERSONAL pode acessar:
-            // 1. Seus alunos diretos (target.personalId == requesterId)
-            // 2. Seus professores (target.managerId == requesterId && target.role ==
-            // 'professor')
-            // 3. Alunos de seus professores
-            if ("PERSONAL".equalsIgnoreCase(requesterRole)) {
-                // Alunos diretos do personal
-                if (requesterId.equals(target.getPersonalId())) {
-                    System.out.println("  -> ACCESS GRANTED (Direct Student of Personal)");
-                    return true;
-                }
-
-                // Professor é subordinado do personal
-                if ("PROFESSOR".equalsIgnoreCase(target.getRole()) && requesterId.equals(target.getManagerId())) {
-                    System.out.println("  -> ACCESS GRANTED (Professor subordinate to Personal)");
-                    return true;
-                }
-
-                // Aluno de um professor subordinado
-                if (target.getPersonalId() != null) {
-                    Optional<Usuario> professorOpt = findById(target.getPersonalId());
-                    if (professorOpt.isPresent()) {
-                        Usuario professor = professorOpt.get();
-                        System.out.println("    -> Checking Professor Intermediary: id=" + professor.getId() + " role="
-                                + professor.getRole() + " managerId=" + professor.getManagerId());
-                        if ("PROFESSOR".equalsIgnoreCase(professor.getRole()) &&
-                                requesterId.equals(professor.getManagerId())) {
-                            System.out.println("  -> ACCESS GRANTED (Student of subordinate Professor)");
-                            return true;
-                        }
-                    } else {
-                        System.out.println("    -> Professor linked not found ID=" + target.getPersonalId());
-                    }
-                }
-
-                System.out.println("  -> ACCESS DENIED (PERSONAL logic exhausted)");
-                return false;
-            }
-
-            // PROFESSOR pode acessar:
-            // 1. Seus próprios alunos (target.personalId == requesterId)
-            // 2. Alunos diretos do seu Manager (Personal)
-            // 3. Alunos de outros professores do mesmo Personal
-            // Ou seja: TODOS os alunos do ecossistema do seu Personal
-            if ("PROFESSOR".equalsIgnoreCase(requesterRole)) {
-                // Alunos próprios do professor
-                if (requesterId.equals(target.getPersonalId())) {
-                    System.out.println("  -> ACCESS GRANTED (Direct Student of Professor)");
-                    return true;
-                }
-
-                // Buscar o managerId do professor requisitante
-                Optional<Usuario> requesterOpt = findById(requesterId);
-                if (requesterOpt.isEmpty()) {
-                    System.out.println("  -> ACCESS DENIED (Requester not found)");
-                    return false;
-                }
-                Usuario requester = requesterOpt.get();
-                Long managerId = requester.getManagerId();
-                System.out.println("    -> Requester (Professor) managerId=" + managerId);
-
-                if (managerId == null) {
-                    System.out.println("  -> ACCESS DENIED (Professor has no managerId)");
-                    return false;
-                }
-
-                // Aluno é direto do Personal (manager do professor)
-                if (managerId.equals(target.getPersonalId())) {
-                    System.out.println("  -> ACCESS GRANTED (Student of Manager/Personal)");
-                    return true;
-                }
-
-                // Aluno é de outro professor subordinado ao mesmo Personal
-                if (target.getPersonalId() != null) {
-                    Optional<Usuario> outroProfOpt = findById(target.getPersonalId());
-                    if (outroProfOpt.isPresent()) {
-                        Usuario outroProf = outroProfOpt.get();
-                        System.out.println("    -> Checking Other Professor: id=" + outroProf.getId() + " role="
-                                + outroProf.getRole() + " managerId=" + outroProf.getManagerId());
-                        if ("PROFESSOR".equalsIgnoreCase(outroProf.getRole()) &&
-                                managerId.equals(outroProf.getManagerId())) {
-                            System.out.println("  -> ACCESS GRANTED (Student of Colleague Professor)");
-                            return true;
-                        }
-                    }
-                }
-
-                System.out.println("  -> ACCESS DENIED (PROFESSOR logic exhausted)");
-                return false;
-            }
-
-            System.out.println("  -> ACCESS DENIED (Role " + requesterRole + " not privileged)");
-            return false;
-        } catch (NumberFormatException e) {
-            System.out.println("  -> ACCESS DENIED (Invalid format)");
-            return false;
-        }
-    }
-}
\ No newline at end of file
+    @Query("SELECT u.id FROM usuario u " +
+            "JOIN usuario r ON r.id = :professorId " +
+            "LEFT JOIN usuario p ON p.id = u.personal_id " +
+            "WHERE u.id IN (:targetIds) " +
+            "AND (u.id = r.id " +
+            "OR u.personal_id = r.id " +
+            "OR (r.manager_id IS NOT NULL AND (u.personal_id = r.manager_id " +
+            "OR (p.role = 'PROFESSOR' AND p.manager_id = r.manager_id))))")
+    List<Long> findAccessibleIdsForProfessor(Long professorId, Collection<Long> targetIds);
+}
@@ -1,46 +1,110 @@
 package gcfv2.converter;
 
 import gcfv2.dto.anamnese.AnamnesisDTO;
+import io.micronaut.context.annotation.Value;
 import io.micronaut.core.annotation.NonNull;
 import io.micronaut.data.model.runtime.convert.AttributeConverter;
+import io.micronaut.json.tree.JsonNode;
 import io.micronaut.serde.ObjectMapper;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
+/**
+ * Converte a coluna JSON usuario.anamnesis em {@link LazyAnamnesis}.
+ *
+ * A leitura não desserializa nada: o JSON só é decodificado quando alguém chama
+ * Usuario.getAnamnesis(). A árvore JSON já parseada fica num cache LRU
+ * limitado, indexado pelo conteúdo do JSON, para que leituras repetidas da
+ * mesma anamnese não repitam o parse do texto.
+ *
+ * O cache guarda a árvore (imutável), nunca o DTO: usuários com o mesmo JSON
+ * recebem cada um o seu AnamnesisDTO, e alterar um não afeta o outro.
+ * Use anamnesis.cache.max-entries=0 para desligar o cache.
+ */
 @Singleton
-public class AnamnesisConverter implements AttributeConverter<AnamnesisDTO, String> {
+public class AnamnesisConverter implements AttributeConverter<LazyAnamnesis, String> {
 
     private final ObjectMapper objectMapper;
+    private final int cacheMaxEntries;
+    private final Map<Long, CachedTree> cache;
 
     @Inject
-    public AnamnesisConverter(ObjectMapper objectMapper) {
+    public AnamnesisConverter(ObjectMapper objectMapper,
+            @Value("${anamnesis.cache.max-entries:1000}") int cacheMaxEntries) {
         this.objectMapper = objectMapper;
+        this.cacheMaxEntries = cacheMaxEntries;
+        this.cache = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedTree> eldest) {
+                return size() > cacheMaxEntries;
+            }
+        };
     }
 
     @Override
-    public String convertToPersistedValue(AnamnesisDTO entityValue,
+    public String convertToPersistedValue(LazyAnamnesis entityValue,
             @NonNull io.micronaut.core.convert.ConversionContext context) {
         if (entityValue == null) {
             return null;
         }
+        // Nunca lido: devolve o JSON original sem passar pelo Jackson
+        if (!entityValue.isDecoded()) {
+            return entityValue.getRawJson();
+        }
         try {
-            return objectMapper.writeValueAsString(entityValue);
+            return objectMapper.writeValueAsString(entityValue.get());
         } catch (IOException e) {
             throw new RuntimeException("Erro ao serializar AnamnesisDTO para JSON", e);
         }
     }
 
     @Override
-    public AnamnesisDTO convertToEntityValue(String persistedValue,
+    public LazyAnamnesis convertToEntityValue(String persistedValue,
             @NonNull io.micronaut.core.convert.ConversionContext context) {
         if (persistedValue == null || persistedValue.isEmpty()) {
             return null;
         }
+        return LazyAnamnesis.fromJson(persistedValue, this::decode);
+    }
+
+    private AnamnesisDTO decode(String json) {
         try {
-            return objectMapper.readValue(persistedValue, AnamnesisDTO.class);
+            if (cacheMaxEntries <= 0) {
+                return objectMapper.readValue(json, AnamnesisDTO.class);
+            }
+            // DTO novo a cada decodificação, montado a partir da árvore compartilhada
+            return objectMapper.readValueFromTree(tree(json), AnamnesisDTO.class);
         } catch (IOException e) {
             throw new RuntimeException("Erro ao deserializar JSON para AnamnesisDTO", e);
         }
     }
+
+    private JsonNode tree(String json) throws IOException {
+        long key = ((long) json.length() << 32) | (json.hashCode() & 0xFFFFFFFFL);
+        synchronized (cache) {
+            CachedTree hit = cache.get(key);
+            if (hit != null && hit.json.equals(json)) {
+                return hit.tree;
+            }
+        }
+
+        JsonNode tree = objectMapper.readValue(json, JsonNode.class);
+        synchronized (cache) {
+            cache.put(key, new CachedTree(json, tree));
+        }
+        return tree;
+    }
+
+    private static final class CachedTree {
+        private final String json;
+        private final JsonNode tree;
+
+        private CachedTree(String json, JsonNode tree) {
+            this.json = json;
+            this.tree = tree;
+        }
+    }
 }
@@ -0,0 +1,64 @@
+package gcfv2.converter;
+
+import gcfv2.dto.anamnese.AnamnesisDTO;
+
+import java.util.function.Function;
+
+/**
+ * Valor da coluna usuario.anamnesis com decodificação sob demanda.
+ *
+ * Ao carregar um Usuario, apenas o JSON bruto é guardado; o AnamnesisDTO só é
+ * montado no primeiro acesso. Fluxos que nunca leem a anamnese (login,
+ * permissões, créditos, sync) não pagam o custo de desserialização.
+ */
+public final class LazyAnamnesis {
+
+    private final String rawJson;
+    private final Function<String, AnamnesisDTO> decoder;
+    private volatile AnamnesisDTO decoded;
+
+    private LazyAnamnesis(String rawJson, Function<String, AnamnesisDTO> decoder, AnamnesisDTO decoded) {
+        this.rawJson = rawJson;
+        this.decoder = decoder;
+        this.decoded = decoded;
+    }
+
+    /**
+     * Valor vindo do banco: guarda o JSON e decodifica no primeiro get().
+     */
+    public static LazyAnamnesis fromJson(String rawJson, Function<String, AnamnesisDTO> decoder) {
+        return new LazyAnamnesis(rawJson, decoder, null);
+    }
+
+    /**
+     * Valor definido pela aplicação (ex.: PUT da anamnese).
+     */
+    public static LazyAnamnesis of(AnamnesisDTO dto) {
+        return new LazyAnamnesis(null, null, dto);
+    }
+
+    public AnamnesisDTO get() {
+        AnamnesisDTO value = decoded;
+        if (value == null && rawJson != null) {
+            synchronized (this) {
+                value = decoded;
+                if (value == null) {
+                    value = decoder.apply(rawJson);
+                    decoded = value;
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Indica se o DTO já foi materializado (e portanto pode ter sido alterado).
+     */
+    public boolean isDecoded() {
+        return decoded != null;
+    }
+
+    public String getRawJson() {
+        return rawJson;
+    }
+}
@@ -0,0 +1,213 @@
+package gcfv2.dto;
+
+import io.micronaut.core.annotation.Introspected;
+import io.micronaut.serde.annotation.Serdeable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Visão da conta usada por /login, /status e /api/me, carregada com uma única
+ * query (usuário + manager + personal).
+ *
+ * Os campos de plano/créditos já vêm da fonte de créditos: o Personal
+ * (manager) para PROFESSOR, o próprio usuário nos demais casos.
+ */
+@Serdeable
+@Introspected
+public class AccountSnapshot {
+
+    private Long id;
+    private String nome;
+    private String email;
+    private String role;
+    private String avatar;
+    private String accessLevel;
+    private String methodology;
+    private String communicationStyle;
+    private Long personalId;
+    private Long managerId;
+    private String brandLogo;
+    private String personalBrandLogo;
+    private String managerBrandLogo;
+
+    // Fonte de créditos
+    private Long creditOwnerId;
+    private String planType;
+    private String subscriptionStatus;
+    private LocalDateTime subscriptionEndDate;
+    private Integer credits;
+    private Integer subscriptionCredits;
+    private Integer purchasedCredits;
+    private Integer generationsUsedCycle;
+
+    public AccountSnapshot() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    public void setNome(String nome) {
+        this.nome = nome;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public void setRole(String role) {
+        this.role = role;
+    }
+
+    public String getAvatar() {
+        return avatar;
+    }
+
+    public void setAvatar(String avatar) {
+        this.avatar = avatar;
+    }
+
+    public String getAccessLevel() {
+        return accessLevel;
+    }
+
+    public void setAccessLevel(String accessLevel) {
+        this.accessLevel = accessLevel;
+    }
+
+    public String getMethodology() {
+        return methodology;
+    }
+
+    public void setMethodology(String methodology) {
+        this.methodology = methodology;
+    }
+
+    public String getCommunicationStyle() {
+        return communicationStyle;
+    }
+
+    public void setCommunicationStyle(String communicationStyle) {
+        this.communicationStyle = communicationStyle;
+    }
+
+    public Long getPersonalId() {
+        return personalId;
+    }
+
+    public void setPersonalId(Long personalId) {
+        this.personalId = personalId;
+    }
+
+    public Long getManagerId() {
+        return managerId;
+    }
+
+    public void setManagerId(Long managerId) {
+        this.managerId = managerId;
+    }
+
+    public String getBrandLogo() {
+        return brandLogo;
+    }
+
+    public void setBrandLogo(String brandLogo) {
+        this.brandLogo = brandLogo;
+    }
+
+    public String getPersonalBrandLogo() {
+        return personalBrandLogo;
+    }
+
+    public void setPersonalBrandLogo(String personalBrandLogo) {
+        this.personalBrandLogo = personalBrandLogo;
+    }
+
+    public String getManagerBrandLogo() {
+        return managerBrandLogo;
+    }
+
+    public void setManagerBrandLogo(String managerBrandLogo) {
+        this.managerBrandLogo = managerBrandLogo;
+    }
+
+    public Long getCreditOwnerId() {
+        return creditOwnerId;
+    }
+
+    public void setCreditOwnerId(Long creditOwnerId) {
+        this.creditOwnerId = creditOwnerId;
+    }
+
+    public String getPlanType() {
+        return planType;
+    }
+
+    public void setPlanType(String planType) {
+        this.planType = planType;
+    }
+
+    public String getSubscriptionStatus() {
+        return subscriptionStatus;
+    }
+
+    public void setSubscriptionStatus(String subscriptionStatus) {
+        this.subscriptionStatus = subscriptionStatus;
+    }
+
+    public LocalDateTime getSubscriptionEndDate() {
+        return subscriptionEndDate;
+    }
+
+    public void setSubscriptionEndDate(LocalDateTime subscriptionEndDate) {
+        this.subscriptionEndDate = subscriptionEndDate;
+    }
+
+    public Integer getCredits() {
+        return credits;
+    }
+
+    public void setCredits(Integer credits) {
+        this.credits = credits;
+    }
+
+    public Integer getSubscriptionCredits() {
+        return subscriptionCredits;
+    }
+
+    public void setSubscriptionCredits(Integer subscriptionCredits) {
+        this.subscriptionCredits = subscriptionCredits;
+    }
+
+    public Integer getPurchasedCredits() {
+        return purchasedCredits;
+    }
+
+    public void setPurchasedCredits(Integer purchasedCredits) {
+        this.purchasedCredits = purchasedCredits;
+    }
+
+    public Integer getGenerationsUsedCycle() {
+        return generationsUsedCycle;
+    }
+
+    public void setGenerationsUsedCycle(Integer generationsUsedCycle) {
+        this.generationsUsedCycle = generationsUsedCycle;
+    }
+}
@@ -11,6 +11,7 @@ public class AdminEmailResponse {
     private boolean success;
     private String message;
     private int recipientCount;
+    private Long jobId;
 
     // Constructors
     public AdminEmailResponse() {
@@ -31,6 +32,11 @@ public class AdminEmailResponse {
         return new AdminEmailResponse(false, message, 0);
     }
 
+    public AdminEmailResponse withJobId(Long jobId) {
+        this.jobId = jobId;
+        return this;
+    }
+
     // Getters and Setters
     public boolean isSuccess() {
         return success;
@@ -55,4 +61,12 @@ public class AdminEmailResponse {
     public void setRecipientCount(int recipientCount) {
         this.recipientCount = recipientCount;
     }
+
+    public Long getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(Long jobId) {
+        this.jobId = jobId;
+    }
 }
@@ -0,0 +1,44 @@
+package gcfv2.dto;
+
+import io.micronaut.core.annotation.Introspected;
+import io.micronaut.serde.annotation.Serdeable;
+
+/**
+ * Resumo de consumo de créditos de um usuário, lido de credit_usage_monthly
+ * (uma linha agregada, sem varrer o histórico).
+ */
+@Serdeable
+@Introspected
+public class CreditUsageSummary {
+
+    private Long totalConsumed;
+    private Long consumedThisMonth;
+    private Long freeGenerationsThisMonth;
+
+    public CreditUsageSummary() {
+    }
+
+    public Long getTotalConsumed() {
+        return totalConsumed;
+    }
+
+    public void setTotalConsumed(Long totalConsumed) {
+        this.totalConsumed = totalConsumed;
+    }
+
+    public Long getConsumedThisMonth() {
+        return consumedThisMonth;
+    }
+
+    public void setConsumedThisMonth(Long consumedThisMonth) {
+        this.consumedThisMonth = consumedThisMonth;
+    }
+
+    public Long getFreeGenerationsThisMonth() {
+        return freeGenerationsThisMonth;
+    }
+
+    public void setFreeGenerationsThisMonth(Long freeGenerationsThisMonth) {
+        this.freeGenerationsThisMonth = freeGenerationsThisMonth;
+    }
+}
@@ -0,0 +1,40 @@
+package gcfv2.dto;
+
+import io.micronaut.core.annotation.Introspected;
+import io.micronaut.serde.annotation.Serdeable;
+import java.time.LocalDateTime;
+
+/**
+ * Data da última atividade de um professor (linha do GROUP BY por
+ * professor_id).
+ */
+@Serdeable
+@Introspected
+public class ProfessorLastActivityDTO {
+    private Long professorId;
+    private LocalDateTime lastActivity;
+
+    public ProfessorLastActivityDTO() {
+    }
+
+    public ProfessorLastActivityDTO(Long professorId, LocalDateTime lastActivity) {
+        this.professorId = professorId;
+        this.lastActivity = lastActivity;
+    }
+
+    public Long getProfessorId() {
+        return professorId;
+    }
+
+    public void setProfessorId(Long professorId) {
+        this.professorId = professorId;
+    }
+
+    public LocalDateTime getLastActivity() {
+        return lastActivity;
+    }
+
+    public void setLastActivity(LocalDateTime lastActivity) {
+        this.lastActivity = lastActivity;
+    }
+}
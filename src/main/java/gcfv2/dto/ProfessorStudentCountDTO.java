@@ -0,0 +1,38 @@
+package gcfv2.dto;
+
+import io.micronaut.core.annotation.Introspected;
+import io.micronaut.serde.annotation.Serdeable;
+
+/**
+ * Quantidade de alunos de um professor (linha do GROUP BY por personal_id).
+ */
+@Serdeable
+@Introspected
+public class ProfessorStudentCountDTO {
+    private Long professorId;
+    private Long count;
+
+    public ProfessorStudentCountDTO() {
+    }
+
+    public ProfessorStudentCountDTO(Long professorId, Long count) {
+        this.professorId = professorId;
+        this.count = count;
+    }
+
+    public Long getProfessorId() {
+        return professorId;
+    }
+
+    public void setProfessorId(Long professorId) {
+        this.professorId = professorId;
+    }
+
+    public Long getCount() {
+        return count;
+    }
+
+    public void setCount(Long count) {
+        this.count = count;
+    }
+}
@@ -0,0 +1,34 @@
+package gcfv2.dto;
+
+import io.micronaut.core.annotation.Introspected;
+import io.micronaut.serde.annotation.Serdeable;
+
+/**
+ * Destinatário de broadcast: apenas id (cursor do keyset) e e-mail.
+ */
+@Serdeable
+@Introspected
+public class RecipientRef {
+
+    private Long id;
+    private String email;
+
+    public RecipientRef() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+}
@@ -1,5 +1,7 @@
 package gcfv2.evo;
 
+import gcfv2.AccountSnapshotService;
+import gcfv2.PermissionService;
 import gcfv2.Usuario;
 import gcfv2.UsuarioRepository;
 import gcfv2.dto.evo.EvoMemberDTO;
@@ -28,6 +30,8 @@ public class EvoSyncService {
     private final EvoMemberMapper memberMapper;
     private final EvoEmployeeMapper employeeMapper;
     private final EvoWorkoutMapper workoutMapper;
+    private final PermissionService permissionService;
+    private final AccountSnapshotService accountSnapshotService;
 
     public EvoSyncService(
             EvoApiClient evoApiClient,
@@ -35,7 +39,9 @@ public class EvoSyncService {
             UsuarioRepository usuarioRepository,
             EvoMemberMapper memberMapper,
             EvoEmployeeMapper employeeMapper,
-            EvoWorkoutMapper workoutMapper
+            EvoWorkoutMapper workoutMapper,
+            PermissionService permissionService,
+            AccountSnapshotService accountSnapshotService
     ) {
         this.evoApiClient = evoApiClient;
         this.integrationRepository = integrationRepository;
@@ -43,6 +49,8 @@ public class EvoSyncService {
         this.memberMapper = memberMapper;
         this.employeeMapper = employeeMapper;
         this.workoutMapper = workoutMapper;
+        this.permissionService = permissionService;
+        this.accountSnapshotService = accountSnapshotService;
     }
 
     /**
@@ -98,6 +106,8 @@ public class EvoSyncService {
                     // Atualizar usuário existente
                     Usuario usuario = memberMapper.updateUsuario(existingByEvoId.get(), evoMember);
                     usuarioRepository.update(usuario);
+                    permissionService.invalidateUser(usuario.getId());
+                    accountSnapshotService.invalidate(usuario.getId());
                     updated++;
                 } else if (existingByEmail.isPresent()) {
                     // Email existe mas não tem evoMemberId - vincular
@@ -106,6 +116,9 @@ public class EvoSyncService {
                     if (personalId.equals(usuario.getPersonalId())) {
                         memberMapper.updateUsuario(usuario, evoMember);
                         usuarioRepository.update(usuario);
+                        permissionService.invalidateUser(usuario.getId());
+                        accountSnapshotService.invalidate(usuario.getId());
+                    accountSnapshotService.invalidate(usuario.getId());
                         updated++;
                     } else {
                         // Email já existe para outro personal - pular
@@ -187,6 +200,8 @@ public class EvoSyncService {
                     // Atualizar professor existente
                     Usuario usuario = employeeMapper.updateUsuario(existingByEvoId.get(), evoEmployee);
                     usuarioRepository.update(usuario);
+                    permissionService.invalidateUser(usuario.getId());
+                    accountSnapshotService.invalidate(usuario.getId());
                     updated++;
                 } else if (existingByEmail.isPresent()) {
                     // Email existe - verificar se é do mesmo manager
@@ -194,6 +209,9 @@ public class EvoSyncService {
                     if (personalId.equals(usuario.getManagerId())) {
                         employeeMapper.updateUsuario(usuario, evoEmployee);
                         usuarioRepository.update(usuario);
+                        permissionService.invalidateUser(usuario.getId());
+                        accountSnapshotService.invalidate(usuario.getId());
+                    accountSnapshotService.invalidate(usuario.getId());
                         updated++;
                     } else {
                         skipped++;
@@ -0,0 +1,291 @@
+package gcfv2.pdf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Gerador de PDF mínimo (PDF 1.4) em Java puro, sem navegador.
+ *
+ * Suporta páginas A4 com texto (Helvetica / Helvetica-Bold, fontes padrão do
+ * PDF que não precisam ser embutidas), retângulos e linhas. Cada página é
+ * escrita no OutputStream assim que termina (conteúdo comprimido com Flate);
+ * em memória fica apenas a página atual e a tabela de offsets.
+ *
+ * O texto usa WinAnsiEncoding (cobre português); caracteres fora dela são
+ * trocados pela letra base (ex.: ő → o) ou descartados (emojis).
+ */
+public final class PdfDocumentWriter implements Closeable {
+
+    public static final float A4_WIDTH = 595.28f;
+    public static final float A4_HEIGHT = 841.89f;
+
+    private static final Charset WIN_ANSI = Charset.forName("windows-1252");
+
+    public enum Font {
+        REGULAR("F1", "Helvetica", HELVETICA_WIDTHS),
+        BOLD("F2", "Helvetica-Bold", HELVETICA_BOLD_WIDTHS);
+
+        private final String resourceName;
+        private final String baseFont;
+        private final short[] widths;
+
+        Font(String resourceName, String baseFont, short[] widths) {
+            this.resourceName = resourceName;
+            this.baseFont = baseFont;
+            this.widths = widths;
+        }
+    }
+
+    private final OutputStream out;
+    private final List<Long> offsets = new ArrayList<>();
+    private final List<Integer> pageObjects = new ArrayList<>();
+    private long position;
+    private StringBuilder content;
+    private boolean closed;
+
+    private static final int CATALOG = 1;
+    private static final int PAGES = 2;
+    private static final int FONT_REGULAR = 3;
+    private static final int FONT_BOLD = 4;
+
+    public PdfDocumentWriter(OutputStream out) throws IOException {
+        this.out = out;
+        // Objetos 1-4 reservados (catálogo, árvore de páginas, fontes)
+        for (int i = 0; i <= FONT_BOLD; i++) {
+            offsets.add(0L);
+        }
+        write("%PDF-1.4\n%âãÏÓ\n");
+        writeObject(FONT_REGULAR, fontDictionary(Font.REGULAR));
+        writeObject(FONT_BOLD, fontDictionary(Font.BOLD));
+    }
+
+    public void beginPage() throws IOException {
+        if (content != null) {
+            endPage();
+        }
+        content = new StringBuilder(4096);
+    }
+
+    public boolean hasOpenPage() {
+        return content != null;
+    }
+
+    /**
+     * Texto numa linha, com a linha de base em (x, y) — origem no canto
+     * inferior esquerdo.
+     */
+    public void text(float x, float y, Font font, float size, int rgb, String text) {
+        String safe = sanitize(text);
+        if (safe.isEmpty()) {
+            return;
+        }
+        color(rgb, false);
+        content.append("BT /").append(font.resourceName).append(' ').append(num(size)).append(" Tf ")
+                .append(num(x)).append(' ').append(num(y)).append(" Td (");
+        for (int i = 0; i < safe.length(); i++) {
+            char c = safe.charAt(i);
+            if (c == '(' || c == ')' || c == '\\') {
+                content.append('\\');
+            }
+            content.append(c);
+        }
+        content.append(") Tj ET\n");
+    }
+
+    public void fillRect(float x, float y, float width, float height, int rgb) {
+        color(rgb, false);
+        content.append(num(x)).append(' ').append(num(y)).append(' ').append(num(width)).append(' ')
+                .append(num(height)).append(" re f\n");
+    }
+
+    public void line(float x1, float y1, float x2, float y2, float lineWidth, int rgb) {
+        color(rgb, true);
+        content.append(num(lineWidth)).append(" w ").append(num(x1)).append(' ').append(num(y1)).append(" m ")
+                .append(num(x2)).append(' ').append(num(y2)).append(" l S\n");
+    }
+
+    public void endPage() throws IOException {
+        if (content == null) {
+            return;
+        }
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(content.length() / 3 + 64);
+        try (DeflaterOutputStream deflater = new DeflaterOutputStream(compressed)) {
+            deflater.write(content.toString().getBytes(WIN_ANSI));
+        }
+        content = null;
+
+        int contentObject = allocate();
+        offsets.set(contentObject, position);
+        write(contentObject + " 0 obj\n<< /Length " + compressed.size() + " /Filter /FlateDecode >>\nstream\n");
+        writeBytes(compressed.toByteArray());
+        write("\nendstream\nendobj\n");
+
+        int pageObject = allocate();
+        writeObject(pageObject, "<< /Type /Page /Parent " + PAGES + " 0 R /MediaBox [0 0 " + num(A4_WIDTH) + " "
+                + num(A4_HEIGHT) + "] /Resources << /Font << /F1 " + FONT_REGULAR + " 0 R /F2 " + FONT_BOLD
+                + " 0 R >> >> /Contents " + contentObject + " 0 R >>");
+        pageObjects.add(pageObject);
+    }
+
+    public int getPageCount() {
+        return pageObjects.size() + (content != null ? 1 : 0);
+    }
+
+    /**
+     * Finaliza o documento (árvore de páginas, catálogo, xref e trailer). Não
+     * fecha o OutputStream de destino.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        endPage();
+        if (pageObjects.isEmpty()) {
+            beginPage();
+            endPage();
+        }
+
+        StringBuilder kids = new StringBuilder();
+        for (int page : pageObjects) {
+            kids.append(page).append(" 0 R ");
+        }
+        writeObject(PAGES, "<< /Type /Pages /Kids [" + kids + "] /Count " + pageObjects.size() + " >>");
+        writeObject(CATALOG, "<< /Type /Catalog /Pages " + PAGES + " 0 R >>");
+
+        long xref = position;
+        StringBuilder table = new StringBuilder();
+        table.append("xref\n0 ").append(offsets.size()).append('\n');
+        table.append("0000000000 65535 f \n");
+        for (int i = 1; i < offsets.size(); i++) {
+            table.append(String.format(Locale.ROOT, "%010d 00000 n \n", offsets.get(i)));
+        }
+        table.append("trailer\n<< /Size ").append(offsets.size()).append(" /Root ").append(CATALOG)
+                .append(" 0 R >>\nstartxref\n").append(xref).append("\n%%EOF\n");
+        write(table.toString());
+        out.flush();
+    }
+
+    /**
+     * Largura do texto em pontos, já considerando a troca de caracteres de
+     * {@link #sanitize(String)}.
+     */
+    public static float textWidth(String text, Font font, float size) {
+        String safe = sanitize(text);
+        int units = 0;
+        for (int i = 0; i < safe.length(); i++) {
+            units += charWidth(safe.charAt(i), font);
+        }
+        return units * size / 1000f;
+    }
+
+    /**
+     * Reduz o texto aos caracteres representáveis em WinAnsi.
+     */
+    public static String sanitize(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        CharsetEncoder encoder = WIN_ANSI.newEncoder();
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\t') {
+                sb.append(' ');
+            } else if (c >= 32 && c < 127) {
+                sb.append(c);
+            } else if (!Character.isSurrogate(c) && c >= 160 && encoder.canEncode(c)) {
+                sb.append(c);
+            } else if (!Character.isSurrogate(c)) {
+                String base = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+                char b = base.charAt(0);
+                if (b >= 32 && b < 127) {
+                    sb.append(b);
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    private static int charWidth(char c, Font font) {
+        if (c >= 32 && c < 127) {
+            return font.widths[c - 32];
+        }
+        // Letras acentuadas têm a largura da letra base (í/ì/î/ï = 278)
+        String base = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+        char b = base.charAt(0);
+        if (b == 'i' && base.length() > 1) {
+            return 278;
+        }
+        if (b >= 32 && b < 127) {
+            return font.widths[b - 32];
+        }
+        return 556;
+    }
+
+    private void color(int rgb, boolean stroke) {
+        float r = ((rgb >> 16) & 0xFF) / 255f;
+        float g = ((rgb >> 8) & 0xFF) / 255f;
+        float b = (rgb & 0xFF) / 255f;
+        content.append(num(r)).append(' ').append(num(g)).append(' ').append(num(b))
+                .append(stroke ? " RG\n" : " rg\n");
+    }
+
+    private static String num(float value) {
+        if (value == Math.rint(value)) {
+            return Integer.toString((int) value);
+        }
+        return String.format(Locale.ROOT, "%.2f", value);
+    }
+
+    private static String fontDictionary(Font font) {
+        return "<< /Type /Font /Subtype /Type1 /BaseFont /" + font.baseFont + " /Encoding /WinAnsiEncoding >>";
+    }
+
+    private int allocate() {
+        offsets.add(0L);
+        return offsets.size() - 1;
+    }
+
+    private void writeObject(int number, String body) throws IOException {
+        offsets.set(number, position);
+        write(number + " 0 obj\n" + body + "\nendobj\n");
+    }
+
+    private void write(String text) throws IOException {
+        writeBytes(text.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        out.write(bytes);
+        position += bytes.length;
+    }
+
+    // Larguras AFM (unidades de 1/1000 em) dos caracteres ASCII 32-126
+    private static final short[] HELVETICA_WIDTHS = {
+            278, 278, 355, 556, 556, 889, 667, 191, 333, 333, 389, 584, 278, 333, 278, 278,
+            556, 556, 556, 556, 556, 556, 556, 556, 556, 556, 278, 278, 584, 584, 584, 556,
+            1015, 667, 667, 722, 722, 667, 611, 778, 722, 278, 500, 667, 556, 833, 722, 778,
+            667, 778, 722, 667, 611, 722, 667, 944, 667, 667, 611, 278, 278, 278, 469, 556,
+            333, 556, 556, 500, 556, 556, 278, 556, 556, 222, 222, 500, 222, 833, 556, 556,
+            556, 556, 333, 500, 278, 556, 500, 722, 500, 500, 500, 334, 260, 334, 584 };
+
+    private static final short[] HELVETICA_BOLD_WIDTHS = {
+            278, 333, 474, 556, 556, 889, 722, 238, 333, 333, 389, 584, 278, 333, 278, 278,
+            556, 556, 556, 556, 556, 556, 556, 556, 556, 556, 333, 333, 584, 584, 584, 611,
+            975, 722, 722, 722, 722, 667, 611, 778, 722, 278, 556, 722, 611, 833, 722, 778,
+            667, 778, 722, 667, 611, 722, 667, 944, 667, 667, 611, 333, 278, 333, 584, 556,
+            333, 556, 611, 556, 611, 556, 333, 611, 611, 278, 278, 556, 278, 889, 611, 611,
+            611, 611, 389, 556, 333, 611, 556, 778, 556, 556, 500, 389, 280, 389, 584 };
+}
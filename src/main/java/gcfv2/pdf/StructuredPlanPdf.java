@@ -0,0 +1,375 @@
+package gcfv2.pdf;
+
+import gcfv2.pdf.PdfDocumentWriter.Font;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Layout dos planos estruturados (treino e dieta) direto em PDF, a partir do
+ * JSON de daysData já parseado (Map/List), sem HTML nem navegador.
+ */
+public final class StructuredPlanPdf {
+
+    private static final float MARGIN = 40f;
+    private static final float CONTENT_WIDTH = PdfDocumentWriter.A4_WIDTH - 2 * MARGIN;
+    private static final float BOTTOM = 50f;
+
+    private static final int PRIMARY = 0x6366F1;
+    private static final int TEXT = 0x0F172A;
+    private static final int MUTED = 0x64748B;
+    private static final int BORDER = 0xE2E8F0;
+    private static final int HEADER_BG = 0xEEF2FF;
+    private static final int WHITE = 0xFFFFFF;
+
+    // Colunas da tabela de exercícios: #, exercício, séries, reps, descanso
+    private static final float[] EXERCISE_COLUMNS = { 24f, 281f, 50f, 80f, 80f };
+
+    private StructuredPlanPdf() {
+    }
+
+    /**
+     * @param summary  pares rótulo → valor exibidos abaixo do título (valores
+     *                 nulos/vazios são omitidos)
+     * @param days     lista de dias ({dayLabel, trainingType, isRestDay, note,
+     *                 exercises[]})
+     */
+    public static void writeWorkout(OutputStream out, String title, Map<String, Object> summary, List<?> days,
+            String observations) throws IOException {
+        try (Layout layout = new Layout(out)) {
+            layout.title(title != null && !title.isBlank() ? title : "Plano de Treino");
+            layout.summary(summary);
+
+            for (Object dayObj : days) {
+                if (!(dayObj instanceof Map<?, ?> day)) {
+                    continue;
+                }
+                String label = str(day.get("dayLabel"), str(day.get("dayOfWeek"), "Dia"));
+                String type = str(day.get("trainingType"), null);
+                layout.sectionHeader(type != null ? label + " - " + type : label);
+
+                if (Boolean.TRUE.equals(day.get("isRestDay"))) {
+                    layout.paragraph("Descanso", Font.REGULAR, 10, MUTED);
+                }
+                String note = str(day.get("note"), null);
+                if (note != null) {
+                    layout.paragraph(note, Font.REGULAR, 9, MUTED);
+                }
+
+                List<?> exercises = list(day.get("exercises"));
+                if (!exercises.isEmpty()) {
+                    layout.tableRow(EXERCISE_COLUMNS, new String[] { "#", "Exercício", "Séries", "Reps", "Descanso" },
+                            null, true);
+                    int index = 1;
+                    for (Object exObj : exercises) {
+                        if (!(exObj instanceof Map<?, ?> ex)) {
+                            continue;
+                        }
+                        String name = str(ex.get("name"), "");
+                        String muscle = str(ex.get("muscleGroup"), null);
+                        String[] cells = {
+                                str(ex.get("order"), String.valueOf(index)),
+                                muscle != null ? name + " (" + muscle + ")" : name,
+                                str(ex.get("sets"), "-"),
+                                str(ex.get("reps"), "-"),
+                                str(ex.get("rest"), "-") };
+                        layout.tableRow(EXERCISE_COLUMNS, cells, str(ex.get("technique"), null), false);
+                        index++;
+                    }
+                }
+                layout.gap(10);
+            }
+
+            layout.observations(observations);
+        }
+    }
+
+    /**
+     * @param days lista de dias ({dayLabel, isRestDay, note, meals[{label,
+     *             time, items[{name, quantity, calories, protein, notes}]}]})
+     */
+    public static void writeDiet(OutputStream out, String title, Map<String, Object> summary, List<?> days,
+            String observations) throws IOException {
+        try (Layout layout = new Layout(out)) {
+            layout.title(title != null && !title.isBlank() ? title : "Plano Alimentar");
+            layout.summary(summary);
+
+            for (Object dayObj : days) {
+                if (!(dayObj instanceof Map<?, ?> day)) {
+                    continue;
+                }
+                layout.sectionHeader(str(day.get("dayLabel"), str(day.get("dayOfWeek"), "Dia")));
+                String note = str(day.get("note"), null);
+                if (note != null) {
+                    layout.paragraph(note, Font.REGULAR, 9, MUTED);
+                }
+
+                for (Object mealObj : list(day.get("meals"))) {
+                    if (!(mealObj instanceof Map<?, ?> meal)) {
+                        continue;
+                    }
+                    String label = str(meal.get("label"), str(meal.get("type"), "Refeição"));
+                    String time = str(meal.get("time"), null);
+                    layout.gap(4);
+                    layout.paragraph(time != null ? label + "  " + time : label, Font.BOLD, 10.5f, TEXT);
+
+                    for (Object itemObj : list(meal.get("items"))) {
+                        if (!(itemObj instanceof Map<?, ?> item)) {
+                            continue;
+                        }
+                        StringBuilder line = new StringBuilder("- ").append(str(item.get("name"), ""));
+                        String quantity = str(item.get("quantity"), null);
+                        if (quantity != null) {
+                            line.append(": ").append(quantity);
+                        }
+                        List<String> macros = new ArrayList<>();
+                        if (item.get("calories") != null) {
+                            macros.add(str(item.get("calories"), "") + " kcal");
+                        }
+                        if (item.get("protein") != null) {
+                            macros.add(str(item.get("protein"), "") + " g proteína");
+                        }
+                        if (!macros.isEmpty()) {
+                            line.append(" (").append(String.join(", ", macros)).append(')');
+                        }
+                        layout.paragraph(line.toString(), Font.REGULAR, 9.5f, TEXT, 10);
+                        String notes = str(item.get("notes"), null);
+                        if (notes != null) {
+                            layout.paragraph(notes, Font.REGULAR, 8.5f, MUTED, 20);
+                        }
+                    }
+                }
+                layout.gap(10);
+            }
+
+            layout.observations(observations);
+        }
+    }
+
+    private static String str(Object value, String fallback) {
+        if (value == null) {
+            return fallback;
+        }
+        String text;
+        if (value instanceof Number n && n.doubleValue() == Math.rint(n.doubleValue())) {
+            text = String.valueOf(n.longValue());
+        } else {
+            text = value.toString().trim();
+        }
+        return text.isEmpty() ? fallback : text;
+    }
+
+    private static List<?> list(Object value) {
+        return value instanceof List<?> l ? l : List.of();
+    }
+
+    /**
+     * Cursor vertical com quebra de página e de linha automáticas.
+     */
+    private static final class Layout implements AutoCloseable {
+        private final PdfDocumentWriter pdf;
+        private float y;
+
+        private Layout(OutputStream out) throws IOException {
+            this.pdf = new PdfDocumentWriter(out);
+            newPage();
+        }
+
+        private void newPage() throws IOException {
+            if (pdf.hasOpenPage()) {
+                footer();
+            }
+            pdf.beginPage();
+            y = PdfDocumentWriter.A4_HEIGHT - MARGIN;
+        }
+
+        private void ensure(float height) throws IOException {
+            if (y - height < BOTTOM) {
+                newPage();
+            }
+        }
+
+        private void gap(float height) {
+            y -= height;
+        }
+
+        private void title(String title) throws IOException {
+            for (String line : wrap(title, Font.BOLD, 20, CONTENT_WIDTH)) {
+                ensure(26);
+                y -= 20;
+                pdf.text(MARGIN, y, Font.BOLD, 20, PRIMARY, line);
+                y -= 6;
+            }
+            y -= 4;
+            pdf.line(MARGIN, y, MARGIN + CONTENT_WIDTH, y, 1.5f, PRIMARY);
+            y -= 14;
+        }
+
+        private void summary(Map<String, Object> summary) throws IOException {
+            if (summary == null) {
+                return;
+            }
+            for (Map.Entry<String, Object> entry : summary.entrySet()) {
+                String value = str(entry.getValue(), null);
+                if (value == null) {
+                    continue;
+                }
+                ensure(14);
+                y -= 10;
+                String label = entry.getKey() + ": ";
+                pdf.text(MARGIN, y, Font.BOLD, 10, TEXT, label);
+                float labelWidth = PdfDocumentWriter.textWidth(label, Font.BOLD, 10);
+                List<String> lines = wrap(value, Font.REGULAR, 10, CONTENT_WIDTH - labelWidth);
+                for (int i = 0; i < lines.size(); i++) {
+                    if (i > 0) {
+                        ensure(13);
+                        y -= 13;
+                    }
+                    pdf.text(MARGIN + labelWidth, y, Font.REGULAR, 10, TEXT, lines.get(i));
+                }
+                y -= 4;
+            }
+            y -= 8;
+        }
+
+        private void sectionHeader(String text) throws IOException {
+            // Cabeçalho + espaço para ao menos uma linha de conteúdo
+            ensure(48);
+            y -= 22;
+            pdf.fillRect(MARGIN, y, CONTENT_WIDTH, 22, PRIMARY);
+            String line = wrap(text, Font.BOLD, 12, CONTENT_WIDTH - 16).get(0);
+            pdf.text(MARGIN + 8, y + 7, Font.BOLD, 12, WHITE, line);
+            y -= 8;
+        }
+
+        private void paragraph(String text, Font font, float size, int rgb) throws IOException {
+            paragraph(text, font, size, rgb, 0);
+        }
+
+        private void paragraph(String text, Font font, float size, int rgb, float indent) throws IOException {
+            float leading = size * 1.35f;
+            for (String line : wrap(text, font, size, CONTENT_WIDTH - indent)) {
+                ensure(leading);
+                y -= leading;
+                pdf.text(MARGIN + indent, y, font, size, rgb, line);
+            }
+            y -= 2;
+        }
+
+        /**
+         * Linha da tabela com quebra de texto por célula; {@code detail} é uma
+         * linha extra (ex.: técnica) sob a segunda coluna.
+         */
+        private void tableRow(float[] columns, String[] cells, String detail, boolean header) throws IOException {
+            Font font = header ? Font.BOLD : Font.REGULAR;
+            float size = header ? 9 : 9.5f;
+            float leading = size * 1.35f;
+            float padding = 4;
+
+            List<List<String>> wrapped = new ArrayList<>();
+            int lines = 1;
+            for (int i = 0; i < cells.length; i++) {
+                List<String> cellLines = wrap(cells[i], font, size, columns[i] - 2 * padding);
+                wrapped.add(cellLines);
+                lines = Math.max(lines, cellLines.size());
+            }
+            List<String> detailLines = detail != null
+                    ? wrap(detail, Font.REGULAR, 8, columns[1] - 2 * padding)
+                    : List.of();
+            float height = lines * leading + detailLines.size() * 8 * 1.35f + 2 * padding;
+
+            ensure(height);
+            float top = y;
+            y -= height;
+            if (header) {
+                pdf.fillRect(MARGIN, y, CONTENT_WIDTH, height, HEADER_BG);
+            }
+            pdf.line(MARGIN, y, MARGIN + CONTENT_WIDTH, y, 0.5f, BORDER);
+
+            float x = MARGIN;
+            for (int i = 0; i < cells.length; i++) {
+                float lineY = top - padding;
+                for (String line : wrapped.get(i)) {
+                    lineY -= leading;
+                    pdf.text(x + padding, lineY + 2.5f, font, size, header ? PRIMARY : TEXT, line);
+                }
+                if (i == 1) {
+                    for (String line : detailLines) {
+                        lineY -= 8 * 1.35f;
+                        pdf.text(x + padding, lineY + 2, Font.REGULAR, 8, MUTED, line);
+                    }
+                }
+                x += columns[i];
+            }
+        }
+
+        private void observations(String observations) throws IOException {
+            if (observations == null || observations.isBlank()) {
+                return;
+            }
+            gap(6);
+            sectionHeader("Observações");
+            for (String paragraph : observations.split("\\R")) {
+                if (!paragraph.isBlank()) {
+                    paragraph(paragraph, Font.REGULAR, 10, TEXT);
+                }
+            }
+        }
+
+        private void footer() {
+            String text = "FitAI - página " + pdf.getPageCount();
+            float width = PdfDocumentWriter.textWidth(text, Font.REGULAR, 8);
+            pdf.text(PdfDocumentWriter.A4_WIDTH - MARGIN - width, 25, Font.REGULAR, 8, MUTED, text);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (pdf.hasOpenPage()) {
+                footer();
+            }
+            pdf.close();
+        }
+
+        /**
+         * Quebra por palavras; palavras maiores que a largura são cortadas.
+         */
+        private static List<String> wrap(String text, Font font, float size, float width) {
+            List<String> lines = new ArrayList<>();
+            String safe = PdfDocumentWriter.sanitize(text).trim();
+            if (safe.isEmpty()) {
+                lines.add("");
+                return lines;
+            }
+            StringBuilder current = new StringBuilder();
+            for (String word : safe.split(" +")) {
+                String candidate = current.length() == 0 ? word : current + " " + word;
+                if (PdfDocumentWriter.textWidth(candidate, font, size) <= width) {
+                    current.setLength(0);
+                    current.append(candidate);
+                    continue;
+                }
+                if (current.length() > 0) {
+                    lines.add(current.toString());
+                    current.setLength(0);
+                }
+                // Palavra sozinha maior que a linha: corta por caractere
+                while (PdfDocumentWriter.textWidth(word, font, size) > width && word.length() > 1) {
+                    int cut = word.length() - 1;
+                    while (cut > 1 && PdfDocumentWriter.textWidth(word.substring(0, cut), font, size) > width) {
+                        cut--;
+                    }
+                    lines.add(word.substring(0, cut));
+                    word = word.substring(cut);
+                }
+                current.append(word);
+            }
+            if (current.length() > 0) {
+                lines.add(current.toString());
+            }
+            return lines;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package gcfv2.permission;
+
+import gcfv2.UsuarioRepository;
+import io.micronaut.context.annotation.Value;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Grafo em memória da hierarquia personal → professor → aluno.
+ *
+ * Cada usuário é carregado uma única vez (projeção de 4 colunas) e mantido num
+ * LRU limitado. As checagens de permissão passam a ser simples lookups em
+ * memória; o banco só é consultado em caso de miss ou expiração.
+ *
+ * Sempre que personal_id, manager_id ou role mudarem (ou o usuário for
+ * excluído), chame {@link #invalidate(Long)}.
+ */
+@Singleton
+public class OwnershipGraph {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OwnershipGraph.class);
+
+    private final UsuarioRepository usuarioRepository;
+    private final int maxEntries;
+    private final long ttlNanos;
+
+    // Incrementado a cada invalidação para descartar carregamentos concorrentes
+    // que leram o estado antigo do banco
+    private final AtomicLong generation = new AtomicLong();
+
+    private final Map<Long, CachedNode> nodes;
+
+    public OwnershipGraph(
+            UsuarioRepository usuarioRepository,
+            @Value("${permissions.cache.max-entries:10000}") int maxEntries,
+            @Value("${permissions.cache.ttl-seconds:600}") long ttlSeconds) {
+        this.usuarioRepository = usuarioRepository;
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+        this.nodes = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedNode> eldest) {
+                return size() > OwnershipGraph.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Retorna o nó do usuário, carregando do banco apenas em caso de miss.
+     * Retorna null se o usuário não existir (ausências não são cacheadas).
+     */
+    public OwnershipNode get(Long userId) {
+        if (userId == null) {
+            return null;
+        }
+
+        long now = System.nanoTime();
+        synchronized (nodes) {
+            CachedNode cached = nodes.get(userId);
+            if (cached != null) {
+                if (now - cached.loadedAt < ttlNanos) {
+                    return cached.node;
+                }
+                nodes.remove(userId);
+            }
+        }
+
+        long gen = generation.get();
+        OwnershipNode loaded = usuarioRepository.findOwnershipNodeById(userId).orElse(null);
+        if (loaded == null) {
+            return null;
+        }
+
+        synchronized (nodes) {
+            if (generation.get() == gen) {
+                nodes.put(userId, new CachedNode(loaded, now));
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Remove o usuário do grafo. Como as arestas são resolvidas no momento da
+     * checagem, invalidar o próprio nó é suficiente para refletir mudanças de
+     * vínculo (ex.: professor trocando de manager afeta todos os seus alunos).
+     */
+    public void invalidate(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        generation.incrementAndGet();
+        synchronized (nodes) {
+            nodes.remove(userId);
+        }
+        LOG.debug("OwnershipGraph: nó {} invalidado", userId);
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        synchronized (nodes) {
+            nodes.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (nodes) {
+            return nodes.size();
+        }
+    }
+
+    private static final class CachedNode {
+        private final OwnershipNode node;
+        private final long loadedAt;
+
+        private CachedNode(OwnershipNode node, long loadedAt) {
+            this.node = node;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package gcfv2.permission;
+
+import io.micronaut.core.annotation.Introspected;
+
+/**
+ * Projeção mínima de um usuário para checagem de permissões.
+ * Contém apenas as colunas que definem a hierarquia personal → professor → aluno
+ * (sem senha, anamnese ou branding).
+ */
+@Introspected
+public class OwnershipNode {
+
+    private Long id;
+    private String role;
+    private Long personalId;
+    private Long managerId;
+
+    public OwnershipNode() {
+    }
+
+    public OwnershipNode(Long id, String role, Long personalId, Long managerId) {
+        this.id = id;
+        this.role = role;
+        this.personalId = personalId;
+        this.managerId = managerId;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public void setRole(String role) {
+        this.role = role;
+    }
+
+    public Long getPersonalId() {
+        return personalId;
+    }
+
+    public void setPersonalId(Long personalId) {
+        this.personalId = personalId;
+    }
+
+    public Long getManagerId() {
+        return managerId;
+    }
+
+    public void setManagerId(Long managerId) {
+        this.managerId = managerId;
+    }
+
+    public boolean isProfessor() {
+        return "PROFESSOR".equalsIgnoreCase(role);
+    }
+}
@@ -0,0 +1,76 @@
+package gcfv2.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.function.IntConsumer;
+
+/**
+ * Armazenamento de objetos (imagens, PDFs em cache) usado pelo UploadService.
+ *
+ * Implementações: {@link GcsAssetStorage} (padrão), {@link LocalAssetStorage}
+ * (disco local, para rodar/medir sem GCP) e {@link TieredAssetStorage} (GCS
+ * com cópia local dos objetos lidos). Escolhida por storage.backend, ver
+ * {@link AssetStorageFactory}.
+ *
+ * Erros de I/O são lançados como exceções não verificadas (StorageException no
+ * GCS, UncheckedIOException no disco), exceto em {@link #open}.
+ */
+public interface AssetStorage {
+
+    /**
+     * Metadados do objeto, ou null se não existir.
+     */
+    ObjectInfo stat(String name);
+
+    /**
+     * Stream sobre um intervalo do objeto, na versão descrita por {@code info}.
+     */
+    InputStream open(ObjectInfo info, long offset, long length) throws IOException;
+
+    /**
+     * Conteúdo inteiro do objeto, na versão descrita por {@code info}.
+     */
+    byte[] read(ObjectInfo info);
+
+    /**
+     * Grava (ou substitui) o objeto e devolve os metadados da nova versão.
+     */
+    ObjectInfo write(String name, byte[] content, String contentType);
+
+    /**
+     * Remove todos os objetos cujo nome começa com {@code prefix}.
+     *
+     * @return quantidade de objetos removidos
+     */
+    default int deletePrefix(String prefix, int pageSize) {
+        return deletePrefix(prefix, pageSize, deleted -> {
+        });
+    }
+
+    /**
+     * Como {@link #deletePrefix(String, int)}, chamando {@code onPage} com a
+     * quantidade removida a cada página (permite registrar progresso em
+     * exclusões longas).
+     */
+    int deletePrefix(String prefix, int pageSize, IntConsumer onPage);
+
+    /**
+     * Arquivo local com o conteúdo do objeto, quando existir: permite enviar a
+     * resposta direto do arquivo (FileChannel.transferTo/sendfile), sem passar
+     * pelo heap.
+     */
+    default Optional<Path> localPath(ObjectInfo info) {
+        return Optional.empty();
+    }
+
+    /**
+     * Política assinada para o cliente gravar {@code name} direto no bucket,
+     * com o content type exato e até {@code maxBytes}. Vazio se o backend não
+     * aceita upload direto (disco local).
+     */
+    default Optional<SignedUpload> signUpload(String name, String contentType, long maxBytes, long ttlSeconds) {
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,51 @@
+package gcfv2.storage;
+
+import io.micronaut.context.annotation.Factory;
+import io.micronaut.context.annotation.Value;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+
+/**
+ * Cria o {@link AssetStorage} conforme storage.backend:
+ *
+ * - gcs (padrão): bucket gcp.storage.bucket.
+ * - local: arquivos em storage.local.root, sem GCP (desenvolvimento offline,
+ * benchmarks).
+ * - tiered: GCS com cópia local em storage.tiered.cache-dir.
+ *
+ * Só o backend escolhido é instanciado: com "local", a aplicação sobe sem
+ * credenciais do GCP.
+ */
+@Factory
+public class AssetStorageFactory {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AssetStorageFactory.class);
+
+    @Singleton
+    AssetStorage assetStorage(
+            @Value("${storage.backend:gcs}") String backend,
+            @Value("${gcp.storage.bucket:imagem-ai}") String bucketName,
+            @Value("${storage.local.root:data/assets}") String localRoot,
+            @Value("${storage.tiered.cache-dir:/tmp/fitai-asset-cache}") String cacheDir,
+            @Value("${storage.tiered.max-bytes:1073741824}") long cacheMaxBytes,
+            @Value("${storage.tiered.max-entry-bytes:16777216}") long cacheMaxEntryBytes) {
+        switch (backend.toLowerCase()) {
+            case "gcs":
+                LOG.info("AssetStorage: GCS (bucket {})", bucketName);
+                return new GcsAssetStorage(bucketName);
+            case "local":
+                LOG.info("AssetStorage: disco local ({})", localRoot);
+                return new LocalAssetStorage(Path.of(localRoot));
+            case "tiered":
+                LOG.info("AssetStorage: GCS (bucket {}) com cópia local em {} (até {} bytes)", bucketName, cacheDir,
+                        cacheMaxBytes);
+                return new TieredAssetStorage(new GcsAssetStorage(bucketName), new LocalAssetStorage(Path.of(cacheDir)),
+                        cacheMaxBytes, cacheMaxEntryBytes);
+            default:
+                throw new IllegalStateException("storage.backend inválido: " + backend + " (use gcs, local ou tiered)");
+        }
+    }
+}
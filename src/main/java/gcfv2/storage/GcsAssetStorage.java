@@ -0,0 +1,135 @@
+package gcfv2.storage;
+
+import com.google.api.gax.paging.Page;
+import com.google.cloud.ReadChannel;
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.BlobInfo;
+import com.google.cloud.storage.PostPolicyV4;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.StorageOptions;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+/**
+ * Objetos no Google Cloud Storage. As credenciais vêm do ambiente (Application
+ * Default Credentials).
+ */
+public class GcsAssetStorage implements AssetStorage {
+
+    // Tamanho dos blocos lidos do GCS ao transmitir um objeto
+    private static final int READ_CHUNK_SIZE = 256 * 1024;
+
+    private final Storage storage;
+    private final String bucketName;
+
+    public GcsAssetStorage(String bucketName) {
+        this.storage = StorageOptions.getDefaultInstance().getService();
+        this.bucketName = bucketName;
+    }
+
+    @Override
+    public ObjectInfo stat(String name) {
+        Blob blob = storage.get(BlobId.of(bucketName, name),
+                Storage.BlobGetOption.fields(Storage.BlobField.SIZE, Storage.BlobField.CONTENT_TYPE,
+                        Storage.BlobField.ETAG, Storage.BlobField.UPDATED, Storage.BlobField.GENERATION));
+        return blob != null ? toInfo(name, blob) : null;
+    }
+
+    /**
+     * A leitura fica presa à generation de {@code info}: os bytes sempre
+     * correspondem aos metadados, mesmo que o objeto seja sobrescrito.
+     */
+    @Override
+    public InputStream open(ObjectInfo info, long offset, long length) throws IOException {
+        ReadChannel reader = storage.reader(BlobId.of(bucketName, info.getName(), info.getGeneration()));
+        reader.setChunkSize(READ_CHUNK_SIZE);
+        if (offset > 0) {
+            reader.seek(offset);
+        }
+        reader.limit(offset + length);
+        return Channels.newInputStream(reader);
+    }
+
+    @Override
+    public byte[] read(ObjectInfo info) {
+        return storage.readAllBytes(BlobId.of(bucketName, info.getName(), info.getGeneration()));
+    }
+
+    @Override
+    public ObjectInfo write(String name, byte[] content, String contentType) {
+        BlobInfo blobInfo = BlobInfo.newBuilder(BlobId.of(bucketName, name))
+                .setContentType(contentType)
+                .build();
+        return toInfo(name, storage.create(blobInfo, content));
+    }
+
+    /**
+     * Lista e remove uma página por vez, com exclusão em lote.
+     */
+    @Override
+    public int deletePrefix(String prefix, int pageSize, IntConsumer onPage) {
+        int deleted = 0;
+        Page<Blob> page = storage.list(bucketName,
+                Storage.BlobListOption.prefix(prefix),
+                Storage.BlobListOption.pageSize(pageSize));
+        while (page != null) {
+            List<BlobId> ids = new ArrayList<>();
+            for (Blob blob : page.getValues()) {
+                ids.add(blob.getBlobId());
+            }
+            if (!ids.isEmpty()) {
+                int pageDeleted = 0;
+                for (Boolean ok : storage.delete(ids)) {
+                    if (Boolean.TRUE.equals(ok)) {
+                        pageDeleted++;
+                    }
+                }
+                deleted += pageDeleted;
+                onPage.accept(pageDeleted);
+            }
+            page = page.hasNextPage() ? page.getNextPage() : null;
+        }
+        return deleted;
+    }
+
+    /**
+     * POST policy V4: o GCS recusa o upload se o content type for outro, se
+     * passar de {@code maxBytes} ou depois do prazo. Assina com a conta de
+     * serviço do ambiente (chave ou IAM signBlob no Cloud Run).
+     */
+    @Override
+    public Optional<SignedUpload> signUpload(String name, String contentType, long maxBytes, long ttlSeconds) {
+        BlobInfo blobInfo = BlobInfo.newBuilder(BlobId.of(bucketName, name)).build();
+        PostPolicyV4.PostFieldsV4 fields = PostPolicyV4.PostFieldsV4.newBuilder()
+                .setContentType(contentType)
+                .build();
+        PostPolicyV4.PostConditionsV4 conditions = PostPolicyV4.PostConditionsV4.newBuilder()
+                .addContentTypeCondition(PostPolicyV4.ConditionV4Type.MATCHES, contentType)
+                .addContentLengthRangeCondition(1, (int) Math.min(maxBytes, Integer.MAX_VALUE))
+                .build();
+        long expiresAt = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(ttlSeconds);
+        PostPolicyV4 policy = storage.generateSignedPostPolicyV4(blobInfo, ttlSeconds, TimeUnit.SECONDS,
+                fields, conditions);
+        return Optional.of(new SignedUpload(name, policy.getUrl(), policy.getFields(), expiresAt));
+    }
+
+    public String getBucketName() {
+        return bucketName;
+    }
+
+    private static ObjectInfo toInfo(String name, Blob blob) {
+        long updated = blob.getUpdateTimeOffsetDateTime() != null
+                ? blob.getUpdateTimeOffsetDateTime().toInstant().toEpochMilli()
+                : 0L;
+        return new ObjectInfo(name, blob.getSize() != null ? blob.getSize() : 0L, blob.getContentType(),
+                blob.getEtag(), updated, blob.getGeneration());
+    }
+}
@@ -0,0 +1,211 @@
+package gcfv2.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.IntConsumer;
+import java.util.stream.Stream;
+
+/**
+ * Objetos como arquivos sob um diretório raiz (nome do objeto = caminho
+ * relativo). Sem dependência de GCP: serve para desenvolvimento offline,
+ * benchmarks e como camada local do {@link TieredAssetStorage}.
+ *
+ * Leituras de intervalo usam mmap; a resposta completa pode ir direto do
+ * arquivo via {@link #localPath}. Gravações são atômicas (arquivo temporário
+ * + rename), então um leitor nunca vê um objeto pela metade. O content type
+ * vem da extensão e a "generation" é o mtime do arquivo.
+ */
+public class LocalAssetStorage implements AssetStorage {
+
+    private static final Map<String, String> CONTENT_TYPES = Map.of(
+            "jpg", "image/jpeg",
+            "jpeg", "image/jpeg",
+            "png", "image/png",
+            "gif", "image/gif",
+            "webp", "image/webp",
+            "pdf", "application/pdf");
+
+    static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path root;
+
+    public LocalAssetStorage(Path root) {
+        this.root = root.toAbsolutePath().normalize();
+        try {
+            Files.createDirectories(this.root);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível criar o diretório " + this.root, e);
+        }
+    }
+
+    @Override
+    public ObjectInfo stat(String name) {
+        Path path = resolve(name);
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+            if (!attrs.isRegularFile()) {
+                return null;
+            }
+            long modified = attrs.lastModifiedTime().toMillis();
+            return new ObjectInfo(name, attrs.size(), contentTypeOf(name),
+                    Long.toHexString(attrs.size()) + "-" + Long.toHexString(modified), modified, modified);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Mapeia só o intervalo pedido; o mapeamento continua válido depois que o
+     * canal é fechado.
+     */
+    @Override
+    public InputStream open(ObjectInfo info, long offset, long length) throws IOException {
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Intervalo grande demais para mmap: " + length + " bytes");
+        }
+        try (FileChannel channel = FileChannel.open(resolve(info.getName()), StandardOpenOption.READ)) {
+            long available = Math.max(0, Math.min(length, channel.size() - offset));
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, available);
+            return new ByteBufferInputStream(buffer);
+        }
+    }
+
+    @Override
+    public byte[] read(ObjectInfo info) {
+        try {
+            return Files.readAllBytes(resolve(info.getName()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public ObjectInfo write(String name, byte[] content, String contentType) {
+        Path target = resolve(name);
+        try {
+            Files.createDirectories(target.getParent());
+            Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), TEMP_SUFFIX);
+            try {
+                Files.write(temp, content);
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return stat(name);
+    }
+
+    @Override
+    public int deletePrefix(String prefix, int pageSize, IntConsumer onPage) {
+        // Percorre só o diretório do prefixo (ex.: uploads/users/10/)
+        Path base = resolve(prefix.substring(0, prefix.lastIndexOf('/') + 1));
+        if (!Files.isDirectory(base)) {
+            return 0;
+        }
+        int deleted = 0;
+        try (Stream<Path> files = Files.walk(base)) {
+            List<Path> matches = files.filter(Files::isRegularFile)
+                    .filter(p -> nameOf(p).startsWith(prefix))
+                    .toList();
+            int pageDeleted = 0;
+            for (Path file : matches) {
+                if (Files.deleteIfExists(file)) {
+                    deleted++;
+                    if (++pageDeleted == pageSize) {
+                        onPage.accept(pageDeleted);
+                        pageDeleted = 0;
+                    }
+                }
+            }
+            if (pageDeleted > 0) {
+                onPage.accept(pageDeleted);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return deleted;
+    }
+
+    @Override
+    public Optional<Path> localPath(ObjectInfo info) {
+        Path path = resolve(info.getName());
+        return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * Nome do objeto correspondente a um arquivo sob a raiz.
+     */
+    String nameOf(Path file) {
+        return root.relativize(file.toAbsolutePath().normalize()).toString().replace('\\', '/');
+    }
+
+    /**
+     * Caminho do objeto, recusando nomes que escapem da raiz (ex.: "../").
+     */
+    Path resolve(String name) {
+        Path path = root.resolve(name).normalize();
+        if (!path.startsWith(root)) {
+            throw new IllegalArgumentException("Nome de objeto inválido: " + name);
+        }
+        return path;
+    }
+
+    private static String contentTypeOf(String name) {
+        int dot = name.lastIndexOf('.');
+        String extension = dot >= 0 ? name.substring(dot + 1).toLowerCase(Locale.ROOT) : "";
+        return CONTENT_TYPES.getOrDefault(extension, "application/octet-stream");
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package gcfv2.storage;
+
+/**
+ * Metadados de um objeto armazenado. {@code generation} identifica a versão
+ * do conteúdo (generation do GCS; no disco local, o mtime).
+ */
+public final class ObjectInfo {
+    private final String name;
+    private final long size;
+    private final String contentType;
+    private final String etag;
+    private final long updatedMillis;
+    private final Long generation;
+
+    public ObjectInfo(String name, long size, String contentType, String etag, long updatedMillis,
+            Long generation) {
+        this.name = name;
+        this.size = size;
+        this.contentType = contentType;
+        this.etag = etag;
+        this.updatedMillis = updatedMillis;
+        this.generation = generation;
+    }
+
+    public String getName() { return name; }
+    public long getSize() { return size; }
+    public String getContentType() { return contentType; }
+    public String getEtag() { return etag; }
+    public long getUpdatedMillis() { return updatedMillis; }
+    public Long getGeneration() { return generation; }
+}
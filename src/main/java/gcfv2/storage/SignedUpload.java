@@ -0,0 +1,28 @@
+package gcfv2.storage;
+
+import java.util.Map;
+
+/**
+ * Upload direto para o bucket, sem passar pelo servidor: o cliente envia um
+ * POST multipart para {@code url} com todos os {@code fields} e, por último, o
+ * arquivo no campo "file". A política assinada limita nome, content type e
+ * tamanho, e expira em {@code expiresAtMillis}.
+ */
+public final class SignedUpload {
+    private final String name;
+    private final String url;
+    private final Map<String, String> fields;
+    private final long expiresAtMillis;
+
+    public SignedUpload(String name, String url, Map<String, String> fields, long expiresAtMillis) {
+        this.name = name;
+        this.url = url;
+        this.fields = fields;
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    public String getName() { return name; }
+    public String getUrl() { return url; }
+    public Map<String, String> getFields() { return fields; }
+    public long getExpiresAtMillis() { return expiresAtMillis; }
+}
@@ -0,0 +1,236 @@
+package gcfv2.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.IntConsumer;
+import java.util.stream.Stream;
+
+/**
+ * GCS (origem, fonte da verdade) com cópia em disco local (SSD) dos objetos
+ * lidos e gravados recentemente, para cortar o egress dos objetos quentes.
+ *
+ * - stat sempre consulta a origem (só metadados, sem egress), então nunca se
+ * serve uma versão antiga: a cópia local é identificada por nome + generation.
+ * - Leituras de objetos até storage.tiered.max-entry-bytes baixam o objeto
+ * inteiro uma vez e passam a ser servidas do disco (mmap/sendfile).
+ * - Gravações vão para a origem e, na sequência, para o disco (write-through).
+ *
+ * O disco é um LRU limitado pelo total de bytes (storage.tiered.max-bytes),
+ * reconstruído a partir dos arquivos existentes na inicialização.
+ */
+public class TieredAssetStorage implements AssetStorage {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TieredAssetStorage.class);
+
+    private static final char GENERATION_SEPARATOR = '~';
+
+    private final AssetStorage origin;
+    private final LocalAssetStorage cache;
+    private final long maxBytes;
+    private final long maxEntryBytes;
+
+    // Chave = nome do objeto local (nome~generation), valor = tamanho
+    private final Map<String, Long> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+
+    public TieredAssetStorage(AssetStorage origin, LocalAssetStorage cache, long maxBytes, long maxEntryBytes) {
+        this.origin = origin;
+        this.cache = cache;
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = maxEntryBytes;
+        loadIndex();
+    }
+
+    @Override
+    public ObjectInfo stat(String name) {
+        return origin.stat(name);
+    }
+
+    @Override
+    public InputStream open(ObjectInfo info, long offset, long length) throws IOException {
+        ObjectInfo local = cached(info);
+        if (local != null) {
+            return cache.open(local, offset, length);
+        }
+        return origin.open(info, offset, length);
+    }
+
+    @Override
+    public byte[] read(ObjectInfo info) {
+        String key = cacheKey(info);
+        if (contains(key)) {
+            try {
+                return Files.readAllBytes(cache.resolve(key));
+            } catch (IOException e) {
+                // Removido por fora: lê da origem
+                forget(key);
+            }
+        }
+        byte[] content = origin.read(info);
+        store(info, content);
+        return content;
+    }
+
+    @Override
+    public ObjectInfo write(String name, byte[] content, String contentType) {
+        ObjectInfo info = origin.write(name, content, contentType);
+        store(info, content);
+        return info;
+    }
+
+    @Override
+    public int deletePrefix(String prefix, int pageSize, IntConsumer onPage) {
+        int deleted = origin.deletePrefix(prefix, pageSize, onPage);
+        cache.deletePrefix(prefix, pageSize);
+        synchronized (entries) {
+            Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Long> entry = it.next();
+                if (entry.getKey().startsWith(prefix)) {
+                    totalBytes -= entry.getValue();
+                    it.remove();
+                }
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public Optional<Path> localPath(ObjectInfo info) {
+        ObjectInfo local = cached(info);
+        return local != null ? cache.localPath(local) : Optional.empty();
+    }
+
+    /**
+     * Uploads diretos vão só para a origem; a cópia local é feita na primeira
+     * leitura.
+     */
+    @Override
+    public Optional<SignedUpload> signUpload(String name, String contentType, long maxBytes, long ttlSeconds) {
+        return origin.signUpload(name, contentType, maxBytes, ttlSeconds);
+    }
+
+    /**
+     * Cópia local do objeto, baixando-o inteiro da origem se couber no cache.
+     * null se o objeto não deve ficar em disco.
+     */
+    private ObjectInfo cached(ObjectInfo info) {
+        String key = cacheKey(info);
+        if (!contains(key)) {
+            if (info.getSize() > maxEntryBytes || info.getSize() > maxBytes) {
+                return null;
+            }
+            store(info, origin.read(info));
+        }
+        ObjectInfo local = cache.stat(key);
+        if (local == null) {
+            forget(key);
+        }
+        return local;
+    }
+
+    private void store(ObjectInfo info, byte[] content) {
+        if (info == null || content.length > maxEntryBytes || content.length > maxBytes) {
+            return;
+        }
+        String key = cacheKey(info);
+        try {
+            cache.write(key, content, info.getContentType());
+        } catch (UncheckedIOException e) {
+            LOG.warn("TieredAssetStorage: erro ao gravar {} no disco: {}", key, e.getMessage());
+            return;
+        }
+        synchronized (entries) {
+            Long previous = entries.put(key, (long) content.length);
+            if (previous != null) {
+                totalBytes -= previous;
+            }
+            totalBytes += content.length;
+            evict();
+        }
+    }
+
+    private boolean contains(String key) {
+        synchronized (entries) {
+            return entries.get(key) != null;
+        }
+    }
+
+    private void forget(String key) {
+        synchronized (entries) {
+            Long size = entries.remove(key);
+            if (size != null) {
+                totalBytes -= size;
+            }
+        }
+    }
+
+    // Chamado com o lock de entries
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            try {
+                Files.deleteIfExists(cache.resolve(eldest.getKey()));
+            } catch (IOException e) {
+                LOG.warn("TieredAssetStorage: erro ao remover {}: {}", eldest.getKey(), e.getMessage());
+            }
+            totalBytes -= eldest.getValue();
+            it.remove();
+        }
+    }
+
+    /**
+     * Recria o índice a partir dos arquivos já em disco, do mais antigo para o
+     * mais recente (mtime), respeitando o limite atual.
+     */
+    private void loadIndex() {
+        try (Stream<Path> files = Files.walk(cache.getRoot())) {
+            List<Path> existing = files.filter(Files::isRegularFile)
+                    .sorted(Comparator.comparingLong(TieredAssetStorage::modifiedMillis))
+                    .toList();
+            synchronized (entries) {
+                for (Path file : existing) {
+                    String key = cache.nameOf(file);
+                    if (key.indexOf(GENERATION_SEPARATOR) < 0 || key.endsWith(LocalAssetStorage.TEMP_SUFFIX)) {
+                        // Temporário de uma gravação interrompida
+                        Files.deleteIfExists(file);
+                        continue;
+                    }
+                    long size = Files.size(file);
+                    entries.put(key, size);
+                    totalBytes += size;
+                }
+                evict();
+            }
+            LOG.info("TieredAssetStorage: {} objetos ({} bytes) em {}", entries.size(), totalBytes,
+                    cache.getRoot());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long modifiedMillis(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    private static String cacheKey(ObjectInfo info) {
+        return info.getName() + GENERATION_SEPARATOR + info.getGeneration();
+    }
+}
@@ -0,0 +1,168 @@
+package gcfv2.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Template HTML pré-compilado com slots nomeados.
+ *
+ * O texto é quebrado uma única vez (na compilação) em trechos literais e
+ * slots; renderizar apenas concatena os trechos com os valores num buffer
+ * reaproveitado por thread, sem reparsear o template nem passar por
+ * String.format.
+ *
+ * Sintaxe:
+ * - {@code {{nome}}}: valor com escape HTML (& < > " ')
+ * - {@code {{{nome}}}}: valor inserido sem escape (fragmentos HTML confiáveis)
+ *
+ * Valores null viram string vazia; um slot sem valor informado é erro.
+ */
+public final class HtmlTemplate {
+
+    // Buffers maiores que isso não ficam retidos na thread
+    private static final int MAX_RETAINED_BUFFER = 256 * 1024;
+
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal
+            .withInitial(() -> new StringBuilder(16 * 1024));
+
+    private final String name;
+    private final String[] literals;
+    private final String[] slots;
+    private final boolean[] raw;
+    private final int literalLength;
+
+    private HtmlTemplate(String name, String[] literals, String[] slots, boolean[] raw) {
+        this.name = name;
+        this.literals = literals;
+        this.slots = slots;
+        this.raw = raw;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * Compila o texto do template.
+     *
+     * @throws IllegalArgumentException se houver um slot sem fechamento ou vazio
+     */
+    public static HtmlTemplate compile(String name, String source) {
+        List<String> literals = new ArrayList<>();
+        List<String> slots = new ArrayList<>();
+        List<Boolean> raw = new ArrayList<>();
+
+        int pos = 0;
+        while (true) {
+            int open = source.indexOf("{{", pos);
+            if (open < 0) {
+                literals.add(source.substring(pos));
+                break;
+            }
+            boolean isRaw = source.startsWith("{{{", open);
+            String closing = isRaw ? "}}}" : "}}";
+            int start = open + (isRaw ? 3 : 2);
+            int close = source.indexOf(closing, start);
+            if (close < 0) {
+                throw new IllegalArgumentException("Template " + name + ": slot sem fechamento na posição " + open);
+            }
+            String slot = source.substring(start, close).trim();
+            if (slot.isEmpty()) {
+                throw new IllegalArgumentException("Template " + name + ": slot vazio na posição " + open);
+            }
+            literals.add(source.substring(pos, open));
+            slots.add(slot);
+            raw.add(isRaw);
+            pos = close + closing.length();
+        }
+
+        boolean[] rawFlags = new boolean[raw.size()];
+        for (int i = 0; i < rawFlags.length; i++) {
+            rawFlags[i] = raw.get(i);
+        }
+        return new HtmlTemplate(name, literals.toArray(new String[0]), slots.toArray(new String[0]), rawFlags);
+    }
+
+    /**
+     * Monta o mapa de valores a partir de pares nome/valor (aceita null).
+     */
+    public static Map<String, Object> slots(Object... nameValuePairs) {
+        if (nameValuePairs.length % 2 != 0) {
+            throw new IllegalArgumentException("Pares nome/valor incompletos");
+        }
+        Map<String, Object> values = new HashMap<>(nameValuePairs.length);
+        for (int i = 0; i < nameValuePairs.length; i += 2) {
+            values.put((String) nameValuePairs[i], nameValuePairs[i + 1]);
+        }
+        return values;
+    }
+
+    public String render(Map<String, ?> values) {
+        StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+        buffer.ensureCapacity(literalLength + 1024);
+        try {
+            renderTo(buffer, values);
+            return buffer.toString();
+        } finally {
+            if (buffer.capacity() > MAX_RETAINED_BUFFER) {
+                BUFFER.remove();
+            } else {
+                buffer.setLength(0);
+            }
+        }
+    }
+
+    /**
+     * Renderiza no buffer informado (ex.: para compor vários templates).
+     */
+    public void renderTo(StringBuilder out, Map<String, ?> values) {
+        for (int i = 0; i < slots.length; i++) {
+            out.append(literals[i]);
+            String slot = slots[i];
+            if (!values.containsKey(slot)) {
+                throw new IllegalArgumentException("Template " + name + ": valor ausente para o slot '" + slot + "'");
+            }
+            Object value = values.get(slot);
+            if (value == null) {
+                continue;
+            }
+            if (raw[i]) {
+                out.append(value);
+            } else {
+                escapeHtml(String.valueOf(value), out);
+            }
+        }
+        out.append(literals[slots.length]);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Set<String> getSlots() {
+        Set<String> names = new LinkedHashSet<>();
+        Collections.addAll(names, slots);
+        return names;
+    }
+
+    public static void escapeHtml(String text, StringBuilder out) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&' -> out.append("&amp;");
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '"' -> out.append("&quot;");
+                case '\'' -> out.append("&#39;");
+                default -> out.append(c);
+            }
+        }
+    }
+}
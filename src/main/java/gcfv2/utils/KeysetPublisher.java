@@ -0,0 +1,160 @@
+package gcfv2.utils;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Publisher que percorre uma tabela por keyset (id > último id, LIMIT n),
+ * buscando a próxima página apenas quando o consumidor pede mais itens.
+ *
+ * Usado para respostas grandes: o Micronaut serializa o Publisher como um
+ * array JSON em chunks, então a memória fica limitada a uma página e o
+ * primeiro byte sai após a primeira query, independente do tamanho da tabela.
+ * Cada página usa a conexão só durante a própria query (não segura a conexão
+ * enquanto o cliente lê a resposta).
+ *
+ * As queries rodam no executor informado (nunca no event loop do Netty).
+ */
+public class KeysetPublisher<T> implements Publisher<T> {
+
+    private final BiFunction<Long, Integer, List<T>> pageLoader;
+    private final Function<T, Long> keyExtractor;
+    private final int pageSize;
+    private final Executor executor;
+
+    /**
+     * @param pageLoader   (afterId, limit) → próxima página ordenada pela chave
+     * @param keyExtractor chave de ordenação de um item (normalmente o id)
+     * @param pageSize     tamanho de cada página
+     * @param executor     executor para as queries bloqueantes
+     */
+    public KeysetPublisher(BiFunction<Long, Integer, List<T>> pageLoader, Function<T, Long> keyExtractor,
+            int pageSize, Executor executor) {
+        this.pageLoader = pageLoader;
+        this.keyExtractor = keyExtractor;
+        this.pageSize = pageSize;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> subscriber) {
+        subscriber.onSubscribe(new KeysetSubscription(subscriber));
+    }
+
+    private final class KeysetSubscription implements Subscription, Runnable {
+
+        private final Subscriber<? super T> subscriber;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean cancelled;
+        // Erro de request inválido, entregue pelo drain (sinais serializados, §1.3)
+        private volatile Throwable pendingError;
+
+        // Estado acessado apenas dentro do drain (serializado via wip)
+        private Iterator<T> page = Collections.emptyIterator();
+        private long lastKey = 0L;
+        private boolean exhausted;
+        private boolean done;
+
+        private KeysetSubscription(Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                if (!cancelled) {
+                    pendingError = new IllegalArgumentException("request deve ser positivo (§3.9)");
+                    cancelled = true;
+                    schedule();
+                }
+                return;
+            }
+            requested.getAndAccumulate(n, (current, add) -> {
+                long sum = current + add;
+                return sum < 0 ? Long.MAX_VALUE : sum;
+            });
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        private void schedule() {
+            if (wip.getAndIncrement() == 0) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                try {
+                    drain();
+                } catch (Exception e) {
+                    Throwable pending = pendingError;
+                    if (!done && (!cancelled || pending != null)) {
+                        done = true;
+                        subscriber.onError(pending != null ? pending : e);
+                    }
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void drain() {
+            for (;;) {
+                if (done) {
+                    return;
+                }
+                Throwable error = pendingError;
+                if (error != null) {
+                    done = true;
+                    subscriber.onError(error);
+                    return;
+                }
+                if (cancelled) {
+                    return;
+                }
+
+                if (!page.hasNext()) {
+                    if (exhausted) {
+                        done = true;
+                        subscriber.onComplete();
+                        return;
+                    }
+                    // Só busca a próxima página quando houver demanda
+                    if (requested.get() == 0) {
+                        return;
+                    }
+                    List<T> next = pageLoader.apply(lastKey, pageSize);
+                    exhausted = next.size() < pageSize;
+                    if (!next.isEmpty()) {
+                        lastKey = keyExtractor.apply(next.get(next.size() - 1));
+                    }
+                    page = next.iterator();
+                    continue;
+                }
+
+                if (requested.get() == 0) {
+                    return;
+                }
+                requested.decrementAndGet();
+                subscriber.onNext(page.next());
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package gcfv2.utils;
+
+/**
+ * Conjunto de longs com endereçamento aberto sobre um long[] (sem boxing nem
+ * objetos por entrada): ~8-16 bytes por elemento, contra ~100 de um
+ * HashSet&lt;String&gt;.
+ *
+ * Usado para deduplicar grandes volumes por hash de 64 bits (ex.: e-mails de
+ * um broadcast). O valor 0 é reservado como "vazio" e é remapeado.
+ */
+public class LongHashSet {
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] table;
+    private int size;
+    private int resizeAt;
+
+    public LongHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        this.table = new long[capacity];
+        this.resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    /**
+     * Adiciona o valor. Retorna false se já estava presente.
+     */
+    public boolean add(long value) {
+        if (value == 0) {
+            value = 0x9E3779B97F4A7C15L;
+        }
+        if (size >= resizeAt) {
+            grow();
+        }
+        if (insert(table, value)) {
+            size++;
+            return true;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static boolean insert(long[] table, long value) {
+        int mask = table.length - 1;
+        int slot = (int) mix(value) & mask;
+        while (true) {
+            long current = table[slot];
+            if (current == 0) {
+                table[slot] = value;
+                return true;
+            }
+            if (current == value) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void grow() {
+        long[] old = table;
+        long[] bigger = new long[old.length << 1];
+        for (long value : old) {
+            if (value != 0) {
+                insert(bigger, value);
+            }
+        }
+        table = bigger;
+        resizeAt = (int) (bigger.length * LOAD_FACTOR);
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    /**
+     * Hash de 64 bits (FNV-1a) de uma string, para uso com {@link #add(long)}.
+     */
+    public static long hash64(CharSequence text) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,49 @@
+package gcfv2.utils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limitador de taxa simples por intervalo fixo: no máximo {@code permitsPerSecond}
+ * liberações por segundo, distribuídas uniformemente entre as threads que
+ * chamam {@link #acquire()}.
+ *
+ * Cada chamada reserva o próximo slot livre e dorme até ele, então rajadas de
+ * várias threads são espaçadas em vez de estourar o limite do provedor.
+ * {@code permitsPerSecond <= 0} desliga o limite.
+ */
+public class RateLimiter {
+
+    private final long intervalNanos;
+    private long nextFreeSlot;
+
+    public RateLimiter(double permitsPerSecond) {
+        this.intervalNanos = permitsPerSecond > 0 ? (long) (1_000_000_000L / permitsPerSecond) : 0L;
+        this.nextFreeSlot = System.nanoTime();
+    }
+
+    /**
+     * Bloqueia até que a próxima liberação esteja disponível.
+     */
+    public void acquire() throws InterruptedException {
+        if (intervalNanos == 0) {
+            return;
+        }
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long slot = Math.max(now, nextFreeSlot);
+            nextFreeSlot = slot + intervalNanos;
+            waitNanos = slot - now;
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Adia as próximas liberações (ex.: provedor respondeu 429 com Retry-After).
+     */
+    public synchronized void pause(long duration, TimeUnit unit) {
+        nextFreeSlot = Math.max(nextFreeSlot, System.nanoTime() + unit.toNanos(duration));
+    }
+}
@@ -0,0 +1,21 @@
+-- Reservas de crédito (reserve → commit/release) com chave de idempotência
+CREATE TABLE credit_reservations (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    idempotency_key VARCHAR(100) NOT NULL,
+    owner_id BIGINT NOT NULL,                    -- Dono dos créditos (Personal para professores)
+    user_id BIGINT NOT NULL,                     -- Usuário alvo (registrado no histórico)
+    reason VARCHAR(20) NOT NULL,                 -- DIETA, TREINO, ANALISE
+    analysis_type VARCHAR(100) NULL,
+    amount INT NOT NULL,
+    from_subscription INT NOT NULL DEFAULT 0,    -- Parte debitada de subscription_credits
+    from_purchased INT NOT NULL DEFAULT 0,       -- Parte debitada de purchased_credits
+    balance_after INT NOT NULL DEFAULT 0,        -- Saldo do dono logo após a reserva
+    status VARCHAR(20) NOT NULL,                 -- RESERVED, COMMITTED, RELEASED
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    expires_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NULL,
+
+    UNIQUE KEY uk_cr_idempotency_key (idempotency_key),
+    INDEX idx_cr_status_expires (status, expires_at),
+    INDEX idx_cr_owner_id (owner_id)
+);
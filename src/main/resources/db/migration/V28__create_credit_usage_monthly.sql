@@ -0,0 +1,30 @@
+-- Totais mensais de consumo de créditos por usuário, motivo e origem.
+-- Mantido incrementalmente a cada consumo registrado (CreditLedgerService),
+-- para que o resumo de /credit-history não precise varrer o histórico.
+CREATE TABLE credit_usage_monthly (
+    user_id BIGINT NOT NULL,
+    period INT NOT NULL,                         -- Ano/mês no formato AAAAMM (ex: 202610)
+    reason VARCHAR(20) NOT NULL,                 -- DIETA, TREINO, ANALISE
+    credit_source VARCHAR(20) NOT NULL,          -- SUBSCRIPTION, PURCHASED, FREE
+    credits_consumed BIGINT NOT NULL DEFAULT 0,
+    generations INT NOT NULL DEFAULT 0,          -- Quantidade de consumos registrados
+    free_generations INT NOT NULL DEFAULT 0,     -- Consumos com was_free = true
+
+    PRIMARY KEY (user_id, period, reason, credit_source),
+    FOREIGN KEY (user_id) REFERENCES usuario(id) ON DELETE CASCADE
+);
+
+-- Carga inicial a partir do histórico existente
+INSERT INTO credit_usage_monthly (user_id, period, reason, credit_source, credits_consumed, generations, free_generations)
+SELECT user_id,
+       YEAR(created_at) * 100 + MONTH(created_at),
+       reason,
+       credit_source,
+       SUM(credits_consumed),
+       COUNT(*),
+       SUM(CASE WHEN was_free = true THEN 1 ELSE 0 END)
+FROM credit_consumption_history
+GROUP BY user_id, YEAR(created_at) * 100 + MONTH(created_at), reason, credit_source;
+
+-- Paginação por keyset do histórico (user_id = ? AND id < ? ORDER BY id DESC)
+CREATE INDEX idx_cch_user_id_id ON credit_consumption_history (user_id, id);
@@ -0,0 +1,17 @@
+-- Exclusões de conta processadas em background (em lotes), com progresso
+CREATE TABLE user_deletion_jobs (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id BIGINT NOT NULL,                     -- Usuário sendo excluído (sem FK: a linha some no fim)
+    requested_by BIGINT NOT NULL,
+    status VARCHAR(20) NOT NULL,                 -- PENDING, RUNNING, COMPLETED, FAILED
+    current_step VARCHAR(50) NULL,               -- Etapa em andamento (ex: workout_executions)
+    rows_deleted BIGINT NOT NULL DEFAULT 0,
+    objects_deleted INT NOT NULL DEFAULT 0,      -- Arquivos removidos do GCS
+    error_message VARCHAR(1000) NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NULL,
+    completed_at TIMESTAMP NULL,
+
+    INDEX idx_udj_status (status),
+    INDEX idx_udj_user_id (user_id)
+);
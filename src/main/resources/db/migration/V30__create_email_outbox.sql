@@ -0,0 +1,19 @@
+-- Fila persistente de e-mails: os handlers apenas inserem aqui; o
+-- EmailDispatcher envia em background com retry/backoff
+CREATE TABLE email_outbox (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    to_email VARCHAR(255) NOT NULL,
+    subject VARCHAR(500) NOT NULL,
+    html MEDIUMTEXT NOT NULL,
+    category VARCHAR(50) NULL,                   -- Ex: PASSWORD_RESET, WELCOME, BROADCAST
+    status VARCHAR(20) NOT NULL,                 -- PENDING, SENDING, SENT, DEAD
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_error VARCHAR(1000) NULL,
+    provider_id VARCHAR(100) NULL,               -- Id retornado pelo Resend
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NULL,
+    sent_at TIMESTAMP NULL,
+
+    INDEX idx_eo_status_next (status, next_attempt_at)
+);
@@ -0,0 +1,21 @@
+-- Broadcasts administrativos processados em background, com checkpoint por
+-- lote para retomar após restart
+CREATE TABLE broadcast_jobs (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    requested_by BIGINT NOT NULL,
+    target_audience VARCHAR(50) NOT NULL,        -- ALL, PERSONALS, PERSONALS_AND_PROFESSORS, STUDENTS, SPECIFIC
+    specific_email VARCHAR(255) NULL,
+    subject VARCHAR(500) NOT NULL,               -- Assunto final (já com prefixo/sufixo)
+    html MEDIUMTEXT NOT NULL,                    -- Renderizado uma única vez
+    status VARCHAR(20) NOT NULL,                 -- PENDING, RUNNING, COMPLETED, FAILED
+    total_recipients INT NOT NULL DEFAULT 0,     -- Estimativa no momento do agendamento
+    sent_count INT NOT NULL DEFAULT 0,
+    failed_count INT NOT NULL DEFAULT 0,
+    last_recipient_id BIGINT NOT NULL DEFAULT 0, -- Checkpoint: último usuário processado
+    error_message VARCHAR(1000) NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NULL,
+    completed_at TIMESTAMP NULL,
+
+    INDEX idx_bj_status (status)
+);
@@ -0,0 +1,6 @@
+-- Chave de idempotência única por dono dos créditos (não global): a mesma
+-- chave usada por outro dono não deve devolver a reserva dele
+ALTER TABLE credit_reservations
+    DROP INDEX uk_cr_idempotency_key,
+    DROP INDEX idx_cr_owner_id,
+    ADD UNIQUE KEY uk_cr_owner_idempotency_key (owner_id, idempotency_key);
@@ -0,0 +1,6 @@
+-- O corpo do e-mail (que pode conter senha provisória ou link de redefinição)
+-- é apagado ao sair da fila (SENT/DEAD); as linhas finalizadas são removidas
+-- após email.outbox.retention-days
+ALTER TABLE email_outbox
+    MODIFY html MEDIUMTEXT NULL,
+    ADD INDEX idx_eo_status_updated (status, updated_at);
@@ -0,0 +1,16 @@
+-- Lotes de broadcast que falharam (após as tentativas), identificados pelo
+-- intervalo de ids de usuário da página, para reenvio posterior
+CREATE TABLE broadcast_failed_batches (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    job_id BIGINT NOT NULL,
+    first_recipient_id BIGINT NOT NULL,
+    last_recipient_id BIGINT NOT NULL,
+    recipient_count INT NOT NULL,
+    status VARCHAR(20) NOT NULL,                 -- FAILED, RETRYING, RESENT
+    last_error VARCHAR(1000) NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NULL,
+
+    UNIQUE KEY uk_bfb_job_range (job_id, first_recipient_id, last_recipient_id),
+    INDEX idx_bfb_job_status (job_id, status)
+);
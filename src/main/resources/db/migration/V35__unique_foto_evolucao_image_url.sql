@@ -0,0 +1,31 @@
+-- Um registro por objeto no storage: a finalização repetida de um upload
+-- direto não pode gravar a mesma foto duas vezes
+
+-- Duplicatas existentes: fica o registro mais antigo de cada image_url
+DELETE f FROM foto_evolucao f
+    JOIN foto_evolucao k ON k.image_url = f.image_url AND k.id < f.id;
+
+-- Só alarga a coluna (VARCHAR menor que 512), mantendo nulidade, charset e
+-- collation atuais; outras definições ficam como estão
+SET @widen_image_url = (
+    SELECT IF(DATA_TYPE = 'varchar' AND CHARACTER_MAXIMUM_LENGTH < 512,
+              CONCAT('ALTER TABLE foto_evolucao MODIFY image_url VARCHAR(512)',
+                     ' CHARACTER SET ', CHARACTER_SET_NAME, ' COLLATE ', COLLATION_NAME,
+                     IF(IS_NULLABLE = 'NO', ' NOT NULL', ' NULL')),
+              'DO 0')
+    FROM information_schema.COLUMNS
+    WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'foto_evolucao' AND COLUMN_NAME = 'image_url');
+PREPARE widen_image_url FROM @widen_image_url;
+EXECUTE widen_image_url;
+DEALLOCATE PREPARE widen_image_url;
+
+-- Colunas TEXT exigem prefixo no índice (URLs cabem em 512 caracteres)
+SET @unique_image_url = (
+    SELECT IF(DATA_TYPE IN ('text', 'mediumtext', 'longtext'),
+              'ALTER TABLE foto_evolucao ADD UNIQUE KEY uk_foto_evolucao_image_url (image_url(512))',
+              'ALTER TABLE foto_evolucao ADD UNIQUE KEY uk_foto_evolucao_image_url (image_url)')
+    FROM information_schema.COLUMNS
+    WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'foto_evolucao' AND COLUMN_NAME = 'image_url');
+PREPARE unique_image_url FROM @unique_image_url;
+EXECUTE unique_image_url;
+DEALLOCATE PREPARE unique_image_url;
@@ -0,0 +1,91 @@
+package gcfv2;
+
+import gcfv2.storage.ObjectInfo;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AssetControllerTest {
+
+    private static final long SIZE = 1000;
+    private static final long UPDATED = 1_700_000_000_123L;
+
+    @Test
+    void intervaloFechado() {
+        assertArrayEquals(new long[] { 0, 499 }, AssetController.parseRange("bytes=0-499", SIZE));
+        assertArrayEquals(new long[] { 500, 500 }, AssetController.parseRange("bytes=500-500", SIZE));
+    }
+
+    @Test
+    void intervaloAbertoVaiAteOFim() {
+        assertArrayEquals(new long[] { 900, 999 }, AssetController.parseRange("bytes=900-", SIZE));
+    }
+
+    @Test
+    void fimAlemDoObjetoEhLimitado() {
+        assertArrayEquals(new long[] { 990, 999 }, AssetController.parseRange("bytes=990-5000", SIZE));
+    }
+
+    @Test
+    void sufixoDevolveOsUltimosBytes() {
+        assertArrayEquals(new long[] { 800, 999 }, AssetController.parseRange("bytes=-200", SIZE));
+        assertArrayEquals(new long[] { 0, 999 }, AssetController.parseRange("bytes=-5000", SIZE));
+    }
+
+    @Test
+    void foraDoObjetoEhInsatisfazivel() {
+        assertSame(AssetController.UNSATISFIABLE, AssetController.parseRange("bytes=1000-", SIZE));
+        assertSame(AssetController.UNSATISFIABLE, AssetController.parseRange("bytes=-0", SIZE));
+        assertSame(AssetController.UNSATISFIABLE, AssetController.parseRange("bytes=0-", 0));
+    }
+
+    @Test
+    void cabecalhoInvalidoOuMultiploEhIgnorado() {
+        assertNull(AssetController.parseRange("items=0-10", SIZE));
+        assertNull(AssetController.parseRange("bytes=0-10,20-30", SIZE));
+        assertNull(AssetController.parseRange("bytes=10", SIZE));
+        assertNull(AssetController.parseRange("bytes=abc-10", SIZE));
+        assertNull(AssetController.parseRange("bytes=50-10", SIZE));
+    }
+
+    @Test
+    void ifNoneMatchComparaEtag() {
+        ObjectInfo info = info();
+
+        assertTrue(AssetController.notModified(info, "\"abc\"", "\"abc\"", null));
+        assertTrue(AssetController.notModified(info, "\"abc\"", "\"x\", W/\"abc\"", null));
+        assertTrue(AssetController.notModified(info, "\"abc\"", "*", null));
+        assertFalse(AssetController.notModified(info, "\"abc\"", "\"outro\"", null));
+    }
+
+    @Test
+    void ifNoneMatchTemPrioridadeSobreIfModifiedSince() {
+        assertFalse(AssetController.notModified(info(), "\"abc\"", "\"outro\"", httpDate(UPDATED + 60_000)));
+    }
+
+    @Test
+    void ifModifiedSinceComPrecisaoDeSegundos() {
+        ObjectInfo info = info();
+
+        assertTrue(AssetController.notModified(info, "\"abc\"", null, httpDate(UPDATED)));
+        assertTrue(AssetController.notModified(info, "\"abc\"", null, httpDate(UPDATED + 60_000)));
+        assertFalse(AssetController.notModified(info, "\"abc\"", null, httpDate(UPDATED - 60_000)));
+        assertFalse(AssetController.notModified(info, "\"abc\"", null, "ontem"));
+    }
+
+    private static ObjectInfo info() {
+        return new ObjectInfo("images/a.jpg", SIZE, "image/jpeg", "abc", UPDATED, 1L);
+    }
+
+    private static String httpDate(long epochMillis) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(epochMillis).atOffset(ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,150 @@
+package gcfv2;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CreditLedgerServiceTest {
+
+    private static final long OWNER_ID = 7L;
+
+    private RepositoryFake<UsuarioRepository> usuarios;
+    private RepositoryFake<CreditConsumptionHistoryRepository> history;
+    private CreditLedgerService ledger;
+
+    @BeforeEach
+    void setUp() {
+        usuarios = RepositoryFake.of(UsuarioRepository.class);
+        history = RepositoryFake.of(CreditConsumptionHistoryRepository.class)
+                .on("save", args -> args[0]);
+        ledger = new CreditLedgerService(usuarios.get(), history.get(),
+                new AccountSnapshotService(usuarios.get(), 10, 60));
+    }
+
+    @Test
+    void holdDebitaPrimeiroDaAssinatura() {
+        saldo(3, 5);
+        usuarios.on("debitCredits", args -> 1);
+
+        CreditLedgerService.DebitResult result = ledger.hold(owner(), 4);
+
+        assertTrue(result.isSuccess());
+        assertEquals(3, result.getFromSubscription());
+        assertEquals(1, result.getFromPurchased());
+        assertEquals(0, result.getSubscriptionCredits());
+        assertEquals(4, result.getPurchasedCredits());
+        assertEquals("PURCHASED", result.getCreditSource());
+        assertEquals(1, usuarios.calls("debitCredits").size());
+        assertArrayEquals(new Object[] { OWNER_ID, 4 }, usuarios.calls("debitCredits").get(0));
+    }
+
+    @Test
+    void holdCobertoPelaAssinaturaNaoTocaComprados() {
+        saldo(10, 2);
+        usuarios.on("debitCredits", args -> 1);
+
+        CreditLedgerService.DebitResult result = ledger.hold(owner(), 4);
+
+        assertTrue(result.isSuccess());
+        assertEquals(4, result.getFromSubscription());
+        assertEquals(0, result.getFromPurchased());
+        assertEquals("SUBSCRIPTION", result.getCreditSource());
+        assertEquals(8, result.getBalance());
+    }
+
+    @Test
+    void saldoInsuficienteNaoExecutaUpdate() {
+        saldo(1, 1);
+
+        CreditLedgerService.DebitResult result = ledger.hold(owner(), 3);
+
+        assertFalse(result.isSuccess());
+        assertEquals(2, result.getBalance());
+        assertTrue(usuarios.calls("debitCredits").isEmpty());
+    }
+
+    @Test
+    void updateSemLinhaAfetadaEhSaldoInsuficiente() {
+        saldo(5, 0);
+        usuarios.on("debitCredits", args -> 0);
+
+        CreditLedgerService.DebitResult result = ledger.hold(owner(), 2);
+
+        assertFalse(result.isSuccess());
+        assertEquals(0, result.getCreditsConsumed());
+    }
+
+    @Test
+    void donoInexistenteEhSaldoInsuficiente() {
+        CreditLedgerService.DebitResult result = ledger.hold(owner(), 1);
+
+        assertFalse(result.isSuccess());
+        assertEquals(0, result.getBalance());
+        assertTrue(usuarios.calls("debitCredits").isEmpty());
+    }
+
+    @Test
+    void debitRegistraHistoricoEAcumuladoMensal() {
+        saldo(5, 0);
+        usuarios.on("debitCredits", args -> 1);
+
+        CreditLedgerService.DebitResult result = ledger.debit(owner(), 2, 9L, "ANALYSIS", "BODY");
+
+        assertTrue(result.isSuccess());
+        assertEquals(1, history.calls("save").size());
+        assertArrayEquals(new Object[] { 9L, CreditLedgerService.periodOf(LocalDate.now()), "ANALYSIS",
+                "SUBSCRIPTION", 2, 0 }, history.calls("incrementMonthlyUsage").get(0));
+    }
+
+    @Test
+    void debitSemSaldoNaoRegistraHistorico() {
+        saldo(0, 1);
+
+        assertFalse(ledger.debit(owner(), 2, 9L, "ANALYSIS", "BODY").isSuccess());
+        assertTrue(history.calls("save").isEmpty());
+        assertTrue(history.calls("incrementMonthlyUsage").isEmpty());
+    }
+
+    @Test
+    void recordConsumptionSomaAoPeriodoDoRegistro() {
+        ledger.recordConsumption(9L, "ANALYSIS", "BODY", 3, "PURCHASED");
+
+        CreditConsumptionHistory entry = (CreditConsumptionHistory) history.calls("save").get(0)[0];
+        assertArrayEquals(new Object[] { 9L, CreditLedgerService.periodOf(entry.getCreatedAt().toLocalDate()),
+                "ANALYSIS", "PURCHASED", 3, 0 }, history.calls("incrementMonthlyUsage").get(0));
+    }
+
+    @Test
+    void periodoEhAnoEMes() {
+        assertEquals(202601, CreditLedgerService.periodOf(LocalDate.of(2026, 1, 31)));
+        assertEquals(202512, CreditLedgerService.periodOf(LocalDate.of(2025, 12, 1)));
+    }
+
+    @Test
+    void origemDoCreditoSegueAUltimaUnidadeDebitada() {
+        assertEquals("PURCHASED", CreditLedgerService.creditSourceOf(3, 1));
+        assertEquals("PURCHASED", CreditLedgerService.creditSourceOf(0, 2));
+        assertEquals("SUBSCRIPTION", CreditLedgerService.creditSourceOf(2, 0));
+        assertEquals("FREE", CreditLedgerService.creditSourceOf(0, 0));
+    }
+
+    private void saldo(int subscription, int purchased) {
+        Usuario current = owner();
+        current.setSubscriptionCredits(subscription);
+        current.setPurchasedCredits(purchased);
+        usuarios.on("findByIdForUpdate", args -> Optional.of(current));
+    }
+
+    private static Usuario owner() {
+        Usuario usuario = new Usuario();
+        usuario.setId(OWNER_ID);
+        return usuario;
+    }
+}
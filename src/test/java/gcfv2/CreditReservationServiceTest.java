@@ -0,0 +1,225 @@
+package gcfv2;
+
+import io.micronaut.data.exceptions.DataAccessException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CreditReservationServiceTest {
+
+    private static final long OWNER_ID = 7L;
+    private static final long USER_ID = 21L;
+
+    private final Map<String, CreditReservation> stored = new HashMap<>();
+    private RepositoryFake<CreditReservationRepository> reservations;
+    private RepositoryFake<UsuarioRepository> usuarios;
+    private RepositoryFake<CreditConsumptionHistoryRepository> history;
+    private CreditReservationService service;
+
+    @BeforeEach
+    void setUp() {
+        reservations = RepositoryFake.of(CreditReservationRepository.class)
+                .on("findByOwnerIdAndIdempotencyKey",
+                        args -> Optional.ofNullable(stored.get(args[0] + "/" + args[1])))
+                .on("save", args -> {
+                    CreditReservation reservation = (CreditReservation) args[0];
+                    reservation.setId((long) stored.size() + 1);
+                    stored.put(reservation.getOwnerId() + "/" + reservation.getIdempotencyKey(), reservation);
+                    return reservation;
+                })
+                .on("transitionStatus", args -> 1);
+        usuarios = RepositoryFake.of(UsuarioRepository.class)
+                .on("findByIdForUpdate", args -> Optional.of(owner(10, 5)))
+                .on("debitCredits", args -> 1);
+        history = RepositoryFake.of(CreditConsumptionHistoryRepository.class)
+                .on("save", args -> args[0]);
+        CreditLedgerService ledger = new CreditLedgerService(usuarios.get(), history.get(),
+                new AccountSnapshotService(usuarios.get(), 10, 60));
+        service = new CreditReservationService(reservations.get(), ledger);
+    }
+
+    @Test
+    void reservaRetemOsCreditosUmaVez() {
+        CreditReservationService.ReservationResult result = reserve("k1", 4);
+
+        assertTrue(result.isSuccess());
+        assertFalse(result.isReplayed());
+        assertEquals(CreditReservation.STATUS_RESERVED, result.getReservation().getStatus());
+        assertEquals(4, (int) result.getReservation().getFromSubscription());
+        assertEquals(0, (int) result.getReservation().getFromPurchased());
+        assertEquals(1, usuarios.calls("debitCredits").size());
+    }
+
+    @Test
+    void repeticaoComMesmosParametrosNaoDebitaDeNovo() {
+        CreditReservation original = reserve("k1", 4).getReservation();
+
+        CreditReservationService.ReservationResult replay = reserve("k1", 4);
+
+        assertTrue(replay.isSuccess());
+        assertTrue(replay.isReplayed());
+        assertSame(original, replay.getReservation());
+        assertEquals(1, usuarios.calls("debitCredits").size());
+    }
+
+    @Test
+    void mesmaChaveComOutrosParametrosEhRecusada() {
+        reserve("k1", 4);
+
+        CreditReservationService.ReservationResult result = reserve("k1", 5);
+
+        assertFalse(result.isSuccess());
+        assertEquals(CreditReservationService.Failure.KEY_REUSED, result.getFailure());
+        assertEquals(1, usuarios.calls("debitCredits").size());
+    }
+
+    @Test
+    void chaveEhIsoladaPorDono() {
+        reserve("k1", 4);
+
+        Usuario outroDono = owner(10, 0);
+        outroDono.setId(8L);
+        CreditReservationService.ReservationResult result = service.reserve("k1", outroDono, 4, USER_ID,
+                "ANALYSIS", "BODY");
+
+        assertTrue(result.isSuccess());
+        assertFalse(result.isReplayed());
+        assertEquals(2, usuarios.calls("debitCredits").size());
+    }
+
+    @Test
+    void reservaLiberadaNaoEhReaproveitada() {
+        reserve("k1", 4).getReservation().setStatus(CreditReservation.STATUS_RELEASED);
+
+        CreditReservationService.ReservationResult result = reserve("k1", 4);
+
+        assertFalse(result.isSuccess());
+        assertEquals(CreditReservationService.Failure.NOT_ACTIVE, result.getFailure());
+    }
+
+    @Test
+    void reservaExpiradaNaoEhReaproveitada() {
+        reserve("k1", 4).getReservation().setExpiresAt(LocalDateTime.now().minusSeconds(1));
+
+        CreditReservationService.ReservationResult result = reserve("k1", 4);
+
+        assertEquals(CreditReservationService.Failure.NOT_ACTIVE, result.getFailure());
+    }
+
+    @Test
+    void saldoInsuficienteNaoGravaReserva() {
+        usuarios.on("findByIdForUpdate", args -> Optional.of(owner(1, 1)));
+
+        CreditReservationService.ReservationResult result = reserve("k1", 4);
+
+        assertEquals(CreditReservationService.Failure.INSUFFICIENT_CREDITS, result.getFailure());
+        assertTrue(stored.isEmpty());
+    }
+
+    @Test
+    void chaveGravadaPorOutraInstanciaViraRepeticao() {
+        CreditReservation concorrente = reservation("k1", 4, CreditReservation.STATUS_RESERVED);
+        reservations.on("save", args -> {
+            stored.put(OWNER_ID + "/k1", concorrente);
+            throw new DataAccessException("Duplicate entry 'k1' for key 'uk_cr_owner_idempotency_key'");
+        });
+
+        CreditReservationService.ReservationResult result = reserve("k1", 4);
+
+        assertTrue(result.isSuccess());
+        assertTrue(result.isReplayed());
+        assertSame(concorrente, result.getReservation());
+    }
+
+    @Test
+    void commitRegistraConsumoEhIdempotente() {
+        reserve("k1", 4);
+
+        CreditReservationService.ReservationResult committed = service.commit(OWNER_ID, "k1");
+        CreditReservationService.ReservationResult again = service.commit(OWNER_ID, "k1");
+
+        assertTrue(committed.isSuccess());
+        assertEquals(CreditReservation.STATUS_COMMITTED, committed.getReservation().getStatus());
+        assertTrue(again.isReplayed());
+        assertEquals(1, history.calls("save").size());
+    }
+
+    @Test
+    void commitDeReservaJaLiberadaFalha() {
+        reserve("k1", 4);
+        reservations.on("transitionStatus", args -> 0);
+
+        CreditReservationService.ReservationResult result = service.commit(OWNER_ID, "k1");
+
+        assertEquals(CreditReservationService.Failure.NOT_ACTIVE, result.getFailure());
+        assertTrue(history.calls("save").isEmpty());
+    }
+
+    @Test
+    void releaseDevolveOsCreditosRetidos() {
+        reserve("k1", 4);
+
+        CreditReservationService.ReservationResult released = service.release(OWNER_ID, "k1");
+        CreditReservationService.ReservationResult again = service.release(OWNER_ID, "k1");
+
+        assertTrue(released.isSuccess());
+        assertTrue(again.isReplayed());
+        assertEquals(1, usuarios.calls("refundCredits").size());
+        assertEquals(4, usuarios.calls("refundCredits").get(0)[1]);
+    }
+
+    @Test
+    void chaveInexistente() {
+        assertEquals(CreditReservationService.Failure.NOT_FOUND, service.commit(OWNER_ID, "nada").getFailure());
+        assertEquals(CreditReservationService.Failure.NOT_FOUND, service.release(OWNER_ID, "nada").getFailure());
+    }
+
+    @Test
+    void replayOfComparaValorUsuarioEMotivo() {
+        CreditReservation reservation = reservation("k1", 4, CreditReservation.STATUS_COMMITTED);
+
+        assertTrue(CreditReservationService.replayOf(reservation, 4, USER_ID, "ANALYSIS").isReplayed());
+        assertEquals(CreditReservationService.Failure.KEY_REUSED,
+                CreditReservationService.replayOf(reservation, 4, 99L, "ANALYSIS").getFailure());
+        assertEquals(CreditReservationService.Failure.KEY_REUSED,
+                CreditReservationService.replayOf(reservation, 4, USER_ID, "OUTRO").getFailure());
+        assertNull(CreditReservationService.replayOf(reservation, 4, USER_ID, "ANALYSIS").getFailure());
+    }
+
+    private CreditReservationService.ReservationResult reserve(String key, int amount) {
+        return service.reserve(key, owner(10, 5), amount, USER_ID, "ANALYSIS", "BODY");
+    }
+
+    private static Usuario owner(int subscription, int purchased) {
+        Usuario usuario = new Usuario();
+        usuario.setId(OWNER_ID);
+        usuario.setSubscriptionCredits(subscription);
+        usuario.setPurchasedCredits(purchased);
+        return usuario;
+    }
+
+    private static CreditReservation reservation(String key, int amount, String status) {
+        CreditReservation reservation = new CreditReservation();
+        reservation.setId(100L);
+        reservation.setIdempotencyKey(key);
+        reservation.setOwnerId(OWNER_ID);
+        reservation.setUserId(USER_ID);
+        reservation.setReason("ANALYSIS");
+        reservation.setAmount(amount);
+        reservation.setFromSubscription(amount);
+        reservation.setFromPurchased(0);
+        reservation.setStatus(status);
+        reservation.setExpiresAt(LocalDateTime.now().plusMinutes(10));
+        return reservation;
+    }
+}
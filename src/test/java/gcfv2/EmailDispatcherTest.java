@@ -0,0 +1,125 @@
+package gcfv2;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmailDispatcherTest {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final ExecutorService ioExecutor = Executors.newSingleThreadExecutor();
+    private RepositoryFake<EmailOutboxRepository> outbox;
+    private EmailDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        outbox = RepositoryFake.of(EmailOutboxRepository.class);
+        dispatcher = new EmailDispatcher(outbox.get(), ioExecutor, "", "noreply@example.com", 1, 0,
+                MAX_ATTEMPTS, 30);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.shutdown();
+        ioExecutor.shutdown();
+    }
+
+    @Test
+    void sucessoMarcaComoEnviado() {
+        dispatcher.complete(email(), 1, EmailDispatcher.DeliveryResult.sent("re_123"));
+
+        assertEquals(1, outbox.calls("markSent").size());
+        assertEquals(42L, outbox.calls("markSent").get(0)[0]);
+        assertEquals("re_123", outbox.calls("markSent").get(0)[1]);
+        assertTrue(outbox.calls("reschedule").isEmpty());
+        assertTrue(outbox.calls("markDead").isEmpty());
+    }
+
+    @Test
+    void falhaTemporariaVoltaParaAFilaComBackoff() {
+        LocalDateTime before = LocalDateTime.now();
+
+        dispatcher.complete(email(), 2, EmailDispatcher.DeliveryResult.retryable("HTTP 429"));
+
+        Object[] call = outbox.calls("reschedule").get(0);
+        assertEquals(42L, call[0]);
+        assertEquals(2, call[1]);
+        LocalDateTime next = (LocalDateTime) call[2];
+        assertFalse(next.isBefore(before.plusSeconds(60)));
+        assertFalse(next.isAfter(LocalDateTime.now().plusSeconds(60)));
+        assertEquals("HTTP 429", call[3]);
+        assertTrue(outbox.calls("markDead").isEmpty());
+    }
+
+    @Test
+    void tentativasEsgotadasDescartamOEmail() {
+        dispatcher.complete(email(), MAX_ATTEMPTS, EmailDispatcher.DeliveryResult.retryable("HTTP 503"));
+
+        assertTrue(outbox.calls("reschedule").isEmpty());
+        assertEquals(MAX_ATTEMPTS, outbox.calls("markDead").get(0)[1]);
+        assertEquals("HTTP 503", outbox.calls("markDead").get(0)[2]);
+    }
+
+    @Test
+    void erroPermanenteDescartaNaPrimeiraTentativa() {
+        dispatcher.complete(email(), 1, EmailDispatcher.DeliveryResult.permanent("HTTP 422"));
+
+        assertTrue(outbox.calls("reschedule").isEmpty());
+        assertEquals(1, outbox.calls("markDead").size());
+    }
+
+    @Test
+    void erroLongoEhTruncado() {
+        dispatcher.complete(email(), 1, EmailDispatcher.DeliveryResult.permanent("x".repeat(5000)));
+
+        assertEquals(1000, ((String) outbox.calls("markDead").get(0)[2]).length());
+    }
+
+    @Test
+    void falhaAoAtualizarAFilaNaoPropaga() {
+        outbox.on("markSent", args -> {
+            throw new IllegalStateException("conexão perdida");
+        });
+
+        dispatcher.complete(email(), 1, EmailDispatcher.DeliveryResult.sent("re_123"));
+
+        assertEquals(1, outbox.calls("markSent").size());
+    }
+
+    @Test
+    void semChaveDaApiOErroEhPermanente() {
+        EmailDispatcher.DeliveryResult result = dispatcher.deliver("aluno@example.com", "Assunto", "<p>Oi</p>",
+                "outbox-42");
+
+        assertFalse(result.isSuccess());
+        assertFalse(result.isRetryable());
+    }
+
+    @Test
+    void backoffDobraAteOLimite() {
+        assertEquals(30, EmailDispatcher.backoffSeconds(1));
+        assertEquals(60, EmailDispatcher.backoffSeconds(2));
+        assertEquals(240, EmailDispatcher.backoffSeconds(4));
+        assertEquals(3600, EmailDispatcher.backoffSeconds(8));
+        assertEquals(3600, EmailDispatcher.backoffSeconds(60));
+    }
+
+    private static EmailOutbox email() {
+        EmailOutbox email = new EmailOutbox();
+        email.setId(42L);
+        email.setToEmail("aluno@example.com");
+        email.setSubject("Bem-vindo");
+        email.setHtml("<p>Oi</p>");
+        email.setAttempts(0);
+        return email;
+    }
+}
@@ -0,0 +1,271 @@
+package gcfv2;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImagePipelineTest {
+
+    // IFD0 big-endian com Orientation = 6 e Make = "Cam"
+    private static final byte[] TIFF_ORIENTATION_6 = {
+            'M', 'M', 0, 42, 0, 0, 0, 8,
+            0, 2,
+            0x01, 0x0F, 0, 2, 0, 0, 0, 4, 'C', 'a', 'm', 0,
+            0x01, 0x12, 0, 3, 0, 0, 0, 1, 0, 6, 0, 0,
+            0, 0, 0, 0 };
+
+    // IFD0 little-endian com Orientation = 3
+    private static final byte[] TIFF_ORIENTATION_3_LE = {
+            'I', 'I', 42, 0, 8, 0, 0, 0,
+            1, 0,
+            0x12, 0x01, 3, 0, 1, 0, 0, 0, 3, 0, 0, 0,
+            0, 0, 0, 0 };
+
+    private ImagePipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        pipeline = new ImagePipeline(1, 4, 20, 0.8f);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.shutdown();
+    }
+
+    @Test
+    void orientacaoLidaDoExif() throws IOException {
+        byte[] jpeg = jpeg(80, 40);
+
+        assertEquals(6, ImagePipeline.jpegOrientation(withSegments(jpeg, exif(TIFF_ORIENTATION_6))));
+        assertEquals(3, ImagePipeline.jpegOrientation(withSegments(jpeg, exif(TIFF_ORIENTATION_3_LE))));
+        assertEquals(1, ImagePipeline.jpegOrientation(jpeg));
+        assertEquals(1, ImagePipeline.jpegOrientation(png(10, 10, false)));
+    }
+
+    @Test
+    void variantesSaemRotacionadasEReduzidas() throws IOException {
+        byte[] original = withSegments(jpeg(2000, 1000), exif(TIFF_ORIENTATION_6));
+
+        ImagePipeline.Result result = pipeline.process(original);
+
+        assertEquals("image/jpeg", result.getContentType());
+        assertEquals(".jpg", result.getExtension());
+        BufferedImage full = read(result.get(ImagePipeline.Variant.FULL));
+        assertEquals(800, full.getWidth());
+        assertEquals(1600, full.getHeight());
+        // Canto vermelho (topo esquerdo no original) vai para o topo direito
+        assertTrue(isRed(full.getRGB(full.getWidth() - 5, 5)));
+        BufferedImage thumb = read(result.get(ImagePipeline.Variant.THUMB));
+        assertEquals(256, thumb.getHeight());
+        // Sem EXIF nas variantes: a rotação já foi aplicada
+        assertEquals(1, ImagePipeline.jpegOrientation(result.get(ImagePipeline.Variant.MEDIUM)));
+    }
+
+    @Test
+    void imagemPequenaNaoEhAmpliada() throws IOException {
+        ImagePipeline.Result result = pipeline.process(jpeg(120, 60));
+
+        assertEquals(120, read(result.get(ImagePipeline.Variant.FULL)).getWidth());
+        assertEquals(120, read(result.get(ImagePipeline.Variant.THUMB)).getWidth());
+    }
+
+    @Test
+    void pngComTransparenciaContinuaPng() throws IOException {
+        ImagePipeline.Result result = pipeline.process(png(600, 300, true));
+
+        assertEquals("image/png", result.getContentType());
+        assertEquals(".png", result.getExtension());
+        assertEquals(256, read(result.get(ImagePipeline.Variant.THUMB)).getWidth());
+    }
+
+    @Test
+    void conteudoQueNaoEhImagemNaoEhProcessado() {
+        assertNull(pipeline.process("não é imagem".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void stripMetadataDoJpegMantemSoAOrientacao() throws IOException {
+        byte[] original = withSegments(jpeg(80, 40), exif(TIFF_ORIENTATION_6), comment("Comentário secreto"));
+
+        byte[] stripped = ImagePipeline.stripMetadata(original);
+
+        assertNotNull(stripped);
+        assertEquals(6, ImagePipeline.jpegOrientation(stripped));
+        assertFalse(contains(stripped, "Cam\0".getBytes(StandardCharsets.ISO_8859_1)));
+        assertFalse(contains(stripped, "secreto".getBytes(StandardCharsets.ISO_8859_1)));
+        BufferedImage image = read(stripped);
+        assertEquals(80, image.getWidth());
+        assertEquals(40, image.getHeight());
+    }
+
+    @Test
+    void stripMetadataDoJpegSemOrientacaoNaoGravaExif() throws IOException {
+        byte[] stripped = ImagePipeline.stripMetadata(withSegments(jpeg(40, 20), comment("obs")));
+
+        assertEquals(1, ImagePipeline.jpegOrientation(stripped));
+        assertFalse(contains(stripped, "Exif".getBytes(StandardCharsets.ISO_8859_1)));
+        assertNotNull(read(stripped));
+    }
+
+    @Test
+    void stripMetadataDoPngRemoveChunksDeTexto() throws IOException {
+        byte[] original = withTextChunk(png(30, 20, false), "Author", "Fulano");
+
+        byte[] stripped = ImagePipeline.stripMetadata(original);
+
+        assertTrue(contains(original, "Fulano".getBytes(StandardCharsets.ISO_8859_1)));
+        assertFalse(contains(stripped, "Fulano".getBytes(StandardCharsets.ISO_8859_1)));
+        assertEquals(30, read(stripped).getWidth());
+    }
+
+    @Test
+    void stripMetadataRecusaOutrosFormatosEArquivosTruncados() throws IOException {
+        byte[] jpeg = withSegments(jpeg(40, 20), comment("obs"));
+        byte[] truncated = new byte[20];
+        System.arraycopy(jpeg, 0, truncated, 0, truncated.length);
+
+        assertNull(ImagePipeline.stripMetadata("GIF89a".getBytes(StandardCharsets.ISO_8859_1)));
+        assertNull(ImagePipeline.stripMetadata(truncated));
+    }
+
+    @Test
+    void formatoDetectadoPelaAssinatura() throws IOException {
+        assertEquals("jpeg", ImagePipeline.detectFormat(jpeg(4, 4)));
+        assertEquals("png", ImagePipeline.detectFormat(png(4, 4, false)));
+        assertNull(ImagePipeline.detectFormat("<svg/>".getBytes(StandardCharsets.UTF_8)));
+        assertNull(ImagePipeline.detectFormat(new byte[0]));
+    }
+
+    @Test
+    void caminhoDaVariante() {
+        assertEquals("a/b/uuid.thumb.jpg", ImagePipeline.variantPath("a/b/uuid.jpg", ImagePipeline.Variant.THUMB));
+        assertEquals("a.b/uuid.medium", ImagePipeline.variantPath("a.b/uuid", ImagePipeline.Variant.MEDIUM));
+        assertEquals("a/b/uuid.jpg", ImagePipeline.variantPath("a/b/uuid.jpg", ImagePipeline.Variant.FULL));
+    }
+
+    @Test
+    void varianteEscolhidaPorNomeOuLargura() {
+        assertEquals(ImagePipeline.Variant.THUMB, ImagePipeline.Variant.select(null, "THUMB"));
+        assertEquals(ImagePipeline.Variant.MEDIUM, ImagePipeline.Variant.select(300, null));
+        assertEquals(ImagePipeline.Variant.FULL, ImagePipeline.Variant.select(5000, null));
+        assertNull(ImagePipeline.Variant.select(0, "grande"));
+    }
+
+    private static byte[] jpeg(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, x < width / 5 && y < height / 5 ? 0xFF0000 : 0x0000FF);
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpeg", out);
+        return out.toByteArray();
+    }
+
+    private static byte[] png(int width, int height, boolean alpha) throws IOException {
+        BufferedImage image = new BufferedImage(width, height,
+                alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private static byte[] exif(byte[] tiff) {
+        byte[] payload = new byte[6 + tiff.length];
+        System.arraycopy("Exif\0\0".getBytes(StandardCharsets.ISO_8859_1), 0, payload, 0, 6);
+        System.arraycopy(tiff, 0, payload, 6, tiff.length);
+        return segment(0xE1, payload);
+    }
+
+    private static byte[] comment(String text) {
+        return segment(0xFE, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] segment(int marker, byte[] payload) {
+        int length = payload.length + 2;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(0xFF);
+        out.write(marker);
+        out.write(length >> 8);
+        out.write(length & 0xFF);
+        out.write(payload, 0, payload.length);
+        return out.toByteArray();
+    }
+
+    /**
+     * Insere os segmentos logo depois do SOI.
+     */
+    private static byte[] withSegments(byte[] jpeg, byte[]... segments) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(jpeg, 0, 2);
+        for (byte[] segment : segments) {
+            out.write(segment, 0, segment.length);
+        }
+        out.write(jpeg, 2, jpeg.length - 2);
+        return out.toByteArray();
+    }
+
+    /**
+     * Insere um chunk tEXt logo depois do IHDR.
+     */
+    private static byte[] withTextChunk(byte[] png, String keyword, String text) {
+        byte[] data = (keyword + "\0" + text).getBytes(StandardCharsets.ISO_8859_1);
+        byte[] type = "tEXt".getBytes(StandardCharsets.ISO_8859_1);
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(data);
+        int afterIhdr = 8 + 12 + 13;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(png, 0, afterIhdr);
+        writeInt(out, data.length);
+        out.write(type, 0, type.length);
+        out.write(data, 0, data.length);
+        writeInt(out, (int) crc.getValue());
+        out.write(png, afterIhdr, png.length - afterIhdr);
+        return out.toByteArray();
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value) {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    private static BufferedImage read(byte[] data) throws IOException {
+        return ImageIO.read(new ByteArrayInputStream(data));
+    }
+
+    private static boolean isRed(int rgb) {
+        return ((rgb >> 16) & 0xFF) > 200 && (rgb & 0xFF) < 60;
+    }
+
+    private static boolean contains(byte[] data, byte[] needle) {
+        outer:
+        for (int i = 0; i + needle.length <= data.length; i++) {
+            for (int j = 0; j < needle.length; j++) {
+                if (data[i + j] != needle[j]) {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,74 @@
+package gcfv2;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Repositório falso para testes: implementa a interface via Proxy, registra
+ * cada chamada e responde com o handler cadastrado para o método (por nome).
+ * Sem handler, devolve o "vazio" do tipo de retorno (0, false,
+ * Optional.empty(), lista vazia, null).
+ */
+final class RepositoryFake<R> {
+
+    private final R proxy;
+    private final Map<String, Function<Object[], Object>> answers = new HashMap<>();
+    private final Map<String, List<Object[]>> calls = new HashMap<>();
+
+    private RepositoryFake(Class<R> type) {
+        this.proxy = type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+                (self, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class) {
+                        return method.invoke(this, args);
+                    }
+                    Object[] actual = args != null ? args : new Object[0];
+                    calls.computeIfAbsent(method.getName(), name -> new ArrayList<>()).add(actual);
+                    Function<Object[], Object> answer = answers.get(method.getName());
+                    return answer != null ? answer.apply(actual) : empty(method);
+                }));
+    }
+
+    static <R> RepositoryFake<R> of(Class<R> type) {
+        return new RepositoryFake<>(type);
+    }
+
+    RepositoryFake<R> on(String method, Function<Object[], Object> answer) {
+        answers.put(method, answer);
+        return this;
+    }
+
+    R get() {
+        return proxy;
+    }
+
+    List<Object[]> calls(String method) {
+        return calls.getOrDefault(method, List.of());
+    }
+
+    private static Object empty(Method method) {
+        Class<?> type = method.getReturnType();
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == Optional.class) {
+            return Optional.empty();
+        }
+        if (Collection.class.isAssignableFrom(type)) {
+            return List.of();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,168 @@
+package gcfv2.pdf;
+
+import gcfv2.pdf.PdfDocumentWriter.Font;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PdfDocumentWriterTest {
+
+    @Test
+    void documentoTemCabecalhoTrailerEContagemDePaginas() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PdfDocumentWriter pdf = new PdfDocumentWriter(out)) {
+            pdf.beginPage();
+            pdf.text(40, 800, Font.BOLD, 18, 0x000000, "Página 1");
+            pdf.beginPage();
+            pdf.text(40, 800, Font.REGULAR, 10, 0x000000, "Página 2");
+            assertEquals(2, pdf.getPageCount());
+        }
+
+        String pdf = latin1(out.toByteArray());
+        assertTrue(pdf.startsWith("%PDF-1.4\n"));
+        assertTrue(pdf.endsWith("%%EOF\n"));
+        assertTrue(pdf.contains("/Type /Pages /Kids [") && pdf.contains("/Count 2 >>"));
+        assertXrefPointsToObjects(pdf);
+    }
+
+    @Test
+    void documentoVazioGanhaUmaPaginaEmBranco() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new PdfDocumentWriter(out).close();
+
+        String pdf = latin1(out.toByteArray());
+        assertTrue(pdf.contains("/Count 1 >>"));
+        assertXrefPointsToObjects(pdf);
+    }
+
+    @Test
+    void textoEhEscapadoNoConteudoDaPagina() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PdfDocumentWriter pdf = new PdfDocumentWriter(out)) {
+            pdf.beginPage();
+            pdf.text(40, 800, Font.REGULAR, 12, 0xFF0000, "Supino (reto) 4\\8 ação");
+        }
+
+        String content = pageContents(out.toByteArray()).get(0);
+        assertTrue(content.contains("1 0 0 rg"));
+        assertTrue(content.contains("BT /F1 12 Tf 40 800 Td (Supino \\(reto\\) 4\\\\8 ação) Tj ET"));
+    }
+
+    @Test
+    void sanitizeMantemPortuguesETrocaOResto() {
+        assertEquals("Feijão com açúcar", PdfDocumentWriter.sanitize("Feijão com açúcar"));
+        assertEquals("linha 1 linha 2", PdfDocumentWriter.sanitize("linha 1\nlinha 2"));
+        assertEquals("Erdos", PdfDocumentWriter.sanitize("Erdős"));
+        assertEquals("Treino ", PdfDocumentWriter.sanitize("Treino 💪"));
+        assertEquals("", PdfDocumentWriter.sanitize(null));
+    }
+
+    @Test
+    void larguraUsaAsMetricasDaFonte() {
+        assertEquals(2.22f, PdfDocumentWriter.textWidth("i", Font.REGULAR, 10), 0.001f);
+        assertEquals(2.78f, PdfDocumentWriter.textWidth("í", Font.REGULAR, 10), 0.001f);
+        assertEquals(6.11f, PdfDocumentWriter.textWidth("b", Font.BOLD, 10), 0.001f);
+        assertEquals(PdfDocumentWriter.textWidth("Erdos", Font.REGULAR, 12),
+                PdfDocumentWriter.textWidth("Erdős", Font.REGULAR, 12), 0.001f);
+    }
+
+    @Test
+    void treinoLongoQuebraEmVariasPaginas() throws IOException {
+        List<Object> exercises = new ArrayList<>();
+        for (int i = 0; i < 80; i++) {
+            exercises.add(Map.of("name", "Exercício " + i, "sets", 4, "reps", "10-12", "rest", "60s"));
+        }
+        List<Object> days = List.of(
+                Map.of("dayLabel", "Segunda", "trainingType", "Peito", "exercises", exercises),
+                Map.of("dayLabel", "Domingo", "isRestDay", true),
+                "ignorado");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StructuredPlanPdf.writeWorkout(out, null, Map.of("Criado em", "01/10/2026"), days, "Beber água");
+
+        String pdf = latin1(out.toByteArray());
+        Matcher count = Pattern.compile("/Count (\\d+) >>").matcher(pdf);
+        assertTrue(count.find());
+        assertTrue(Integer.parseInt(count.group(1)) > 1);
+        assertXrefPointsToObjects(pdf);
+        String allText = String.join("\n", pageContents(out.toByteArray()));
+        assertTrue(allText.contains("(Plano de Treino)"));
+        assertTrue(allText.contains("Exercício 79"));
+    }
+
+    @Test
+    void dietaComCamposAusentesGeraDocumento() throws IOException {
+        List<Object> days = List.of(Map.of("dayOfWeek", "Terça", "meals", List.of(
+                Map.of("label", "Café da manhã", "items", List.of(Map.of("name", "Ovos", "calories", 140))),
+                Map.of())));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StructuredPlanPdf.writeDiet(out, "Plano Alimentar", Map.of(), days, null);
+
+        String allText = String.join("\n", pageContents(out.toByteArray()));
+        assertTrue(allText.contains("Terça"));
+        assertTrue(allText.contains("Ovos"));
+        assertTrue(allText.contains("140 kcal"));
+    }
+
+    /**
+     * Cada entrada da tabela xref aponta para o início do objeto de mesmo
+     * número.
+     */
+    private static void assertXrefPointsToObjects(String pdf) {
+        int xref = Integer.parseInt(pdf.substring(pdf.lastIndexOf("startxref\n") + 10, pdf.lastIndexOf("\n%%EOF")));
+        assertTrue(pdf.startsWith("xref\n", xref));
+        String[] lines = pdf.substring(xref).split("\n");
+        int size = Integer.parseInt(lines[1].split(" ")[1]);
+        for (int i = 1; i < size; i++) {
+            long offset = Long.parseLong(lines[2 + i].substring(0, 10));
+            assertTrue(pdf.startsWith(i + " 0 obj\n", (int) offset), "objeto " + i);
+        }
+    }
+
+    private static List<String> pageContents(byte[] pdf) throws IOException {
+        String text = latin1(pdf);
+        List<String> pages = new ArrayList<>();
+        int pos = 0;
+        while ((pos = text.indexOf(">>\nstream\n", pos)) >= 0) {
+            int start = pos + ">>\nstream\n".length();
+            int end = text.indexOf("\nendstream", start);
+            Inflater inflater = new Inflater();
+            inflater.setInput(pdf, start, end - start);
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            try {
+                while (!inflater.finished()) {
+                    int n = inflater.inflate(buffer);
+                    if (n == 0 && inflater.needsInput()) {
+                        break;
+                    }
+                    content.write(buffer, 0, n);
+                }
+            } catch (DataFormatException e) {
+                throw new IOException(e);
+            } finally {
+                inflater.end();
+            }
+            pages.add(new String(content.toByteArray(), "windows-1252"));
+            pos = end;
+        }
+        return pages;
+    }
+
+    private static String latin1(byte[] bytes) {
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,126 @@
+package gcfv2.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocalAssetStorageTest {
+
+    @TempDir
+    Path dir;
+
+    private LocalAssetStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = new LocalAssetStorage(dir.resolve("assets"));
+    }
+
+    @Test
+    void nomesQueEscapamDaRaizSaoRecusados() {
+        assertThrows(IllegalArgumentException.class, () -> storage.resolve("../fora.jpg"));
+        assertThrows(IllegalArgumentException.class, () -> storage.resolve("uploads/../../fora.jpg"));
+        assertThrows(IllegalArgumentException.class, () -> storage.resolve(dir.resolve("fora.jpg").toString()));
+        assertThrows(IllegalArgumentException.class, () -> storage.stat("../assets-irmao/a.jpg"));
+        assertThrows(IllegalArgumentException.class, () -> storage.write("../fora.jpg", new byte[1], "image/jpeg"));
+        assertFalse(Files.exists(dir.resolve("fora.jpg")));
+    }
+
+    @Test
+    void nomesNormalizadosDentroDaRaizSaoAceitos() {
+        assertEquals(storage.getRoot().resolve("uploads/a.jpg"), storage.resolve("uploads/x/../a.jpg"));
+        assertEquals(storage.getRoot().resolve("uploads/a.jpg"), storage.resolve("./uploads/a.jpg"));
+    }
+
+    @Test
+    void gravaLeEDescreveOObjeto() {
+        byte[] content = "conteúdo".getBytes(StandardCharsets.UTF_8);
+
+        ObjectInfo info = storage.write("uploads/users/10/foto.JPG", content, "image/jpeg");
+
+        assertEquals("uploads/users/10/foto.JPG", info.getName());
+        assertEquals(content.length, info.getSize());
+        assertEquals("image/jpeg", info.getContentType());
+        assertArrayEquals(content, storage.read(info));
+        assertEquals(storage.getRoot().resolve("uploads/users/10/foto.JPG"), storage.localPath(info).get());
+    }
+
+    @Test
+    void objetoInexistenteNaoTemMetadados() {
+        assertNull(storage.stat("uploads/nada.png"));
+        storage.write("uploads/pasta/a.png", new byte[1], "image/png");
+        // Diretórios não são objetos
+        assertNull(storage.stat("uploads/pasta"));
+    }
+
+    @Test
+    void regravarSubstituiSemDeixarTemporarios() throws IOException {
+        storage.write("cache/a.pdf", new byte[] { 1, 2, 3 }, "application/pdf");
+        ObjectInfo info = storage.write("cache/a.pdf", new byte[] { 9 }, "application/pdf");
+
+        assertArrayEquals(new byte[] { 9 }, storage.read(info));
+        assertEquals("application/pdf", info.getContentType());
+        try (Stream<Path> files = Files.list(storage.getRoot().resolve("cache"))) {
+            assertEquals(List.of("a.pdf"), files.map(p -> p.getFileName().toString()).toList());
+        }
+    }
+
+    @Test
+    void intervaloLidoViaMmap() throws IOException {
+        ObjectInfo info = storage.write("a/b.bin", "0123456789".getBytes(StandardCharsets.US_ASCII), null);
+
+        try (InputStream in = storage.open(info, 3, 4)) {
+            assertEquals("3456", new String(in.readAllBytes(), StandardCharsets.US_ASCII));
+        }
+        try (InputStream in = storage.open(info, 8, 100)) {
+            assertEquals("89", new String(in.readAllBytes(), StandardCharsets.US_ASCII));
+        }
+        assertEquals("application/octet-stream", info.getContentType());
+    }
+
+    @Test
+    void deletePrefixRemoveSoOsObjetosDoPrefixoEmPaginas() {
+        storage.write("uploads/users/10/a.jpg", new byte[1], "image/jpeg");
+        storage.write("uploads/users/10/b.jpg", new byte[1], "image/jpeg");
+        storage.write("uploads/users/10/sub/c.jpg", new byte[1], "image/jpeg");
+        storage.write("uploads/users/100/d.jpg", new byte[1], "image/jpeg");
+        storage.write("uploads/users/11/e.jpg", new byte[1], "image/jpeg");
+        List<Integer> pages = new ArrayList<>();
+
+        int deleted = storage.deletePrefix("uploads/users/10/", 2, pages::add);
+
+        assertEquals(3, deleted);
+        assertEquals(List.of(2, 1), pages);
+        assertNull(storage.stat("uploads/users/10/a.jpg"));
+        assertNotNull(storage.stat("uploads/users/100/d.jpg"));
+        assertNotNull(storage.stat("uploads/users/11/e.jpg"));
+    }
+
+    @Test
+    void deletePrefixDeNomeParcial() {
+        storage.write("uploads/uuid.jpg", new byte[1], "image/jpeg");
+        storage.write("uploads/uuid.thumb.jpg", new byte[1], "image/jpeg");
+        storage.write("uploads/outro.jpg", new byte[1], "image/jpeg");
+
+        assertEquals(2, storage.deletePrefix("uploads/uuid", 10));
+        assertNotNull(storage.stat("uploads/outro.jpg"));
+        assertEquals(0, storage.deletePrefix("nao/existe/", 10));
+    }
+}
@@ -0,0 +1,89 @@
+package gcfv2.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HtmlTemplateTest {
+
+    @Test
+    void slotComumEscapaHtml() {
+        HtmlTemplate template = HtmlTemplate.compile("t", "<p>Olá, {{nome}}!</p>");
+
+        String html = template.render(HtmlTemplate.slots("nome", "<b>\"Ana\" & 'Bia'</b>"));
+
+        assertEquals("<p>Olá, &lt;b&gt;&quot;Ana&quot; &amp; &#39;Bia&#39;&lt;/b&gt;!</p>", html);
+    }
+
+    @Test
+    void slotTriploInsereSemEscape() {
+        HtmlTemplate template = HtmlTemplate.compile("t", "<div>{{{corpo}}}</div>");
+
+        assertEquals("<div><a href=\"x\">link</a></div>",
+                template.render(HtmlTemplate.slots("corpo", "<a href=\"x\">link</a>")));
+    }
+
+    @Test
+    void valorNuloViraVazio() {
+        HtmlTemplate template = HtmlTemplate.compile("t", "[{{a}}][{{{b}}}]");
+
+        assertEquals("[][]", template.render(HtmlTemplate.slots("a", null, "b", null)));
+    }
+
+    @Test
+    void valorNaoTextoUsaToString() {
+        HtmlTemplate template = HtmlTemplate.compile("t", "{{creditos}} créditos");
+
+        assertEquals("12 créditos", template.render(Map.of("creditos", 12)));
+    }
+
+    @Test
+    void mesmoSlotPodeAparecerVariasVezesEComEspacos() {
+        HtmlTemplate template = HtmlTemplate.compile("t", "{{ nome }} / {{nome}}");
+
+        assertEquals("Ana / Ana", template.render(Map.of("nome", "Ana")));
+        assertEquals(List.of("nome"), List.copyOf(template.getSlots()));
+    }
+
+    @Test
+    void textoSemSlotsEhDevolvidoIgual() {
+        HtmlTemplate template = HtmlTemplate.compile("t", "<p>{ chaves soltas }</p>");
+
+        assertEquals("<p>{ chaves soltas }</p>", template.render(Map.of()));
+    }
+
+    @Test
+    void slotSemValorEhErro() {
+        HtmlTemplate template = HtmlTemplate.compile("t", "{{nome}} {{email}}");
+
+        assertThrows(IllegalArgumentException.class, () -> template.render(Map.of("nome", "Ana")));
+        // O buffer da thread continua utilizável depois do erro
+        assertEquals("Ana a@b", template.render(Map.of("nome", "Ana", "email", "a@b")));
+    }
+
+    @Test
+    void templateMalFormadoFalhaNaCompilacao() {
+        assertThrows(IllegalArgumentException.class, () -> HtmlTemplate.compile("t", "<p>{{nome</p>"));
+        assertThrows(IllegalArgumentException.class, () -> HtmlTemplate.compile("t", "<p>{{{corpo}}</p>"));
+        assertThrows(IllegalArgumentException.class, () -> HtmlTemplate.compile("t", "<p>{{ }}</p>"));
+    }
+
+    @Test
+    void paresIncompletosSaoRecusados() {
+        assertThrows(IllegalArgumentException.class, () -> HtmlTemplate.slots("nome"));
+    }
+
+    @Test
+    void renderToCompoeVariosTemplates() {
+        StringBuilder out = new StringBuilder();
+
+        HtmlTemplate.compile("a", "<h1>{{titulo}}</h1>").renderTo(out, Map.of("titulo", "A&B"));
+        HtmlTemplate.compile("b", "<p>{{texto}}</p>").renderTo(out, Map.of("texto", "fim"));
+
+        assertEquals("<h1>A&amp;B</h1><p>fim</p>", out.toString());
+    }
+}
@@ -0,0 +1,165 @@
+package gcfv2.utils;
+
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeysetPublisherTest {
+
+    @Test
+    void percorreTodasAsPaginasPelaChave() {
+        Table table = new Table(7);
+        Collector collector = new Collector();
+        new KeysetPublisher<>(table::page, id -> id, 3, Runnable::run).subscribe(collector);
+
+        collector.subscription.request(Long.MAX_VALUE);
+
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L), collector.items);
+        assertEquals(List.of(0L, 3L, 6L), table.cursors);
+        assertTrue(collector.completed);
+    }
+
+    @Test
+    void paginaCheiaNaUltimaPosicaoBuscaUmaPaginaVaziaAntesDeConcluir() {
+        Table table = new Table(6);
+        Collector collector = new Collector();
+        new KeysetPublisher<>(table::page, id -> id, 3, Runnable::run).subscribe(collector);
+
+        collector.subscription.request(Long.MAX_VALUE);
+
+        assertEquals(6, collector.items.size());
+        assertEquals(List.of(0L, 3L, 6L), table.cursors);
+        assertTrue(collector.completed);
+    }
+
+    @Test
+    void soBuscaAProximaPaginaQuandoHaDemanda() {
+        Table table = new Table(10);
+        Collector collector = new Collector();
+        new KeysetPublisher<>(table::page, id -> id, 3, Runnable::run).subscribe(collector);
+
+        collector.subscription.request(2);
+        assertEquals(List.of(1L, 2L), collector.items);
+        assertEquals(List.of(0L), table.cursors);
+
+        collector.subscription.request(2);
+        assertEquals(List.of(1L, 2L, 3L, 4L), collector.items);
+        assertEquals(List.of(0L, 3L), table.cursors);
+        assertFalse(collector.completed);
+    }
+
+    @Test
+    void cancelamentoInterrompeAsConsultas() {
+        Table table = new Table(10);
+        Collector collector = new Collector();
+        new KeysetPublisher<>(table::page, id -> id, 3, Runnable::run).subscribe(collector);
+
+        collector.subscription.request(3);
+        collector.subscription.cancel();
+        collector.subscription.request(3);
+
+        assertEquals(3, collector.items.size());
+        assertEquals(List.of(0L), table.cursors);
+        assertFalse(collector.completed);
+    }
+
+    @Test
+    void requestNaoPositivoSinalizaErro() {
+        Collector collector = new Collector();
+        new KeysetPublisher<>(new Table(3)::page, id -> id, 3, Runnable::run).subscribe(collector);
+
+        collector.subscription.request(0);
+
+        assertNotNull(collector.error);
+        assertTrue(collector.items.isEmpty());
+    }
+
+    @Test
+    void erroDeRequestEhEntreguePeloDrain() {
+        List<Runnable> pending = new ArrayList<>();
+        Collector collector = new Collector();
+        new KeysetPublisher<>(new Table(3)::page, id -> id, 3, pending::add).subscribe(collector);
+
+        collector.subscription.request(1);
+        collector.subscription.request(-1);
+
+        // Nada é sinalizado na thread de quem chamou request
+        assertNull(collector.error);
+        assertEquals(1, pending.size());
+
+        pending.remove(0).run();
+
+        assertTrue(collector.error instanceof IllegalArgumentException);
+        assertTrue(collector.items.isEmpty());
+        assertFalse(collector.completed);
+    }
+
+    @Test
+    void erroNaConsultaEncerraComOnError() {
+        Collector collector = new Collector();
+        new KeysetPublisher<Long>((afterId, limit) -> {
+            throw new IllegalStateException("falha no banco");
+        }, id -> id, 3, Runnable::run).subscribe(collector);
+
+        collector.subscription.request(1);
+
+        assertNotNull(collector.error);
+        assertEquals("falha no banco", collector.error.getMessage());
+        assertFalse(collector.completed);
+    }
+
+    /**
+     * Tabela em memória com ids 1..n; registra o cursor de cada consulta.
+     */
+    private static final class Table {
+        private final List<Long> ids;
+        private final List<Long> cursors = new ArrayList<>();
+
+        private Table(int rows) {
+            this.ids = LongStream.rangeClosed(1, rows).boxed().collect(Collectors.toList());
+        }
+
+        private List<Long> page(Long afterId, Integer limit) {
+            cursors.add(afterId);
+            return ids.stream().filter(id -> id > afterId).limit(limit).collect(Collectors.toList());
+        }
+    }
+
+    private static final class Collector implements Subscriber<Long> {
+        private final List<Long> items = new ArrayList<>();
+        private Subscription subscription;
+        private Throwable error;
+        private boolean completed;
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            this.subscription = s;
+        }
+
+        @Override
+        public void onNext(Long item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            this.error = t;
+        }
+
+        @Override
+        public void onComplete() {
+            this.completed = true;
+        }
+    }
+}